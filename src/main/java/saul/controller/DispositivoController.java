@@ -10,6 +10,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import saul.dto.request.DispositivoRequest;
 import saul.dto.response.DispositivoResponse;
+import saul.dto.response.DispositivoResumenResponse;
+import saul.service.DispositivoResumenService;
 import saul.service.DispositivoService;
 
 /**
@@ -21,6 +23,7 @@ import saul.service.DispositivoService;
 public class DispositivoController {
 
     private final DispositivoService dispositivoService;
+    private final DispositivoResumenService dispositivoResumenService;
 
     /**
      * Obtiene todos los dispositivos del sistema de forma paginada.
@@ -132,6 +135,52 @@ public class DispositivoController {
         return ResponseEntity.ok(dispositivoService.findAllActiveWithCurrentLocation(pageable));
     }
 
+    /**
+     * Obtiene el resumen de los dispositivos (ubicación actual, último mantenimiento y costo acumulado),
+     * una fila por dispositivo, con filtros opcionales.
+     * El ordenamiento usa los campos del resumen, ej: sort=costoTotal,desc o sort=fechaUltimoMantenimiento.
+     * @param idTipoDispositivo ID del tipo de dispositivo
+     * @param idTipoEstado ID del tipo de estado del dispositivo
+     * @param idLugar ID del lugar actual
+     * @param idDepartamento ID del departamento de la ubicación actual
+     * @param texto Búsqueda parcial en marca, modelo, número de serie o inventario
+     * @param diasSinMantenimiento Solo dispositivos sin mantenimiento realizado en ese número de días
+     * @param pageable Parámetros de paginación y ordenamiento
+     * @return Página con el resumen de los dispositivos que cumplen los filtros
+     */
+    @GetMapping("/resumen")
+    public ResponseEntity<Page<DispositivoResumenResponse>> findResumen(
+            @RequestParam(required = false) Integer idTipoDispositivo,
+            @RequestParam(required = false) Integer idTipoEstado,
+            @RequestParam(required = false) Integer idLugar,
+            @RequestParam(required = false) Integer idDepartamento,
+            @RequestParam(required = false) String texto,
+            @RequestParam(required = false) Integer diasSinMantenimiento,
+            @PageableDefault(size = 20, sort = "idDispositivo") Pageable pageable) {
+        return ResponseEntity.ok(dispositivoResumenService.findAll(idTipoDispositivo, idTipoEstado,
+                idLugar, idDepartamento, texto, diasSinMantenimiento, pageable));
+    }
+
+    /**
+     * Obtiene el resumen de un dispositivo.
+     * @param id ID del dispositivo
+     * @return Resumen del dispositivo
+     */
+    @GetMapping("/{id}/resumen")
+    public ResponseEntity<DispositivoResumenResponse> findResumenById(@PathVariable Long id) {
+        return ResponseEntity.ok(dispositivoResumenService.findById(id));
+    }
+
+    /**
+     * Reconstruye el resumen de todos los dispositivos desde las tablas de origen.
+     * Útil para reparar el resumen después de cambios hechos fuera de la aplicación.
+     * @return Número de dispositivos en el resumen
+     */
+    @PostMapping("/resumen/rebuild")
+    public ResponseEntity<Integer> rebuildResumen() {
+        return ResponseEntity.ok(dispositivoResumenService.rebuild());
+    }
+
     /**
      * Obtiene un dispositivo aleatorio que no ha recibido mantenimiento en el número especificado de días,
      * filtrado por tipo de dispositivo.
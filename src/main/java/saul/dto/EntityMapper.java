@@ -5,6 +5,8 @@ import saul.dto.request.*;
 import saul.dto.response.*;
 import saul.entity.*;
 
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -373,6 +375,40 @@ public class EntityMapper {
         entity.setFechaBaja(request.getFechaBaja());
     }
 
+    // ==================== DISPOSITIVO RESUMEN ====================
+
+    public DispositivoResumenResponse toResponse(DispositivoResumen entity) {
+        if (entity == null) return null;
+        DispositivoResumenResponse response = new DispositivoResumenResponse();
+        response.setIdDispositivo(entity.getIdDispositivo());
+        response.setIdTipoDispositivo(entity.getIdTipoDispositivo());
+        response.setTipoDispositivo(entity.getNombreTipo());
+        response.setMarca(entity.getMarca());
+        response.setModelo(entity.getModelo());
+        response.setNumeroSerie(entity.getNumeroSerie());
+        response.setInventario(entity.getInventario());
+        response.setIdTipoEstado(entity.getIdTipoEstado());
+        response.setTipoEstado(entity.getNombreEstado());
+        response.setCosto(entity.getCosto());
+        response.setIdLugarActual(entity.getIdLugarActual());
+        response.setLugarActual(entity.getLugarActual());
+        response.setPiso(entity.getPiso());
+        response.setEdificio(entity.getEdificio());
+        response.setIdDepartamentoActual(entity.getIdDepartamentoActual());
+        response.setDepartamentoActual(entity.getDepartamentoActual());
+        response.setFechaEntradaUbicacion(entity.getFechaEntradaUbicacion());
+        response.setFechaUltimoMantenimiento(entity.getFechaUltimoMantenimiento());
+        if (entity.getFechaUltimoMantenimiento() != null) {
+            response.setDiasSinMantenimiento(ChronoUnit.DAYS.between(entity.getFechaUltimoMantenimiento(), LocalDate.now()));
+        }
+        response.setTotalMantenimientos(entity.getTotalMantenimientos());
+        response.setMantenimientosPendientes(entity.getMantenimientosPendientes());
+        response.setCostoMantenimientos(entity.getCostoMantenimientos());
+        response.setCostoTotal(entity.getCostoTotal());
+        response.setFechaActualizacion(entity.getFechaActualizacion());
+        return response;
+    }
+
     // ==================== TICKET ====================
 
     public TicketResponse toResponse(Ticket entity) {
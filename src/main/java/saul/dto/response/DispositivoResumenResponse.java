@@ -0,0 +1,38 @@
+package saul.dto.response;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DispositivoResumenResponse {
+    private Long idDispositivo;
+    private Integer idTipoDispositivo;
+    private String tipoDispositivo;
+    private String marca;
+    private String modelo;
+    private String numeroSerie;
+    private String inventario;
+    private Integer idTipoEstado;
+    private String tipoEstado;
+    private BigDecimal costo;
+    private Integer idLugarActual;
+    private String lugarActual;
+    private String piso;
+    private String edificio;
+    private Integer idDepartamentoActual;
+    private String departamentoActual;
+    private LocalDateTime fechaEntradaUbicacion;
+    private LocalDate fechaUltimoMantenimiento;
+    private Long diasSinMantenimiento;
+    private Integer totalMantenimientos;
+    private Integer mantenimientosPendientes;
+    private BigDecimal costoMantenimientos;
+    private BigDecimal costoTotal;
+    private LocalDateTime fechaActualizacion;
+}
@@ -0,0 +1,106 @@
+package saul.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Resumen desnormalizado de un dispositivo: datos generales, ubicación actual,
+ * último mantenimiento y costo acumulado en una sola fila.
+ *
+ * Lo mantienen los servicios de dispositivos, historial de ubicación y
+ * mantenimientos en cada escritura, y los de lugares, departamentos, tipos y
+ * estados cuando cambian sus nombres; solo existen filas de dispositivos no borrados.
+ */
+@Entity
+@Table(name = "dispositivo_resumen", indexes = {
+    @Index(name = "idx_resumen_tipodispositivo", columnList = "idtipodispositivo"),
+    @Index(name = "idx_resumen_tipoestado", columnList = "idtipoestado"),
+    @Index(name = "idx_resumen_lugar", columnList = "idlugaractual"),
+    @Index(name = "idx_resumen_departamento", columnList = "iddepartamentoactual"),
+    @Index(name = "idx_resumen_ultimomantenimiento", columnList = "fechaultimomantenimiento")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DispositivoResumen {
+
+    @Id
+    @Column(name = "iddispositivo")
+    private Long idDispositivo;
+
+    @Column(name = "idtipodispositivo")
+    private Integer idTipoDispositivo;
+
+    @Column(name = "nombretipo", length = 50)
+    private String nombreTipo;
+
+    @Column(name = "marca", length = 50)
+    private String marca;
+
+    @Column(name = "modelo", length = 70)
+    private String modelo;
+
+    @Column(name = "numeroserie", length = 100)
+    private String numeroSerie;
+
+    @Column(name = "inventario", length = 30)
+    private String inventario;
+
+    @Column(name = "idtipoestado")
+    private Integer idTipoEstado;
+
+    @Column(name = "nombreestado", length = 30)
+    private String nombreEstado;
+
+    // costo de compra del dispositivo
+    @Column(name = "costo", precision = 12, scale = 2)
+    private BigDecimal costo;
+
+    // ubicación actual (historial sin fecha de salida)
+    @Column(name = "idlugaractual")
+    private Integer idLugarActual;
+
+    @Column(name = "lugaractual", length = 80)
+    private String lugarActual;
+
+    @Column(name = "piso", length = 20)
+    private String piso;
+
+    @Column(name = "edificio", length = 80)
+    private String edificio;
+
+    @Column(name = "iddepartamentoactual")
+    private Integer idDepartamentoActual;
+
+    @Column(name = "departamentoactual", length = 100)
+    private String departamentoActual;
+
+    @Column(name = "fechaentradaubicacion")
+    private LocalDateTime fechaEntradaUbicacion;
+
+    // mantenimientos
+    @Column(name = "fechaultimomantenimiento")
+    private LocalDate fechaUltimoMantenimiento;
+
+    @Column(name = "totalmantenimientos", nullable = false)
+    private Integer totalMantenimientos = 0;
+
+    @Column(name = "mantenimientospendientes", nullable = false)
+    private Integer mantenimientosPendientes = 0;
+
+    @Column(name = "costomantenimientos", nullable = false, precision = 14, scale = 2)
+    private BigDecimal costoMantenimientos = BigDecimal.ZERO;
+
+    // costo de compra más costo de mantenimientos
+    @Column(name = "costototal", nullable = false, precision = 14, scale = 2)
+    private BigDecimal costoTotal = BigDecimal.ZERO;
+
+    @Column(name = "fechaactualizacion", nullable = false)
+    private LocalDateTime fechaActualizacion;
+}
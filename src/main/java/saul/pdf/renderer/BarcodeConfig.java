@@ -24,6 +24,15 @@ public class BarcodeConfig {
         /** Codabar - Usado en bibliotecas y bancos de sangre */
         CODABAR
     }
+    /**
+     * Forma de dibujar el código en el PDF.
+     */
+    public enum RenderMode {
+        /** Rectángulos vectoriales en el content stream - Nítido a cualquier escala */
+        VECTOR,
+        /** Imagen rasterizada e incrustada en el documento */
+        IMAGE
+    }
     private BarcodeType type;
     private int width;
     private int height;
@@ -32,6 +41,7 @@ public class BarcodeConfig {
     private boolean showText;
     private int margin;
     private float opacity;
+    private RenderMode renderMode;
     /**
      * Constructor con valores por defecto.
      */
@@ -44,6 +54,7 @@ public class BarcodeConfig {
         this.showText = true;
         this.margin = 0;
         this.opacity = 1.0f;
+        this.renderMode = RenderMode.VECTOR;
     }
     // ==================== MÉTODOS FLUIDOS ====================
     public BarcodeConfig type(BarcodeType type) {
@@ -120,6 +131,18 @@ public class BarcodeConfig {
         this.opacity = Math.max(0f, Math.min(1f, opacity));
         return this;
     }
+    public BarcodeConfig renderMode(RenderMode renderMode) {
+        this.renderMode = renderMode;
+        return this;
+    }
+    public BarcodeConfig asVector() {
+        this.renderMode = RenderMode.VECTOR;
+        return this;
+    }
+    public BarcodeConfig asImage() {
+        this.renderMode = RenderMode.IMAGE;
+        return this;
+    }
     // ==================== GETTERS ====================
     public BarcodeType getType() {
         return type;
@@ -145,6 +168,12 @@ public class BarcodeConfig {
     public float getOpacity() {
         return opacity;
     }
+    public RenderMode getRenderMode() {
+        return renderMode;
+    }
+    public boolean isVector() {
+        return renderMode != RenderMode.IMAGE;
+    }
     // ==================== FACTORY METHODS ====================
     public static BarcodeConfig code128() {
         return new BarcodeConfig().type(BarcodeType.CODE_128);
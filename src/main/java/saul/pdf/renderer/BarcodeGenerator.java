@@ -13,7 +13,8 @@ import java.util.Map;
 /**
  * Generador de códigos de barras y códigos QR usando ZXing.
  * Proporciona métodos para generar imágenes BufferedImage que pueden
- * ser insertadas en documentos PDF.
+ * ser insertadas en documentos PDF, y para obtener la matriz de módulos
+ * que {@link PDFMatrixRenderer} dibuja como vectores.
  */
 public class BarcodeGenerator {
     /**
@@ -25,25 +26,26 @@ public class BarcodeGenerator {
      * @throws WriterException Si hay error al generar el código
      */
     public static BufferedImage generateBarcode(String content, BarcodeConfig config) throws WriterException {
-        if (content == null || content.isEmpty()) {
-            throw new IllegalArgumentException("El contenido del código de barras no puede estar vacío");
-        }
-        BarcodeFormat format = mapBarcodeType(config.getType());
-        Map<EncodeHintType, Object> hints = new HashMap<>();
-        hints.put(EncodeHintType.MARGIN, config.getMargin());
-        // Configuración específica según el tipo
-        if (config.getType() == BarcodeConfig.BarcodeType.CODE_128 ||
-            config.getType() == BarcodeConfig.BarcodeType.CODE_39) {
-            hints.put(EncodeHintType.CHARACTER_SET, "UTF-8");
-        }
-        MultiFormatWriter writer = new MultiFormatWriter();
-        BitMatrix bitMatrix = writer.encode(content, format, config.getWidth(), config.getHeight(), hints);
+        BitMatrix bitMatrix = encodeBarcode(content, config, config.getWidth(), config.getHeight());
         // Configurar colores
         int foregroundRGB = config.getForegroundColor().getRGB();
         int backgroundRGB = config.getBackgroundColor().getRGB();
         MatrixToImageConfig imageConfig = new MatrixToImageConfig(foregroundRGB, backgroundRGB);
         return MatrixToImageWriter.toBufferedImage(bitMatrix, imageConfig);
     }
+    /**
+     * Codifica un código de barras como matriz de módulos, sin rasterizar.
+     * Cada columna de la matriz es un módulo (incluido el margen) y tiene una sola fila,
+     * por lo que puede escalarse a cualquier tamaño sin pérdida.
+     *
+     * @param content Contenido a codificar
+     * @param config  Configuración del código de barras
+     * @return BitMatrix con un bit por módulo
+     * @throws WriterException Si hay error al generar el código
+     */
+    public static BitMatrix encodeBarcode(String content, BarcodeConfig config) throws WriterException {
+        return encodeBarcode(content, config, 0, 0);
+    }
     /**
      * Genera un código de barras con configuración por defecto.
      *
@@ -99,21 +101,26 @@ public class BarcodeGenerator {
      * @throws WriterException Si hay error al generar el código
      */
     public static BufferedImage generateQRCode(String content, QRCodeConfig config) throws WriterException {
-        if (content == null || content.isEmpty()) {
-            throw new IllegalArgumentException("El contenido del código QR no puede estar vacío");
-        }
-        Map<EncodeHintType, Object> hints = new HashMap<>();
-        hints.put(EncodeHintType.CHARACTER_SET, config.getCharset());
-        hints.put(EncodeHintType.MARGIN, config.getMargin());
-        hints.put(EncodeHintType.ERROR_CORRECTION, mapErrorCorrectionLevel(config.getErrorCorrectionLevel()));
-        MultiFormatWriter writer = new MultiFormatWriter();
-        BitMatrix bitMatrix = writer.encode(content, BarcodeFormat.QR_CODE, config.getSize(), config.getSize(), hints);
+        BitMatrix bitMatrix = encodeQRCode(content, config, config.getSize(), config.getSize());
         // Configurar colores
         int foregroundRGB = config.getForegroundColor().getRGB();
         int backgroundRGB = config.getBackgroundColor().getRGB();
         MatrixToImageConfig imageConfig = new MatrixToImageConfig(foregroundRGB, backgroundRGB);
         return MatrixToImageWriter.toBufferedImage(bitMatrix, imageConfig);
     }
+    /**
+     * Codifica un código QR como matriz de módulos, sin rasterizar.
+     * Cada bit de la matriz es un módulo (incluida la zona de silencio),
+     * por lo que puede escalarse a cualquier tamaño sin pérdida.
+     *
+     * @param content Contenido a codificar
+     * @param config  Configuración del código QR
+     * @return BitMatrix con un bit por módulo
+     * @throws WriterException Si hay error al generar el código
+     */
+    public static BitMatrix encodeQRCode(String content, QRCodeConfig config) throws WriterException {
+        return encodeQRCode(content, config, 0, 0);
+    }
     /**
      * Genera un código QR con configuración por defecto.
      *
@@ -159,6 +166,19 @@ public class BarcodeGenerator {
      */
     public static BufferedImage generateVCardQRCode(String name, String phone, String email, 
                                                      String company, int size) throws WriterException {
+        return generateQRCode(vCardContent(name, phone, email, company),
+                QRCodeConfig.defaults().size(size).highErrorCorrection());
+    }
+    /**
+     * Construye el contenido vCard para un código QR de contacto.
+     *
+     * @param name    Nombre completo
+     * @param phone   Teléfono
+     * @param email   Email
+     * @param company Empresa (opcional)
+     * @return Texto vCard
+     */
+    public static String vCardContent(String name, String phone, String email, String company) {
         StringBuilder vcard = new StringBuilder();
         vcard.append("BEGIN:VCARD\n");
         vcard.append("VERSION:3.0\n");
@@ -173,7 +193,7 @@ public class BarcodeGenerator {
             vcard.append("ORG:").append(company).append("\n");
         }
         vcard.append("END:VCARD");
-        return generateQRCode(vcard.toString(), QRCodeConfig.defaults().size(size).highErrorCorrection());
+        return vcard.toString();
     }
     /**
      * Genera un código QR para conexión WiFi.
@@ -188,6 +208,19 @@ public class BarcodeGenerator {
      */
     public static BufferedImage generateWiFiQRCode(String ssid, String password, 
                                                     String encryption, boolean hidden, int size) throws WriterException {
+        return generateQRCode(wiFiContent(ssid, password, encryption, hidden),
+                QRCodeConfig.defaults().size(size).highErrorCorrection());
+    }
+    /**
+     * Construye el contenido para un código QR de conexión WiFi.
+     *
+     * @param ssid       Nombre de la red
+     * @param password   Contraseña
+     * @param encryption Tipo de encriptación (WPA, WEP, nopass)
+     * @param hidden     Si la red está oculta
+     * @return Texto en formato WIFI:
+     */
+    public static String wiFiContent(String ssid, String password, String encryption, boolean hidden) {
         StringBuilder wifi = new StringBuilder();
         wifi.append("WIFI:");
         wifi.append("T:").append(encryption != null ? encryption : "WPA").append(";");
@@ -199,7 +232,7 @@ public class BarcodeGenerator {
             wifi.append("H:true;");
         }
         wifi.append(";");
-        return generateQRCode(wifi.toString(), QRCodeConfig.defaults().size(size).highErrorCorrection());
+        return wifi.toString();
     }
     /**
      * Genera un código QR para email.
@@ -263,10 +296,53 @@ public class BarcodeGenerator {
      * @throws WriterException Si hay error al generar el código
      */
     public static BufferedImage generateGeoQRCode(double latitude, double longitude, int size) throws WriterException {
-        String geo = String.format("geo:%f,%f", latitude, longitude);
-        return generateQRCode(geo, QRCodeConfig.defaults().size(size));
+        return generateQRCode(geoContent(latitude, longitude), QRCodeConfig.defaults().size(size));
+    }
+    /**
+     * Construye el contenido para un código QR de geolocalización.
+     *
+     * @param latitude  Latitud
+     * @param longitude Longitud
+     * @return Texto en formato geo:
+     */
+    public static String geoContent(double latitude, double longitude) {
+        return String.format("geo:%f,%f", latitude, longitude);
     }
     // ==================== MÉTODOS AUXILIARES ====================
+    /**
+     * Codifica un código de barras con las dimensiones indicadas (0 = tamaño mínimo).
+     */
+    private static BitMatrix encodeBarcode(String content, BarcodeConfig config,
+                                           int width, int height) throws WriterException {
+        if (content == null || content.isEmpty()) {
+            throw new IllegalArgumentException("El contenido del código de barras no puede estar vacío");
+        }
+        BarcodeFormat format = mapBarcodeType(config.getType());
+        Map<EncodeHintType, Object> hints = new HashMap<>();
+        hints.put(EncodeHintType.MARGIN, config.getMargin());
+        // Configuración específica según el tipo
+        if (config.getType() == BarcodeConfig.BarcodeType.CODE_128 ||
+            config.getType() == BarcodeConfig.BarcodeType.CODE_39) {
+            hints.put(EncodeHintType.CHARACTER_SET, "UTF-8");
+        }
+        MultiFormatWriter writer = new MultiFormatWriter();
+        return writer.encode(content, format, width, height, hints);
+    }
+    /**
+     * Codifica un código QR con las dimensiones indicadas (0 = tamaño mínimo).
+     */
+    private static BitMatrix encodeQRCode(String content, QRCodeConfig config,
+                                          int width, int height) throws WriterException {
+        if (content == null || content.isEmpty()) {
+            throw new IllegalArgumentException("El contenido del código QR no puede estar vacío");
+        }
+        Map<EncodeHintType, Object> hints = new HashMap<>();
+        hints.put(EncodeHintType.CHARACTER_SET, config.getCharset());
+        hints.put(EncodeHintType.MARGIN, config.getMargin());
+        hints.put(EncodeHintType.ERROR_CORRECTION, mapErrorCorrectionLevel(config.getErrorCorrectionLevel()));
+        MultiFormatWriter writer = new MultiFormatWriter();
+        return writer.encode(content, BarcodeFormat.QR_CODE, width, height, hints);
+    }
     /**
      * Mapea el tipo de código de barras interno al formato de ZXing.
      */
@@ -0,0 +1,136 @@
+package saul.pdf.renderer;
+
+import com.google.zxing.common.BitMatrix;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Código de barras o QR ya codificado y listo para dibujarse como vectores.
+ *
+ * Guarda solo las dimensiones de la matriz (en módulos) y los rectángulos que
+ * cubren los módulos oscuros: los tramos contiguos de cada fila se agrupan y los
+ * tramos idénticos de filas consecutivas se fusionan. En un código de barras cada
+ * barra queda como un único rectángulo; en un QR el número de rectángulos es mucho
+ * menor que el de módulos. Es inmutable, así que puede compartirse entre documentos.
+ */
+public final class BarcodeSymbol {
+
+    private final int columns;
+    private final int rows;
+    private final int[] rects;
+
+    private BarcodeSymbol(int columns, int rows, int[] rects) {
+        this.columns = columns;
+        this.rows = rows;
+        this.rects = rects;
+    }
+
+    /**
+     * Convierte los módulos oscuros de la matriz en rectángulos.
+     *
+     * @param matrix matriz generada por ZXing (un bit por módulo)
+     */
+    public static BarcodeSymbol of(BitMatrix matrix) {
+        int columns = matrix.getWidth();
+        int rows = matrix.getHeight();
+        List<int[]> closed = new ArrayList<>();
+        List<int[]> open = new ArrayList<>();
+
+        for (int row = 0; row < rows; row++) {
+            List<int[]> next = new ArrayList<>();
+            int openIndex = 0;
+            int column = 0;
+            while (column < columns) {
+                if (!matrix.get(column, row)) {
+                    column++;
+                    continue;
+                }
+                int start = column;
+                while (column < columns && matrix.get(column, row)) {
+                    column++;
+                }
+                // Los tramos abiertos están ordenados por columna: se cierran los que quedaron atrás
+                while (openIndex < open.size() && open.get(openIndex)[0] < start) {
+                    closed.add(open.get(openIndex++));
+                }
+                int[] rect;
+                if (openIndex < open.size()
+                        && open.get(openIndex)[0] == start && open.get(openIndex)[1] == column) {
+                    rect = open.get(openIndex++);
+                    rect[3] = row + 1;
+                } else {
+                    rect = new int[]{start, column, row, row + 1};
+                }
+                next.add(rect);
+            }
+            while (openIndex < open.size()) {
+                closed.add(open.get(openIndex++));
+            }
+            open = next;
+        }
+        closed.addAll(open);
+
+        int[] rects = new int[closed.size() * 4];
+        for (int i = 0; i < closed.size(); i++) {
+            System.arraycopy(closed.get(i), 0, rects, i * 4, 4);
+        }
+        return new BarcodeSymbol(columns, rows, rects);
+    }
+
+    /**
+     * Ancho de la matriz en módulos.
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Alto de la matriz en módulos.
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Número de rectángulos que cubren los módulos oscuros.
+     */
+    public int getRectCount() {
+        return rects.length / 4;
+    }
+
+    /**
+     * Columna inicial del rectángulo indicado.
+     */
+    public int getColumnStart(int rect) {
+        return rects[rect * 4];
+    }
+
+    /**
+     * Columna final (exclusiva) del rectángulo indicado.
+     */
+    public int getColumnEnd(int rect) {
+        return rects[rect * 4 + 1];
+    }
+
+    /**
+     * Fila inicial del rectángulo indicado; las filas crecen hacia abajo.
+     */
+    public int getRowStart(int rect) {
+        return rects[rect * 4 + 2];
+    }
+
+    /**
+     * Fila final (exclusiva) del rectángulo indicado.
+     */
+    public int getRowEnd(int rect) {
+        return rects[rect * 4 + 3];
+    }
+
+    /**
+     * Tamaño aproximado en memoria, en bytes.
+     */
+    public long getSize() {
+        return 32L + rects.length * 4L;
+    }
+}
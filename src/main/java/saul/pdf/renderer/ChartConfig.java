@@ -28,6 +28,16 @@ public class ChartConfig {
         STACKED_BAR
     }
 
+    /**
+     * Forma de incrustar el gráfico en el PDF.
+     */
+    public enum RenderMode {
+        /** Trayectorias y texto vectoriales en el content stream - Nítido y ligero */
+        VECTOR,
+        /** Imagen rasterizada e incrustada en el documento */
+        IMAGE
+    }
+
     private ChartType chartType;
     private float width;
     private float height;
@@ -41,6 +51,7 @@ public class ChartConfig {
     private Color[] seriesColors;
     private float labelFontSize;
     private float titleFontSize;
+    private RenderMode renderMode;
 
     /**
      * Constructor con valores por defecto.
@@ -59,6 +70,7 @@ public class ChartConfig {
         this.seriesColors = defaultColors();
         this.labelFontSize = 10f;
         this.titleFontSize = 14f;
+        this.renderMode = RenderMode.VECTOR;
     }
 
     private Color[] defaultColors() {
@@ -183,6 +195,21 @@ public class ChartConfig {
         return this;
     }
 
+    public ChartConfig renderMode(RenderMode renderMode) {
+        this.renderMode = renderMode;
+        return this;
+    }
+
+    public ChartConfig asVector() {
+        this.renderMode = RenderMode.VECTOR;
+        return this;
+    }
+
+    public ChartConfig asImage() {
+        this.renderMode = RenderMode.IMAGE;
+        return this;
+    }
+
     // ==================== CONFIGURACIONES PREDEFINIDAS ====================
 
     public static ChartConfig barChart(String title) {
@@ -327,5 +354,16 @@ public class ChartConfig {
     public void setTitleFontSize(float titleFontSize) {
         this.titleFontSize = titleFontSize;
     }
-}
 
+    public RenderMode getRenderMode() {
+        return renderMode;
+    }
+
+    public void setRenderMode(RenderMode renderMode) {
+        this.renderMode = renderMode;
+    }
+
+    public boolean isVector() {
+        return renderMode != RenderMode.IMAGE;
+    }
+}
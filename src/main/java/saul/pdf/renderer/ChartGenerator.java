@@ -1,5 +1,7 @@
 package saul.pdf.renderer;
 
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.labels.PieSectionLabelGenerator;
@@ -17,7 +19,10 @@ import org.jfree.data.category.DefaultCategoryDataset;
 import org.jfree.data.general.DefaultPieDataset;
 
 import java.awt.*;
+import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.text.DecimalFormat;
 import java.util.List;
 import java.util.Map;
@@ -107,6 +112,30 @@ public class ChartGenerator {
         return chart.createBufferedImage(width, height);
     }
 
+    /**
+     * Dibuja un gráfico JFreeChart como vectores directamente en el content stream.
+     *
+     * @param chart gráfico a dibujar
+     * @param document documento al que pertenece el content stream
+     * @param cs content stream de la página
+     * @param x posición X
+     * @param y posición Y (desde arriba)
+     * @param width ancho en puntos
+     * @param height alto en puntos
+     * @throws IOException si ocurre un error al escribir en el content stream
+     */
+    public void drawChart(JFreeChart chart, PDDocument document, PDPageContentStream cs,
+                          float x, float y, float width, float height) throws IOException {
+        PDFGraphics2D g2 = new PDFGraphics2D(document, cs, x, y - height, width, height);
+        try {
+            chart.draw(g2, new Rectangle2D.Float(0, 0, width, height));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            g2.dispose();
+        }
+    }
+
     /**
      * Crea un gráfico de barras.
      */
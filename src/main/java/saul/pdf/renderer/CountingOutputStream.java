@@ -0,0 +1,43 @@
+package saul.pdf.renderer;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Stream que cuenta los bytes escritos. Sirve para conocer el tamaño del PDF
+ * y los offsets de los objetos sin almacenar la salida.
+ * Al cerrarse solo vacía el buffer; el stream envuelto no se cierra.
+ */
+public class CountingOutputStream extends FilterOutputStream {
+
+    private long count;
+
+    public CountingOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        count += len;
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    /**
+     * Número de bytes escritos hasta el momento.
+     */
+    public long getCount() {
+        return count;
+    }
+}
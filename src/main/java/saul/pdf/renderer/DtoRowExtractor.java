@@ -0,0 +1,221 @@
+package saul.pdf.renderer;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Convierte DTOs en filas de tabla usando accesos precompilados por clase.
+ *
+ * Los campos de cada clase se inspeccionan una sola vez: se obtiene un
+ * {@link MethodHandle} de lectura por campo y el formateador de celda según su
+ * tipo declarado. El resultado queda en un {@link ClassValue}, por lo que las
+ * llamadas siguientes no usan reflexión.
+ *
+ * Formatos de celda:
+ * <ul>
+ *     <li>{@code LocalDate}: dd/MM/yyyy</li>
+ *     <li>{@code LocalDateTime}: dd/MM/yyyy HH:mm</li>
+ *     <li>{@code Boolean}: Sí / No</li>
+ *     <li>{@code Double} / {@code Float}: dos decimales con redondeo HALF_UP</li>
+ *     <li>{@code BigDecimal}: notación decimal sin exponente</li>
+ *     <li>null: cadena vacía</li>
+ * </ul>
+ */
+public final class DtoRowExtractor {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    // Mismo separador decimal que usaba String.format("%.2f")
+    private static final char DECIMAL_SEPARATOR =
+            DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT)).getDecimalSeparator();
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final ClassValue<DtoRowExtractor> EXTRACTORS = new ClassValue<>() {
+        @Override
+        protected DtoRowExtractor computeValue(Class<?> type) {
+            return compile(type);
+        }
+    };
+
+    private final List<String> header;
+    private final String[] names;
+    private final MethodHandle[] getters;
+    private final Function<Object, String>[] formatters;
+
+    private DtoRowExtractor(List<String> header, String[] names, MethodHandle[] getters,
+                            Function<Object, String>[] formatters) {
+        this.header = header;
+        this.names = names;
+        this.getters = getters;
+        this.formatters = formatters;
+    }
+
+    /**
+     * Obtiene el extractor de la clase indicada, compilándolo la primera vez.
+     *
+     * @param type clase del DTO
+     * @return extractor compartido de la clase
+     */
+    public static DtoRowExtractor forClass(Class<?> type) {
+        return EXTRACTORS.get(type);
+    }
+
+    /**
+     * Encabezados de la tabla derivados de los nombres de los campos.
+     */
+    public List<String> getHeader() {
+        return header;
+    }
+
+    /**
+     * Número de columnas.
+     */
+    public int getColumnCount() {
+        return getters.length;
+    }
+
+    /**
+     * Convierte un DTO en fila de la tabla.
+     *
+     * @param dto objeto de la clase del extractor (o de una subclase)
+     * @return textos de las celdas
+     */
+    public List<String> extract(Object dto) {
+        String[] cells = new String[getters.length];
+        for (int i = 0; i < getters.length; i++) {
+            Object value;
+            try {
+                value = (Object) getters[i].invokeExact(dto);
+            } catch (Throwable e) {
+                throw new IllegalStateException("No se pudo leer el campo " + names[i], e);
+            }
+            cells[i] = value != null ? formatters[i].apply(value) : "";
+        }
+        return Arrays.asList(cells);
+    }
+
+    /**
+     * Formatea un valor de celda según su tipo en tiempo de ejecución.
+     *
+     * @param value valor de la celda
+     * @return texto de la celda
+     */
+    public static String formatValue(Object value) {
+        if (value == null) return "";
+        if (value instanceof String) return (String) value;
+        if (value instanceof LocalDate) return DATE_FORMATTER.format((LocalDate) value);
+        if (value instanceof LocalDateTime) return DATETIME_FORMATTER.format((LocalDateTime) value);
+        if (value instanceof Boolean) return formatBoolean((Boolean) value);
+        if (value instanceof Double) return formatDecimal((Double) value);
+        if (value instanceof Float) return formatDecimal((Float) value);
+        if (value instanceof BigDecimal) return ((BigDecimal) value).toPlainString();
+        return value.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static DtoRowExtractor compile(Class<?> type) {
+        MethodHandles.Lookup lookup;
+        try {
+            lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("No se puede acceder a los campos de " + type.getName(), e);
+        }
+
+        List<String> header = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<MethodHandle> getters = new ArrayList<>();
+        List<Function<Object, String>> formatters = new ArrayList<>();
+
+        for (Field field : type.getDeclaredFields()) {
+            if (field.isSynthetic() || Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            try {
+                getters.add(lookup.unreflectGetter(field).asType(GETTER_TYPE));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("No se puede leer el campo " + field.getName(), e);
+            }
+            names.add(field.getName());
+            header.add(formatFieldName(field.getName()));
+            formatters.add(formatterFor(field.getType()));
+        }
+
+        return new DtoRowExtractor(
+                Collections.unmodifiableList(header),
+                names.toArray(new String[0]),
+                getters.toArray(new MethodHandle[0]),
+                formatters.toArray(new Function[0]));
+    }
+
+    /**
+     * Elige el formateador a partir del tipo declarado del campo.
+     * Los tipos no específicos (Object, Number, interfaces) se resuelven en cada celda.
+     */
+    private static Function<Object, String> formatterFor(Class<?> type) {
+        if (type == String.class) return value -> (String) value;
+        if (type == LocalDate.class) return value -> DATE_FORMATTER.format((LocalDate) value);
+        if (type == LocalDateTime.class) return value -> DATETIME_FORMATTER.format((LocalDateTime) value);
+        if (type == Boolean.class || type == boolean.class) return value -> formatBoolean((Boolean) value);
+        if (type == Double.class || type == double.class) return value -> formatDecimal((Double) value);
+        if (type == Float.class || type == float.class) return value -> formatDecimal((Float) value);
+        if (type == BigDecimal.class) return value -> ((BigDecimal) value).toPlainString();
+        if (type.isPrimitive() || type == Integer.class || type == Long.class || type == Short.class
+                || type == Byte.class || type == Character.class || type.isEnum()) {
+            return Object::toString;
+        }
+        return DtoRowExtractor::formatValue;
+    }
+
+    private static String formatBoolean(boolean value) {
+        return value ? "Sí" : "No";
+    }
+
+    private static String formatDecimal(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return Double.toString(value);
+        }
+        return formatScaled(BigDecimal.valueOf(value));
+    }
+
+    private static String formatDecimal(float value) {
+        // String.format("%.2f") amplía el float a double antes de redondear (1.005f -> "1.00")
+        return formatDecimal((double) value);
+    }
+
+    private static String formatScaled(BigDecimal value) {
+        String text = value.setScale(2, RoundingMode.HALF_UP).toPlainString();
+        return DECIMAL_SEPARATOR == '.' ? text : text.replace('.', DECIMAL_SEPARATOR);
+    }
+
+    private static String formatFieldName(String fieldName) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < fieldName.length(); i++) {
+            char c = fieldName.charAt(i);
+            if (i == 0) {
+                result.append(Character.toUpperCase(c));
+            } else if (Character.isUpperCase(c)) {
+                result.append(' ').append(c);
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,190 @@
+package saul.pdf.renderer;
+
+import java.awt.*;
+import java.util.Objects;
+
+/**
+ * Configuración del encabezado institucional de los reportes.
+ * Define los textos del hospital, las imágenes laterales y la distribución.
+ *
+ * Dos configuraciones con los mismos valores producen el mismo encabezado,
+ * por lo que la clase implementa equals/hashCode para usarse como llave de cache.
+ */
+public class HeaderConfig {
+
+    /**
+     * Distribuciones de encabezado disponibles.
+     */
+    public enum Layout {
+        /** Imágenes de 60pt, textos de 14/12/10pt, sin línea separadora */
+        COMPACT,
+        /** Imágenes de 70pt, textos de 11/9pt y línea separadora inferior */
+        CLASSIC
+    }
+
+    private static final Color CLASSIC_LINE_COLOR = new Color(0, 102, 153);
+
+    private Layout layout;
+    private String hospitalName;
+    private String departmentName;
+    private String address;
+    private String phone;
+    private String leftImagePath;
+    private String rightImagePath;
+
+    /**
+     * Constructor con valores por defecto.
+     */
+    public HeaderConfig() {
+        this.layout = Layout.COMPACT;
+        this.hospitalName = "";
+        this.departmentName = "";
+        this.address = "";
+        this.phone = "";
+        this.leftImagePath = "img/i1.png";
+        this.rightImagePath = "img/i2.png";
+    }
+
+    // ==================== MÉTODOS FLUIDOS ====================
+
+    public HeaderConfig layout(Layout layout) {
+        this.layout = layout;
+        return this;
+    }
+
+    public HeaderConfig hospitalName(String hospitalName) {
+        this.hospitalName = hospitalName;
+        return this;
+    }
+
+    public HeaderConfig departmentName(String departmentName) {
+        this.departmentName = departmentName;
+        return this;
+    }
+
+    public HeaderConfig address(String address) {
+        this.address = address;
+        return this;
+    }
+
+    public HeaderConfig phone(String phone) {
+        this.phone = phone;
+        return this;
+    }
+
+    public HeaderConfig images(String leftImagePath, String rightImagePath) {
+        this.leftImagePath = leftImagePath;
+        this.rightImagePath = rightImagePath;
+        return this;
+    }
+
+    // ==================== CONFIGURACIONES PREDEFINIDAS ====================
+
+    public static HeaderConfig compact() {
+        return new HeaderConfig().layout(Layout.COMPACT);
+    }
+
+    public static HeaderConfig classic() {
+        return new HeaderConfig().layout(Layout.CLASSIC);
+    }
+
+    // ==================== MEDIDAS DE LA DISTRIBUCIÓN ====================
+
+    /**
+     * Tamaño (ancho y alto) de las imágenes laterales.
+     */
+    public float getImageSize() {
+        return layout == Layout.CLASSIC ? 70f : 60f;
+    }
+
+    /**
+     * Espacio vertical que ocupa el encabezado en la página,
+     * es decir, cuánto avanza la posición Y del paginador.
+     */
+    public float getAdvance() {
+        return layout == Layout.CLASSIC ? getImageSize() + 15f : getImageSize() + 20f;
+    }
+
+    /**
+     * Alto de la plantilla (incluye margen para la línea separadora).
+     */
+    public float getTemplateHeight() {
+        return getImageSize() + 30f;
+    }
+
+    /**
+     * Color de la línea separadora de la distribución clásica.
+     */
+    public Color getLineColor() {
+        return CLASSIC_LINE_COLOR;
+    }
+
+    // ==================== GETTERS Y SETTERS ====================
+
+    public Layout getLayout() {
+        return layout;
+    }
+
+    public void setLayout(Layout layout) {
+        this.layout = layout;
+    }
+
+    public String getHospitalName() {
+        return hospitalName;
+    }
+
+    public void setHospitalName(String hospitalName) {
+        this.hospitalName = hospitalName;
+    }
+
+    public String getDepartmentName() {
+        return departmentName;
+    }
+
+    public void setDepartmentName(String departmentName) {
+        this.departmentName = departmentName;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public void setPhone(String phone) {
+        this.phone = phone;
+    }
+
+    public String getLeftImagePath() {
+        return leftImagePath;
+    }
+
+    public String getRightImagePath() {
+        return rightImagePath;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof HeaderConfig)) return false;
+        HeaderConfig that = (HeaderConfig) o;
+        return layout == that.layout
+                && Objects.equals(hospitalName, that.hospitalName)
+                && Objects.equals(departmentName, that.departmentName)
+                && Objects.equals(address, that.address)
+                && Objects.equals(phone, that.phone)
+                && Objects.equals(leftImagePath, that.leftImagePath)
+                && Objects.equals(rightImagePath, that.rightImagePath);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(layout, hospitalName, departmentName, address, phone, leftImagePath, rightImagePath);
+    }
+}
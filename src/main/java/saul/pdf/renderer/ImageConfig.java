@@ -37,6 +37,7 @@ public class ImageConfig {
     private boolean drawBorder;
     private float borderWidth;
     private java.awt.Color borderColor;
+    private float dpi;
 
     /**
      * Constructor con valores por defecto.
@@ -50,6 +51,7 @@ public class ImageConfig {
         this.drawBorder = false;
         this.borderWidth = 1f;
         this.borderColor = java.awt.Color.BLACK;
+        this.dpi = 150f;
     }
 
     // ==================== MÉTODOS FLUIDOS ====================
@@ -75,6 +77,16 @@ public class ImageConfig {
         return this;
     }
 
+    /**
+     * Resolución de impresión objetivo. Las imágenes con más resolución que la
+     * necesaria para su tamaño en página se reducen antes de incrustarse.
+     * Un valor de 0 conserva la resolución original.
+     */
+    public ImageConfig dpi(float dpi) {
+        this.dpi = dpi;
+        return this;
+    }
+
     public ImageConfig align(HorizontalAlign align) {
         this.horizontalAlign = align;
         return this;
@@ -203,5 +215,12 @@ public class ImageConfig {
     public void setBorderColor(java.awt.Color borderColor) {
         this.borderColor = borderColor;
     }
-}
 
+    public float getDpi() {
+        return dpi;
+    }
+
+    public void setDpi(float dpi) {
+        this.dpi = dpi;
+    }
+}
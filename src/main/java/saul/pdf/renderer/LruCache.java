@@ -0,0 +1,138 @@
+package saul.pdf.renderer;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Cache LRU acotada por peso, segura para uso concurrente.
+ *
+ * Cada valor aporta un peso (por ejemplo, su tamaño en bytes); cuando el peso
+ * total supera el máximo se descartan primero las entradas usadas hace más
+ * tiempo. Lleva contadores de aciertos, fallos y descartes para monitoreo.
+ *
+ * @param <K> tipo de la llave
+ * @param <V> tipo del valor
+ */
+public final class LruCache<K, V> {
+
+    private final long maxWeight;
+    private final ToLongFunction<? super V> weigher;
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long weight;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Crea una cache cuyo peso total no excede {@code maxWeight}.
+     *
+     * @param maxWeight peso máximo total
+     * @param weigher función que calcula el peso de cada valor
+     */
+    public LruCache(long maxWeight, ToLongFunction<? super V> weigher) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("El peso máximo debe ser mayor a cero");
+        }
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Crea una cache limitada por número de entradas.
+     *
+     * @param maxEntries número máximo de entradas
+     */
+    public LruCache(int maxEntries) {
+        this(maxEntries, value -> 1L);
+    }
+
+    /**
+     * Obtiene el valor asociado a la llave y lo marca como usado recientemente.
+     *
+     * @return el valor, o null si no está en la cache
+     */
+    public synchronized V get(K key) {
+        V value = entries.get(key);
+        if (value != null) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        return value;
+    }
+
+    /**
+     * Guarda un valor. Si su peso excede el máximo de la cache no se guarda.
+     *
+     * @return el valor guardado
+     */
+    public synchronized V put(K key, V value) {
+        long valueWeight = weigher.applyAsLong(value);
+        V previous = entries.remove(key);
+        if (previous != null) {
+            weight -= weigher.applyAsLong(previous);
+        }
+        if (valueWeight > maxWeight) {
+            return value;
+        }
+        entries.put(key, value);
+        weight += valueWeight;
+        evict();
+        return value;
+    }
+
+    /**
+     * Elimina la entrada de la llave indicada.
+     */
+    public synchronized void invalidate(K key) {
+        V previous = entries.remove(key);
+        if (previous != null) {
+            weight -= weigher.applyAsLong(previous);
+        }
+    }
+
+    /**
+     * Elimina todas las entradas.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<K, V>> it = entries.entrySet().iterator();
+        while (weight > maxWeight && it.hasNext()) {
+            Map.Entry<K, V> eldest = it.next();
+            weight -= weigher.applyAsLong(eldest.getValue());
+            it.remove();
+            evictionCount++;
+        }
+    }
+}
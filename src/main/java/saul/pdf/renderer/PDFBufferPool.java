@@ -0,0 +1,63 @@
+package saul.pdf.renderer;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Pool de buffers reutilizables para escribir un PDF completo en memoria.
+ *
+ * Se usa solo cuando la respuesta necesita conocer el tamaño antes de enviarse
+ * (Content-Length). Los buffers conservan su capacidad entre solicitudes, así que
+ * no se vuelven a crecer desde cero en cada reporte. Los buffers que crecieron
+ * más allá del límite no regresan al pool.
+ */
+public final class PDFBufferPool {
+
+    private final BlockingQueue<Buffer> buffers;
+    private final int initialCapacity;
+    private final int maxRetainedCapacity;
+
+    /**
+     * @param maxBuffers número máximo de buffers que se conservan
+     * @param initialCapacity capacidad inicial de cada buffer en bytes
+     * @param maxRetainedCapacity capacidad máxima de un buffer para regresar al pool
+     */
+    public PDFBufferPool(int maxBuffers, int initialCapacity, int maxRetainedCapacity) {
+        this.buffers = new ArrayBlockingQueue<>(Math.max(1, maxBuffers));
+        this.initialCapacity = initialCapacity;
+        this.maxRetainedCapacity = maxRetainedCapacity;
+    }
+
+    /**
+     * Obtiene un buffer vacío del pool, o uno nuevo si no hay disponibles.
+     */
+    public Buffer acquire() {
+        Buffer buffer = buffers.poll();
+        return buffer != null ? buffer : new Buffer(initialCapacity);
+    }
+
+    /**
+     * Regresa el buffer al pool. No debe usarse después de esta llamada.
+     */
+    public void release(Buffer buffer) {
+        if (buffer == null) return;
+        if (buffer.capacity() > maxRetainedCapacity) return;
+        buffer.reset();
+        buffers.offer(buffer);
+    }
+
+    /**
+     * Buffer en memoria que expone su capacidad para decidir si se conserva.
+     */
+    public static final class Buffer extends ByteArrayOutputStream {
+
+        private Buffer(int initialCapacity) {
+            super(initialCapacity);
+        }
+
+        synchronized int capacity() {
+            return buf.length;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package saul.pdf.renderer;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.jfree.chart.JFreeChart;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache global (a nivel de JVM) de gráficos ya renderizados.
+ *
+ * Cada gráfico se identifica por el hash SHA-256 de su {@link ChartConfig} y de
+ * sus datos, así que un gráfico con la misma configuración y los mismos valores
+ * se construye y dibuja una sola vez. Se guarda como {@link PDFFormTemplate}:
+ * trayectorias vectoriales o la imagen ya codificada, según el modo del gráfico.
+ * Es LRU acotada por el tamaño de las plantillas.
+ */
+public final class PDFChartCache {
+
+    private static final long MAX_CHART_BYTES = 16L * 1024 * 1024;
+
+    private static final LruCache<ChartKey, PDFFormTemplate> CHARTS =
+            new LruCache<>(MAX_CHART_BYTES, PDFFormTemplate::getSize);
+
+    private PDFChartCache() {
+    }
+
+    /**
+     * Obtiene la plantilla del gráfico, construyéndola solo la primera vez.
+     *
+     * @param config configuración del gráfico
+     * @param data datos (CategoryData para barras/líneas, PieData para pastel)
+     * @return plantilla lista para estamparse
+     * @throws IOException si no se puede dibujar el gráfico
+     */
+    public static PDFFormTemplate get(ChartConfig config, List<?> data) throws IOException {
+        ChartKey key = new ChartKey(fingerprint(config, data));
+        PDFFormTemplate template = CHARTS.get(key);
+        if (template == null) {
+            template = render(config, data);
+            CHARTS.put(key, template);
+        }
+        return template;
+    }
+
+    public static LruCache<?, ?> getCache() {
+        return CHARTS;
+    }
+
+    private static PDFFormTemplate render(ChartConfig config, List<?> data) throws IOException {
+        ChartGenerator generator = new ChartGenerator();
+        JFreeChart chart = generator.createChart(config, data);
+        float width = config.getWidth();
+        float height = config.getHeight();
+
+        try (PDDocument doc = new PDFRenderDocument()) {
+            PDPage page = new PDPage(new PDRectangle(width, height));
+            doc.addPage(page);
+            try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                if (config.isVector()) {
+                    generator.drawChart(chart, doc, cs, 0, height, width, height);
+                } else {
+                    PDImageXObject image = LosslessFactory.createFromImage(doc,
+                            generator.chartToImage(chart, (int) width, (int) height));
+                    cs.drawImage(image, 0, 0, width, height);
+                }
+            }
+            return PDFFormTemplate.fromDocument(doc);
+        }
+    }
+
+    /**
+     * Hash estable de la configuración y los datos del gráfico.
+     */
+    static byte[] fingerprint(ChartConfig config, List<?> data) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+        update(digest, config.getChartType());
+        update(digest, config.getWidth());
+        update(digest, config.getHeight());
+        update(digest, config.getTitle());
+        update(digest, config.getXAxisLabel());
+        update(digest, config.getYAxisLabel());
+        update(digest, config.isShowLegend());
+        update(digest, config.isShowLabels());
+        update(digest, config.isShow3D());
+        update(digest, rgb(config.getBackgroundColor()));
+        Color[] colors = config.getSeriesColors();
+        update(digest, colors != null ? colors.length : -1);
+        if (colors != null) {
+            for (Color color : colors) {
+                update(digest, rgb(color));
+            }
+        }
+        update(digest, config.getLabelFontSize());
+        update(digest, config.getTitleFontSize());
+        update(digest, config.getRenderMode());
+
+        update(digest, data != null ? data.size() : -1);
+        if (data != null) {
+            for (Object item : data) {
+                if (item instanceof ChartGenerator.CategoryData) {
+                    ChartGenerator.CategoryData category = (ChartGenerator.CategoryData) item;
+                    update(digest, "C");
+                    update(digest, category.getSeries());
+                    update(digest, category.getCategory());
+                    update(digest, category.getValue());
+                } else if (item instanceof ChartGenerator.PieData) {
+                    ChartGenerator.PieData pie = (ChartGenerator.PieData) item;
+                    update(digest, "P");
+                    update(digest, pie.getLabel());
+                    update(digest, pie.getValue());
+                } else if (item instanceof Map.Entry) {
+                    Map.Entry<?, ?> entry = (Map.Entry<?, ?>) item;
+                    update(digest, "E");
+                    update(digest, entry.getKey());
+                    update(digest, entry.getValue());
+                } else {
+                    update(digest, item != null ? item.getClass().getName() : null);
+                    update(digest, item);
+                }
+            }
+        }
+        return digest.digest();
+    }
+
+    private static Object rgb(Color color) {
+        return color != null ? color.getRGB() : null;
+    }
+
+    /**
+     * Agrega un valor al hash con su longitud como prefijo, para que valores
+     * contiguos no se confundan ("ab" + "c" contra "a" + "bc").
+     */
+    private static void update(MessageDigest digest, Object value) {
+        if (value == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        byte[] bytes = String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) 1);
+        digest.update((byte) (bytes.length >>> 24));
+        digest.update((byte) (bytes.length >>> 16));
+        digest.update((byte) (bytes.length >>> 8));
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+    }
+
+    /**
+     * Llave por contenido: hash SHA-256 de la configuración y los datos.
+     */
+    private static final class ChartKey {
+        private final byte[] hash;
+        private final int hashCode;
+
+        ChartKey(byte[] hash) {
+            this.hash = hash;
+            this.hashCode = Arrays.hashCode(hash);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ChartKey && Arrays.equals(hash, ((ChartKey) o).hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
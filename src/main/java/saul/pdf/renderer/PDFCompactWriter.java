@@ -0,0 +1,439 @@
+package saul.pdf.renderer;
+
+import org.apache.pdfbox.cos.*;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdfwriter.COSWriter;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Escritor de PDF compacto (PDF 1.5).
+ *
+ * PDFBox 2.0 guarda cada objeto como un objeto indirecto sin comprimir y una
+ * tabla xref clásica. Este escritor recorre el documento una sola vez y:
+ * <ul>
+ *     <li>agrupa los objetos que no son streams en streams de objetos
+ *     ({@code /Type /ObjStm}) comprimidos con Flate;</li>
+ *     <li>escribe la tabla de referencias cruzadas como stream comprimido
+ *     ({@code /Type /XRef});</li>
+ *     <li>opcionalmente comprime los streams que no tienen filtro.</li>
+ * </ul>
+ * Los streams ya codificados (contenido de página, imágenes, fuentes) se copian
+ * sin decodificarse. Los documentos cifrados se guardan de la forma normal.
+ */
+public final class PDFCompactWriter {
+
+    private static final byte[] HEADER_BINARY = {'%', (byte) 0xE2, (byte) 0xE3, (byte) 0xCF, (byte) 0xD3, '\n'};
+
+    // PDDocument.getFontsToSubset() es de paquete en PDFBox 2.0
+    private static final Method FONTS_TO_SUBSET = fontsToSubsetMethod();
+
+    private final PDFSaveOptions options;
+
+    public PDFCompactWriter(PDFSaveOptions options) {
+        this.options = options != null ? options : PDFSaveOptions.compact();
+    }
+
+    /**
+     * Escribe el documento completo en el stream de salida.
+     * Después de esta llamada el documento no debe guardarse de nuevo con
+     * {@link PDDocument#save}, porque las fuentes ya fueron reducidas a su subconjunto.
+     *
+     * @param document documento a escribir
+     * @param output stream de salida (no se cierra)
+     * @return número de bytes escritos
+     * @throws IOException si ocurre un error al leer o escribir los objetos
+     */
+    public long write(PDDocument document, OutputStream output) throws IOException {
+        if (document.isEncrypted()) {
+            CountingOutputStream counting = new CountingOutputStream(output);
+            document.save(counting);
+            return counting.getCount();
+        }
+
+        // Lo que PDDocument.save haría antes de escribir: incrustar los subconjuntos de fuente
+        subsetFonts(document);
+        if (document.getVersion() < 1.5f) {
+            document.setVersion(1.5f);
+        }
+
+        Session session = new Session(document, output);
+        session.write();
+        return session.out.getCount();
+    }
+
+    /**
+     * Incrusta el subconjunto de cada fuente usada en el documento y vacía la lista,
+     * igual que {@link PDDocument#save}. PDPageContentStream registra ahí toda fuente
+     * con subconjunto, sin importar si vino de {@link PDFFontRegistry} o no.
+     */
+    private static void subsetFonts(PDDocument document) throws IOException {
+        Set<PDFont> fonts = fontsToSubset(document);
+        for (PDFont font : fonts) {
+            font.subset();
+        }
+        fonts.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<PDFont> fontsToSubset(PDDocument document) throws IOException {
+        try {
+            return (Set<PDFont>) FONTS_TO_SUBSET.invoke(document);
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("No se pudo leer las fuentes a reducir del documento", e);
+        }
+    }
+
+    private static Method fontsToSubsetMethod() {
+        try {
+            Method method = PDDocument.class.getDeclaredMethod("getFontsToSubset");
+            method.setAccessible(true);
+            return method;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("PDDocument.getFontsToSubset no está disponible", e);
+        }
+    }
+
+    /**
+     * Estado de una escritura: numeración de objetos, lote de objetos
+     * pendientes y posiciones para el stream de referencias.
+     */
+    private final class Session {
+
+        private final PDDocument document;
+        private final CountingOutputStream out;
+
+        // Número de objeto de cada objeto indirecto (por identidad)
+        private final Map<COSBase, Integer> numbers = new IdentityHashMap<>();
+        // Objetos por escribir; el índice + 1 es el número de objeto (null = stream de objetos)
+        private final List<COSBase> objects = new ArrayList<>();
+        // Por número de objeto: offset (tipo 1) o número del stream de objetos (tipo 2)
+        private final List<long[]> xref = new ArrayList<>();
+
+        private final ByteArrayOutputStream batch = new ByteArrayOutputStream();
+        private final StringBuilder batchHeader = new StringBuilder();
+        private final List<Integer> batchNumbers = new ArrayList<>();
+
+        Session(PDDocument document, OutputStream output) {
+            this.document = document;
+            this.out = new CountingOutputStream(output);
+        }
+
+        void write() throws IOException {
+            COSDictionary trailer = document.getDocument().getTrailer();
+            COSBase root = dereference(trailer.getItem(COSName.ROOT));
+            COSBase info = dereference(trailer.getItem(COSName.INFO));
+
+            out.write(("%PDF-" + document.getVersion() + "\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(HEADER_BINARY);
+
+            int rootNumber = reference(root);
+            int infoNumber = info instanceof COSDictionary ? reference(info) : 0;
+
+            // La lista crece mientras se descubren referencias nuevas
+            for (int i = 0; i < objects.size(); i++) {
+                COSBase object = objects.get(i);
+                if (object instanceof COSStream) {
+                    writeStreamObject(i + 1, (COSStream) object);
+                } else if (object != null) {
+                    addToBatch(i + 1, object);
+                }
+            }
+            flushBatch();
+
+            COSBase id = trailer.getDictionaryObject(COSName.ID);
+            writeXRefStream(rootNumber, infoNumber, id instanceof COSArray ? (COSArray) id : null);
+        }
+
+        // ==================== NUMERACIÓN ====================
+
+        private int reference(COSBase object) {
+            Integer number = numbers.get(object);
+            if (number == null) {
+                number = reserve(object);
+                numbers.put(object, number);
+            }
+            return number;
+        }
+
+        private int reserve(COSBase object) {
+            objects.add(object);
+            xref.add(null);
+            return objects.size();
+        }
+
+        private COSBase dereference(COSBase value) {
+            return value instanceof COSObject ? ((COSObject) value).getObject() : value;
+        }
+
+        /**
+         * Los streams, los diccionarios no marcados como directos y todo lo que
+         * ya era indirecto (salvo valores simples) se escriben como referencia.
+         */
+        private boolean isIndirect(COSBase value, COSBase target) {
+            if (target instanceof COSStream) return true;
+            if (target instanceof COSDictionary) {
+                return value instanceof COSObject || !((COSDictionary) target).isDirect();
+            }
+            return value instanceof COSObject && target instanceof COSArray;
+        }
+
+        // ==================== SERIALIZACIÓN ====================
+
+        private void writeValue(COSBase value, OutputStream o) throws IOException {
+            COSBase target = dereference(value);
+            if (target == null) {
+                COSNull.NULL.writePDF(o);
+            } else if (isIndirect(value, target)) {
+                writeAscii(o, reference(target) + " 0 R");
+            } else if (target instanceof COSDictionary) {
+                writeDictionary((COSDictionary) target, o);
+            } else if (target instanceof COSArray) {
+                writeArray((COSArray) target, o);
+            } else if (target instanceof COSString) {
+                COSWriter.writeString((COSString) target, o);
+            } else if (target instanceof COSName) {
+                ((COSName) target).writePDF(o);
+            } else if (target instanceof COSInteger) {
+                ((COSInteger) target).writePDF(o);
+            } else if (target instanceof COSFloat) {
+                ((COSFloat) target).writePDF(o);
+            } else if (target instanceof COSBoolean) {
+                ((COSBoolean) target).writePDF(o);
+            } else {
+                COSNull.NULL.writePDF(o);
+            }
+        }
+
+        private void writeDictionary(COSDictionary dictionary, OutputStream o) throws IOException {
+            o.write('<');
+            o.write('<');
+            for (Map.Entry<COSName, COSBase> entry : dictionary.entrySet()) {
+                writeEntry(entry.getKey(), entry.getValue(), o);
+            }
+            o.write('>');
+            o.write('>');
+        }
+
+        private void writeEntry(COSName key, COSBase value, OutputStream o) throws IOException {
+            key.writePDF(o);
+            o.write(' ');
+            writeValue(value, o);
+            o.write('\n');
+        }
+
+        private void writeArray(COSArray array, OutputStream o) throws IOException {
+            o.write('[');
+            for (int i = 0; i < array.size(); i++) {
+                if (i > 0) o.write(' ');
+                writeValue(array.get(i), o);
+            }
+            o.write(']');
+        }
+
+        // ==================== STREAMS ====================
+
+        private void writeStreamObject(int number, COSStream stream) throws IOException {
+            if (options.isCompressStreams() && stream.getFilters() == null
+                    && !COSName.METADATA.equals(stream.getCOSName(COSName.TYPE))) {
+                // Sin filtro los bytes crudos son los decodificados
+                byte[] raw;
+                try (InputStream in = stream.createRawInputStream()) {
+                    raw = IOUtils.toByteArray(in);
+                }
+                byte[] deflated = deflate(raw);
+                if (deflated.length < raw.length) {
+                    writeStream(number, stream, deflated, COSName.FLATE_DECODE);
+                } else {
+                    writeStream(number, stream, raw, null);
+                }
+                return;
+            }
+            writeStream(number, stream, null, null);
+        }
+
+        /**
+         * Escribe un stream como objeto indirecto. Si {@code data} es null se
+         * copian los bytes codificados del stream original.
+         */
+        private void writeStream(int number, COSStream stream, byte[] data, COSName filter) throws IOException {
+            // Primero se serializa el diccionario: puede reservar números nuevos
+            ByteArrayOutputStream dictionary = new ByteArrayOutputStream();
+            dictionary.write('<');
+            dictionary.write('<');
+            for (Map.Entry<COSName, COSBase> entry : stream.entrySet()) {
+                COSName key = entry.getKey();
+                if (COSName.LENGTH.equals(key)) continue;
+                if (filter != null && (COSName.FILTER.equals(key) || COSName.DECODE_PARMS.equals(key))) continue;
+                writeEntry(key, entry.getValue(), dictionary);
+            }
+            if (filter != null) {
+                writeEntry(COSName.FILTER, filter, dictionary);
+            }
+            long length = data != null ? data.length : stream.getLength();
+            writeEntry(COSName.LENGTH, COSInteger.get(length), dictionary);
+            dictionary.write('>');
+            dictionary.write('>');
+
+            xref.set(number - 1, new long[]{1, out.getCount(), 0});
+            writeAscii(out, number + " 0 obj\n");
+            dictionary.writeTo(out);
+            writeAscii(out, "\nstream\r\n");
+            if (data != null) {
+                out.write(data);
+            } else {
+                try (InputStream in = stream.createRawInputStream()) {
+                    IOUtils.copy(in, out);
+                }
+            }
+            writeAscii(out, "\r\nendstream\nendobj\n");
+        }
+
+        // ==================== STREAMS DE OBJETOS ====================
+
+        private void addToBatch(int number, COSBase object) throws IOException {
+            int index = batchNumbers.size();
+            batchHeader.append(number).append(' ').append(batch.size()).append(' ');
+            batchNumbers.add(number);
+            // La posición (tipo 2) se completa al escribir el stream de objetos
+            xref.set(number - 1, new long[]{2, 0, index});
+            // El objeto se escribe completo, no como referencia a sí mismo
+            if (object instanceof COSDictionary) {
+                writeDictionary((COSDictionary) object, batch);
+            } else if (object instanceof COSArray) {
+                writeArray((COSArray) object, batch);
+            } else {
+                writeValue(object, batch);
+            }
+            batch.write('\n');
+
+            if (batchNumbers.size() >= options.getObjectsPerStream()) {
+                flushBatch();
+            }
+        }
+
+        private void flushBatch() throws IOException {
+            if (batchNumbers.isEmpty()) return;
+
+            int streamNumber = reserve(null);
+            byte[] header = batchHeader.toString().getBytes(StandardCharsets.US_ASCII);
+            ByteArrayOutputStream content = new ByteArrayOutputStream(header.length + batch.size());
+            content.write(header);
+            batch.writeTo(content);
+            byte[] data = deflate(content.toByteArray());
+
+            for (Integer number : batchNumbers) {
+                xref.get(number - 1)[1] = streamNumber;
+            }
+
+            xref.set(streamNumber - 1, new long[]{1, out.getCount(), 0});
+            writeAscii(out, streamNumber + " 0 obj\n<</Type /ObjStm /N " + batchNumbers.size()
+                    + " /First " + header.length + " /Filter /FlateDecode /Length " + data.length
+                    + ">>\nstream\r\n");
+            out.write(data);
+            writeAscii(out, "\r\nendstream\nendobj\n");
+
+            batch.reset();
+            batchHeader.setLength(0);
+            batchNumbers.clear();
+        }
+
+        // ==================== REFERENCIAS CRUZADAS ====================
+
+        private void writeXRefStream(int rootNumber, int infoNumber, COSArray id) throws IOException {
+            int xrefNumber = reserve(null);
+            long xrefOffset = out.getCount();
+            xref.set(xrefNumber - 1, new long[]{1, xrefOffset, 0});
+
+            int size = xrefNumber + 1;
+            int offsetWidth = bytesFor(Math.max(xrefOffset, size));
+
+            ByteBuffer entries = ByteBuffer.allocate(size * (1 + offsetWidth + 2));
+            // Objeto 0: cabeza de la lista de libres
+            putEntry(entries, 0, 0, 0xFFFF, offsetWidth);
+            for (long[] entry : xref) {
+                putEntry(entries, (int) entry[0], entry[1], (int) entry[2], offsetWidth);
+            }
+            byte[] data = deflate(entries.array());
+
+            ByteArrayOutputStream dictionary = new ByteArrayOutputStream();
+            writeAscii(dictionary, "<</Type /XRef /Size " + size
+                    + " /W [1 " + offsetWidth + " 2] /Root " + rootNumber + " 0 R");
+            if (infoNumber > 0) {
+                writeAscii(dictionary, " /Info " + infoNumber + " 0 R");
+            }
+            writeAscii(dictionary, " /ID ");
+            writeValue(id != null && id.size() == 2 ? id : newId(), dictionary);
+            writeAscii(dictionary, " /Filter /FlateDecode /Length " + data.length + ">>");
+
+            writeAscii(out, xrefNumber + " 0 obj\n");
+            dictionary.writeTo(out);
+            writeAscii(out, "\nstream\r\n");
+            out.write(data);
+            writeAscii(out, "\r\nendstream\nendobj\nstartxref\n" + xrefOffset + "\n%%EOF\n");
+            out.flush();
+        }
+
+        private void putEntry(ByteBuffer buffer, int type, long field2, int field3, int width) {
+            buffer.put((byte) type);
+            for (int shift = (width - 1) * 8; shift >= 0; shift -= 8) {
+                buffer.put((byte) (field2 >>> shift));
+            }
+            buffer.put((byte) (field3 >>> 8));
+            buffer.put((byte) field3);
+        }
+
+        private COSArray newId() {
+            UUID uuid = UUID.randomUUID();
+            byte[] bytes = ByteBuffer.allocate(16)
+                    .putLong(uuid.getMostSignificantBits())
+                    .putLong(uuid.getLeastSignificantBits())
+                    .array();
+            COSString value = new COSString(bytes);
+            value.setForceHexForm(true);
+            COSArray id = new COSArray();
+            id.add(value);
+            id.add(value);
+            return id;
+        }
+    }
+
+    private byte[] deflate(byte[] data) throws IOException {
+        Deflater deflater = new Deflater(options.getCompressionLevel());
+        ByteArrayOutputStream result = new ByteArrayOutputStream(Math.max(64, data.length / 3));
+        try (DeflaterOutputStream out = new DeflaterOutputStream(result, deflater)) {
+            out.write(data);
+        } finally {
+            deflater.end();
+        }
+        return result.toByteArray();
+    }
+
+    private static int bytesFor(long value) {
+        int bytes = 1;
+        while (bytes < 8 && (value >>> (bytes * 8)) != 0) {
+            bytes++;
+        }
+        return bytes;
+    }
+
+    private static void writeAscii(OutputStream out, String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,80 @@
+package saul.pdf.renderer;
+
+/**
+ * Contadores del contenido generado para un documento.
+ *
+ * Permiten comparar el tamaño de los content streams y el trabajo ahorrado por
+ * {@link PDFContentWriter} con la optimización activa y desactivada.
+ */
+public final class PDFContentStats {
+
+    private long pages;
+    private long contentBytes;
+    private long suppressedOperators;
+    private long mergedFills;
+    private long mergedStrokes;
+    private long mergedTextObjects;
+
+    synchronized void addPage(long streamBytes) {
+        pages++;
+        contentBytes += streamBytes;
+    }
+
+    synchronized void addSuppressedOperator() {
+        suppressedOperators++;
+    }
+
+    synchronized void addMergedFills(long count) {
+        mergedFills += count;
+    }
+
+    synchronized void addMergedStrokes(long count) {
+        mergedStrokes += count;
+    }
+
+    synchronized void addMergedTextObjects(long count) {
+        mergedTextObjects += count;
+    }
+
+    /**
+     * Páginas terminadas por el paginador.
+     */
+    public synchronized long getPages() {
+        return pages;
+    }
+
+    /**
+     * Tamaño total (codificado) de los content streams de esas páginas.
+     */
+    public synchronized long getContentBytes() {
+        return contentBytes;
+    }
+
+    /**
+     * Cambios de estado omitidos porque no cambiaban nada.
+     */
+    public synchronized long getSuppressedOperators() {
+        return suppressedOperators;
+    }
+
+    /**
+     * Rectángulos de relleno agregados a una trayectoria existente en lugar de pintarse solos.
+     */
+    public synchronized long getMergedFills() {
+        return mergedFills;
+    }
+
+    /**
+     * Rectángulos de borde agregados a una trayectoria existente en lugar de trazarse solos.
+     */
+    public synchronized long getMergedStrokes() {
+        return mergedStrokes;
+    }
+
+    /**
+     * Objetos de texto (BT/ET) evitados al agrupar el texto.
+     */
+    public synchronized long getMergedTextObjects() {
+        return mergedTextObjects;
+    }
+}
@@ -0,0 +1,290 @@
+package saul.pdf.renderer;
+
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Escritor de content stream que recuerda el estado gráfico y de texto.
+ *
+ * Los rellenos, bordes y textos se acumulan y se escriben en {@link #flush()} por
+ * capas: primero los rellenos (una sola trayectoria por color), luego los bordes
+ * (una trayectoria por estilo de línea) y al final todo el texto en un solo objeto
+ * BT/ET. Los cambios de color, grosor, patrón de línea y fuente que no cambian
+ * nada se omiten. Está pensado para contenido que no se encima entre sí, como las
+ * celdas de una tabla; el contenido se emite en orden respecto a lo que se dibuje
+ * antes o después de cada {@code flush()}.
+ *
+ * Con la optimización desactivada cada operación se escribe de inmediato y con
+ * todo su estado, como lo haría el dibujo directo, para poder comparar.
+ */
+public final class PDFContentWriter {
+
+    private final PDPageContentStream cs;
+    private final boolean optimize;
+    private final PDFContentStats stats;
+
+    private final Map<Color, List<float[]>> fills = new LinkedHashMap<>();
+    private final Map<StrokeStyle, List<float[]>> strokes = new LinkedHashMap<>();
+    private final List<TextRun> texts = new ArrayList<>();
+
+    // Estado escrito en el content stream; null o NaN = desconocido
+    private Color nonStrokingColor;
+    private Color strokingColor;
+    private float lineWidth = Float.NaN;
+    private float[] dashArray;
+    private float dashPhase;
+    private PDFont font;
+    private float fontSize = Float.NaN;
+
+    /**
+     * @param cs content stream destino
+     * @param optimize true para acumular y omitir cambios de estado redundantes
+     * @param stats contadores donde se registra el trabajo ahorrado (null = sin registro)
+     */
+    public PDFContentWriter(PDPageContentStream cs, boolean optimize, PDFContentStats stats) {
+        this.cs = cs;
+        this.optimize = optimize;
+        this.stats = stats != null ? stats : new PDFContentStats();
+    }
+
+    /**
+     * Escritor con la optimización activa.
+     */
+    public PDFContentWriter(PDPageContentStream cs) {
+        this(cs, true, null);
+    }
+
+    /**
+     * Rellena un rectángulo con el color indicado.
+     */
+    public void fillRect(float x, float y, float width, float height, Color color) throws IOException {
+        if (!optimize) {
+            cs.setNonStrokingColor(color);
+            cs.addRect(x, y, width, height);
+            cs.fill();
+            return;
+        }
+        fills.computeIfAbsent(color, c -> new ArrayList<>()).add(new float[]{x, y, width, height});
+    }
+
+    /**
+     * Traza el borde de un rectángulo con el estilo indicado.
+     *
+     * @param dashArray patrón de línea (null o vacío = continua)
+     */
+    public void strokeRect(float x, float y, float width, float height,
+                           Color color, float lineWidth, float[] dashArray) throws IOException {
+        if (!optimize) {
+            cs.setStrokingColor(color);
+            cs.setLineWidth(lineWidth);
+            if (dashArray != null && dashArray.length > 0) {
+                cs.setLineDashPattern(dashArray, 0);
+            }
+            cs.addRect(x, y, width, height);
+            cs.stroke();
+            if (dashArray != null && dashArray.length > 0) {
+                cs.setLineDashPattern(new float[]{}, 0);
+            }
+            return;
+        }
+        StrokeStyle style = new StrokeStyle(color, lineWidth, dashArray);
+        strokes.computeIfAbsent(style, s -> new ArrayList<>()).add(new float[]{x, y, width, height});
+    }
+
+    /**
+     * Escribe una línea de texto con su línea base en (x, y).
+     */
+    public void showText(String text, float x, float y, PDFont font, float fontSize, Color color) throws IOException {
+        if (!optimize) {
+            cs.setNonStrokingColor(color);
+            cs.setFont(font, fontSize);
+            cs.beginText();
+            cs.newLineAtOffset(x, y);
+            cs.showText(text);
+            cs.endText();
+            return;
+        }
+        texts.add(new TextRun(text, x, y, font, fontSize, color));
+    }
+
+    /**
+     * Escribe en el content stream todo lo acumulado.
+     */
+    public void flush() throws IOException {
+        if (!optimize) return;
+
+        for (Map.Entry<Color, List<float[]>> entry : fills.entrySet()) {
+            setNonStrokingColor(entry.getKey());
+            for (float[] rect : entry.getValue()) {
+                cs.addRect(rect[0], rect[1], rect[2], rect[3]);
+            }
+            cs.fill();
+            stats.addMergedFills(entry.getValue().size() - 1);
+        }
+        fills.clear();
+
+        for (Map.Entry<StrokeStyle, List<float[]>> entry : strokes.entrySet()) {
+            StrokeStyle style = entry.getKey();
+            setStrokingColor(style.color);
+            setLineWidth(style.width);
+            setLineDashPattern(style.dashArray);
+            for (float[] rect : entry.getValue()) {
+                cs.addRect(rect[0], rect[1], rect[2], rect[3]);
+            }
+            cs.stroke();
+            stats.addMergedStrokes(entry.getValue().size() - 1);
+        }
+        strokes.clear();
+
+        if (!texts.isEmpty()) {
+            // Dentro de BT la matriz de línea empieza en el origen; cada Td es relativo a la anterior
+            float lineX = 0;
+            float lineY = 0;
+            cs.beginText();
+            for (TextRun run : texts) {
+                setFont(run.font, run.fontSize);
+                setNonStrokingColor(run.color);
+                cs.newLineAtOffset(run.x - lineX, run.y - lineY);
+                cs.showText(run.text);
+                lineX = run.x;
+                lineY = run.y;
+            }
+            cs.endText();
+            stats.addMergedTextObjects(texts.size() - 1);
+            texts.clear();
+        }
+    }
+
+    /**
+     * Escribe lo acumulado y olvida el estado conocido, para que otro código pueda
+     * escribir directo en el content stream. El patrón de línea se deja continuo.
+     */
+    public void reset() throws IOException {
+        flush();
+        if (dashArray != null && dashArray.length > 0) {
+            cs.setLineDashPattern(new float[]{}, 0);
+        }
+        nonStrokingColor = null;
+        strokingColor = null;
+        lineWidth = Float.NaN;
+        dashArray = null;
+        dashPhase = 0;
+        font = null;
+        fontSize = Float.NaN;
+    }
+
+    public boolean isOptimize() {
+        return optimize;
+    }
+
+    public PDFContentStats getStats() {
+        return stats;
+    }
+
+    // ==================== ESTADO ====================
+
+    private void setNonStrokingColor(Color color) throws IOException {
+        if (color.equals(nonStrokingColor)) {
+            stats.addSuppressedOperator();
+            return;
+        }
+        cs.setNonStrokingColor(color);
+        nonStrokingColor = color;
+    }
+
+    private void setStrokingColor(Color color) throws IOException {
+        if (color.equals(strokingColor)) {
+            stats.addSuppressedOperator();
+            return;
+        }
+        cs.setStrokingColor(color);
+        strokingColor = color;
+    }
+
+    private void setLineWidth(float width) throws IOException {
+        if (width == lineWidth) {
+            stats.addSuppressedOperator();
+            return;
+        }
+        cs.setLineWidth(width);
+        lineWidth = width;
+    }
+
+    private void setLineDashPattern(float[] pattern) throws IOException {
+        float[] normalized = pattern != null ? pattern : new float[]{};
+        if (dashArray != null && dashPhase == 0 && Arrays.equals(normalized, dashArray)) {
+            stats.addSuppressedOperator();
+            return;
+        }
+        cs.setLineDashPattern(normalized, 0);
+        dashArray = normalized;
+        dashPhase = 0;
+    }
+
+    private void setFont(PDFont font, float fontSize) throws IOException {
+        if (font == this.font && fontSize == this.fontSize) {
+            stats.addSuppressedOperator();
+            return;
+        }
+        cs.setFont(font, fontSize);
+        this.font = font;
+        this.fontSize = fontSize;
+    }
+
+    /**
+     * Estilo de un borde: color, grosor y patrón.
+     */
+    private static final class StrokeStyle {
+        private final Color color;
+        private final float width;
+        private final float[] dashArray;
+
+        StrokeStyle(Color color, float width, float[] dashArray) {
+            this.color = color;
+            this.width = width;
+            this.dashArray = dashArray != null ? dashArray : new float[]{};
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof StrokeStyle)) return false;
+            StrokeStyle that = (StrokeStyle) o;
+            return width == that.width && color.equals(that.color) && Arrays.equals(dashArray, that.dashArray);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hash(color, width) + Arrays.hashCode(dashArray);
+        }
+    }
+
+    /**
+     * Línea de texto pendiente de escribir.
+     */
+    private static final class TextRun {
+        private final String text;
+        private final float x;
+        private final float y;
+        private final PDFont font;
+        private final float fontSize;
+        private final Color color;
+
+        TextRun(String text, float x, float y, PDFont font, float fontSize, Color color) {
+            this.text = text;
+            this.x = x;
+            this.y = y;
+            this.font = font;
+            this.fontSize = fontSize;
+            this.color = color;
+        }
+    }
+}
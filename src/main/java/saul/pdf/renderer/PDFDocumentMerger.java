@@ -0,0 +1,87 @@
+package saul.pdf.renderer;
+
+import org.apache.pdfbox.multipdf.PDFMergerUtility;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+
+import java.io.IOException;
+
+/**
+ * Une en orden los documentos parciales de un reporte generado por partes.
+ *
+ * Cada parte llega ya guardada (sus fuentes ya están reducidas a los glifos
+ * usados), se lee y se copian sus páginas al documento destino. Como cada parte
+ * se pagina por separado, la numeración "p. X de Y" se escribe al final con
+ * {@link #stampPageFooters(PageFooterConfig)}, cuando ya se conoce el total.
+ */
+public final class PDFDocumentMerger {
+
+    private final PDDocument target;
+    private final PDFMergerUtility merger = new PDFMergerUtility();
+
+    /**
+     * @param target documento que recibe las páginas de todas las partes
+     */
+    public PDFDocumentMerger(PDDocument target) {
+        if (target == null) {
+            throw new IllegalArgumentException("El documento destino no puede ser null");
+        }
+        this.target = target;
+    }
+
+    /**
+     * Agrega al final las páginas de una parte ya guardada.
+     *
+     * @param part bytes del documento parcial
+     * @throws IOException si la parte no se puede leer o copiar
+     */
+    public void append(byte[] part) throws IOException {
+        try (PDDocument source = PDDocument.load(part)) {
+            merger.appendDocument(target, source);
+        }
+    }
+
+    /**
+     * Escribe el pie de página en todas las páginas del documento unido,
+     * con el mismo formato y posición que {@link PDFPaginator#pageFooter(PageFooterConfig)}.
+     *
+     * @param config configuración del pie de página (null no escribe nada)
+     * @throws IOException si ocurre un error al escribir en las páginas
+     */
+    public void stampPageFooters(PageFooterConfig config) throws IOException {
+        if (config == null) return;
+
+        int totalPages = target.getNumberOfPages();
+        PDFont font = PDFFontRegistry.forDocument(target).getFont(config.getFontStyle());
+        float fontSize = config.getFontSize();
+        float y = config.getY();
+
+        for (int i = 0; i < totalPages; i++) {
+            PDPage page = target.getPage(i);
+            float x = page.getMediaBox().getWidth() - config.getMarginRight();
+            String label = config.getPageLabel() + (i + 1)
+                    + (config.isShowTotal() ? config.getTotalSeparator() + totalPages : "");
+
+            try (PDPageContentStream cs = new PDPageContentStream(target, page,
+                    PDPageContentStream.AppendMode.APPEND, true, true)) {
+                cs.setNonStrokingColor(config.getTextColor());
+                cs.beginText();
+                cs.setFont(font, fontSize);
+                cs.newLineAtOffset(x, y);
+                cs.showText(label);
+                if (config.getLeftText() != null) {
+                    // Td es relativo al inicio de la línea anterior
+                    cs.newLineAtOffset(config.getLeftX() - x, 0);
+                    cs.showText(config.getLeftText());
+                }
+                cs.endText();
+            }
+        }
+    }
+
+    public PDDocument getTarget() {
+        return target;
+    }
+}
@@ -0,0 +1,68 @@
+package saul.pdf.renderer;
+
+/**
+ * Posición de un documento parcial dentro de un reporte que se genera por partes.
+ *
+ * La primera parte lleva el encabezado y el título del reporte, la última el
+ * cierre, y las intermedias solo continúan la tabla. Cuando el reporte tiene
+ * más de una parte, la numeración de páginas se escribe al unirlas
+ * (ver {@link PDFDocumentMerger}).
+ */
+public final class PDFDocumentPart {
+
+    private static final PDFDocumentPart SINGLE = new PDFDocumentPart(0, 1);
+
+    private final int index;
+    private final int count;
+
+    private PDFDocumentPart(int index, int count) {
+        this.index = index;
+        this.count = count;
+    }
+
+    /**
+     * Reporte completo en un solo documento.
+     */
+    public static PDFDocumentPart single() {
+        return SINGLE;
+    }
+
+    /**
+     * Parte {@code index} (desde 0) de un reporte con {@code count} partes.
+     */
+    public static PDFDocumentPart of(int index, int count) {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("Parte " + index + " fuera de rango para " + count + " partes");
+        }
+        return count == 1 ? SINGLE : new PDFDocumentPart(index, count);
+    }
+
+    /**
+     * true si esta parte lleva el encabezado del reporte.
+     */
+    public boolean isFirst() {
+        return index == 0;
+    }
+
+    /**
+     * true si esta parte lleva el cierre del reporte.
+     */
+    public boolean isLast() {
+        return index == count - 1;
+    }
+
+    /**
+     * true si el reporte no está dividido; el paginador escribe su propio pie de página.
+     */
+    public boolean isSingle() {
+        return count == 1;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,92 @@
+package saul.pdf.renderer;
+
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.graphics.color.PDColorSpace;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceGray;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceRGB;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+/**
+ * Imagen ya comprimida lista para incrustarse en cualquier documento.
+ *
+ * Guarda el stream codificado (FlateDecode o DCTDecode) y, si la imagen tiene
+ * transparencia, el canal alfa como máscara suave. Crear el
+ * {@link PDImageXObject} solo copia esos bytes, sin decodificar ni comprimir.
+ * La instancia es inmutable y puede compartirse entre hilos.
+ */
+public final class PDFEncodedImage {
+
+    private final COSName filter;
+    private final int width;
+    private final int height;
+    private final boolean gray;
+    private final byte[] data;
+    private final byte[] alpha;
+
+    PDFEncodedImage(COSName filter, int width, int height, boolean gray, byte[] data, byte[] alpha) {
+        this.filter = filter;
+        this.width = width;
+        this.height = height;
+        this.gray = gray;
+        this.data = data;
+        this.alpha = alpha;
+    }
+
+    /**
+     * Obtiene la imagen incrustada en el documento. En un {@link PDFRenderDocument}
+     * la imagen se incrusta una sola vez y se reutiliza en todas sus páginas.
+     *
+     * @param document documento destino
+     * @return imagen incrustada en el documento
+     * @throws IOException si ocurre un error al escribir los streams
+     */
+    public PDImageXObject embedIn(PDDocument document) throws IOException {
+        return document instanceof PDFRenderDocument
+                ? ((PDFRenderDocument) document).getEmbeddedImage(this)
+                : toXObject(document);
+    }
+
+    /**
+     * Crea el XObject de la imagen en el documento copiando los streams codificados.
+     *
+     * @param document documento destino
+     * @return imagen incrustada en el documento
+     * @throws IOException si ocurre un error al escribir los streams
+     */
+    public PDImageXObject toXObject(PDDocument document) throws IOException {
+        PDColorSpace colorSpace = gray ? PDDeviceGray.INSTANCE : PDDeviceRGB.INSTANCE;
+        PDImageXObject image = new PDImageXObject(document, new ByteArrayInputStream(data),
+                filter, width, height, 8, colorSpace);
+        if (alpha != null) {
+            PDImageXObject mask = new PDImageXObject(document, new ByteArrayInputStream(alpha),
+                    COSName.FLATE_DECODE, width, height, 8, PDDeviceGray.INSTANCE);
+            image.getCOSObject().setItem(COSName.SMASK, mask);
+        }
+        return image;
+    }
+
+    /**
+     * Ancho en píxeles de la imagen incrustada.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Alto en píxeles de la imagen incrustada.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Tamaño en bytes de los streams codificados.
+     */
+    public long getSize() {
+        return data.length + (alpha != null ? alpha.length : 0);
+    }
+}
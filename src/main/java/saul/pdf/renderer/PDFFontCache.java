@@ -0,0 +1,99 @@
+package saul.pdf.renderer;
+
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TrueTypeFont;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Cache global (a nivel de JVM) de los programas de fuente NotoSans ya analizados.
+ *
+ * Los archivos /fonts/*.ttf se analizan una sola vez, cargando de inmediato todas
+ * sus tablas (glyf, hmtx, cmap, etc.). Los documentos solo realizan el registro
+ * y la incrustación del subconjunto, que es la parte barata.
+ *
+ * El mapa se publica completo e inmutable, por lo que las lecturas concurrentes
+ * no requieren sincronización.
+ */
+public final class PDFFontCache {
+
+    private static final String FONT_REGULAR = "/fonts/NotoSans-Regular.ttf";
+    private static final String FONT_BOLD = "/fonts/NotoSans-Bold.ttf";
+    private static final String FONT_ITALIC = "/fonts/NotoSans-Italic.ttf";
+    private static final String FONT_BOLD_ITALIC = "/fonts/NotoSans-BoldItalic.ttf";
+
+    private static volatile Map<TextBoxConfig.FontStyle, TrueTypeFont> fonts;
+
+    private PDFFontCache() {
+    }
+
+    /**
+     * Carga y analiza todas las fuentes. Se invoca al iniciar la aplicación;
+     * llamadas posteriores no tienen efecto.
+     *
+     * @throws IOException si alguna fuente no se encuentra o no se puede analizar
+     */
+    public static void preload() throws IOException {
+        getFonts();
+    }
+
+    /**
+     * Obtiene el programa de fuente ya analizado para el estilo indicado.
+     *
+     * @param style estilo de fuente
+     * @return fuente TrueType compartida (solo lectura)
+     * @throws IOException si las fuentes no se pudieron cargar
+     */
+    public static TrueTypeFont get(TextBoxConfig.FontStyle style) throws IOException {
+        return getFonts().get(style != null ? style : TextBoxConfig.FontStyle.NORMAL);
+    }
+
+    private static Map<TextBoxConfig.FontStyle, TrueTypeFont> getFonts() throws IOException {
+        Map<TextBoxConfig.FontStyle, TrueTypeFont> result = fonts;
+        if (result == null) {
+            synchronized (PDFFontCache.class) {
+                result = fonts;
+                if (result == null) {
+                    Map<TextBoxConfig.FontStyle, TrueTypeFont> loaded = new EnumMap<>(TextBoxConfig.FontStyle.class);
+                    for (TextBoxConfig.FontStyle style : TextBoxConfig.FontStyle.values()) {
+                        loaded.put(style, parse(getFontPath(style)));
+                    }
+                    result = Collections.unmodifiableMap(loaded);
+                    fonts = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static TrueTypeFont parse(String fontPath) throws IOException {
+        try (InputStream is = PDFFontCache.class.getResourceAsStream(fontPath)) {
+            if (is == null) {
+                throw new IOException("Fuente no encontrada: " + fontPath);
+            }
+            // parseOnDemand = false: todas las tablas quedan cargadas en memoria
+            TrueTypeFont ttf = new TTFParser(false, false).parse(is);
+            // Inicializar el cmap Unicode antes de compartir la fuente entre hilos
+            ttf.getUnicodeCmapLookup();
+            return ttf;
+        }
+    }
+
+    private static String getFontPath(TextBoxConfig.FontStyle style) {
+        switch (style) {
+            case BOLD:
+                return FONT_BOLD;
+            case ITALIC:
+                return FONT_ITALIC;
+            case BOLD_ITALIC:
+                return FONT_BOLD_ITALIC;
+            case NORMAL:
+            default:
+                return FONT_REGULAR;
+        }
+    }
+}
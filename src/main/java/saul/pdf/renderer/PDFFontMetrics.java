@@ -0,0 +1,164 @@
+package saul.pdf.renderer;
+
+import org.apache.fontbox.ttf.CmapLookup;
+import org.apache.fontbox.ttf.HorizontalMetricsTable;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.pdmodel.font.PDCIDFont;
+import org.apache.pdfbox.pdmodel.font.PDCIDFontType2;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Tabla de anchos de avance de una fuente, precalculada en un arreglo primitivo.
+ *
+ * Los anchos se expresan en unidades de 1/1000 em (las mismas que usa
+ * {@code PDFont.getStringWidth}) y se indexan por carácter UTF-16, por lo que
+ * medir un texto no crea objetos ni recorre la fuente.
+ *
+ * Las tablas de las fuentes NotoSans se construyen una sola vez a partir de
+ * {@link PDFFontCache} y son inmutables, así que pueden usarse desde varios hilos.
+ */
+public final class PDFFontMetrics {
+
+    private static final int TABLE_SIZE = Character.MAX_VALUE + 1;
+
+    private static volatile Map<TextBoxConfig.FontStyle, PDFFontMetrics> shared;
+
+    // Métricas de fuentes que no provienen de PDFFontCache
+    private static final Map<PDFont, PDFFontMetrics> OTHER_FONTS = new WeakHashMap<>();
+
+    private final float[] advances;
+    private final PDFont lazyFont;
+
+    private PDFFontMetrics(float[] advances, PDFont lazyFont) {
+        this.advances = advances;
+        this.lazyFont = lazyFont;
+    }
+
+    /**
+     * Obtiene las métricas compartidas para un estilo de fuente.
+     *
+     * @param style estilo de fuente
+     * @return métricas inmutables del estilo
+     * @throws IOException si las fuentes no se pudieron cargar
+     */
+    public static PDFFontMetrics forStyle(TextBoxConfig.FontStyle style) throws IOException {
+        return getShared().get(style != null ? style : TextBoxConfig.FontStyle.NORMAL);
+    }
+
+    /**
+     * Obtiene las métricas de una fuente ya cargada en un documento.
+     * Para las fuentes de {@link PDFFontCache} devuelve las tablas compartidas.
+     *
+     * @param font fuente PDF
+     * @return métricas de la fuente
+     * @throws IOException si las fuentes no se pudieron cargar
+     */
+    public static PDFFontMetrics forFont(PDFont font) throws IOException {
+        if (font instanceof PDType0Font) {
+            PDCIDFont descendant = ((PDType0Font) font).getDescendantFont();
+            if (descendant instanceof PDCIDFontType2) {
+                TrueTypeFont ttf = ((PDCIDFontType2) descendant).getTrueTypeFont();
+                for (TextBoxConfig.FontStyle style : TextBoxConfig.FontStyle.values()) {
+                    if (PDFFontCache.get(style) == ttf) {
+                        return forStyle(style);
+                    }
+                }
+            }
+        }
+        synchronized (OTHER_FONTS) {
+            return OTHER_FONTS.computeIfAbsent(font, PDFFontMetrics::lazy);
+        }
+    }
+
+    /**
+     * Ancho de avance de un carácter en unidades de 1/1000 em.
+     */
+    public float advance(char c) {
+        float width = advances[c];
+        if (width < 0) {
+            width = measureLazily(c);
+        }
+        return width;
+    }
+
+    /**
+     * Ancho de un fragmento de texto en unidades de 1/1000 em.
+     *
+     * @param text texto
+     * @param start índice inicial (inclusivo)
+     * @param end índice final (exclusivo)
+     */
+    public float width(CharSequence text, int start, int end) {
+        float width = 0;
+        for (int i = start; i < end; i++) {
+            width += advance(text.charAt(i));
+        }
+        return width;
+    }
+
+    /**
+     * Ancho de un texto en puntos para el tamaño de fuente indicado.
+     */
+    public float width(CharSequence text, float fontSize) {
+        if (text == null) return 0;
+        return width(text, 0, text.length()) / 1000 * fontSize;
+    }
+
+    private static Map<TextBoxConfig.FontStyle, PDFFontMetrics> getShared() throws IOException {
+        Map<TextBoxConfig.FontStyle, PDFFontMetrics> result = shared;
+        if (result == null) {
+            synchronized (PDFFontMetrics.class) {
+                result = shared;
+                if (result == null) {
+                    Map<TextBoxConfig.FontStyle, PDFFontMetrics> built = new EnumMap<>(TextBoxConfig.FontStyle.class);
+                    for (TextBoxConfig.FontStyle style : TextBoxConfig.FontStyle.values()) {
+                        built.put(style, fromTrueType(PDFFontCache.get(style)));
+                    }
+                    result = Collections.unmodifiableMap(built);
+                    shared = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static PDFFontMetrics fromTrueType(TrueTypeFont ttf) throws IOException {
+        CmapLookup cmap = ttf.getUnicodeCmapLookup();
+        HorizontalMetricsTable hmtx = ttf.getHorizontalMetrics();
+        // Mismo escalado y redondeo que PDFBox usa al construir el arreglo /W
+        float scaling = 1000f / ttf.getHeader().getUnitsPerEm();
+
+        float[] advances = new float[TABLE_SIZE];
+        for (int c = 0; c < TABLE_SIZE; c++) {
+            int gid = cmap != null ? cmap.getGlyphId(c) : 0;
+            advances[c] = Math.round(hmtx.getAdvanceWidth(gid) * scaling);
+        }
+        return new PDFFontMetrics(advances, null);
+    }
+
+    private static PDFFontMetrics lazy(PDFont font) {
+        float[] advances = new float[TABLE_SIZE];
+        Arrays.fill(advances, -1f);
+        return new PDFFontMetrics(advances, font);
+    }
+
+    private float measureLazily(char c) {
+        float width;
+        try {
+            width = lazyFont.getStringWidth(String.valueOf(c));
+        } catch (IOException | IllegalArgumentException e) {
+            // Carácter sin glifo en la fuente
+            width = 0;
+        }
+        advances[c] = width;
+        return width;
+    }
+}
@@ -0,0 +1,109 @@
+package saul.pdf.renderer;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Registro de fuentes con alcance de documento.
+ * Cada estilo de fuente se registra para subconjunto una sola vez por documento,
+ * sin importar cuántas celdas, filas o cajas de texto lo usen. El programa de
+ * fuente ya analizado proviene de {@link PDFFontCache}.
+ *
+ * En un {@link PDFRenderDocument} el registro forma parte del documento y se
+ * libera al cerrarlo. Para cualquier otro {@link PDDocument} el registro se
+ * mantiene mientras alguien lo referencie (por ejemplo el {@link PDFPaginator});
+ * las fuentes apuntan al documento, por eso no se retienen de forma fuerte.
+ */
+public final class PDFFontRegistry {
+
+    // Registros de documentos que no son PDFRenderDocument
+    private static final Map<PDDocument, WeakReference<PDFFontRegistry>> DETACHED = new WeakHashMap<>();
+
+    private final PDDocument document;
+    private final Map<TextBoxConfig.FontStyle, PDFont> fonts = new EnumMap<>(TextBoxConfig.FontStyle.class);
+
+    PDFFontRegistry(PDDocument document) {
+        this.document = document;
+    }
+
+    /**
+     * Obtiene (o crea) el registro de fuentes del documento.
+     *
+     * @param document documento PDF
+     * @return registro asociado al documento
+     */
+    public static PDFFontRegistry forDocument(PDDocument document) {
+        if (document == null) {
+            throw new IllegalArgumentException("El documento no puede ser null");
+        }
+        if (document instanceof PDFRenderDocument) {
+            return ((PDFRenderDocument) document).getFontRegistry();
+        }
+        synchronized (DETACHED) {
+            WeakReference<PDFFontRegistry> ref = DETACHED.get(document);
+            PDFFontRegistry registry = ref != null ? ref.get() : null;
+            if (registry == null) {
+                registry = new PDFFontRegistry(document);
+                DETACHED.put(document, new WeakReference<>(registry));
+            }
+            return registry;
+        }
+    }
+
+    /**
+     * Libera el registro de fuentes del documento.
+     * Debe llamarse cuando el documento se cierra.
+     *
+     * @param document documento PDF
+     */
+    public static void release(PDDocument document) {
+        if (document == null) {
+            return;
+        }
+        if (document instanceof PDFRenderDocument) {
+            ((PDFRenderDocument) document).getFontRegistry().clear();
+            return;
+        }
+        WeakReference<PDFFontRegistry> ref;
+        synchronized (DETACHED) {
+            ref = DETACHED.remove(document);
+        }
+        PDFFontRegistry registry = ref != null ? ref.get() : null;
+        if (registry != null) {
+            registry.clear();
+        }
+    }
+
+    /**
+     * Obtiene la fuente del estilo indicado, cargándola solo la primera vez.
+     *
+     * @param style estilo de fuente
+     * @return fuente registrada en el documento
+     * @throws IOException si no se puede cargar la fuente
+     */
+    public synchronized PDFont getFont(TextBoxConfig.FontStyle style) throws IOException {
+        TextBoxConfig.FontStyle key = style != null ? style : TextBoxConfig.FontStyle.NORMAL;
+        PDFont font = fonts.get(key);
+        if (font == null) {
+            // Solo se registra el subconjunto; la fuente analizada es compartida
+            font = PDType0Font.load(document, PDFFontCache.get(key), true);
+            fonts.put(key, font);
+        }
+        return font;
+    }
+
+    public PDDocument getDocument() {
+        return document;
+    }
+
+    synchronized void clear() {
+        fonts.clear();
+    }
+}
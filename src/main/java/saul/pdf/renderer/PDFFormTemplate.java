@@ -0,0 +1,98 @@
+package saul.pdf.renderer;
+
+import org.apache.pdfbox.multipdf.LayerUtility;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.util.Matrix;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Plantilla de contenido reutilizable que se estampa como Form XObject.
+ *
+ * El contenido se dibuja una sola vez en un documento propio que se guarda, de
+ * modo que las imágenes quedan codificadas y las fuentes reducidas a su
+ * subconjunto. La plantilla conserva solo esos bytes y no un documento abierto,
+ * así que puede descartarse de una cache sin cerrarse. Estampar la plantilla en
+ * otro documento lee los bytes, copia los streams ya codificados y agrega un
+ * operador {@code Do}.
+ *
+ * En un {@link PDFRenderDocument} la plantilla se importa una vez por documento
+ * y se reutiliza en todas sus páginas.
+ */
+public final class PDFFormTemplate {
+
+    private final byte[] content;
+    private final float width;
+    private final float height;
+
+    private PDFFormTemplate(byte[] content, float width, float height) {
+        this.content = content;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Crea la plantilla a partir de la primera página de un documento.
+     * El documento original puede cerrarse después de esta llamada.
+     *
+     * @param document documento con el contenido de la plantilla en su primera página
+     * @return plantilla lista para estamparse
+     * @throws IOException si no se puede guardar o leer el documento
+     */
+    public static PDFFormTemplate fromDocument(PDDocument document) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // Al guardar se incrustan los subconjuntos de fuente y se fijan los streams
+        document.save(out);
+        PDRectangle mediaBox = document.getPage(0).getMediaBox();
+        return new PDFFormTemplate(out.toByteArray(), mediaBox.getWidth(), mediaBox.getHeight());
+    }
+
+    /**
+     * Estampa la plantilla con su esquina superior izquierda en (x, topY).
+     *
+     * @param document documento destino
+     * @param cs content stream de la página destino
+     * @param x posición X
+     * @param topY posición Y del borde superior (desde abajo)
+     * @throws IOException si ocurre un error al importar o dibujar la plantilla
+     */
+    public void draw(PDDocument document, PDPageContentStream cs, float x, float topY) throws IOException {
+        PDFormXObject form = document instanceof PDFRenderDocument
+                ? ((PDFRenderDocument) document).getImportedForm(this)
+                : importInto(document);
+
+        cs.saveGraphicsState();
+        cs.transform(Matrix.getTranslateInstance(x, topY - height));
+        cs.drawForm(form);
+        cs.restoreGraphicsState();
+    }
+
+    /**
+     * Copia la plantilla al documento destino como Form XObject. La copia no
+     * depende del documento fuente, que se cierra al terminar.
+     */
+    PDFormXObject importInto(PDDocument document) throws IOException {
+        try (PDDocument source = PDDocument.load(content)) {
+            return new LayerUtility(document).importPageAsForm(source, 0);
+        }
+    }
+
+    public float getWidth() {
+        return width;
+    }
+
+    public float getHeight() {
+        return height;
+    }
+
+    /**
+     * Tamaño del documento fuente ya codificado, en bytes.
+     */
+    public long getSize() {
+        return content.length;
+    }
+}
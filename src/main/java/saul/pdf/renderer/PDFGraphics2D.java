@@ -0,0 +1,916 @@
+package saul.pdf.renderer;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBoolean;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.function.PDFunctionType2;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceRGB;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.pdmodel.graphics.shading.PDShading;
+import org.apache.pdfbox.pdmodel.graphics.shading.PDShadingType2;
+import org.apache.pdfbox.pdmodel.graphics.state.PDExtendedGraphicsState;
+import org.apache.pdfbox.util.Matrix;
+
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.awt.image.ImageObserver;
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.RenderableImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.text.AttributedCharacterIterator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Implementación de {@link Graphics2D} que dibuja directamente en un
+ * {@link PDPageContentStream}, para incrustar gráficos JFreeChart como vectores.
+ *
+ * Las figuras se escriben como trayectorias PDF (relleno y trazo), el texto con
+ * las fuentes estándar del PDF (Helvetica, Times, Courier) y los degradados lineales
+ * como sombreados axiales. Cada operación de dibujo se encierra en q/Q con su
+ * recorte, transformación y color, así que el estado mutable de Graphics2D nunca
+ * se filtra al resto de la página.
+ *
+ * Limitaciones: el modo XOR y {@code copyArea} no tienen equivalente en PDF y se
+ * ignoran; el texto que las fuentes estándar no pueden codificar se dibuja como
+ * contornos vectoriales.
+ */
+public class PDFGraphics2D extends Graphics2D {
+
+    private final Context context;
+    private final boolean root;
+    private boolean disposed;
+
+    private AffineTransform transform;
+    /** Recorte en el espacio base del gráfico (origen arriba a la izquierda, Y hacia abajo). */
+    private Shape clip;
+    private Paint paint;
+    private Color background;
+    private Stroke stroke;
+    private Composite composite;
+    private Font font;
+    private RenderingHints hints;
+
+    /**
+     * Crea un contexto de dibujo sobre el rectángulo indicado de la página.
+     * El origen de Java2D queda en la esquina superior izquierda del rectángulo.
+     *
+     * @param document documento al que pertenece el content stream
+     * @param cs       content stream de la página
+     * @param x        posición X de la esquina inferior izquierda (coordenadas PDF)
+     * @param y        posición Y de la esquina inferior izquierda (coordenadas PDF)
+     * @param width    ancho del área de dibujo en puntos
+     * @param height   alto del área de dibujo en puntos
+     * @throws IOException si ocurre un error al escribir en el content stream
+     */
+    public PDFGraphics2D(PDDocument document, PDPageContentStream cs,
+                         float x, float y, float width, float height) throws IOException {
+        this.context = new Context(document, cs);
+        this.root = true;
+        this.transform = new AffineTransform();
+        this.paint = Color.BLACK;
+        this.background = Color.WHITE;
+        this.stroke = new BasicStroke();
+        this.composite = AlphaComposite.SrcOver;
+        this.font = new Font(Font.SANS_SERIF, Font.PLAIN, 12);
+        this.hints = new RenderingHints(null);
+
+        // Java2D usa el eje Y hacia abajo: se voltea una sola vez para todo el gráfico
+        cs.saveGraphicsState();
+        cs.transform(new Matrix(1, 0, 0, -1, x, y + height));
+    }
+
+    private PDFGraphics2D(PDFGraphics2D parent) {
+        this.context = parent.context;
+        this.root = false;
+        this.transform = new AffineTransform(parent.transform);
+        this.clip = parent.clip;
+        this.paint = parent.paint;
+        this.background = parent.background;
+        this.stroke = parent.stroke;
+        this.composite = parent.composite;
+        this.font = parent.font;
+        this.hints = (RenderingHints) parent.hints.clone();
+    }
+
+    // ==================== FIGURAS ====================
+
+    @Override
+    public void draw(Shape s) {
+        if (s == null) return;
+        if (!(stroke instanceof BasicStroke)) {
+            fill(stroke.createStrokedShape(s));
+            return;
+        }
+        Color color = paintColor();
+        float alpha = alphaOf(color);
+        if (alpha <= 0 || isClippedOut()) return;
+
+        BasicStroke basic = (BasicStroke) stroke;
+        PDPageContentStream cs = context.cs;
+        try {
+            beginOperation();
+            applyAlpha(alpha);
+            cs.setStrokingColor(color);
+            cs.setLineWidth(basic.getLineWidth());
+            cs.setLineCapStyle(basic.getEndCap());
+            cs.setLineJoinStyle(basic.getLineJoin());
+            if (basic.getDashArray() != null) {
+                cs.setLineDashPattern(basic.getDashArray(), basic.getDashPhase());
+            }
+            if (writePath(s) >= 0) {
+                cs.stroke();
+            }
+            cs.restoreGraphicsState();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void fill(Shape s) {
+        if (s == null) return;
+        Color color = paintColor();
+        float alpha = alphaOf(color);
+        if (alpha <= 0 || isClippedOut()) return;
+
+        PDPageContentStream cs = context.cs;
+        try {
+            beginOperation();
+            applyAlpha(alpha);
+            int winding = writePath(s);
+            if (winding >= 0) {
+                if (paint instanceof GradientPaint) {
+                    // El degradado se pinta recortado a la figura
+                    if (winding == PathIterator.WIND_EVEN_ODD) {
+                        cs.clipEvenOdd();
+                    } else {
+                        cs.clip();
+                    }
+                    cs.shadingFill(createShading((GradientPaint) paint));
+                } else {
+                    cs.setNonStrokingColor(color);
+                    if (winding == PathIterator.WIND_EVEN_ODD) {
+                        cs.fillEvenOdd();
+                    } else {
+                        cs.fill();
+                    }
+                }
+            }
+            cs.restoreGraphicsState();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean hit(Rectangle rect, Shape s, boolean onStroke) {
+        if (onStroke) {
+            s = stroke.createStrokedShape(s);
+        }
+        return transform.createTransformedShape(s).intersects(rect);
+    }
+
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        draw(new Line2D.Float(x1, y1, x2, y2));
+    }
+
+    @Override
+    public void drawRect(int x, int y, int width, int height) {
+        draw(new Rectangle(x, y, width, height));
+    }
+
+    @Override
+    public void fillRect(int x, int y, int width, int height) {
+        fill(new Rectangle(x, y, width, height));
+    }
+
+    @Override
+    public void clearRect(int x, int y, int width, int height) {
+        Paint saved = paint;
+        Composite savedComposite = composite;
+        paint = background;
+        composite = AlphaComposite.SrcOver;
+        fill(new Rectangle(x, y, width, height));
+        paint = saved;
+        composite = savedComposite;
+    }
+
+    @Override
+    public void drawRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+        draw(new RoundRectangle2D.Float(x, y, width, height, arcWidth, arcHeight));
+    }
+
+    @Override
+    public void fillRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+        fill(new RoundRectangle2D.Float(x, y, width, height, arcWidth, arcHeight));
+    }
+
+    @Override
+    public void drawOval(int x, int y, int width, int height) {
+        draw(new Ellipse2D.Float(x, y, width, height));
+    }
+
+    @Override
+    public void fillOval(int x, int y, int width, int height) {
+        fill(new Ellipse2D.Float(x, y, width, height));
+    }
+
+    @Override
+    public void drawArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
+        draw(new Arc2D.Float(x, y, width, height, startAngle, arcAngle, Arc2D.OPEN));
+    }
+
+    @Override
+    public void fillArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
+        fill(new Arc2D.Float(x, y, width, height, startAngle, arcAngle, Arc2D.PIE));
+    }
+
+    @Override
+    public void drawPolyline(int[] xPoints, int[] yPoints, int nPoints) {
+        if (nPoints < 2) return;
+        Path2D.Float path = new Path2D.Float();
+        path.moveTo(xPoints[0], yPoints[0]);
+        for (int i = 1; i < nPoints; i++) {
+            path.lineTo(xPoints[i], yPoints[i]);
+        }
+        draw(path);
+    }
+
+    @Override
+    public void drawPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+        draw(new Polygon(xPoints, yPoints, nPoints));
+    }
+
+    @Override
+    public void fillPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+        fill(new Polygon(xPoints, yPoints, nPoints));
+    }
+
+    /**
+     * No tiene equivalente en PDF; se ignora.
+     */
+    @Override
+    public void copyArea(int x, int y, int width, int height, int dx, int dy) {
+    }
+
+    // ==================== TEXTO ====================
+
+    @Override
+    public void drawString(String str, int x, int y) {
+        drawString(str, (float) x, (float) y);
+    }
+
+    @Override
+    public void drawString(String str, float x, float y) {
+        if (str == null || str.isEmpty()) return;
+        PDFont pdfFont = Context.standardFont(font);
+        float size = font.getSize2D();
+        float pdfWidth;
+        try {
+            pdfWidth = pdfFont.getStringWidth(str) / 1000f * size;
+        } catch (IllegalArgumentException | IOException e) {
+            // Caracteres fuera de la codificación de la fuente estándar
+            pdfWidth = -1;
+        }
+        if (pdfWidth < 0 || font.isTransformed()) {
+            fill(font.createGlyphVector(getFontRenderContext(), str).getOutline(x, y));
+            return;
+        }
+        Color color = paintColor();
+        float alpha = alphaOf(color);
+        if (alpha <= 0 || isClippedOut()) return;
+
+        PDPageContentStream cs = context.cs;
+        try {
+            beginOperation();
+            applyAlpha(alpha);
+            cs.setNonStrokingColor(color);
+            cs.beginText();
+            cs.setFont(pdfFont, size);
+            // Se ajusta el ancho a las métricas de AWT, que JFreeChart usó para alinear el texto
+            float awtWidth = (float) font.getStringBounds(str, getFontRenderContext()).getWidth();
+            if (pdfWidth > 0 && awtWidth > 0 && Math.abs(awtWidth - pdfWidth) > 0.01f) {
+                cs.setHorizontalScaling(awtWidth / pdfWidth * 100f);
+            }
+            cs.setTextMatrix(new Matrix(1, 0, 0, -1, x, y));
+            cs.showText(str);
+            cs.endText();
+            cs.restoreGraphicsState();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void drawString(AttributedCharacterIterator iterator, int x, int y) {
+        drawString(iterator, (float) x, (float) y);
+    }
+
+    @Override
+    public void drawString(AttributedCharacterIterator iterator, float x, float y) {
+        StringBuilder text = new StringBuilder();
+        for (char c = iterator.first(); c != AttributedCharacterIterator.DONE; c = iterator.next()) {
+            text.append(c);
+        }
+        drawString(text.toString(), x, y);
+    }
+
+    @Override
+    public void drawGlyphVector(GlyphVector g, float x, float y) {
+        fill(g.getOutline(x, y));
+    }
+
+    @Override
+    public Font getFont() {
+        return font;
+    }
+
+    @Override
+    public void setFont(Font font) {
+        if (font != null) {
+            this.font = font;
+        }
+    }
+
+    @Override
+    public FontMetrics getFontMetrics(Font f) {
+        return context.scratch().getFontMetrics(f);
+    }
+
+    @Override
+    public FontRenderContext getFontRenderContext() {
+        return context.scratch().getFontRenderContext();
+    }
+
+    // ==================== IMÁGENES ====================
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, ImageObserver observer) {
+        if (img == null) return false;
+        return drawImage(img, x, y, img.getWidth(observer), img.getHeight(observer), observer);
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, int width, int height, ImageObserver observer) {
+        BufferedImage image = toBufferedImage(img);
+        if (image == null || width <= 0 || height <= 0) return false;
+        float alpha = compositeAlpha();
+        if (alpha <= 0 || isClippedOut()) return true;
+
+        PDPageContentStream cs = context.cs;
+        try {
+            PDImageXObject xObject = LosslessFactory.createFromImage(context.document, image);
+            beginOperation();
+            applyAlpha(alpha);
+            // La imagen se voltea de nuevo para compensar el eje Y de Java2D
+            cs.drawImage(xObject, new Matrix(width, 0, 0, -height, x, y + height));
+            cs.restoreGraphicsState();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, Color bgcolor, ImageObserver observer) {
+        if (img == null) return false;
+        return drawImage(img, x, y, img.getWidth(observer), img.getHeight(observer), bgcolor, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, int width, int height, Color bgcolor, ImageObserver observer) {
+        if (bgcolor != null) {
+            Paint saved = paint;
+            paint = bgcolor;
+            fillRect(x, y, width, height);
+            paint = saved;
+        }
+        return drawImage(img, x, y, width, height, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image img, int dx1, int dy1, int dx2, int dy2,
+                             int sx1, int sy1, int sx2, int sy2, ImageObserver observer) {
+        BufferedImage image = toBufferedImage(img);
+        if (image == null) return false;
+        int sx = Math.max(0, Math.min(sx1, sx2));
+        int sy = Math.max(0, Math.min(sy1, sy2));
+        int sw = Math.min(image.getWidth() - sx, Math.abs(sx2 - sx1));
+        int sh = Math.min(image.getHeight() - sy, Math.abs(sy2 - sy1));
+        if (sw <= 0 || sh <= 0) return false;
+        return drawImage(image.getSubimage(sx, sy, sw, sh),
+                Math.min(dx1, dx2), Math.min(dy1, dy2), Math.abs(dx2 - dx1), Math.abs(dy2 - dy1), observer);
+    }
+
+    @Override
+    public boolean drawImage(Image img, int dx1, int dy1, int dx2, int dy2,
+                             int sx1, int sy1, int sx2, int sy2, Color bgcolor, ImageObserver observer) {
+        if (bgcolor != null) {
+            Paint saved = paint;
+            paint = bgcolor;
+            fillRect(Math.min(dx1, dx2), Math.min(dy1, dy2), Math.abs(dx2 - dx1), Math.abs(dy2 - dy1));
+            paint = saved;
+        }
+        return drawImage(img, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image img, AffineTransform xform, ImageObserver obs) {
+        AffineTransform saved = new AffineTransform(transform);
+        if (xform != null) {
+            transform.concatenate(xform);
+        }
+        try {
+            return drawImage(img, 0, 0, obs);
+        } finally {
+            transform = saved;
+        }
+    }
+
+    @Override
+    public void drawImage(BufferedImage img, BufferedImageOp op, int x, int y) {
+        drawImage(op != null ? op.filter(img, null) : img, x, y, null);
+    }
+
+    @Override
+    public void drawRenderedImage(RenderedImage img, AffineTransform xform) {
+        BufferedImage image;
+        if (img instanceof BufferedImage) {
+            image = (BufferedImage) img;
+        } else {
+            image = new BufferedImage(img.getColorModel(), img.copyData(null),
+                    img.getColorModel().isAlphaPremultiplied(), null);
+        }
+        drawImage(image, xform, null);
+    }
+
+    @Override
+    public void drawRenderableImage(RenderableImage img, AffineTransform xform) {
+        drawRenderedImage(img.createDefaultRendering(), xform);
+    }
+
+    // ==================== ESTADO ====================
+
+    @Override
+    public Graphics create() {
+        return new PDFGraphics2D(this);
+    }
+
+    /**
+     * Libera el contexto. El contexto raíz cierra el estado gráfico que abrió
+     * en el content stream; los creados con {@link #create()} no escriben nada.
+     */
+    @Override
+    public void dispose() {
+        if (!root || disposed) return;
+        disposed = true;
+        try {
+            context.cs.restoreGraphicsState();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            context.disposeScratch();
+        }
+    }
+
+    @Override
+    public Color getColor() {
+        return paint instanceof Color ? (Color) paint : null;
+    }
+
+    @Override
+    public void setColor(Color c) {
+        if (c != null) {
+            this.paint = c;
+        }
+    }
+
+    @Override
+    public Paint getPaint() {
+        return paint;
+    }
+
+    @Override
+    public void setPaint(Paint paint) {
+        if (paint != null) {
+            this.paint = paint;
+        }
+    }
+
+    @Override
+    public Color getBackground() {
+        return background;
+    }
+
+    @Override
+    public void setBackground(Color color) {
+        this.background = color;
+    }
+
+    @Override
+    public Stroke getStroke() {
+        return stroke;
+    }
+
+    @Override
+    public void setStroke(Stroke s) {
+        if (s != null) {
+            this.stroke = s;
+        }
+    }
+
+    @Override
+    public Composite getComposite() {
+        return composite;
+    }
+
+    @Override
+    public void setComposite(Composite comp) {
+        if (comp != null) {
+            this.composite = comp;
+        }
+    }
+
+    @Override
+    public void setPaintMode() {
+        this.composite = AlphaComposite.SrcOver;
+    }
+
+    /**
+     * No tiene equivalente en PDF; se ignora.
+     */
+    @Override
+    public void setXORMode(Color c1) {
+    }
+
+    @Override
+    public void setRenderingHint(RenderingHints.Key hintKey, Object hintValue) {
+        hints.put(hintKey, hintValue);
+    }
+
+    @Override
+    public Object getRenderingHint(RenderingHints.Key hintKey) {
+        return hints.get(hintKey);
+    }
+
+    @Override
+    public void setRenderingHints(Map<?, ?> hints) {
+        this.hints = new RenderingHints(null);
+        this.hints.putAll(hints);
+    }
+
+    @Override
+    public void addRenderingHints(Map<?, ?> hints) {
+        this.hints.putAll(hints);
+    }
+
+    @Override
+    public RenderingHints getRenderingHints() {
+        return (RenderingHints) hints.clone();
+    }
+
+    @Override
+    public GraphicsConfiguration getDeviceConfiguration() {
+        return context.scratch().getDeviceConfiguration();
+    }
+
+    // ==================== TRANSFORMACIONES ====================
+
+    @Override
+    public void translate(int x, int y) {
+        transform.translate(x, y);
+    }
+
+    @Override
+    public void translate(double tx, double ty) {
+        transform.translate(tx, ty);
+    }
+
+    @Override
+    public void rotate(double theta) {
+        transform.rotate(theta);
+    }
+
+    @Override
+    public void rotate(double theta, double x, double y) {
+        transform.rotate(theta, x, y);
+    }
+
+    @Override
+    public void scale(double sx, double sy) {
+        transform.scale(sx, sy);
+    }
+
+    @Override
+    public void shear(double shx, double shy) {
+        transform.shear(shx, shy);
+    }
+
+    @Override
+    public void transform(AffineTransform tx) {
+        transform.concatenate(tx);
+    }
+
+    @Override
+    public void setTransform(AffineTransform tx) {
+        transform = new AffineTransform(tx);
+    }
+
+    @Override
+    public AffineTransform getTransform() {
+        return new AffineTransform(transform);
+    }
+
+    // ==================== RECORTE ====================
+
+    @Override
+    public Shape getClip() {
+        if (clip == null) return null;
+        try {
+            return transform.createInverse().createTransformedShape(clip);
+        } catch (NoninvertibleTransformException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public Rectangle getClipBounds() {
+        Shape userClip = getClip();
+        return userClip != null ? userClip.getBounds() : null;
+    }
+
+    @Override
+    public void setClip(Shape s) {
+        clip = s != null ? toBaseSpace(s) : null;
+    }
+
+    @Override
+    public void setClip(int x, int y, int width, int height) {
+        setClip(new Rectangle(x, y, width, height));
+    }
+
+    @Override
+    public void clip(Shape s) {
+        if (s == null) {
+            clip = null;
+            return;
+        }
+        Shape next = toBaseSpace(s);
+        if (clip == null) {
+            clip = next;
+        } else if (clip instanceof Rectangle2D && next instanceof Rectangle2D) {
+            Rectangle2D intersection = new Rectangle2D.Double();
+            Rectangle2D.intersect((Rectangle2D) clip, (Rectangle2D) next, intersection);
+            clip = intersection;
+        } else {
+            Area area = new Area(clip);
+            area.intersect(new Area(next));
+            clip = area;
+        }
+    }
+
+    @Override
+    public void clipRect(int x, int y, int width, int height) {
+        clip(new Rectangle(x, y, width, height));
+    }
+
+    // ==================== AUXILIARES ====================
+
+    /**
+     * Abre el estado gráfico de una operación: recorte y transformación actuales.
+     */
+    private void beginOperation() throws IOException {
+        PDPageContentStream cs = context.cs;
+        cs.saveGraphicsState();
+        if (clip != null) {
+            if (writePath(clip) == PathIterator.WIND_EVEN_ODD) {
+                cs.clipEvenOdd();
+            } else {
+                cs.clip();
+            }
+        }
+        if (!transform.isIdentity()) {
+            cs.transform(new Matrix(transform));
+        }
+    }
+
+    /**
+     * Escribe la trayectoria de la figura.
+     *
+     * @return regla de relleno de la figura, o -1 si no tiene segmentos
+     */
+    private int writePath(Shape s) throws IOException {
+        PDPageContentStream cs = context.cs;
+        PathIterator it = s.getPathIterator(null);
+        if (it.isDone()) return -1;
+
+        float[] coords = new float[6];
+        float lastX = 0;
+        float lastY = 0;
+        while (!it.isDone()) {
+            switch (it.currentSegment(coords)) {
+                case PathIterator.SEG_MOVETO:
+                    cs.moveTo(coords[0], coords[1]);
+                    lastX = coords[0];
+                    lastY = coords[1];
+                    break;
+                case PathIterator.SEG_LINETO:
+                    cs.lineTo(coords[0], coords[1]);
+                    lastX = coords[0];
+                    lastY = coords[1];
+                    break;
+                case PathIterator.SEG_QUADTO:
+                    // PDF solo tiene curvas cúbicas: se eleva el grado de la cuadrática
+                    cs.curveTo(lastX + 2f / 3f * (coords[0] - lastX), lastY + 2f / 3f * (coords[1] - lastY),
+                               coords[2] + 2f / 3f * (coords[0] - coords[2]), coords[3] + 2f / 3f * (coords[1] - coords[3]),
+                               coords[2], coords[3]);
+                    lastX = coords[2];
+                    lastY = coords[3];
+                    break;
+                case PathIterator.SEG_CUBICTO:
+                    cs.curveTo(coords[0], coords[1], coords[2], coords[3], coords[4], coords[5]);
+                    lastX = coords[4];
+                    lastY = coords[5];
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    cs.closePath();
+                    break;
+                default:
+                    break;
+            }
+            it.next();
+        }
+        return it.getWindingRule();
+    }
+
+    private void applyAlpha(float alpha) throws IOException {
+        if (alpha < 1.0f) {
+            context.cs.setGraphicsStateParameters(context.alphaState(alpha));
+        }
+    }
+
+    private PDShading createShading(GradientPaint gradient) {
+        COSDictionary function = new COSDictionary();
+        function.setInt(COSName.FUNCTION_TYPE, 2);
+        function.setItem(COSName.DOMAIN, floatArray(0, 1));
+        function.setItem(COSName.C0, floatArray(gradient.getColor1().getRGBColorComponents(null)));
+        function.setItem(COSName.C1, floatArray(gradient.getColor2().getRGBColorComponents(null)));
+        function.setInt(COSName.N, 1);
+
+        COSArray extend = new COSArray();
+        extend.add(COSBoolean.TRUE);
+        extend.add(COSBoolean.TRUE);
+
+        PDShadingType2 shading = new PDShadingType2(new COSDictionary());
+        shading.setShadingType(PDShading.SHADING_TYPE2);
+        shading.setColorSpace(PDDeviceRGB.INSTANCE);
+        shading.setCoords(floatArray((float) gradient.getPoint1().getX(), (float) gradient.getPoint1().getY(),
+                                     (float) gradient.getPoint2().getX(), (float) gradient.getPoint2().getY()));
+        shading.setFunction(new PDFunctionType2(function));
+        shading.setExtend(extend);
+        return shading;
+    }
+
+    private static COSArray floatArray(float... values) {
+        COSArray array = new COSArray();
+        array.setFloatArray(values);
+        return array;
+    }
+
+    /**
+     * Color sólido equivalente al paint actual (para trazos y pinturas no soportadas).
+     */
+    private Color paintColor() {
+        if (paint instanceof Color) return (Color) paint;
+        if (paint instanceof GradientPaint) return ((GradientPaint) paint).getColor1();
+        if (paint instanceof MultipleGradientPaint) return ((MultipleGradientPaint) paint).getColors()[0];
+        return Color.GRAY;
+    }
+
+    private float alphaOf(Color color) {
+        return color.getAlpha() / 255f * compositeAlpha();
+    }
+
+    private float compositeAlpha() {
+        if (composite instanceof AlphaComposite
+                && ((AlphaComposite) composite).getRule() == AlphaComposite.SRC_OVER) {
+            return ((AlphaComposite) composite).getAlpha();
+        }
+        return 1.0f;
+    }
+
+    private boolean isClippedOut() {
+        return clip != null && clip.getBounds2D().isEmpty();
+    }
+
+    private Shape toBaseSpace(Shape s) {
+        boolean axisAligned = (transform.getType()
+                & (AffineTransform.TYPE_GENERAL_TRANSFORM | AffineTransform.TYPE_MASK_ROTATION)) == 0;
+        if (s instanceof Rectangle2D && axisAligned) {
+            return transform.createTransformedShape(s).getBounds2D();
+        }
+        return transform.createTransformedShape(s);
+    }
+
+    private static BufferedImage toBufferedImage(Image img) {
+        if (img == null) return null;
+        if (img instanceof BufferedImage) return (BufferedImage) img;
+        int width = img.getWidth(null);
+        int height = img.getHeight(null);
+        if (width <= 0 || height <= 0) return null;
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.drawImage(img, 0, 0, null);
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * Estado compartido por el contexto raíz y los creados con {@link #create()}.
+     */
+    private static final class Context {
+
+        private final PDDocument document;
+        private final PDPageContentStream cs;
+        private final Map<Integer, PDExtendedGraphicsState> alphaStates = new HashMap<>();
+        private Graphics2D scratch;
+
+        Context(PDDocument document, PDPageContentStream cs) {
+            this.document = document;
+            this.cs = cs;
+        }
+
+        /**
+         * Estado gráfico con la opacidad indicada; se reutiliza para no repetir recursos.
+         */
+        PDExtendedGraphicsState alphaState(float alpha) {
+            int key = Math.round(alpha * 255);
+            return alphaStates.computeIfAbsent(key, k -> {
+                PDExtendedGraphicsState state = new PDExtendedGraphicsState();
+                state.setNonStrokingAlphaConstant(k / 255f);
+                state.setStrokingAlphaConstant(k / 255f);
+                return state;
+            });
+        }
+
+        /**
+         * Graphics2D en memoria para las métricas de fuentes que JFreeChart usa al acomodar el texto.
+         */
+        Graphics2D scratch() {
+            if (scratch == null) {
+                scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+                scratch.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+                scratch.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+            }
+            return scratch;
+        }
+
+        void disposeScratch() {
+            if (scratch != null) {
+                scratch.dispose();
+                scratch = null;
+            }
+        }
+
+        /**
+         * Fuente estándar del PDF más parecida a la fuente de AWT.
+         */
+        static PDFont standardFont(Font font) {
+            String name = (font.getName() + " " + font.getFamily()).toLowerCase();
+            boolean bold = font.isBold();
+            boolean italic = font.isItalic();
+            if (name.contains("mono") || name.contains("courier") || name.contains("dialoginput")) {
+                return bold ? (italic ? PDType1Font.COURIER_BOLD_OBLIQUE : PDType1Font.COURIER_BOLD)
+                            : (italic ? PDType1Font.COURIER_OBLIQUE : PDType1Font.COURIER);
+            }
+            if ((name.contains("serif") && !name.contains("sans")) || name.contains("times")) {
+                return bold ? (italic ? PDType1Font.TIMES_BOLD_ITALIC : PDType1Font.TIMES_BOLD)
+                            : (italic ? PDType1Font.TIMES_ITALIC : PDType1Font.TIMES_ROMAN);
+            }
+            return bold ? (italic ? PDType1Font.HELVETICA_BOLD_OBLIQUE : PDType1Font.HELVETICA_BOLD)
+                        : (italic ? PDType1Font.HELVETICA_OBLIQUE : PDType1Font.HELVETICA);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package saul.pdf.renderer;
+
+import org.apache.pdfbox.cos.COSName;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Cache global (a nivel de JVM) de imágenes para los reportes.
+ *
+ * Las imágenes se identifican por el hash SHA-256 de su contenido, así que los
+ * mismos bytes se decodifican una sola vez aunque se lean de nuevo del disco.
+ * Se mantienen dos niveles:
+ * <ul>
+ *     <li>imágenes decodificadas, para conocer su tamaño y poder reducirlas;</li>
+ *     <li>streams comprimidos por tamaño de salida, listos para copiarse al PDF
+ *     (ver {@link PDFEncodedImage}).</li>
+ * </ul>
+ * Ambos niveles son LRU acotados por memoria.
+ */
+public final class PDFImageCache {
+
+    private static final long MAX_DECODED_BYTES = 48L * 1024 * 1024;
+    private static final long MAX_ENCODED_BYTES = 16L * 1024 * 1024;
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private static final LruCache<ContentKey, DecodedImage> DECODED =
+            new LruCache<>(MAX_DECODED_BYTES, DecodedImage::getSize);
+    private static final LruCache<EncodedKey, PDFEncodedImage> ENCODED =
+            new LruCache<>(MAX_ENCODED_BYTES, PDFEncodedImage::getSize);
+
+    private PDFImageCache() {
+    }
+
+    /**
+     * Obtiene la imagen decodificada de los bytes indicados.
+     *
+     * @param imageBytes contenido del archivo de imagen (PNG, JPEG, etc.)
+     * @return imagen decodificada, o null si el formato no se reconoce
+     * @throws IOException si no se puede leer la imagen
+     */
+    public static DecodedImage decode(byte[] imageBytes) throws IOException {
+        if (imageBytes == null || imageBytes.length == 0) return null;
+
+        ContentKey key = new ContentKey(sha256(imageBytes));
+        DecodedImage decoded = DECODED.get(key);
+        if (decoded == null) {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(imageBytes));
+            if (image == null) return null;
+            decoded = new DecodedImage(key, image, isJpeg(imageBytes) ? imageBytes : null);
+            DECODED.put(key, decoded);
+        }
+        return decoded;
+    }
+
+    /**
+     * Número de píxeles necesarios para cubrir una medida en puntos a la resolución indicada.
+     */
+    public static int pixelsFor(float points, float dpi) {
+        return (int) Math.ceil(points * dpi / 72f);
+    }
+
+    public static LruCache<?, ?> getDecodedCache() {
+        return DECODED;
+    }
+
+    public static LruCache<?, ?> getEncodedCache() {
+        return ENCODED;
+    }
+
+    /**
+     * Imagen decodificada y compartida. Sus streams comprimidos se generan
+     * bajo demanda para cada tamaño de salida y también se guardan en la cache.
+     */
+    public static final class DecodedImage {
+
+        private final ContentKey key;
+        private final BufferedImage image;
+        private final byte[] jpegBytes;
+
+        private DecodedImage(ContentKey key, BufferedImage image, byte[] jpegBytes) {
+            this.key = key;
+            this.image = image;
+            this.jpegBytes = jpegBytes;
+        }
+
+        /**
+         * Ancho original en píxeles.
+         */
+        public int getWidth() {
+            return image.getWidth();
+        }
+
+        /**
+         * Alto original en píxeles.
+         */
+        public int getHeight() {
+            return image.getHeight();
+        }
+
+        /**
+         * Obtiene el stream comprimido con la resolución original.
+         */
+        public PDFEncodedImage encode() throws IOException {
+            return encode(getWidth(), getHeight());
+        }
+
+        /**
+         * Obtiene el stream comprimido con la resolución suficiente para dibujar
+         * la imagen en el tamaño indicado. Nunca se aumenta la resolución original.
+         *
+         * @param drawWidth ancho en puntos en la página
+         * @param drawHeight alto en puntos en la página
+         * @param dpi resolución objetivo (0 conserva la original)
+         */
+        public PDFEncodedImage encode(float drawWidth, float drawHeight, float dpi) throws IOException {
+            if (dpi <= 0) {
+                return encode();
+            }
+            // Un solo factor para conservar la proporción de la imagen
+            double scale = Math.max(
+                    (double) pixelsFor(drawWidth, dpi) / getWidth(),
+                    (double) pixelsFor(drawHeight, dpi) / getHeight());
+            if (scale >= 1) {
+                return encode();
+            }
+            int width = Math.max(1, (int) Math.round(getWidth() * scale));
+            int height = Math.max(1, (int) Math.round(getHeight() * scale));
+            return encode(width, height);
+        }
+
+        private PDFEncodedImage encode(int width, int height) throws IOException {
+            EncodedKey encodedKey = new EncodedKey(key, width, height);
+            PDFEncodedImage encoded = ENCODED.get(encodedKey);
+            if (encoded == null) {
+                encoded = compress(width, height);
+                ENCODED.put(encodedKey, encoded);
+            }
+            return encoded;
+        }
+
+        private PDFEncodedImage compress(int width, int height) throws IOException {
+            boolean resized = width != getWidth() || height != getHeight();
+
+            if (jpegBytes != null) {
+                // Los JPEG se mantienen en DCT; sin reducción se copian tal cual
+                boolean gray = image.getRaster().getNumBands() == 1;
+                byte[] data = resized ? writeJpeg(resize(image, width, height, gray, false)) : jpegBytes;
+                return new PDFEncodedImage(COSName.DCT_DECODE, width, height, gray, data, null);
+            }
+
+            boolean gray = image.getType() == BufferedImage.TYPE_BYTE_GRAY;
+            boolean alpha = image.getColorModel().hasAlpha();
+            BufferedImage source = resized ? resize(image, width, height, gray, alpha) : image;
+            return deflate(source, gray, alpha);
+        }
+
+        private long getSize() {
+            return (long) getWidth() * getHeight() * 4;
+        }
+    }
+
+    private static PDFEncodedImage deflate(BufferedImage image, boolean gray, boolean hasAlpha) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int components = gray ? 1 : 3;
+
+        ByteArrayOutputStream colorBytes = new ByteArrayOutputStream(width * height * components / 4);
+        ByteArrayOutputStream alphaBytes = hasAlpha ? new ByteArrayOutputStream(width * height / 8) : null;
+        boolean opaque = true;
+
+        Deflater colorDeflater = new Deflater(Deflater.BEST_COMPRESSION);
+        Deflater alphaDeflater = hasAlpha ? new Deflater(Deflater.BEST_COMPRESSION) : null;
+        try (DeflaterOutputStream color = new DeflaterOutputStream(colorBytes, colorDeflater);
+             DeflaterOutputStream alpha = hasAlpha ? new DeflaterOutputStream(alphaBytes, alphaDeflater) : null) {
+
+            int[] argb = new int[width];
+            int[] samples = gray ? new int[width] : null;
+            byte[] colorRow = new byte[width * components];
+            byte[] alphaRow = hasAlpha ? new byte[width] : null;
+
+            for (int y = 0; y < height; y++) {
+                image.getRGB(0, y, width, 1, argb, 0, width);
+                if (gray) {
+                    // Muestras de gris directas (getRGB aplicaría conversión de gamma)
+                    image.getRaster().getSamples(0, y, width, 1, 0, samples);
+                }
+                for (int x = 0; x < width; x++) {
+                    int pixel = argb[x];
+                    if (gray) {
+                        colorRow[x] = (byte) samples[x];
+                    } else {
+                        int offset = x * 3;
+                        colorRow[offset] = (byte) ((pixel >> 16) & 0xFF);
+                        colorRow[offset + 1] = (byte) ((pixel >> 8) & 0xFF);
+                        colorRow[offset + 2] = (byte) (pixel & 0xFF);
+                    }
+                    if (hasAlpha) {
+                        int a = (pixel >>> 24) & 0xFF;
+                        alphaRow[x] = (byte) a;
+                        opaque &= a == 0xFF;
+                    }
+                }
+                color.write(colorRow);
+                if (hasAlpha) {
+                    alpha.write(alphaRow);
+                }
+            }
+        } finally {
+            colorDeflater.end();
+            if (alphaDeflater != null) {
+                alphaDeflater.end();
+            }
+        }
+
+        // Un canal alfa completamente opaco no necesita máscara
+        byte[] mask = hasAlpha && !opaque ? alphaBytes.toByteArray() : null;
+        return new PDFEncodedImage(COSName.FLATE_DECODE, width, height, gray, colorBytes.toByteArray(), mask);
+    }
+
+    private static BufferedImage resize(BufferedImage source, int width, int height, boolean gray, boolean alpha) {
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB
+                : gray ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_INT_RGB;
+        // Promedio de área: mejor calidad al reducir mucho la resolución
+        Image scaled = source.getScaledInstance(width, height, Image.SCALE_AREA_AVERAGING);
+        BufferedImage target = new BufferedImage(width, height, type);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.drawImage(scaled, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private static byte[] writeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean isJpeg(byte[] bytes) {
+        return bytes.length > 2 && (bytes[0] & 0xFF) == 0xFF && (bytes[1] & 0xFF) == 0xD8;
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Llave por contenido: hash SHA-256 de los bytes de la imagen.
+     */
+    private static final class ContentKey {
+        private final byte[] hash;
+        private final int hashCode;
+
+        ContentKey(byte[] hash) {
+            this.hash = hash;
+            this.hashCode = Arrays.hashCode(hash);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ContentKey && Arrays.equals(hash, ((ContentKey) o).hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * Llave de un stream comprimido: contenido y tamaño de salida en píxeles.
+     */
+    private static final class EncodedKey {
+        private final ContentKey content;
+        private final int width;
+        private final int height;
+
+        EncodedKey(ContentKey content, int width, int height) {
+            this.content = content;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof EncodedKey)) return false;
+            EncodedKey that = (EncodedKey) o;
+            return width == that.width && height == that.height && content.equals(that.content);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * content.hashCode() + width) + height;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package saul.pdf.renderer;
+
+import com.google.zxing.common.BitMatrix;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.graphics.state.PDExtendedGraphicsState;
+
+import java.awt.Color;
+import java.io.IOException;
+
+/**
+ * Dibuja un código QR o de barras como rectángulos vectoriales
+ * directamente en el content stream de la página.
+ *
+ * Los rectángulos provienen de un {@link BarcodeSymbol} y se rellenan con una
+ * sola operación, sin imagen intermedia ni compresión.
+ */
+public final class PDFMatrixRenderer {
+
+    private PDFMatrixRenderer() {
+    }
+
+    /**
+     * Dibuja la matriz ocupando el rectángulo indicado.
+     *
+     * @see #draw(PDPageContentStream, BarcodeSymbol, float, float, float, float, Color, Color, float)
+     */
+    public static void draw(PDPageContentStream cs, BitMatrix matrix,
+                            float x, float y, float width, float height,
+                            Color foreground, Color background, float opacity) throws IOException {
+        draw(cs, BarcodeSymbol.of(matrix), x, y, width, height, foreground, background, opacity);
+    }
+
+    /**
+     * Dibuja el símbolo ocupando el rectángulo indicado.
+     *
+     * @param cs         content stream de la página
+     * @param symbol     símbolo codificado
+     * @param x          posición X de la esquina inferior izquierda
+     * @param y          posición Y de la esquina inferior izquierda (coordenadas PDF)
+     * @param width      ancho en puntos
+     * @param height     alto en puntos
+     * @param foreground color de los módulos oscuros
+     * @param background color de fondo (null = transparente)
+     * @param opacity    opacidad de 0 a 1
+     * @throws IOException si ocurre un error al escribir en el content stream
+     */
+    public static void draw(PDPageContentStream cs, BarcodeSymbol symbol,
+                            float x, float y, float width, float height,
+                            Color foreground, Color background, float opacity) throws IOException {
+        float moduleWidth = width / symbol.getColumns();
+        float moduleHeight = height / symbol.getRows();
+
+        cs.saveGraphicsState();
+        try {
+            if (opacity < 1.0f) {
+                PDExtendedGraphicsState graphicsState = new PDExtendedGraphicsState();
+                graphicsState.setNonStrokingAlphaConstant(opacity);
+                cs.setGraphicsStateParameters(graphicsState);
+            }
+            if (background != null) {
+                cs.setNonStrokingColor(background);
+                cs.addRect(x, y, width, height);
+                cs.fill();
+            }
+
+            int count = symbol.getRectCount();
+            if (count == 0) return;
+
+            cs.setNonStrokingColor(foreground != null ? foreground : Color.BLACK);
+            float top = y + height;
+            for (int i = 0; i < count; i++) {
+                cs.addRect(x + symbol.getColumnStart(i) * moduleWidth,
+                           top - symbol.getRowEnd(i) * moduleHeight,
+                           (symbol.getColumnEnd(i) - symbol.getColumnStart(i)) * moduleWidth,
+                           (symbol.getRowEnd(i) - symbol.getRowStart(i)) * moduleHeight);
+            }
+            cs.fill();
+        } finally {
+            cs.restoreGraphicsState();
+        }
+    }
+}
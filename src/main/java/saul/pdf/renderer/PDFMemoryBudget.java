@@ -0,0 +1,85 @@
+package saul.pdf.renderer;
+
+/**
+ * Presupuesto de heap compartido por todos los documentos en generación.
+ *
+ * Cada {@link PDFRenderDocument} reserva su parte al crearse y la libera al
+ * cerrarse, reportando cuántos bytes tuvo que escribir en disco. Así el heap
+ * total usado por los reportes simultáneos queda acotado y se puede monitorear.
+ */
+public final class PDFMemoryBudget {
+
+    private final long totalBytes;
+
+    private long reservedBytes;
+    private long peakReservedBytes;
+    private int activeDocuments;
+    private long renderedDocuments;
+    private long spilledDocuments;
+    private long spilledBytes;
+
+    /**
+     * @param totalBytes heap máximo sumando todos los documentos activos
+     */
+    public PDFMemoryBudget(long totalBytes) {
+        this.totalBytes = Math.max(0, totalBytes);
+    }
+
+    /**
+     * Reserva heap para un documento nuevo.
+     *
+     * @param requestedBytes heap solicitado
+     * @return heap concedido; puede ser menor (o cero) si el presupuesto está agotado
+     */
+    public synchronized long reserve(long requestedBytes) {
+        long granted = Math.max(0, Math.min(requestedBytes, totalBytes - reservedBytes));
+        reservedBytes += granted;
+        peakReservedBytes = Math.max(peakReservedBytes, reservedBytes);
+        activeDocuments++;
+        return granted;
+    }
+
+    /**
+     * Libera la reserva de un documento cerrado.
+     *
+     * @param grantedBytes heap que se le concedió al documento
+     * @param documentSpilledBytes bytes que el documento escribió en disco
+     */
+    public synchronized void release(long grantedBytes, long documentSpilledBytes) {
+        reservedBytes = Math.max(0, reservedBytes - grantedBytes);
+        activeDocuments = Math.max(0, activeDocuments - 1);
+        renderedDocuments++;
+        if (documentSpilledBytes > 0) {
+            spilledDocuments++;
+            spilledBytes += documentSpilledBytes;
+        }
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized long getReservedBytes() {
+        return reservedBytes;
+    }
+
+    public synchronized long getPeakReservedBytes() {
+        return peakReservedBytes;
+    }
+
+    public synchronized int getActiveDocuments() {
+        return activeDocuments;
+    }
+
+    public synchronized long getRenderedDocuments() {
+        return renderedDocuments;
+    }
+
+    public synchronized long getSpilledDocuments() {
+        return spilledDocuments;
+    }
+
+    public synchronized long getSpilledBytes() {
+        return spilledBytes;
+    }
+}
@@ -0,0 +1,124 @@
+package saul.pdf.renderer;
+
+import java.io.File;
+
+/**
+ * Política de memoria para los documentos en generación.
+ *
+ * Los streams de un documento (contenido de páginas, imágenes, fuentes) se
+ * guardan en memoria hasta el presupuesto por documento; lo que exceda se
+ * escribe en un archivo temporal (scratch file de PDFBox). Además, todos los
+ * documentos activos comparten un presupuesto total de heap: cuando se agota,
+ * los documentos nuevos reciben menos memoria y usan más disco.
+ */
+public class PDFMemoryPolicy {
+
+    private static final long MB = 1024L * 1024L;
+
+    private long documentHeapBytes;
+    private long totalHeapBytes;
+    private long maxStorageBytes;
+    private File tempDir;
+
+    /**
+     * Constructor con valores por defecto: 32 MB por documento, 128 MB en total
+     * y disco sin límite en el directorio temporal del sistema.
+     */
+    public PDFMemoryPolicy() {
+        this.documentHeapBytes = 32 * MB;
+        this.totalHeapBytes = 128 * MB;
+        this.maxStorageBytes = -1;
+        this.tempDir = null;
+    }
+
+    // ==================== MÉTODOS FLUIDOS ====================
+
+    /**
+     * Heap máximo por documento. Un valor negativo desactiva los archivos
+     * temporales (todo en memoria, como {@code new PDDocument()}).
+     */
+    public PDFMemoryPolicy documentHeapBytes(long documentHeapBytes) {
+        this.documentHeapBytes = documentHeapBytes;
+        return this;
+    }
+
+    /**
+     * Heap máximo sumando todos los documentos en generación.
+     */
+    public PDFMemoryPolicy totalHeapBytes(long totalHeapBytes) {
+        this.totalHeapBytes = totalHeapBytes;
+        return this;
+    }
+
+    /**
+     * Tamaño máximo (memoria + disco) de un documento. -1 sin límite.
+     */
+    public PDFMemoryPolicy maxStorageBytes(long maxStorageBytes) {
+        this.maxStorageBytes = maxStorageBytes;
+        return this;
+    }
+
+    /**
+     * Directorio para los archivos temporales. null usa el del sistema.
+     */
+    public PDFMemoryPolicy tempDir(File tempDir) {
+        this.tempDir = tempDir;
+        return this;
+    }
+
+    // ==================== CONFIGURACIONES PREDEFINIDAS ====================
+
+    /**
+     * Todo en memoria, sin archivos temporales.
+     */
+    public static PDFMemoryPolicy heapOnly() {
+        return new PDFMemoryPolicy().documentHeapBytes(-1);
+    }
+
+    /**
+     * Política con los presupuestos indicados en megabytes.
+     */
+    public static PDFMemoryPolicy ofMegabytes(long documentHeapMb, long totalHeapMb) {
+        return new PDFMemoryPolicy()
+                .documentHeapBytes(documentHeapMb < 0 ? -1 : documentHeapMb * MB)
+                .totalHeapBytes(totalHeapMb * MB);
+    }
+
+    // ==================== GETTERS Y SETTERS ====================
+
+    public boolean isHeapOnly() {
+        return documentHeapBytes < 0;
+    }
+
+    public long getDocumentHeapBytes() {
+        return documentHeapBytes;
+    }
+
+    public void setDocumentHeapBytes(long documentHeapBytes) {
+        this.documentHeapBytes = documentHeapBytes;
+    }
+
+    public long getTotalHeapBytes() {
+        return totalHeapBytes;
+    }
+
+    public void setTotalHeapBytes(long totalHeapBytes) {
+        this.totalHeapBytes = totalHeapBytes;
+    }
+
+    public long getMaxStorageBytes() {
+        return maxStorageBytes;
+    }
+
+    public void setMaxStorageBytes(long maxStorageBytes) {
+        this.maxStorageBytes = maxStorageBytes;
+    }
+
+    public File getTempDir() {
+        return tempDir;
+    }
+
+    public void setTempDir(File tempDir) {
+        this.tempDir = tempDir;
+    }
+}
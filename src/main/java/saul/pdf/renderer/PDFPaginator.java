@@ -3,25 +3,51 @@ package saul.pdf.renderer;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAppearanceStream;
+import org.apache.pdfbox.util.Matrix;
 
 import java.io.IOException;
+import java.util.Iterator;
 
 /**
  * Gestiona la paginación automática de un documento PDF.
  * Crea nuevas páginas automáticamente cuando el contenido excede el espacio disponible.
  *
+ * Opcionalmente escribe el pie de página de cada página al terminarla (ver
+ * {@link #pageFooter(PageFooterConfig)}). El total de páginas se escribe una
+ * sola vez al cerrar, en un Form XObject que todas las páginas comparten.
+ * La marca de agua (ver {@link #watermark(WatermarkConfig)}) también se estampa
+ * al terminar cada página, como referencia a un único Form XObject.
+ *
+ * Las tablas escriben a través de un {@link PDFContentWriter}, que agrupa el
+ * contenido y omite cambios de estado redundantes. Quien obtiene el content
+ * stream directo con {@link #getContentStream()} recibe lo acumulado ya escrito.
+ *
  * Implementa AutoCloseable para cerrar automáticamente el stream de contenido.
  */
 public class PDFPaginator implements AutoCloseable {
 
     private final PDDocument document;
     private final PDFPageConfig pageConfig;
+    private final PDFFontRegistry fontRegistry;
 
     private PDPage currentPage;
     private PDPageContentStream contentStream;
+    private PDFContentWriter contentWriter;
     private float currentY;
     private int pageCount;
 
+    private PageFooterConfig footerConfig;
+    private PDFWatermark watermark;
+    private boolean optimizeContent;
+    private final PDFContentStats contentStats;
+    private PDAppearanceStream totalPagesForm;
+    private boolean closed;
+
     /**
      * Constructor con configuración de página.
      *
@@ -35,6 +61,14 @@ public class PDFPaginator implements AutoCloseable {
         }
         this.document = document;
         this.pageConfig = pageConfig != null ? pageConfig : new PDFPageConfig();
+        this.fontRegistry = PDFFontRegistry.forDocument(document);
+        if (document instanceof PDFRenderDocument) {
+            this.optimizeContent = ((PDFRenderDocument) document).isOptimizeContent();
+            this.contentStats = ((PDFRenderDocument) document).getContentStats();
+        } else {
+            this.optimizeContent = true;
+            this.contentStats = new PDFContentStats();
+        }
         this.pageCount = 0;
         newPage();
     }
@@ -60,10 +94,46 @@ public class PDFPaginator implements AutoCloseable {
         currentPage = new PDPage(pageConfig.getEffectivePageSize());
         document.addPage(currentPage);
         contentStream = new PDPageContentStream(document, currentPage);
+        contentWriter = new PDFContentWriter(contentStream, optimizeContent, contentStats);
         currentY = pageConfig.getStartY();
         pageCount++;
     }
 
+    /**
+     * Activa el pie de página con numeración "p. X de Y".
+     * Se escribe en cada página al terminarla, incluida la página actual.
+     *
+     * @param config configuración del pie de página (null lo desactiva)
+     * @return este paginador
+     */
+    public PDFPaginator pageFooter(PageFooterConfig config) {
+        this.footerConfig = config;
+        return this;
+    }
+
+    /**
+     * Activa la marca de agua. Se construye una sola vez y se estampa en cada
+     * página al terminarla, incluida la página actual.
+     *
+     * @param config configuración de la marca de agua (null la desactiva)
+     * @return este paginador
+     */
+    public PDFPaginator watermark(WatermarkConfig config) {
+        this.watermark = config != null ? new PDFWatermark(document, config) : null;
+        return this;
+    }
+
+    /**
+     * Activa o desactiva la optimización del content stream a partir de la siguiente página.
+     * Por defecto se toma del {@link PDFRenderDocument}.
+     *
+     * @return este paginador
+     */
+    public PDFPaginator optimizeContent(boolean optimize) {
+        this.optimizeContent = optimize;
+        return this;
+    }
+
     /**
      * Verifica si hay espacio suficiente para el contenido.
      * Si no hay espacio, crea automáticamente una nueva página.
@@ -129,14 +199,40 @@ public class PDFPaginator implements AutoCloseable {
         return pageConfig;
     }
 
+    /**
+     * Obtiene el registro de fuentes del documento.
+     * Cada estilo se carga una sola vez por documento.
+     */
+    public PDFFontRegistry getFontRegistry() {
+        return fontRegistry;
+    }
+
     public PDPage getCurrentPage() {
         return currentPage;
     }
 
-    public PDPageContentStream getContentStream() {
+    /**
+     * Content stream de la página actual para escribir directo.
+     * Antes se escribe lo acumulado en el {@link PDFContentWriter}.
+     */
+    public PDPageContentStream getContentStream() throws IOException {
+        if (contentWriter != null) {
+            contentWriter.reset();
+        }
         return contentStream;
     }
 
+    /**
+     * Escritor con estado de la página actual.
+     */
+    public PDFContentWriter getContentWriter() {
+        return contentWriter;
+    }
+
+    public PDFContentStats getContentStats() {
+        return contentStats;
+    }
+
     public float getCurrentY() {
         return currentY;
     }
@@ -171,21 +267,119 @@ public class PDFPaginator implements AutoCloseable {
     }
 
     /**
-     * Cierra el stream de contenido actual si existe.
+     * Termina la página actual: estampa la marca de agua, escribe el pie de página
+     * y cierra su stream de contenido.
      */
     private void closeCurrentStream() throws IOException {
         if (contentStream != null) {
-            contentStream.close();
-            contentStream = null;
+            try {
+                contentWriter.reset();
+                if (watermark != null) {
+                    watermark.stamp(contentStream, currentPage);
+                }
+                if (footerConfig != null) {
+                    drawFooter(contentStream, pageCount);
+                }
+            } finally {
+                contentStream.close();
+                contentStream = null;
+                contentWriter = null;
+                contentStats.addPage(contentLength(currentPage));
+            }
+        }
+    }
+
+    /**
+     * Escribe el pie de la página. El total de páginas aún no se conoce, por eso
+     * se dibuja el Form XObject compartido que se llena al cerrar el paginador.
+     */
+    private void drawFooter(PDPageContentStream cs, int pageNumber) throws IOException {
+        PageFooterConfig config = footerConfig;
+        PDFont font = fontRegistry.getFont(config.getFontStyle());
+        float fontSize = config.getFontSize();
+        float x = currentPage.getMediaBox().getWidth() - config.getMarginRight();
+        float y = config.getY();
+        String label = config.getPageLabel() + pageNumber
+                + (config.isShowTotal() ? config.getTotalSeparator() : "");
+
+        cs.saveGraphicsState();
+        cs.setNonStrokingColor(config.getTextColor());
+        cs.beginText();
+        cs.setFont(font, fontSize);
+        cs.newLineAtOffset(x, y);
+        cs.showText(label);
+        cs.endText();
+
+        if (config.isShowTotal()) {
+            float labelWidth = PDFFontMetrics.forStyle(config.getFontStyle()).width(label, fontSize);
+            cs.saveGraphicsState();
+            cs.transform(Matrix.getTranslateInstance(x + labelWidth, y));
+            cs.drawForm(getTotalPagesForm());
+            cs.restoreGraphicsState();
+        }
+
+        if (config.getLeftText() != null) {
+            cs.beginText();
+            cs.setFont(font, fontSize);
+            cs.newLineAtOffset(config.getLeftX(), y);
+            cs.showText(config.getLeftText());
+            cs.endText();
+        }
+        cs.restoreGraphicsState();
+    }
+
+    /**
+     * Tamaño codificado de los content streams de la página.
+     */
+    private static long contentLength(PDPage page) throws IOException {
+        long length = 0;
+        Iterator<PDStream> streams = page.getContentStreams();
+        while (streams.hasNext()) {
+            length += streams.next().getCOSObject().getLength();
+        }
+        return length;
+    }
+
+    private PDAppearanceStream getTotalPagesForm() {
+        if (totalPagesForm == null) {
+            float fontSize = footerConfig.getFontSize();
+            totalPagesForm = new PDAppearanceStream(document);
+            totalPagesForm.setResources(new PDResources());
+            // Origen en la línea base del texto; espacio para descendentes y números largos
+            totalPagesForm.setBBox(new PDRectangle(0, -fontSize, fontSize * 10, fontSize * 3));
+        }
+        return totalPagesForm;
+    }
+
+    /**
+     * Escribe el total de páginas en el Form XObject compartido.
+     */
+    private void writeTotalPages() throws IOException {
+        if (totalPagesForm == null) return;
+
+        try (PDPageContentStream cs = new PDPageContentStream(document, totalPagesForm)) {
+            cs.setNonStrokingColor(footerConfig.getTextColor());
+            cs.beginText();
+            cs.setFont(fontRegistry.getFont(footerConfig.getFontStyle()), footerConfig.getFontSize());
+            cs.newLineAtOffset(0, 0);
+            cs.showText(String.valueOf(pageCount));
+            cs.endText();
         }
     }
 
     /**
      * Cierra el paginador y libera recursos.
+     * Si el pie de página está activo, aquí se escribe el total de páginas.
      */
     @Override
     public void close() throws IOException {
-        closeCurrentStream();
+        if (closed) return;
+        closed = true;
+        try {
+            closeCurrentStream();
+        } finally {
+            writeTotalPages();
+        }
     }
 }
 
@@ -0,0 +1,256 @@
+package saul.pdf.renderer;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Documento PDF que actúa como contexto de renderizado.
+ * Mantiene los recursos que se comparten durante la generación del documento
+ * (como el registro de fuentes, las plantillas importadas y las imágenes incrustadas) y los libera al cerrarse.
+ *
+ * También guarda las opciones con las que debe escribirse, para que quien
+ * entrega el documento (por ejemplo directo a la respuesta HTTP) no necesite
+ * conocer el reporte que lo generó.
+ *
+ * Con una {@link PDFMemoryPolicy} los streams del documento usan memoria hasta
+ * el presupuesto concedido y el resto se escribe en un archivo temporal dentro
+ * de un directorio propio del documento, que se elimina al cerrarlo.
+ *
+ * Además indica a sus paginadores si deben optimizar el content stream (ver
+ * {@link PDFContentWriter}) y acumula las estadísticas de contenido.
+ */
+public class PDFRenderDocument extends PDDocument {
+
+    private final PDFFontRegistry fontRegistry;
+    private final PDFSaveOptions saveOptions;
+    private final MemoryAllocation memory;
+    private final Map<PDFFormTemplate, PDFormXObject> importedForms = new IdentityHashMap<>();
+    private final Map<PDFEncodedImage, PDImageXObject> embeddedImages = new IdentityHashMap<>();
+    private final PDFContentStats contentStats = new PDFContentStats();
+    private final long createdNanos = System.nanoTime();
+    private boolean optimizeContent = true;
+
+    /**
+     * Crea un documento vacío.
+     */
+    public PDFRenderDocument() {
+        this(PDFSaveOptions.compact());
+    }
+
+    /**
+     * Crea un documento vacío que se escribirá con las opciones indicadas.
+     * Todo su contenido se mantiene en memoria.
+     */
+    public PDFRenderDocument(PDFSaveOptions saveOptions) {
+        this(saveOptions, MemoryAllocation.heapOnly());
+    }
+
+    /**
+     * Crea un documento vacío con memoria acotada: usa como máximo el heap que
+     * conceda el presupuesto compartido y el resto va a un archivo temporal.
+     *
+     * @param saveOptions opciones de escritura
+     * @param policy política de memoria (null = todo en memoria)
+     * @param budget presupuesto compartido (null = sin límite global)
+     * @throws IOException si no se puede crear el directorio temporal
+     */
+    public PDFRenderDocument(PDFSaveOptions saveOptions, PDFMemoryPolicy policy,
+                             PDFMemoryBudget budget) throws IOException {
+        this(saveOptions, MemoryAllocation.reserve(policy, budget));
+    }
+
+    private PDFRenderDocument(PDFSaveOptions saveOptions, MemoryAllocation memory) {
+        super(memory.setting);
+        this.fontRegistry = new PDFFontRegistry(this);
+        this.saveOptions = saveOptions != null ? saveOptions : PDFSaveOptions.compact();
+        this.memory = memory;
+    }
+
+    /**
+     * Obtiene el registro de fuentes del documento.
+     */
+    public PDFFontRegistry getFontRegistry() {
+        return fontRegistry;
+    }
+
+    /**
+     * Opciones de escritura del documento.
+     */
+    public PDFSaveOptions getSaveOptions() {
+        return saveOptions;
+    }
+
+    /**
+     * Heap concedido a los streams del documento, o -1 si todo está en memoria.
+     */
+    public long getHeapBudgetBytes() {
+        return memory.grantedBytes;
+    }
+
+    /**
+     * Bytes que el documento ha escrito en su archivo temporal.
+     */
+    public long getSpilledBytes() {
+        return memory.spilledBytes();
+    }
+
+    /**
+     * Indica si los paginadores del documento optimizan el content stream.
+     */
+    public boolean isOptimizeContent() {
+        return optimizeContent;
+    }
+
+    public void setOptimizeContent(boolean optimizeContent) {
+        this.optimizeContent = optimizeContent;
+    }
+
+    /**
+     * Estadísticas del contenido escrito por los paginadores del documento.
+     */
+    public PDFContentStats getContentStats() {
+        return contentStats;
+    }
+
+    /**
+     * Milisegundos transcurridos desde que se creó el documento.
+     */
+    public long getElapsedMillis() {
+        return (System.nanoTime() - createdNanos) / 1_000_000;
+    }
+
+    /**
+     * Obtiene la plantilla importada en este documento, importándola solo la primera vez.
+     */
+    synchronized PDFormXObject getImportedForm(PDFFormTemplate template) throws IOException {
+        PDFormXObject form = importedForms.get(template);
+        if (form == null) {
+            form = template.importInto(this);
+            importedForms.put(template, form);
+        }
+        return form;
+    }
+
+    /**
+     * Obtiene la imagen incrustada en este documento, incrustándola solo la primera vez.
+     */
+    synchronized PDImageXObject getEmbeddedImage(PDFEncodedImage image) throws IOException {
+        PDImageXObject xObject = embeddedImages.get(image);
+        if (xObject == null) {
+            xObject = image.toXObject(this);
+            embeddedImages.put(image, xObject);
+        }
+        return xObject;
+    }
+
+    /**
+     * Cierra el documento y libera los recursos compartidos,
+     * su reserva de memoria y sus archivos temporales.
+     */
+    @Override
+    public void close() throws IOException {
+        // Se mide antes de cerrar: al cerrar, PDFBox elimina el archivo temporal
+        long spilled = memory.spilledBytes();
+        try {
+            super.close();
+        } finally {
+            fontRegistry.clear();
+            synchronized (this) {
+                importedForms.clear();
+                embeddedImages.clear();
+            }
+            memory.release(spilled);
+        }
+    }
+
+    /**
+     * Memoria asignada a un documento: configuración de PDFBox, heap
+     * reservado del presupuesto y directorio temporal propio.
+     */
+    private static final class MemoryAllocation {
+
+        private final MemoryUsageSetting setting;
+        private final PDFMemoryBudget budget;
+        private final long grantedBytes;
+        private final Path tempDir;
+        private boolean released;
+
+        private MemoryAllocation(MemoryUsageSetting setting, PDFMemoryBudget budget, long grantedBytes, Path tempDir) {
+            this.setting = setting;
+            this.budget = budget;
+            this.grantedBytes = grantedBytes;
+            this.tempDir = tempDir;
+        }
+
+        static MemoryAllocation heapOnly() {
+            return new MemoryAllocation(MemoryUsageSetting.setupMainMemoryOnly(), null, -1, null);
+        }
+
+        static MemoryAllocation reserve(PDFMemoryPolicy policy, PDFMemoryBudget budget) throws IOException {
+            if (policy == null || policy.isHeapOnly()) {
+                return heapOnly();
+            }
+            long granted = budget != null
+                    ? budget.reserve(policy.getDocumentHeapBytes())
+                    : policy.getDocumentHeapBytes();
+            Path tempDir;
+            try {
+                tempDir = policy.getTempDir() != null
+                        ? Files.createTempDirectory(policy.getTempDir().toPath(), "reporte-")
+                        : Files.createTempDirectory("reporte-");
+            } catch (IOException e) {
+                if (budget != null) {
+                    budget.release(granted, 0);
+                }
+                throw e;
+            }
+            // Sin heap disponible el documento trabaja solo con el archivo temporal
+            MemoryUsageSetting setting = granted > 0
+                    ? MemoryUsageSetting.setupMixed(granted, policy.getMaxStorageBytes())
+                    : MemoryUsageSetting.setupTempFileOnly(policy.getMaxStorageBytes());
+            setting.setTempDir(tempDir.toFile());
+            return new MemoryAllocation(setting, budget, granted, tempDir);
+        }
+
+        long spilledBytes() {
+            if (tempDir == null || !Files.isDirectory(tempDir)) return 0;
+            try (Stream<Path> files = Files.list(tempDir)) {
+                return files.mapToLong(file -> {
+                    try {
+                        return Files.size(file);
+                    } catch (IOException e) {
+                        return 0;
+                    }
+                }).sum();
+            } catch (IOException | UncheckedIOException e) {
+                return 0;
+            }
+        }
+
+        synchronized void release(long spilled) throws IOException {
+            if (released) return;
+            released = true;
+            if (budget != null) {
+                budget.release(grantedBytes, spilled);
+            }
+            if (tempDir != null) {
+                try (Stream<Path> files = Files.list(tempDir)) {
+                    for (Path file : (Iterable<Path>) files::iterator) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+                Files.deleteIfExists(tempDir);
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package saul.pdf.renderer;
+
+import java.util.zip.Deflater;
+
+/**
+ * Opciones de escritura del PDF final.
+ *
+ * En modo {@link Mode#COMPACT} (el predeterminado) los objetos que no son streams
+ * se agrupan en streams de objetos comprimidos y la tabla de referencias se
+ * escribe como stream (PDF 1.5), ver {@link PDFCompactWriter}. En modo
+ * {@link Mode#STANDARD} se usa el guardado normal de PDFBox.
+ */
+public class PDFSaveOptions {
+
+    /**
+     * Formato de salida del documento.
+     */
+    public enum Mode {
+        /** Guardado normal de PDFBox: objetos sueltos y tabla xref clásica */
+        STANDARD,
+        /** Streams de objetos comprimidos y stream de referencias cruzadas */
+        COMPACT
+    }
+
+    // El índice dentro del stream de objetos se escribe en 2 bytes del stream de referencias
+    public static final int MAX_OBJECTS_PER_STREAM = 0xFFFF;
+
+    private Mode mode;
+    private int objectsPerStream;
+    private int compressionLevel;
+    private boolean compressStreams;
+    private String name;
+
+    /**
+     * Constructor con valores por defecto (modo compacto).
+     */
+    public PDFSaveOptions() {
+        this.mode = Mode.COMPACT;
+        this.objectsPerStream = 200;
+        this.compressionLevel = Deflater.BEST_COMPRESSION;
+        this.compressStreams = true;
+    }
+
+    // ==================== MÉTODOS FLUIDOS ====================
+
+    public PDFSaveOptions mode(Mode mode) {
+        this.mode = mode != null ? mode : Mode.COMPACT;
+        return this;
+    }
+
+    /**
+     * Número máximo de objetos por stream de objetos, entre 1 y {@value #MAX_OBJECTS_PER_STREAM}.
+     */
+    public PDFSaveOptions objectsPerStream(int objectsPerStream) {
+        setObjectsPerStream(objectsPerStream);
+        return this;
+    }
+
+    /**
+     * Nivel de compresión Deflate (0-9) de los streams de objetos y de referencias.
+     */
+    public PDFSaveOptions compressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+        return this;
+    }
+
+    /**
+     * Comprime con FlateDecode los streams que se escribieron sin filtro
+     * (por ejemplo los Form XObject creados en memoria).
+     */
+    public PDFSaveOptions compressStreams(boolean compressStreams) {
+        this.compressStreams = compressStreams;
+        return this;
+    }
+
+    /**
+     * Nombre del reporte, usado en el registro de tamaños de salida.
+     */
+    public PDFSaveOptions name(String name) {
+        this.name = name;
+        return this;
+    }
+
+    // ==================== CONFIGURACIONES PREDEFINIDAS ====================
+
+    /**
+     * Salida compacta (PDF 1.5).
+     */
+    public static PDFSaveOptions compact() {
+        return new PDFSaveOptions();
+    }
+
+    /**
+     * Guardado normal de PDFBox.
+     */
+    public static PDFSaveOptions standard() {
+        return new PDFSaveOptions().mode(Mode.STANDARD);
+    }
+
+    /**
+     * Opciones por defecto para el modo indicado.
+     */
+    public static PDFSaveOptions of(Mode mode) {
+        return new PDFSaveOptions().mode(mode);
+    }
+
+    // ==================== GETTERS Y SETTERS ====================
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public boolean isCompact() {
+        return mode == Mode.COMPACT;
+    }
+
+    public int getObjectsPerStream() {
+        return objectsPerStream;
+    }
+
+    public void setObjectsPerStream(int objectsPerStream) {
+        this.objectsPerStream = Math.max(1, Math.min(MAX_OBJECTS_PER_STREAM, objectsPerStream));
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    public boolean isCompressStreams() {
+        return compressStreams;
+    }
+
+    public void setCompressStreams(boolean compressStreams) {
+        this.compressStreams = compressStreams;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
@@ -0,0 +1,105 @@
+package saul.pdf.renderer;
+
+import com.google.zxing.WriterException;
+
+import java.util.Objects;
+
+/**
+ * Cache global (a nivel de JVM) de códigos QR y de barras ya codificados.
+ *
+ * La codificación con ZXing (Reed-Solomon, selección de máscara, etc.) se paga
+ * una sola vez por cada símbolo distinto: la llave incluye el contenido y solo
+ * los parámetros que cambian la matriz (tipo, margen, charset y nivel de
+ * corrección). El tamaño, los colores y la opacidad se aplican al dibujar, así
+ * que el mismo QR en distintos reportes comparte la entrada.
+ * Es LRU acotada por memoria; ver {@link #getCache()} para las métricas.
+ */
+public final class PDFSymbolCache {
+
+    private static final long MAX_SYMBOL_BYTES = 4L * 1024 * 1024;
+
+    private static final LruCache<SymbolKey, BarcodeSymbol> SYMBOLS =
+            new LruCache<>(MAX_SYMBOL_BYTES, BarcodeSymbol::getSize);
+
+    private PDFSymbolCache() {
+    }
+
+    /**
+     * Obtiene el símbolo de un código de barras, codificándolo solo la primera vez.
+     *
+     * @param content Contenido a codificar
+     * @param config  Configuración del código de barras
+     * @throws WriterException Si hay error al generar el código
+     */
+    public static BarcodeSymbol barcode(String content, BarcodeConfig config) throws WriterException {
+        SymbolKey key = new SymbolKey(config.getType().name(), content, config.getMargin(), null, null);
+        BarcodeSymbol symbol = SYMBOLS.get(key);
+        if (symbol == null) {
+            symbol = BarcodeSymbol.of(BarcodeGenerator.encodeBarcode(content, config));
+            SYMBOLS.put(key, symbol);
+        }
+        return symbol;
+    }
+
+    /**
+     * Obtiene el símbolo de un código QR, codificándolo solo la primera vez.
+     *
+     * @param content Contenido a codificar
+     * @param config  Configuración del código QR
+     * @throws WriterException Si hay error al generar el código
+     */
+    public static BarcodeSymbol qrCode(String content, QRCodeConfig config) throws WriterException {
+        SymbolKey key = new SymbolKey("QR_CODE", content, config.getMargin(),
+                config.getCharset(), config.getErrorCorrectionLevel().name());
+        BarcodeSymbol symbol = SYMBOLS.get(key);
+        if (symbol == null) {
+            symbol = BarcodeSymbol.of(BarcodeGenerator.encodeQRCode(content, config));
+            SYMBOLS.put(key, symbol);
+        }
+        return symbol;
+    }
+
+    /**
+     * Cache de símbolos, con sus contadores de aciertos, fallos y descartes.
+     */
+    public static LruCache<?, ?> getCache() {
+        return SYMBOLS;
+    }
+
+    /**
+     * Llave de un símbolo: formato, contenido y parámetros de codificación.
+     */
+    private static final class SymbolKey {
+        private final String format;
+        private final String content;
+        private final int margin;
+        private final String charset;
+        private final String errorCorrection;
+        private final int hashCode;
+
+        SymbolKey(String format, String content, int margin, String charset, String errorCorrection) {
+            this.format = format;
+            this.content = content;
+            this.margin = margin;
+            this.charset = charset;
+            this.errorCorrection = errorCorrection;
+            this.hashCode = Objects.hash(format, content, margin, charset, errorCorrection);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof SymbolKey)) return false;
+            SymbolKey that = (SymbolKey) o;
+            return margin == that.margin
+                    && format.equals(that.format)
+                    && Objects.equals(content, that.content)
+                    && Objects.equals(charset, that.charset)
+                    && Objects.equals(errorCorrection, that.errorCorrection);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
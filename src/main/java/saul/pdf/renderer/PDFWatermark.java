@@ -0,0 +1,197 @@
+package saul.pdf.renderer;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.pdmodel.graphics.state.PDExtendedGraphicsState;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAppearanceStream;
+import org.apache.pdfbox.util.Matrix;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Marca de agua de un documento, construida una sola vez como Form XObject.
+ *
+ * El contenido (texto o imagen) y su único estado gráfico de transparencia se
+ * escriben en un Form XObject por tamaño de página; cada página solo agrega un
+ * operador {@code Do} que lo referencia. Un reporte de 200 páginas lleva un solo
+ * objeto de marca de agua en lugar de 200.
+ */
+public final class PDFWatermark {
+
+    private final PDDocument document;
+    private final WatermarkConfig config;
+    private final Map<String, PDAppearanceStream> forms = new HashMap<>();
+    private PDExtendedGraphicsState graphicsState;
+
+    /**
+     * @param document documento al que pertenecen las páginas
+     * @param config configuración de la marca de agua
+     */
+    public PDFWatermark(PDDocument document, WatermarkConfig config) {
+        if (config == null) {
+            throw new IllegalArgumentException("La configuración de la marca de agua no puede ser null");
+        }
+        this.document = document;
+        this.config = config;
+    }
+
+    /**
+     * Estampa la marca de agua en la página, sobre el content stream indicado.
+     *
+     * @param cs content stream de la página
+     * @param page página destino (define el tamaño del Form XObject)
+     * @throws IOException si ocurre un error al construir o dibujar la marca de agua
+     */
+    public void stamp(PDPageContentStream cs, PDPage page) throws IOException {
+        PDAppearanceStream form = getForm(page.getMediaBox());
+        if (form == null) return;
+        cs.saveGraphicsState();
+        cs.drawForm(form);
+        cs.restoreGraphicsState();
+    }
+
+    /**
+     * Estampa la marca de agua en una página ya terminada, agregando contenido al final.
+     *
+     * @param page página destino
+     * @throws IOException si ocurre un error al escribir en la página
+     */
+    public void stamp(PDPage page) throws IOException {
+        if (getForm(page.getMediaBox()) == null) return;
+        try (PDPageContentStream cs = new PDPageContentStream(document, page,
+                PDPageContentStream.AppendMode.APPEND, true, true)) {
+            stamp(cs, page);
+        }
+    }
+
+    /**
+     * Obtiene el Form XObject para el tamaño de página, construyéndolo la primera vez.
+     *
+     * @return el formulario, o null si la marca de agua no tiene contenido (imagen inválida)
+     */
+    private synchronized PDAppearanceStream getForm(PDRectangle mediaBox) throws IOException {
+        String key = mediaBox.getLowerLeftX() + ":" + mediaBox.getLowerLeftY() + ":"
+                + mediaBox.getWidth() + ":" + mediaBox.getHeight();
+        if (forms.containsKey(key)) {
+            return forms.get(key);
+        }
+        PDAppearanceStream form = buildForm(mediaBox);
+        forms.put(key, form);
+        return form;
+    }
+
+    private PDAppearanceStream buildForm(PDRectangle mediaBox) throws IOException {
+        PDImageXObject image = null;
+        if (config.getType() == WatermarkConfig.WatermarkType.IMAGE) {
+            if (config.getImageBytes() == null) return null;
+            PDFImageCache.DecodedImage decoded = PDFImageCache.decode(config.getImageBytes());
+            if (decoded == null) return null;
+            // Se dibuja a su tamaño original
+            image = decoded.encode().embedIn(document);
+        }
+
+        PDAppearanceStream form = new PDAppearanceStream(document);
+        form.setResources(new PDResources());
+        form.setBBox(new PDRectangle(mediaBox.getLowerLeftX(), mediaBox.getLowerLeftY(),
+                mediaBox.getWidth(), mediaBox.getHeight()));
+
+        try (PDPageContentStream cs = new PDPageContentStream(document, form)) {
+            cs.setGraphicsStateParameters(getGraphicsState());
+            if (image != null) {
+                drawImage(cs, mediaBox, image);
+            } else {
+                drawText(cs, mediaBox);
+            }
+        }
+        return form;
+    }
+
+    /**
+     * Estado gráfico de transparencia, compartido por todos los formularios del documento.
+     */
+    private PDExtendedGraphicsState getGraphicsState() {
+        if (graphicsState == null) {
+            graphicsState = new PDExtendedGraphicsState();
+            graphicsState.setNonStrokingAlphaConstant(config.getOpacity());
+            graphicsState.setStrokingAlphaConstant(config.getOpacity());
+        }
+        return graphicsState;
+    }
+
+    private void drawText(PDPageContentStream cs, PDRectangle mediaBox) throws IOException {
+        float pageWidth = mediaBox.getWidth();
+        float pageHeight = mediaBox.getHeight();
+
+        PDFont font = PDFFontRegistry.forDocument(document).getFont(config.getFontStyle());
+        float fontSize = config.getFontSize();
+        String text = config.getText();
+        float textWidth = font.getStringWidth(text) / 1000 * fontSize;
+
+        cs.setNonStrokingColor(config.getColor());
+        cs.setFont(font, fontSize);
+
+        switch (config.getPosition()) {
+            case DIAGONAL:
+                float x = (pageWidth - textWidth) / 2;
+                float y = pageHeight / 2;
+
+                cs.beginText();
+                cs.setTextMatrix(Matrix.getRotateInstance(Math.toRadians(config.getRotation()), x, y));
+                cs.showText(text);
+                cs.endText();
+                break;
+
+            case CENTER:
+                cs.beginText();
+                cs.newLineAtOffset((pageWidth - textWidth) / 2, pageHeight / 2);
+                cs.showText(text);
+                cs.endText();
+                break;
+
+            case TILED:
+                float spacingX = config.getTileSpacingX();
+                float spacingY = config.getTileSpacingY();
+
+                // Un solo bloque de texto para todo el mosaico
+                cs.beginText();
+                for (float tileY = 50; tileY < pageHeight; tileY += spacingY) {
+                    for (float tileX = 50; tileX < pageWidth; tileX += spacingX) {
+                        cs.setTextMatrix(Matrix.getRotateInstance(
+                                Math.toRadians(config.getRotation()), tileX, tileY));
+                        cs.showText(text);
+                    }
+                }
+                cs.endText();
+                break;
+
+            case TOP:
+                cs.beginText();
+                cs.newLineAtOffset((pageWidth - textWidth) / 2, pageHeight - 50);
+                cs.showText(text);
+                cs.endText();
+                break;
+
+            case BOTTOM:
+                cs.beginText();
+                cs.newLineAtOffset((pageWidth - textWidth) / 2, 50);
+                cs.showText(text);
+                cs.endText();
+                break;
+        }
+    }
+
+    private void drawImage(PDPageContentStream cs, PDRectangle mediaBox, PDImageXObject image) throws IOException {
+        float imgWidth = image.getWidth();
+        float imgHeight = image.getHeight();
+        float x = (mediaBox.getWidth() - imgWidth) / 2;
+        float y = (mediaBox.getHeight() - imgHeight) / 2;
+        cs.drawImage(image, x, y, imgWidth, imgHeight);
+    }
+}
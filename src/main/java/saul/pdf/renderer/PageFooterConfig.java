@@ -0,0 +1,204 @@
+package saul.pdf.renderer;
+
+import java.awt.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Configuración del pie de página que escribe {@link PDFPaginator}.
+ * Define el texto de numeración ("p. X de Y"), la leyenda izquierda
+ * (por ejemplo la fecha de generación), la fuente y la posición.
+ */
+public class PageFooterConfig {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private String pageLabel;
+    private String totalSeparator;
+    private String leftText;
+    private float fontSize;
+    private TextBoxConfig.FontStyle fontStyle;
+    private Color textColor;
+    private float marginRight;
+    private float leftX;
+    private float y;
+
+    /**
+     * Constructor con valores por defecto.
+     */
+    public PageFooterConfig() {
+        this.pageLabel = "p. ";
+        this.totalSeparator = " de ";
+        this.leftText = null;
+        this.fontSize = 8f;
+        this.fontStyle = TextBoxConfig.FontStyle.NORMAL;
+        this.textColor = Color.GRAY;
+        // Misma posición que el cuadro de texto de 8pt (padding 5) que usaban los reportes
+        this.marginRight = 75f;
+        this.leftX = 45f;
+        this.y = 18.4f;
+    }
+
+    // ==================== MÉTODOS FLUIDOS ====================
+
+    /**
+     * Texto previo al número de página.
+     */
+    public PageFooterConfig pageLabel(String pageLabel) {
+        this.pageLabel = pageLabel;
+        return this;
+    }
+
+    /**
+     * Texto entre el número de página y el total. Si es null no se muestra el total.
+     */
+    public PageFooterConfig totalSeparator(String totalSeparator) {
+        this.totalSeparator = totalSeparator;
+        return this;
+    }
+
+    /**
+     * Texto fijo en la parte inferior izquierda. Si es null no se escribe.
+     */
+    public PageFooterConfig leftText(String leftText) {
+        this.leftText = leftText;
+        return this;
+    }
+
+    public PageFooterConfig fontSize(float fontSize) {
+        this.fontSize = fontSize;
+        return this;
+    }
+
+    public PageFooterConfig fontStyle(TextBoxConfig.FontStyle fontStyle) {
+        this.fontStyle = fontStyle;
+        return this;
+    }
+
+    public PageFooterConfig textColor(Color textColor) {
+        this.textColor = textColor;
+        return this;
+    }
+
+    /**
+     * Distancia desde el borde derecho de la página hasta el inicio de la numeración.
+     */
+    public PageFooterConfig marginRight(float marginRight) {
+        this.marginRight = marginRight;
+        return this;
+    }
+
+    /**
+     * Posición X del texto izquierdo.
+     */
+    public PageFooterConfig leftX(float leftX) {
+        this.leftX = leftX;
+        return this;
+    }
+
+    /**
+     * Línea base del pie de página (desde abajo).
+     */
+    public PageFooterConfig y(float y) {
+        this.y = y;
+        return this;
+    }
+
+    // ==================== CONFIGURACIONES PREDEFINIDAS ====================
+
+    /**
+     * Pie estándar de los reportes: "p. X de Y" a la derecha y
+     * "Generado: dd/MM/yyyy" a la izquierda, en gris de 8pt.
+     */
+    public static PageFooterConfig standard() {
+        return new PageFooterConfig()
+                .leftText("Generado: " + LocalDate.now().format(DATE_FORMATTER));
+    }
+
+    /**
+     * Solo el número de página, sin total ni texto izquierdo.
+     */
+    public static PageFooterConfig simple() {
+        return new PageFooterConfig()
+                .pageLabel("")
+                .totalSeparator(null);
+    }
+
+    // ==================== GETTERS Y SETTERS ====================
+
+    public String getPageLabel() {
+        return pageLabel;
+    }
+
+    public void setPageLabel(String pageLabel) {
+        this.pageLabel = pageLabel;
+    }
+
+    public String getTotalSeparator() {
+        return totalSeparator;
+    }
+
+    public void setTotalSeparator(String totalSeparator) {
+        this.totalSeparator = totalSeparator;
+    }
+
+    public boolean isShowTotal() {
+        return totalSeparator != null;
+    }
+
+    public String getLeftText() {
+        return leftText;
+    }
+
+    public void setLeftText(String leftText) {
+        this.leftText = leftText;
+    }
+
+    public float getFontSize() {
+        return fontSize;
+    }
+
+    public void setFontSize(float fontSize) {
+        this.fontSize = fontSize;
+    }
+
+    public TextBoxConfig.FontStyle getFontStyle() {
+        return fontStyle;
+    }
+
+    public void setFontStyle(TextBoxConfig.FontStyle fontStyle) {
+        this.fontStyle = fontStyle;
+    }
+
+    public Color getTextColor() {
+        return textColor;
+    }
+
+    public void setTextColor(Color textColor) {
+        this.textColor = textColor;
+    }
+
+    public float getMarginRight() {
+        return marginRight;
+    }
+
+    public void setMarginRight(float marginRight) {
+        this.marginRight = marginRight;
+    }
+
+    public float getLeftX() {
+        return leftX;
+    }
+
+    public void setLeftX(float leftX) {
+        this.leftX = leftX;
+    }
+
+    public float getY() {
+        return y;
+    }
+
+    public void setY(float y) {
+        this.y = y;
+    }
+}
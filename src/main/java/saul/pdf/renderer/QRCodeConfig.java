@@ -19,12 +19,22 @@ public class QRCodeConfig {
         /** ~30% de corrección - Máxima corrección */
         HIGH
     }
+    /**
+     * Forma de dibujar el código en el PDF.
+     */
+    public enum RenderMode {
+        /** Rectángulos vectoriales en el content stream - Nítido a cualquier escala */
+        VECTOR,
+        /** Imagen rasterizada e incrustada en el documento */
+        IMAGE
+    }
     private int size;
     private Color foregroundColor;
     private Color backgroundColor;
     private ErrorCorrectionLevel errorCorrectionLevel;
     private int margin;
     private float opacity;
+    private RenderMode renderMode;
     private String charset;
     /**
      * Constructor con valores por defecto.
@@ -36,6 +46,7 @@ public class QRCodeConfig {
         this.errorCorrectionLevel = ErrorCorrectionLevel.MEDIUM;
         this.margin = 1;
         this.opacity = 1.0f;
+        this.renderMode = RenderMode.VECTOR;
         this.charset = "UTF-8";
     }
     // ==================== MÉTODOS FLUIDOS ====================
@@ -116,6 +127,18 @@ public class QRCodeConfig {
         this.charset = "ISO-8859-1";
         return this;
     }
+    public QRCodeConfig renderMode(RenderMode renderMode) {
+        this.renderMode = renderMode;
+        return this;
+    }
+    public QRCodeConfig asVector() {
+        this.renderMode = RenderMode.VECTOR;
+        return this;
+    }
+    public QRCodeConfig asImage() {
+        this.renderMode = RenderMode.IMAGE;
+        return this;
+    }
     // ==================== GETTERS ====================
     public int getSize() {
         return size;
@@ -138,6 +161,12 @@ public class QRCodeConfig {
     public String getCharset() {
         return charset;
     }
+    public RenderMode getRenderMode() {
+        return renderMode;
+    }
+    public boolean isVector() {
+        return renderMode != RenderMode.IMAGE;
+    }
     // ==================== FACTORY METHODS ====================
     public static QRCodeConfig small() {
         return new QRCodeConfig().size(80);
@@ -0,0 +1,128 @@
+package saul.pdf.renderer;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Modelo de maquetación de una tabla.
+ * Calcula los anchos de columna una vez por tabla y ajusta cada fila una sola
+ * vez, dejando el resultado en un {@link TableRowLayout} reutilizable.
+ *
+ * La medición no escribe en el documento y usa métricas inmutables
+ * ({@link PDFFontMetrics}), así que un bloque de filas puede medirse en paralelo
+ * con {@link #layoutRows}; solo el dibujo posterior tiene que ser secuencial.
+ */
+public final class TableLayout {
+
+    // Filas que mide cada tarea antes de dejar de dividir el bloque
+    private static final int ROWS_PER_TASK = 64;
+
+    private final TableConfig config;
+    private final float[] columnWidths;
+    private final PDFFontMetrics bodyMetrics;
+    private final PDFFontMetrics headerMetrics;
+
+    /**
+     * @param config configuración de la tabla (con número de columnas y ancho ya definidos)
+     * @throws IOException si no se pueden cargar las métricas de las fuentes
+     */
+    public TableLayout(TableConfig config) throws IOException {
+        this.config = config;
+        this.columnWidths = config.getColumnWidths();
+        this.bodyMetrics = PDFFontMetrics.forStyle(config.getFontStyle());
+        this.headerMetrics = PDFFontMetrics.forStyle(config.getHeaderFontStyle());
+    }
+
+    /**
+     * Ajusta las celdas de una fila y calcula su altura
+     * (el máximo entre la altura mínima y la celda más alta).
+     *
+     * @param cells textos de las celdas
+     * @param isHeader si la fila es el encabezado
+     * @return fila medida
+     */
+    public TableRowLayout layoutRow(List<String> cells, boolean isHeader) {
+        float fontSize = isHeader ? config.getHeaderFontSize() : config.getFontSize();
+        PDFFontMetrics metrics = isHeader ? headerMetrics : bodyMetrics;
+        float padding = config.getPadding();
+        float leading = fontSize * 1.2f;
+        float height = config.getRowHeight();
+
+        TextLines[] lines = new TextLines[cells.size()];
+        for (int i = 0; i < lines.length; i++) {
+            String cell = cells.get(i);
+            if (cell != null && !cell.isEmpty()) {
+                float textWidth = getColumnWidth(i) - (padding * 2);
+                TextLines cellLines = TextMeasurer.wrap(cell, metrics, fontSize, textWidth, new TextLines(2));
+                lines[i] = cellLines;
+                height = Math.max(height, (cellLines.size() * leading) + (padding * 2));
+            }
+        }
+        return new TableRowLayout(lines, height, isHeader);
+    }
+
+    /**
+     * Mide un bloque de filas de datos repartiéndolo entre los hilos del pool.
+     * El resultado conserva el orden de las filas.
+     *
+     * @param rows filas de datos
+     * @param from índice de la primera fila (inclusivo)
+     * @param to índice de la última fila (exclusivo)
+     * @param pool pool donde se reparte la medición
+     * @return filas medidas, en el mismo orden
+     */
+    public TableRowLayout[] layoutRows(List<? extends List<String>> rows, int from, int to, ForkJoinPool pool) {
+        TableRowLayout[] result = new TableRowLayout[to - from];
+        pool.invoke(new LayoutTask(rows, from, to, from, result));
+        return result;
+    }
+
+    /**
+     * Ancho de una columna; las celdas adicionales usan el ancho de la última columna.
+     */
+    public float getColumnWidth(int index) {
+        return index < columnWidths.length ? columnWidths[index] : columnWidths[columnWidths.length - 1];
+    }
+
+    public float[] getColumnWidths() {
+        return columnWidths;
+    }
+
+    public TableConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Divide el bloque a la mitad hasta llegar a {@link #ROWS_PER_TASK} filas.
+     */
+    private final class LayoutTask extends RecursiveAction {
+        private final List<? extends List<String>> rows;
+        private final int from;
+        private final int to;
+        private final int offset;
+        private final TableRowLayout[] result;
+
+        LayoutTask(List<? extends List<String>> rows, int from, int to, int offset, TableRowLayout[] result) {
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+            this.offset = offset;
+            this.result = result;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= ROWS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    result[i - offset] = layoutRow(rows.get(i), false);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new LayoutTask(rows, from, middle, offset, result),
+                      new LayoutTask(rows, middle, to, offset, result));
+        }
+    }
+}
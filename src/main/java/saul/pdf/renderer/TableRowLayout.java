@@ -0,0 +1,40 @@
+package saul.pdf.renderer;
+
+/**
+ * Fila de tabla ya medida: las líneas ajustadas de cada celda y la altura final.
+ * Se calcula una sola vez y la usan tanto la paginación como el dibujo.
+ */
+public final class TableRowLayout {
+
+    private final TextLines[] cells;
+    private final float height;
+    private final boolean header;
+
+    TableRowLayout(TextLines[] cells, float height, boolean header) {
+        this.cells = cells;
+        this.height = height;
+        this.header = header;
+    }
+
+    /**
+     * Número de celdas de la fila.
+     */
+    public int getCellCount() {
+        return cells.length;
+    }
+
+    /**
+     * Líneas ajustadas de la celda, o {@code null} si la celda está vacía.
+     */
+    public TextLines getCell(int index) {
+        return cells[index];
+    }
+
+    public float getHeight() {
+        return height;
+    }
+
+    public boolean isHeader() {
+        return header;
+    }
+}
@@ -0,0 +1,25 @@
+package saul.pdf.renderer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Escritura incremental de filas de una tabla.
+ * Cada fila se mide y se dibuja en cuanto se agrega, por lo que no es necesario
+ * tener la tabla completa en memoria.
+ */
+public interface TableRowWriter {
+
+    /**
+     * Agrega una fila a la tabla.
+     *
+     * @param cells textos de las celdas
+     * @throws IOException si ocurre un error al dibujar la fila
+     */
+    void addRow(List<String> cells) throws IOException;
+
+    /**
+     * Número de filas de datos escritas (sin contar el encabezado).
+     */
+    long getRowCount();
+}
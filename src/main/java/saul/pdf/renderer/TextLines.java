@@ -0,0 +1,116 @@
+package saul.pdf.renderer;
+
+import java.util.Arrays;
+
+/**
+ * Resultado del ajuste de líneas de un texto.
+ * Guarda cada línea como un par de índices sobre el texto original y su ancho
+ * en puntos, sin crear subcadenas. La instancia puede reutilizarse entre
+ * celdas llamando de nuevo a {@link TextMeasurer#wrap}.
+ */
+public final class TextLines {
+
+    private CharSequence text = "";
+    private int[] starts;
+    private int[] ends;
+    private float[] widths;
+    private int count;
+
+    public TextLines() {
+        this(8);
+    }
+
+    public TextLines(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        this.starts = new int[capacity];
+        this.ends = new int[capacity];
+        this.widths = new float[capacity];
+    }
+
+    void reset(CharSequence text) {
+        this.text = text != null ? text : "";
+        this.count = 0;
+    }
+
+    void add(int start, int end, float width) {
+        if (count == starts.length) {
+            int capacity = count * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            widths = Arrays.copyOf(widths, capacity);
+        }
+        starts[count] = start;
+        ends[count] = end;
+        widths[count] = width;
+        count++;
+    }
+
+    /**
+     * Número de líneas.
+     */
+    public int size() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Índice inicial (inclusivo) de la línea en el texto original.
+     */
+    public int start(int line) {
+        return starts[line];
+    }
+
+    /**
+     * Índice final (exclusivo) de la línea en el texto original.
+     */
+    public int end(int line) {
+        return ends[line];
+    }
+
+    /**
+     * Ancho de la línea en puntos.
+     */
+    public float width(int line) {
+        return widths[line];
+    }
+
+    /**
+     * Texto de la línea listo para mostrarse.
+     * Los espacios consecutivos o tabuladores entre palabras se reducen a un
+     * solo espacio, igual que al medir la línea.
+     */
+    public String line(int line) {
+        int start = starts[line];
+        int end = ends[line];
+        boolean normalized = true;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (TextMeasurer.isBreakingSpace(c) && (c != ' ' || TextMeasurer.isBreakingSpace(text.charAt(i + 1)))) {
+                normalized = false;
+                break;
+            }
+        }
+        if (normalized) {
+            return text.subSequence(start, end).toString();
+        }
+
+        StringBuilder sb = new StringBuilder(end - start);
+        boolean inSpace = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (TextMeasurer.isBreakingSpace(c)) {
+                inSpace = true;
+            } else {
+                if (inSpace) {
+                    sb.append(' ');
+                    inSpace = false;
+                }
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,147 @@
+package saul.pdf.renderer;
+
+/**
+ * Motor de medición y ajuste de líneas.
+ *
+ * Ajusta el texto de forma voraz acumulando los anchos de avance carácter por
+ * carácter (ver {@link PDFFontMetrics}), sin construir cadenas candidatas ni
+ * volver a medir prefijos. Las reglas son las del ajuste original:
+ * los párrafos se separan con '\n', las palabras con espacios en blanco
+ * (que se reducen a un espacio) y las palabras más anchas que la línea se
+ * parten por caracteres.
+ */
+public final class TextMeasurer {
+
+    private TextMeasurer() {
+    }
+
+    /**
+     * Ajusta el texto al ancho indicado.
+     *
+     * @param text texto a ajustar
+     * @param metrics métricas de la fuente
+     * @param fontSize tamaño de fuente
+     * @param maxWidth ancho máximo de línea en puntos
+     * @param out líneas resultantes (se reinicia antes de usarse)
+     * @return el mismo objeto {@code out}
+     */
+    public static TextLines wrap(CharSequence text, PDFFontMetrics metrics, float fontSize,
+                                 float maxWidth, TextLines out) {
+        out.reset(text);
+        layout(text, metrics, fontSize, maxWidth, out);
+        return out;
+    }
+
+    /**
+     * Ajusta el texto al ancho indicado en un nuevo {@link TextLines}.
+     */
+    public static TextLines wrap(CharSequence text, PDFFontMetrics metrics, float fontSize, float maxWidth) {
+        return wrap(text, metrics, fontSize, maxWidth, new TextLines());
+    }
+
+    /**
+     * Cuenta las líneas que ocuparía el texto sin guardar sus posiciones.
+     */
+    public static int countLines(CharSequence text, PDFFontMetrics metrics, float fontSize, float maxWidth) {
+        return layout(text, metrics, fontSize, maxWidth, null);
+    }
+
+    /**
+     * Espacios en blanco que separan palabras (equivalente a {@code \s} en expresiones regulares).
+     */
+    static boolean isBreakingSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static int layout(CharSequence text, PDFFontMetrics metrics, float fontSize,
+                              float maxWidth, TextLines out) {
+        if (text == null || text.length() == 0 || fontSize <= 0) return 0;
+
+        // Comparar en unidades de fuente evita escalar en cada carácter
+        float max = maxWidth * 1000f / fontSize;
+        float scale = fontSize / 1000f;
+        float spaceWidth = metrics.advance(' ');
+        int length = text.length();
+        int lines = 0;
+
+        int paragraphStart = 0;
+        while (paragraphStart <= length) {
+            int paragraphEnd = paragraphStart;
+            while (paragraphEnd < length && text.charAt(paragraphEnd) != '\n') {
+                paragraphEnd++;
+            }
+
+            int lineStart = -1;
+            int lineEnd = -1;
+            float lineWidth = 0;
+            int pos = paragraphStart;
+
+            while (pos < paragraphEnd) {
+                while (pos < paragraphEnd && isBreakingSpace(text.charAt(pos))) {
+                    pos++;
+                }
+                if (pos >= paragraphEnd) break;
+
+                int wordStart = pos;
+                float wordWidth = 0;
+                while (pos < paragraphEnd && !isBreakingSpace(text.charAt(pos))) {
+                    wordWidth += metrics.advance(text.charAt(pos));
+                    pos++;
+                }
+                int wordEnd = pos;
+
+                float testWidth = lineStart < 0 ? wordWidth : lineWidth + spaceWidth + wordWidth;
+                if (testWidth <= max) {
+                    if (lineStart < 0) lineStart = wordStart;
+                    lineEnd = wordEnd;
+                    lineWidth = testWidth;
+                    continue;
+                }
+
+                if (lineStart >= 0) {
+                    lines += emit(out, lineStart, lineEnd, lineWidth * scale);
+                }
+
+                if (wordWidth > max) {
+                    // Partir la palabra por caracteres
+                    int pieceStart = wordStart;
+                    float pieceWidth = 0;
+                    for (int i = wordStart; i < wordEnd; i++) {
+                        float advance = metrics.advance(text.charAt(i));
+                        if (pieceWidth + advance <= max) {
+                            pieceWidth += advance;
+                        } else {
+                            if (i > pieceStart) {
+                                lines += emit(out, pieceStart, i, pieceWidth * scale);
+                            }
+                            pieceStart = i;
+                            pieceWidth = advance;
+                        }
+                    }
+                    lines += emit(out, pieceStart, wordEnd, pieceWidth * scale);
+                    lineStart = -1;
+                    lineWidth = 0;
+                } else {
+                    lineStart = wordStart;
+                    lineEnd = wordEnd;
+                    lineWidth = wordWidth;
+                }
+            }
+
+            if (lineStart >= 0) {
+                lines += emit(out, lineStart, lineEnd, lineWidth * scale);
+            }
+
+            paragraphStart = paragraphEnd + 1;
+        }
+
+        return lines;
+    }
+
+    private static int emit(TextLines out, int start, int end, float width) {
+        if (out != null) {
+            out.add(start, end, width);
+        }
+        return 1;
+    }
+}
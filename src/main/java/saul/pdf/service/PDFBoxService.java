@@ -1,48 +1,123 @@
 package saul.pdf.service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.font.PDFont;
-import org.apache.pdfbox.pdmodel.font.PDType0Font;
 import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 import org.apache.pdfbox.pdmodel.graphics.state.PDExtendedGraphicsState;
-import org.apache.pdfbox.util.Matrix;
 import org.jfree.chart.JFreeChart;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 import saul.pdf.renderer.*;
 
-import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Field;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Servicio principal para generación de PDFs con PDFBox.
  * Incluye soporte para paginación automática, textos, tablas, imágenes,
  * marcas de agua, líneas y gráficos JFreeChart.
  */
+@Slf4j
 @Service
 public class PDFBoxService {
 
-    // Cache de fuentes para evitar cargarlas múltiples veces
-    private final Map<String, byte[]> fontCache = new HashMap<>();
+    // Plantillas de encabezado por configuración y ancho de página
+    private final Map<HeaderTemplateKey, PDFFormTemplate> headerTemplates = new HashMap<>();
+
+    // Memoria de los documentos en generación: heap por documento y total, el resto a disco
+    private final PDFMemoryPolicy memoryPolicy;
+    private final PDFMemoryBudget memoryBudget;
+
+    // Escritura de tablas con estado y capas agrupadas (false = dibujo directo, para comparar)
+    private final boolean optimizeContent;
+
+    // Medición en paralelo de tablas grandes: filas mínimas y pool compartido por los reportes
+    private static final int PARALLEL_LAYOUT_BATCH = 4096;
+    private final int parallelLayoutMinRows;
+    private final ForkJoinPool layoutPool;
+
+    public PDFBoxService(@Value("${report.memory.document-heap-mb:32}") long documentHeapMb,
+                         @Value("${report.memory.total-heap-mb:128}") long totalHeapMb,
+                         @Value("${report.memory.temp-dir:}") String tempDir,
+                         @Value("${report.content.optimize:true}") boolean optimizeContent,
+                         @Value("${report.table.parallel-min-rows:1000}") int parallelLayoutMinRows,
+                         @Value("${report.table.parallelism:0}") int parallelism) {
+        this.optimizeContent = optimizeContent;
+        this.parallelLayoutMinRows = parallelLayoutMinRows;
+        this.layoutPool = parallelLayoutMinRows > 0
+                ? new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors())
+                : null;
+        this.memoryPolicy = PDFMemoryPolicy.ofMegabytes(documentHeapMb, totalHeapMb)
+                .tempDir(tempDir == null || tempDir.isBlank() ? null : new File(tempDir));
+        this.memoryBudget = new PDFMemoryBudget(memoryPolicy.getTotalHeapBytes());
+    }
+
+    /**
+     * Analiza las fuentes NotoSans una sola vez al iniciar la aplicación.
+     * Los documentos comparten los programas de fuente desde {@link PDFFontCache}.
+     */
+    @PostConstruct
+    public void preloadFonts() {
+        try {
+            PDFFontCache.preload();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudieron cargar las fuentes del reporte", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdownLayoutPool() {
+        if (layoutPool != null) {
+            layoutPool.shutdown();
+        }
+    }
+
+    // ==================== CREACIÓN DE DOCUMENTOS ====================
 
-    private static final String FONT_REGULAR = "/fonts/NotoSans-Regular.ttf";
-    private static final String FONT_BOLD = "/fonts/NotoSans-Bold.ttf";
-    private static final String FONT_ITALIC = "/fonts/NotoSans-Italic.ttf";
-    private static final String FONT_BOLD_ITALIC = "/fonts/NotoSans-BoldItalic.ttf";
+    /**
+     * Crea un documento para un reporte con la política de memoria configurada:
+     * sus streams usan heap hasta el presupuesto concedido y el resto se escribe
+     * en un archivo temporal que se elimina al cerrar el documento.
+     *
+     * @param saveOptions opciones con las que se escribirá el documento
+     * @return documento vacío; quien lo recibe debe cerrarlo
+     * @throws IOException si no se puede preparar el archivo temporal
+     */
+    public PDFRenderDocument createDocument(PDFSaveOptions saveOptions) throws IOException {
+        PDFRenderDocument document = new PDFRenderDocument(saveOptions, memoryPolicy, memoryBudget);
+        document.setOptimizeContent(optimizeContent);
+        return document;
+    }
+
+    /**
+     * Presupuesto de memoria compartido por los documentos en generación (para monitoreo).
+     */
+    public PDFMemoryBudget getMemoryBudget() {
+        return memoryBudget;
+    }
 
     // ==================== ESCRITURA DE TEXTO ====================
 
@@ -77,7 +152,8 @@ public class PDFBoxService {
         float leading = config.getLeading();
 
         // Dividir texto en líneas
-        List<String> lines = wrapText(text, font, config.getFontSize(), textWidth);
+        TextLines lines = TextMeasurer.wrap(text, PDFFontMetrics.forStyle(config.getFontStyle()),
+                                            config.getFontSize(), textWidth);
         float textHeight = lines.size() * leading + (padding * 2);
         float actualHeight = Math.max(height, textHeight);
 
@@ -103,12 +179,11 @@ public class PDFBoxService {
         cs.setNonStrokingColor(config.getTextColor());
         cs.setFont(font, config.getFontSize());
 
-        for (String line : lines) {
-            float textX = calculateTextX(x, width, line, font, config.getFontSize(),
-                                          padding, config.getTextAlign());
+        for (int i = 0; i < lines.size(); i++) {
+            float textX = calculateTextX(x, width, lines.width(i), padding, config.getTextAlign());
             cs.beginText();
             cs.newLineAtOffset(textX, textY);
-            cs.showText(line);
+            cs.showText(lines.line(i));
             cs.endText();
             textY -= leading;
         }
@@ -122,14 +197,15 @@ public class PDFBoxService {
 public void writeText(PDFPaginator paginator, String text, TextBoxConfig config) throws IOException {
     if (text == null || text.isEmpty()) return;
 
-    PDFont font = getFont(paginator.getDocument(), config.getFontStyle());
+    PDFont font = paginator.getFontRegistry().getFont(config.getFontStyle());
     float maxWidth = paginator.getUsableWidth();
     float leading = config.getLeading();
 
     // Dividir texto en líneas que quepan en el ancho disponible
-    List<String> lines = wrapText(text, font, config.getFontSize(), maxWidth);
+    TextLines lines = TextMeasurer.wrap(text, PDFFontMetrics.forStyle(config.getFontStyle()),
+                                        config.getFontSize(), maxWidth);
 
-    for (String line : lines) {
+    for (int i = 0; i < lines.size(); i++) {
         float lineHeight = leading + 2;
         paginator.checkSpace(lineHeight);
 
@@ -138,12 +214,11 @@ public void writeText(PDFPaginator paginator, String text, TextBoxConfig config)
         cs.setNonStrokingColor(config.getTextColor());
 
         // Calcular posición X según alineación
-        float x = calculateTextX(paginator.getStartX(), maxWidth, line, font,
-                                  config.getFontSize(), 0, config.getTextAlign());
+        float x = calculateTextX(paginator.getStartX(), maxWidth, lines.width(i), 0, config.getTextAlign());
 
         cs.beginText();
         cs.newLineAtOffset(x, paginator.getCurrentY());
-        cs.showText(line);
+        cs.showText(lines.line(i));
         cs.endText();
 
         paginator.advanceY(lineHeight);
@@ -155,10 +230,9 @@ public void writeText(PDFPaginator paginator, String text, TextBoxConfig config)
      */
     public void writeTextBox(PDFPaginator paginator, String text, float width,
                              float minHeight, TextBoxConfig config) throws IOException {
-        PDFont font = getFont(paginator.getDocument(), config.getFontStyle());
-        List<String> lines = wrapText(text, font, config.getFontSize(),
-                                      width - (config.getPadding() * 2));
-        float textHeight = lines.size() * config.getLeading() + (config.getPadding() * 2);
+        int lineCount = TextMeasurer.countLines(text, PDFFontMetrics.forStyle(config.getFontStyle()),
+                                                config.getFontSize(), width - (config.getPadding() * 2));
+        float textHeight = lineCount * config.getLeading() + (config.getPadding() * 2);
         float actualHeight = Math.max(minHeight, textHeight);
 
         paginator.checkSpace(actualHeight);
@@ -218,15 +292,183 @@ public void writeText(PDFPaginator paginator, String text, TextBoxConfig config)
         cs.setLineDashPattern(new float[]{}, 0);
     }
 
+    // ==================== ENCABEZADO DE REPORTE ====================
+
+    /**
+     * Dibuja el encabezado institucional usando el paginador.
+     *
+     * El encabezado se construye una sola vez por configuración y ancho de página
+     * como plantilla (imágenes ya codificadas y textos ya acomodados) y en cada
+     * documento solo se estampa como Form XObject. Al terminar, la posición Y
+     * avanza {@link HeaderConfig#getAdvance()} puntos.
+     *
+     * @param paginator paginador del documento
+     * @param config configuración del encabezado
+     * @throws IOException si no se pueden cargar las imágenes o dibujar la plantilla
+     */
+    public void drawHeader(PDFPaginator paginator, HeaderConfig config) throws IOException {
+        PDFFormTemplate template = getHeaderTemplate(config, paginator.getUsableWidth());
+        float startY = paginator.getCurrentY();
+        template.draw(paginator.getDocument(), paginator.getContentStream(), paginator.getStartX(), startY);
+        paginator.setCurrentY(startY - config.getAdvance());
+    }
+
+    private PDFFormTemplate getHeaderTemplate(HeaderConfig config, float width) throws IOException {
+        HeaderTemplateKey key = new HeaderTemplateKey(config, width);
+        synchronized (headerTemplates) {
+            PDFFormTemplate template = headerTemplates.get(key);
+            if (template == null) {
+                template = buildHeaderTemplate(config, width);
+                headerTemplates.put(key, template);
+            }
+            return template;
+        }
+    }
+
+    private PDFFormTemplate buildHeaderTemplate(HeaderConfig config, float width) throws IOException {
+        float height = config.getTemplateHeight();
+        try (PDDocument doc = new PDFRenderDocument()) {
+            PDPage page = new PDPage(new PDRectangle(width, height));
+            doc.addPage(page);
+            try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                if (config.getLayout() == HeaderConfig.Layout.CLASSIC) {
+                    drawClassicHeader(doc, cs, config, width, height);
+                } else {
+                    drawCompactHeader(doc, cs, config, width, height);
+                }
+            }
+            return PDFFormTemplate.fromDocument(doc);
+        }
+    }
+
+    private void drawCompactHeader(PDDocument doc, PDPageContentStream cs, HeaderConfig config,
+                                   float width, float startY) throws IOException {
+        float imageSize = config.getImageSize();
+        float rightImageX = width - imageSize;
+        drawHeaderImages(doc, cs, config, rightImageX, startY);
+
+        // Área para el texto del hospital (entre las imágenes)
+        float textAreaX = imageSize + 10f;
+        float textAreaWidth = rightImageX - textAreaX - 10f;
+        float textAreaY = startY - 10f;
+        float textHeight = 20f;
+
+        TextBoxConfig hospitalConfig = TextBoxConfig.title()
+                .fontSize(14f)
+                .fontStyle(TextBoxConfig.FontStyle.BOLD)
+                .textAlign(TextBoxConfig.TextAlign.CENTER);
+
+        TextBoxConfig departmentConfig = TextBoxConfig.normal()
+                .fontSize(12f)
+                .textAlign(TextBoxConfig.TextAlign.CENTER);
+
+        TextBoxConfig addressConfig = TextBoxConfig.normal()
+                .fontSize(10f)
+                .textAlign(TextBoxConfig.TextAlign.CENTER);
+
+        writeTextBox(doc, cs, config.getHospitalName(), textAreaX, textAreaY, textAreaWidth, textHeight, hospitalConfig);
+        textAreaY -= 16f;
+        writeTextBox(doc, cs, config.getDepartmentName(), textAreaX, textAreaY, textAreaWidth, textHeight, departmentConfig);
+        textAreaY -= 14f;
+        writeTextBox(doc, cs, config.getAddress(), textAreaX, textAreaY, textAreaWidth, textHeight, addressConfig);
+        textAreaY -= 12f;
+        writeTextBox(doc, cs, config.getPhone(), textAreaX, textAreaY, textAreaWidth, textHeight, addressConfig);
+    }
+
+    private void drawClassicHeader(PDDocument doc, PDPageContentStream cs, HeaderConfig config,
+                                   float width, float startY) throws IOException {
+        float imageSize = config.getImageSize();
+        drawHeaderImages(doc, cs, config, width - imageSize, startY);
+
+        // Área central para el texto (entre las dos imágenes)
+        float textX = imageSize + 10;
+        float textWidth = width - (imageSize * 2) - 20;
+        float textY = startY - 5;
+
+        TextBoxConfig headerConfig = TextBoxConfig.normal()
+                .fontStyle(TextBoxConfig.FontStyle.BOLD)
+                .fontSize(11f)
+                .textAlign(TextBoxConfig.TextAlign.CENTER);
+
+        TextBoxConfig subHeaderConfig = TextBoxConfig.normal()
+                .fontSize(9f)
+                .textAlign(TextBoxConfig.TextAlign.CENTER);
+
+        writeTextBox(doc, cs, config.getHospitalName(), textX, textY, textWidth, 12, headerConfig);
+        textY -= 14;
+        writeTextBox(doc, cs, config.getDepartmentName(), textX, textY, textWidth, 12, subHeaderConfig);
+        textY -= 12;
+        writeTextBox(doc, cs, config.getAddress(), textX, textY, textWidth, 12, subHeaderConfig);
+        textY -= 12;
+        writeTextBox(doc, cs, config.getPhone(), textX, textY, textWidth, 12, subHeaderConfig);
+
+        // Línea separadora debajo de las imágenes
+        LineConfig lineConfig = new LineConfig()
+                .color(config.getLineColor())
+                .thickness(1.5f);
+        drawHorizontalLine(cs, 0, startY - config.getAdvance(), width, lineConfig);
+    }
+
+    private void drawHeaderImages(PDDocument doc, PDPageContentStream cs, HeaderConfig config,
+                                  float rightImageX, float startY) throws IOException {
+        float imageSize = config.getImageSize();
+        ImageConfig imageConfig = new ImageConfig()
+                .size(imageSize, imageSize)
+                .scaleMode(ImageConfig.ScaleMode.FIT_BOX);
+
+        insertImage(doc, cs, loadResource(config.getLeftImagePath()), 0, startY, imageConfig);
+        insertImage(doc, cs, loadResource(config.getRightImagePath()), rightImageX, startY, imageConfig);
+    }
+
+    private byte[] loadResource(String resourcePath) throws IOException {
+        ClassPathResource resource = new ClassPathResource(resourcePath);
+        try (InputStream is = resource.getInputStream()) {
+            return is.readAllBytes();
+        }
+    }
+
+    /**
+     * Llave de la cache de encabezados: configuración y ancho de página.
+     */
+    private static final class HeaderTemplateKey {
+        private final HeaderConfig config;
+        private final float width;
+
+        HeaderTemplateKey(HeaderConfig config, float width) {
+            this.config = config;
+            this.width = width;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof HeaderTemplateKey)) return false;
+            HeaderTemplateKey that = (HeaderTemplateKey) o;
+            return Float.compare(width, that.width) == 0 && config.equals(that.config);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * config.hashCode() + Float.hashCode(width);
+        }
+    }
+
     // ==================== INSERCIÓN DE IMÁGENES ====================
 
     /**
      * Inserta una imagen desde bytes.
+     * La imagen decodificada y su stream comprimido provienen de {@link PDFImageCache};
+     * si la imagen tiene más resolución de la necesaria para su tamaño en página
+     * se reduce a {@link ImageConfig#getDpi()}.
      */
     public void insertImage(PDDocument doc, PDPageContentStream cs, byte[] imageBytes,
                             float x, float y, ImageConfig config) throws IOException {
-        BufferedImage bufferedImage = ImageIO.read(new ByteArrayInputStream(imageBytes));
-        insertImage(doc, cs, bufferedImage, x, y, config);
+        PDFImageCache.DecodedImage image = PDFImageCache.decode(imageBytes);
+        if (image == null) return;
+
+        float[] dimensions = calculateImageDimensions(image.getWidth(), image.getHeight(), config);
+        PDImageXObject pdImage = image.encode(dimensions[0], dimensions[1], config.getDpi()).embedIn(doc);
+        drawImage(cs, pdImage, x, y, dimensions, config);
     }
 
     /**
@@ -239,7 +481,12 @@ public void writeText(PDFPaginator paginator, String text, TextBoxConfig config)
         PDImageXObject pdImage = LosslessFactory.createFromImage(doc, image);
 
         // Calcular dimensiones según modo de escala
-        float[] dimensions = calculateImageDimensions(pdImage, config);
+        float[] dimensions = calculateImageDimensions(pdImage.getWidth(), pdImage.getHeight(), config);
+        drawImage(cs, pdImage, x, y, dimensions, config);
+    }
+
+    private void drawImage(PDPageContentStream cs, PDImageXObject pdImage, float x, float y,
+                           float[] dimensions, ImageConfig config) throws IOException {
         float drawWidth = dimensions[0];
         float drawHeight = dimensions[1];
 
@@ -264,9 +511,10 @@ public void writeText(PDFPaginator paginator, String text, TextBoxConfig config)
      */
     public void insertImage(PDFPaginator paginator, byte[] imageBytes,
                             ImageConfig config) throws IOException {
-        BufferedImage image = ImageIO.read(new ByteArrayInputStream(imageBytes));
-        PDImageXObject pdImage = LosslessFactory.createFromImage(paginator.getDocument(), image);
-        float[] dims = calculateImageDimensions(pdImage, config);
+        PDFImageCache.DecodedImage image = PDFImageCache.decode(imageBytes);
+        if (image == null) return;
+
+        float[] dims = calculateImageDimensions(image.getWidth(), image.getHeight(), config);
         float height = dims[1];
 
         paginator.checkSpace(height);
@@ -278,14 +526,13 @@ public void writeText(PDFPaginator paginator, String text, TextBoxConfig config)
             x = paginator.getStartX() + paginator.getUsableWidth() - dims[0];
         }
 
-        insertImage(paginator.getDocument(), paginator.getContentStream(),
-                   image, x, paginator.getCurrentY(), config);
+        PDImageXObject pdImage = image.encode(dims[0], dims[1], config.getDpi())
+                .embedIn(paginator.getDocument());
+        drawImage(paginator.getContentStream(), pdImage, x, paginator.getCurrentY(), dims, config);
         paginator.advanceY(height + 5);
     }
 
-    private float[] calculateImageDimensions(PDImageXObject image, ImageConfig config) {
-        float origWidth = image.getWidth();
-        float origHeight = image.getHeight();
+    private float[] calculateImageDimensions(float origWidth, float origHeight, ImageConfig config) {
         float targetWidth = config.getWidth();
         float targetHeight = config.getHeight();
 
@@ -319,26 +566,17 @@ public void writeText(PDFPaginator paginator, String text, TextBoxConfig config)
 
         int numCols = data.get(0).size();
         config.setNumColumns(numCols);
-        float[] colWidths = config.getColumnWidths();
+        TableLayout layout = new TableLayout(config);
+        PDFContentWriter writer = new PDFContentWriter(cs, optimizeContent, null);
         float currentY = y;
 
         for (int row = 0; row < data.size(); row++) {
-            List<String> rowData = data.get(row);
-            boolean isHeader = (row == 0);
-
-            // Calcular altura de la fila (usa el máximo entre todas las columnas)
-            float rowHeight = calculateRowHeightWithVariableWidths(doc, rowData, colWidths, config, isHeader);
-
-            // Dibujar celdas de la fila
-            float cellX = x;
-            for (int col = 0; col < rowData.size(); col++) {
-                drawTableCell(doc, cs, rowData.get(col), cellX, currentY,
-                             colWidths[col], rowHeight, config, isHeader, row);
-                cellX += colWidths[col];
-            }
-
-            currentY -= rowHeight;
+            // Medir la fila una sola vez (altura = máximo entre todas las columnas)
+            TableRowLayout rowLayout = layout.layoutRow(data.get(row), row == 0);
+            drawTableRow(doc, writer, layout, rowLayout, x, currentY, row);
+            currentY -= rowLayout.getHeight();
         }
+        writer.reset();
 
         return y - currentY;
     }
@@ -351,327 +589,267 @@ public void writeText(PDFPaginator paginator, String text, TextBoxConfig config)
                                          TableConfig config) throws IOException {
         if (dtoList == null || dtoList.isEmpty()) return 0;
 
-        List<List<String>> tableData = convertDTOToTableData(dtoList);
+        DtoRowExtractor extractor = DtoRowExtractor.forClass(dtoList.get(0).getClass());
+        List<List<String>> tableData = new ArrayList<>(dtoList.size() + 1);
+        tableData.add(extractor.getHeader());
+        for (T dto : dtoList) {
+            tableData.add(extractor.extract(dto));
+        }
         return createTable(doc, cs, tableData, x, y, config);
     }
 
     /**
      * Crea una tabla usando el paginador con paginación automática.
+     *
+     * Con {@code report.table.parallel-min-rows} filas o más, las filas se miden
+     * por bloques en paralelo (ajuste de líneas y altura) y después se paginan y
+     * dibujan en orden, en el hilo que llama.
      */
     public void createTable(PDFPaginator paginator, List<List<String>> data,
                             TableConfig config) throws IOException {
         if (data == null || data.isEmpty()) return;
 
-        int numCols = data.get(0).size();
-        config.setNumColumns(numCols);
-        config.setWidth(paginator.getUsableWidth());
-        float[] colWidths = config.getColumnWidths();
-
-        List<String> headerRow = data.get(0);
-        float headerHeight = calculateRowHeightWithVariableWidths(paginator.getDocument(), headerRow, colWidths, config, true);
-
-        for (int row = 0; row < data.size(); row++) {
-            List<String> rowData = data.get(row);
-            boolean isHeader = (row == 0);
-            float rowHeight = calculateRowHeightWithVariableWidths(paginator.getDocument(), rowData, colWidths, config, isHeader);
-
-            // Verificar espacio y crear nueva página si es necesario
-            if (paginator.checkSpace(rowHeight) && row > 0) {
-                // Redibujar header en nueva página
-                float cellX = paginator.getStartX();
-                for (int col = 0; col < headerRow.size(); col++) {
-                    drawTableCell(paginator.getDocument(), paginator.getContentStream(),
-                                 headerRow.get(col), cellX, paginator.getCurrentY(),
-                                 colWidths[col], headerHeight, config, true, 0);
-                    cellX += colWidths[col];
+        PaginatedTableWriter writer = new PaginatedTableWriter(paginator, data.get(0), config);
+        writer.start();
+        if (layoutPool != null && data.size() - 1 >= parallelLayoutMinRows) {
+            List<List<String>> rows = data instanceof RandomAccess ? data : new ArrayList<>(data);
+            for (int from = 1; from < rows.size(); from += PARALLEL_LAYOUT_BATCH) {
+                int to = Math.min(from + PARALLEL_LAYOUT_BATCH, rows.size());
+                for (TableRowLayout row : writer.layout.layoutRows(rows, from, to, layoutPool)) {
+                    writer.addRow(row);
                 }
-                paginator.advanceY(headerHeight);
-            }
-
-            // Dibujar fila actual
-            float cellX = paginator.getStartX();
-            for (int col = 0; col < rowData.size(); col++) {
-                drawTableCell(paginator.getDocument(), paginator.getContentStream(),
-                             rowData.get(col), cellX, paginator.getCurrentY(),
-                             colWidths[col], rowHeight, config, isHeader, row);
-                cellX += colWidths[col];
             }
-            paginator.advanceY(rowHeight);
+            return;
+        }
+        for (int row = 1; row < data.size(); row++) {
+            writer.addRow(data.get(row));
         }
     }
 
     /**
-     * Crea una tabla desde DTOs usando el paginador.
+     * Inicia una tabla incremental usando el paginador.
+     * Las filas se miden y dibujan conforme se agregan y el encabezado se repite
+     * en cada salto de página. El encabezado se dibuja junto con la primera fila.
+     *
+     * @param paginator paginador del documento
+     * @param header textos del encabezado
+     * @param config configuración de la tabla
+     * @return escritor de filas
      */
-    public <T> void createTableFromDTO(PDFPaginator paginator, List<T> dtoList,
-                                        TableConfig config) throws IOException {
-        List<List<String>> tableData = convertDTOToTableData(dtoList);
-        createTable(paginator, tableData, config);
+    public TableRowWriter beginTable(PDFPaginator paginator, List<String> header,
+                                     TableConfig config) throws IOException {
+        return new PaginatedTableWriter(paginator, header, config);
     }
 
-    private void drawTableCell(PDDocument doc, PDPageContentStream cs, String text,
-                               float x, float y, float width, float height,
-                               TableConfig config, boolean isHeader, int rowIndex) throws IOException {
-        // Color de fondo
-        Color bgColor = isHeader ? config.getHeaderBackgroundColor() : config.getRowColor(rowIndex);
-        cs.setNonStrokingColor(bgColor);
-        cs.addRect(x, y - height, width, height);
-        cs.fill();
-
-        // Bordes
-        if (config.isDrawCellBorders()) {
-            applyTableBorderStyle(cs, config);
-            cs.addRect(x, y - height, width, height);
-            cs.stroke();
-            resetLineStyle(cs);
+    /**
+     * Crea una tabla a partir de un iterador de filas, sin materializar la tabla.
+     * En memoria solo se mantiene la fila que se está dibujando.
+     *
+     * @return número de filas de datos dibujadas
+     */
+    public long createTable(PDFPaginator paginator, List<String> header,
+                            Iterator<? extends List<String>> rows, TableConfig config) throws IOException {
+        TableRowWriter writer = beginTable(paginator, header, config);
+        while (rows.hasNext()) {
+            writer.addRow(rows.next());
         }
+        return writer.getRowCount();
+    }
 
-        // Texto
-        if (text != null && !text.isEmpty()) {
-            TextBoxConfig.FontStyle fontStyle = isHeader ? config.getHeaderFontStyle() : config.getFontStyle();
-            float fontSize = isHeader ? config.getHeaderFontSize() : config.getFontSize();
-            Color textColor = isHeader ? config.getHeaderTextColor() : config.getTextColor();
-            TextBoxConfig.TextAlign align = isHeader ? config.getHeaderAlign() : config.getDefaultAlign();
-
-            PDFont font = getFont(doc, fontStyle);
-            float padding = config.getPadding();
-            float textWidth = width - (padding * 2);
-            List<String> lines = wrapText(text, font, fontSize, textWidth);
-            float leading = fontSize * 1.2f;
-
-            float textY = y - padding - fontSize;
-            cs.setNonStrokingColor(textColor);
-            cs.setFont(font, fontSize);
-
-            for (String line : lines) {
-                float textX = calculateTextX(x, width, line, font, fontSize, padding, align);
-                cs.beginText();
-                cs.newLineAtOffset(textX, textY);
-                cs.showText(line);
-                cs.endText();
-                textY -= leading;
-            }
+    /**
+     * Crea una tabla a partir de un iterador de objetos, convirtiendo cada uno
+     * en fila justo antes de dibujarlo.
+     *
+     * @return número de filas de datos dibujadas
+     */
+    public <T> long createTable(PDFPaginator paginator, List<String> header, Iterator<T> items,
+                                Function<? super T, ? extends List<String>> rowMapper,
+                                TableConfig config) throws IOException {
+        TableRowWriter writer = beginTable(paginator, header, config);
+        while (items.hasNext()) {
+            writer.addRow(rowMapper.apply(items.next()));
         }
+        return writer.getRowCount();
     }
 
-    private void applyTableBorderStyle(PDPageContentStream cs, TableConfig config) throws IOException {
-        cs.setStrokingColor(config.getBorderColor());
-        cs.setLineWidth(config.getBorderWidth());
-
-        switch (config.getBorderStyle()) {
-            case DASHED:
-                cs.setLineDashPattern(new float[] { 5, 3 }, 0);
-                break;
-            case DOTTED:
-                cs.setLineDashPattern(new float[] { 1, 2 }, 0);
-                break;
-            default:
-                break;
-        }
+    /**
+     * Crea una tabla a partir de un Stream de filas.
+     *
+     * @return número de filas de datos dibujadas
+     */
+    public long createTable(PDFPaginator paginator, List<String> header,
+                            Stream<? extends List<String>> rows, TableConfig config) throws IOException {
+        return createTable(paginator, header, rows.iterator(), config);
     }
 
-    private float calculateRowHeight(PDDocument doc, List<String> rowData, float colWidth,
-                                     TableConfig config, boolean isHeader) throws IOException {
-        float maxHeight = config.getRowHeight();
-        float fontSize = isHeader ? config.getHeaderFontSize() : config.getFontSize();
-        TextBoxConfig.FontStyle fontStyle = isHeader ? config.getHeaderFontStyle() : config.getFontStyle();
-        PDFont font = getFont(doc, fontStyle);
-        float padding = config.getPadding();
-        float textWidth = colWidth - (padding * 2);
-        float leading = fontSize * 1.2f;
-
-        for (String cell : rowData) {
-            if (cell != null && !cell.isEmpty()) {
-                List<String> lines = wrapText(cell, font, fontSize, textWidth);
-                float cellHeight = (lines.size() * leading) + (padding * 2);
-                maxHeight = Math.max(maxHeight, cellHeight);
-            }
-        }
+    /**
+     * Crea una tabla desde DTOs usando el paginador.
+     * Cada DTO se convierte en fila justo antes de dibujarse.
+     */
+    public <T> void createTableFromDTO(PDFPaginator paginator, List<T> dtoList,
+                                        TableConfig config) throws IOException {
+        if (dtoList == null || dtoList.isEmpty()) return;
 
-        return maxHeight;
+        DtoRowExtractor extractor = DtoRowExtractor.forClass(dtoList.get(0).getClass());
+        createTable(paginator, extractor.getHeader(), dtoList.iterator(), extractor::extract, config);
     }
 
     /**
-     * Calcula la altura de la fila considerando anchos de columna variables.
+     * Tabla paginada que dibuja cada fila en cuanto se agrega.
      */
-    private float calculateRowHeightWithVariableWidths(PDDocument doc, List<String> rowData, float[] colWidths,
-                                                       TableConfig config, boolean isHeader) throws IOException {
-        float maxHeight = config.getRowHeight();
-        float fontSize = isHeader ? config.getHeaderFontSize() : config.getFontSize();
-        TextBoxConfig.FontStyle fontStyle = isHeader ? config.getHeaderFontStyle() : config.getFontStyle();
-        PDFont font = getFont(doc, fontStyle);
-        float padding = config.getPadding();
-        float leading = fontSize * 1.2f;
+    private final class PaginatedTableWriter implements TableRowWriter {
 
-        for (int i = 0; i < rowData.size(); i++) {
-            String cell = rowData.get(i);
-            float colWidth = (i < colWidths.length) ? colWidths[i] : colWidths[colWidths.length - 1];
-            float textWidth = colWidth - (padding * 2);
+        private final PDFPaginator paginator;
+        private final TableLayout layout;
+        private final TableRowLayout header;
+        private boolean started;
+        private long rowCount;
 
-            if (cell != null && !cell.isEmpty()) {
-                List<String> lines = wrapText(cell, font, fontSize, textWidth);
-                float cellHeight = (lines.size() * leading) + (padding * 2);
-                maxHeight = Math.max(maxHeight, cellHeight);
-            }
+        PaginatedTableWriter(PDFPaginator paginator, List<String> headerCells,
+                             TableConfig config) throws IOException {
+            config.setNumColumns(headerCells.size());
+            config.setWidth(paginator.getUsableWidth());
+            this.paginator = paginator;
+            this.layout = new TableLayout(config);
+            // El encabezado se mide una sola vez por tabla
+            this.header = layout.layoutRow(headerCells, true);
         }
 
-        return maxHeight;
-    }
+        void start() throws IOException {
+            if (started) return;
+            started = true;
+            paginator.checkSpace(header.getHeight());
+            drawRow(header, 0);
+        }
 
-    private <T> List<List<String>> convertDTOToTableData(List<T> dtoList) {
-        List<List<String>> tableData = new ArrayList<>();
-        if (dtoList.isEmpty()) return tableData;
+        @Override
+        public void addRow(List<String> cells) throws IOException {
+            addRow(layout.layoutRow(cells, false));
+        }
 
-        Class<?> clazz = dtoList.get(0).getClass();
-        Field[] fields = clazz.getDeclaredFields();
-        List<Field> validFields = new ArrayList<>();
+        /**
+         * Agrega una fila ya medida.
+         */
+        void addRow(TableRowLayout row) throws IOException {
+            start();
+            rowCount++;
 
-        for (Field field : fields) {
-            if (!field.isSynthetic() && !java.lang.reflect.Modifier.isStatic(field.getModifiers())) {
-                field.setAccessible(true);
-                validFields.add(field);
+            // Verificar espacio y redibujar el encabezado en la nueva página
+            if (paginator.checkSpace(row.getHeight())) {
+                drawRow(header, 0);
             }
+            drawRow(row, (int) rowCount);
         }
 
-        // Header row
-        List<String> headerRow = new ArrayList<>();
-        for (Field field : validFields) {
-            headerRow.add(formatFieldName(field.getName()));
+        @Override
+        public long getRowCount() {
+            return rowCount;
         }
-        tableData.add(headerRow);
 
-        // Data rows
-        for (T dto : dtoList) {
-            List<String> row = new ArrayList<>();
-            for (Field field : validFields) {
-                row.add(getFieldValue(dto, field));
-            }
-            tableData.add(row);
+        private void drawRow(TableRowLayout row, int rowIndex) throws IOException {
+            drawTableRow(paginator.getDocument(), paginator.getContentWriter(), layout, row,
+                         paginator.getStartX(), paginator.getCurrentY(), rowIndex);
+            paginator.advanceY(row.getHeight());
         }
-
-        return tableData;
     }
 
-    // ==================== MARCA DE AGUA ====================
-
     /**
-     * Agrega marca de agua a todas las páginas del documento.
+     * Dibuja una fila ya medida a partir de la posición indicada.
+     * El fondo de la fila es un solo rectángulo; con el escritor optimizado los
+     * fondos, bordes y textos de la página se agrupan por capas.
      */
-    public void addWatermark(PDDocument doc, WatermarkConfig config) throws IOException {
-        for (PDPage page : doc.getPages()) {
-            addWatermarkToPage(doc, page, config);
+    private void drawTableRow(PDDocument doc, PDFContentWriter writer, TableLayout layout,
+                              TableRowLayout row, float x, float y, int rowIndex) throws IOException {
+        TableConfig config = layout.getConfig();
+        boolean isHeader = row.isHeader();
+        float height = row.getHeight();
+
+        float rowWidth = 0;
+        for (int col = 0; col < row.getCellCount(); col++) {
+            rowWidth += layout.getColumnWidth(col);
         }
-    }
-
-    private void addWatermarkToPage(PDDocument doc, PDPage page, WatermarkConfig config) throws IOException {
-        try (PDPageContentStream cs = new PDPageContentStream(doc, page,
-                PDPageContentStream.AppendMode.APPEND, true, true)) {
 
-            // Configurar transparencia
-            PDExtendedGraphicsState graphicsState = new PDExtendedGraphicsState();
-            graphicsState.setNonStrokingAlphaConstant(config.getOpacity());
-            graphicsState.setStrokingAlphaConstant(config.getOpacity());
-            cs.setGraphicsStateParameters(graphicsState);
+        // Color de fondo
+        Color bgColor = isHeader ? config.getHeaderBackgroundColor() : config.getRowColor(rowIndex);
+        writer.fillRect(x, y - height, rowWidth, height, bgColor);
 
-            if (config.getType() == WatermarkConfig.WatermarkType.TEXT) {
-                addTextWatermark(doc, cs, page, config);
-            } else {
-                addImageWatermark(doc, cs, page, config);
-            }
+        float cellX = x;
+        for (int col = 0; col < row.getCellCount(); col++) {
+            float colWidth = layout.getColumnWidth(col);
+            drawTableCell(doc, writer, row.getCell(col), cellX, y, colWidth, height, config, isHeader);
+            cellX += colWidth;
         }
     }
 
-    private void addTextWatermark(PDDocument doc, PDPageContentStream cs,
-                                   PDPage page, WatermarkConfig config) throws IOException {
-        float pageWidth = page.getMediaBox().getWidth();
-        float pageHeight = page.getMediaBox().getHeight();
-
-        PDFont font = getFont(doc, config.getFontStyle());
-        float fontSize = config.getFontSize();
-        String text = config.getText();
-        float textWidth = font.getStringWidth(text) / 1000 * fontSize;
-
-        cs.setNonStrokingColor(config.getColor());
-        cs.setFont(font, fontSize);
-
-        switch (config.getPosition()) {
-            case DIAGONAL:
-                float x = (pageWidth - textWidth) / 2;
-                float y = pageHeight / 2;
-
-                cs.beginText();
-                Matrix matrix = Matrix.getRotateInstance(
-                        Math.toRadians(config.getRotation()), x, y);
-                cs.setTextMatrix(matrix);
-                cs.showText(text);
-                cs.endText();
-                break;
+    private void drawTableCell(PDDocument doc, PDFContentWriter writer, TextLines lines,
+                               float x, float y, float width, float height,
+                               TableConfig config, boolean isHeader) throws IOException {
+        // Bordes
+        if (config.isDrawCellBorders()) {
+            writer.strokeRect(x, y - height, width, height,
+                    config.getBorderColor(), config.getBorderWidth(), tableBorderDash(config));
+        }
 
-            case CENTER:
-                cs.beginText();
-                cs.newLineAtOffset((pageWidth - textWidth) / 2, pageHeight / 2);
-                cs.showText(text);
-                cs.endText();
-                break;
-
-            case TILED:
-                float spacingX = config.getTileSpacingX();
-                float spacingY = config.getTileSpacingY();
-
-                for (float tileY = 50; tileY < pageHeight; tileY += spacingY) {
-                    for (float tileX = 50; tileX < pageWidth; tileX += spacingX) {
-                        cs.beginText();
-                        Matrix tileMatrix = Matrix.getRotateInstance(
-                                Math.toRadians(config.getRotation()), tileX, tileY);
-                        cs.setTextMatrix(tileMatrix);
-                        cs.showText(text);
-                        cs.endText();
-                    }
-                }
-                break;
+        // Texto (ya ajustado al medir la fila)
+        if (lines != null && !lines.isEmpty()) {
+            TextBoxConfig.FontStyle fontStyle = isHeader ? config.getHeaderFontStyle() : config.getFontStyle();
+            float fontSize = isHeader ? config.getHeaderFontSize() : config.getFontSize();
+            Color textColor = isHeader ? config.getHeaderTextColor() : config.getTextColor();
+            TextBoxConfig.TextAlign align = isHeader ? config.getHeaderAlign() : config.getDefaultAlign();
 
-            case TOP:
-                cs.beginText();
-                cs.newLineAtOffset((pageWidth - textWidth) / 2, pageHeight - 50);
-                cs.showText(text);
-                cs.endText();
-                break;
+            PDFont font = getFont(doc, fontStyle);
+            float padding = config.getPadding();
+            float leading = fontSize * 1.2f;
 
-            case BOTTOM:
-                cs.beginText();
-                cs.newLineAtOffset((pageWidth - textWidth) / 2, 50);
-                cs.showText(text);
-                cs.endText();
-                break;
+            float textY = y - padding - fontSize;
+            for (int i = 0; i < lines.size(); i++) {
+                float textX = calculateTextX(x, width, lines.width(i), padding, align);
+                writer.showText(lines.line(i), textX, textY, font, fontSize, textColor);
+                textY -= leading;
+            }
         }
     }
 
-    private void addImageWatermark(PDDocument doc, PDPageContentStream cs,
-                                    PDPage page, WatermarkConfig config) throws IOException {
-        if (config.getImageBytes() == null) return;
-
-        BufferedImage image = ImageIO.read(new ByteArrayInputStream(config.getImageBytes()));
-        PDImageXObject pdImage = LosslessFactory.createFromImage(doc, image);
-
-        float pageWidth = page.getMediaBox().getWidth();
-        float pageHeight = page.getMediaBox().getHeight();
-        float imgWidth = pdImage.getWidth();
-        float imgHeight = pdImage.getHeight();
+    private float[] tableBorderDash(TableConfig config) {
+        switch (config.getBorderStyle()) {
+            case DASHED:
+                return new float[] { 5, 3 };
+            case DOTTED:
+                return new float[] { 1, 2 };
+            default:
+                return null;
+        }
+    }
 
-        float x = (pageWidth - imgWidth) / 2;
-        float y = (pageHeight - imgHeight) / 2;
+    // ==================== MARCA DE AGUA ====================
 
-        cs.drawImage(pdImage, x, y, imgWidth, imgHeight);
+    /**
+     * Agrega marca de agua a todas las páginas del documento.
+     * La marca se construye una vez como Form XObject y cada página la referencia;
+     * los reportes paginados usan {@link PDFPaginator#watermark(WatermarkConfig)}.
+     */
+    public void addWatermark(PDDocument doc, WatermarkConfig config) throws IOException {
+        PDFWatermark watermark = new PDFWatermark(doc, config);
+        for (PDPage page : doc.getPages()) {
+            watermark.stamp(page);
+        }
     }
 
     // ==================== GRÁFICOS JFREECHART ====================
 
     /**
      * Inserta un gráfico JFreeChart en el PDF.
+     * En modo vectorial (por defecto) se dibuja directo en el content stream;
+     * en modo imagen se rasteriza y se incrusta como antes.
      */
     public void insertChart(PDDocument doc, PDPageContentStream cs, JFreeChart chart,
                             float x, float y, ChartConfig config) throws IOException {
         ChartGenerator generator = new ChartGenerator();
+        if (config.isVector()) {
+            generator.drawChart(chart, doc, cs, x, y, config.getWidth(), config.getHeight());
+            return;
+        }
+
         BufferedImage chartImage = generator.chartToImage(chart,
                 (int) config.getWidth(), (int) config.getHeight());
 
@@ -684,13 +862,12 @@ public void writeText(PDFPaginator paginator, String text, TextBoxConfig config)
 
     /**
      * Crea e inserta un gráfico usando el paginador.
+     * El gráfico terminado proviene de {@link PDFChartCache}: si la configuración
+     * y los datos no cambiaron, no se vuelve a construir ni a dibujar.
      */
     public void insertChart(PDFPaginator paginator, ChartConfig config,
                             List<?> data) throws IOException {
-        ChartGenerator generator = new ChartGenerator();
-        JFreeChart chart = generator.createChart(config, data);
-        BufferedImage chartImage = generator.chartToImage(chart,
-                (int) config.getWidth(), (int) config.getHeight());
+        PDFFormTemplate template = PDFChartCache.get(config, data);
 
         paginator.checkSpace(config.getHeight());
 
@@ -698,12 +875,7 @@ public void writeText(PDFPaginator paginator, String text, TextBoxConfig config)
         // Centrar gráfico
         x = paginator.getStartX() + (paginator.getUsableWidth() - config.getWidth()) / 2;
 
-        ImageConfig imgConfig = new ImageConfig()
-                .size(config.getWidth(), config.getHeight())
-                .scaleMode(ImageConfig.ScaleMode.STRETCH);
-
-        insertImage(paginator.getDocument(), paginator.getContentStream(),
-                   chartImage, x, paginator.getCurrentY(), imgConfig);
+        template.draw(paginator.getDocument(), paginator.getContentStream(), x, paginator.getCurrentY());
         paginator.advanceY(config.getHeight() + 10);
     }
 
@@ -711,6 +883,8 @@ public void writeText(PDFPaginator paginator, String text, TextBoxConfig config)
 
     /**
      * Numera todas las páginas del documento.
+     * Requiere una segunda pasada sobre el documento terminado; los reportes
+     * paginados usan {@link PDFPaginator#pageFooter(PageFooterConfig)}.
      */
     public void addPageNumbers(PDDocument doc, float marginRight, float marginBottom,
                                float fontSize, TextBoxConfig.FontStyle fontStyle) throws IOException {
@@ -763,118 +937,98 @@ public void writeText(PDFPaginator paginator, String text, TextBoxConfig config)
         }
     }
 
-    // ==================== MÉTODOS AUXILIARES ====================
+    // ==================== GUARDADO DEL DOCUMENTO ====================
 
     /**
-     * Obtiene una fuente según el estilo.
+     * Guarda el documento con sus propias opciones si es un {@link PDFRenderDocument},
+     * o con las opciones por defecto (salida compacta).
      */
-    public PDFont getFont(PDDocument doc, TextBoxConfig.FontStyle style) throws IOException {
-        String fontPath;
-        switch (style) {
-            case BOLD:
-                fontPath = FONT_BOLD;
-                break;
-            case ITALIC:
-                fontPath = FONT_ITALIC;
-                break;
-            case BOLD_ITALIC:
-                fontPath = FONT_BOLD_ITALIC;
-                break;
-            case NORMAL:
-            default:
-                fontPath = FONT_REGULAR;
-                break;
-        }
-        return loadFont(doc, fontPath);
+    public long save(PDDocument doc, OutputStream out) throws IOException {
+        PDFSaveOptions options = doc instanceof PDFRenderDocument
+                ? ((PDFRenderDocument) doc).getSaveOptions()
+                : PDFSaveOptions.compact();
+        return save(doc, out, options);
     }
 
-    private PDFont loadFont(PDDocument doc, String fontPath) throws IOException {
-        byte[] fontBytes = fontCache.get(fontPath);
+    /**
+     * Guarda el documento en memoria. Para entregarlo por HTTP es preferible
+     * {@link #save(PDDocument, OutputStream)} directo sobre la respuesta.
+     */
+    public byte[] toByteArray(PDDocument doc) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        save(doc, baos);
+        return baos.toByteArray();
+    }
 
-        if (fontBytes == null) {
-            try (InputStream is = getClass().getResourceAsStream(fontPath)) {
-                if (is == null) {
-                    throw new IOException("Fuente no encontrada: " + fontPath);
-                }
-                fontBytes = is.readAllBytes();
-                fontCache.put(fontPath, fontBytes);
+    /**
+     * Guarda el documento en el formato indicado y registra el tamaño resultante,
+     * para comparar los modos de salida en cada tipo de reporte.
+     *
+     * @return número de bytes escritos
+     */
+    public long save(PDDocument doc, OutputStream out, PDFSaveOptions options) throws IOException {
+        PDFSaveOptions saveOptions = options != null ? options : PDFSaveOptions.compact();
+        long start = System.nanoTime();
+        long size;
+        if (saveOptions.isCompact()) {
+            size = new PDFCompactWriter(saveOptions).write(doc, out);
+        } else {
+            CountingOutputStream counting = new CountingOutputStream(out);
+            doc.save(counting);
+            size = counting.getCount();
+        }
+        if (log.isDebugEnabled()) {
+            long heapBudget = -1;
+            long spilled = 0;
+            if (doc instanceof PDFRenderDocument) {
+                heapBudget = ((PDFRenderDocument) doc).getHeapBudgetBytes();
+                spilled = ((PDFRenderDocument) doc).getSpilledBytes();
+            }
+            String name = saveOptions.getName() != null ? saveOptions.getName() : "PDF";
+            log.debug("Reporte {} guardado en modo {}: {} bytes, {} páginas, {} ms, heap concedido {} bytes, en disco {} bytes",
+                    name, saveOptions.getMode(), size, doc.getNumberOfPages(),
+                    (System.nanoTime() - start) / 1_000_000, heapBudget, spilled);
+            if (doc instanceof PDFRenderDocument) {
+                PDFRenderDocument renderDocument = (PDFRenderDocument) doc;
+                PDFContentStats stats = renderDocument.getContentStats();
+                log.debug("Reporte {} contenido (optimizado={}): {} bytes en {} páginas, {} operadores omitidos, "
+                                + "{} rellenos, {} bordes y {} objetos de texto agrupados, generado en {} ms",
+                        name, renderDocument.isOptimizeContent(), stats.getContentBytes(), stats.getPages(),
+                        stats.getSuppressedOperators(), stats.getMergedFills(), stats.getMergedStrokes(),
+                        stats.getMergedTextObjects(), renderDocument.getElapsedMillis());
             }
         }
+        return size;
+    }
+
+    // ==================== MÉTODOS AUXILIARES ====================
 
-        return PDType0Font.load(doc, new ByteArrayInputStream(fontBytes), true);
+    /**
+     * Obtiene una fuente según el estilo.
+     * La fuente se carga una sola vez por documento a través de su {@link PDFFontRegistry}.
+     */
+    public PDFont getFont(PDDocument doc, TextBoxConfig.FontStyle style) throws IOException {
+        return PDFFontRegistry.forDocument(doc).getFont(style);
     }
 
     /**
      * Divide texto en líneas que quepan en el ancho especificado.
+     * Usa el motor de medición ({@link TextMeasurer}); las subcadenas solo se
+     * crean al final, para las líneas resultantes.
      */
     public List<String> wrapText(String text, PDFont font, float fontSize, float maxWidth) throws IOException {
         List<String> lines = new ArrayList<>();
         if (text == null || text.isEmpty()) return lines;
 
-        String[] paragraphs = text.split("\n");
-
-        for (String paragraph : paragraphs) {
-            String[] words = paragraph.split("\\s+");
-            StringBuilder currentLine = new StringBuilder();
-
-            for (String word : words) {
-                String testLine = currentLine.length() == 0 ? word : currentLine + " " + word;
-                float width = font.getStringWidth(testLine) / 1000 * fontSize;
-
-                if (width <= maxWidth) {
-                    currentLine = new StringBuilder(testLine);
-                } else {
-                    if (currentLine.length() > 0) {
-                        lines.add(currentLine.toString());
-                    }
-                    // Verificar si la palabra sola excede el ancho
-                    float wordWidth = font.getStringWidth(word) / 1000 * fontSize;
-                    if (wordWidth > maxWidth) {
-                        lines.addAll(breakLongWord(word, font, fontSize, maxWidth));
-                        currentLine = new StringBuilder();
-                    } else {
-                        currentLine = new StringBuilder(word);
-                    }
-                }
-            }
-
-            if (currentLine.length() > 0) {
-                lines.add(currentLine.toString());
-            }
+        TextLines wrapped = TextMeasurer.wrap(text, PDFFontMetrics.forFont(font), fontSize, maxWidth);
+        for (int i = 0; i < wrapped.size(); i++) {
+            lines.add(wrapped.line(i));
         }
-
         return lines;
     }
 
-    private List<String> breakLongWord(String word, PDFont font, float fontSize, float maxWidth) throws IOException {
-        List<String> parts = new ArrayList<>();
-        StringBuilder current = new StringBuilder();
-
-        for (char c : word.toCharArray()) {
-            String test = current.toString() + c;
-            float width = font.getStringWidth(test) / 1000 * fontSize;
-
-            if (width <= maxWidth) {
-                current.append(c);
-            } else {
-                if (current.length() > 0) {
-                    parts.add(current.toString());
-                }
-                current = new StringBuilder(String.valueOf(c));
-            }
-        }
-
-        if (current.length() > 0) {
-            parts.add(current.toString());
-        }
-
-        return parts;
-    }
-
-    private float calculateTextX(float boxX, float boxWidth, String text, PDFont font,
-                                  float fontSize, float padding, TextBoxConfig.TextAlign align) throws IOException {
-        float textWidth = font.getStringWidth(text) / 1000 * fontSize;
-
+    private float calculateTextX(float boxX, float boxWidth, float textWidth,
+                                  float padding, TextBoxConfig.TextAlign align) {
         switch (align) {
             case CENTER:
                 return boxX + (boxWidth - textWidth) / 2;
@@ -901,42 +1055,6 @@ public void writeText(PDFPaginator paginator, String text, TextBoxConfig config)
         }
     }
 
-    private String formatFieldName(String fieldName) {
-        StringBuilder result = new StringBuilder();
-        for (int i = 0; i < fieldName.length(); i++) {
-            char c = fieldName.charAt(i);
-            if (i == 0) {
-                result.append(Character.toUpperCase(c));
-            } else if (Character.isUpperCase(c)) {
-                result.append(' ').append(c);
-            } else {
-                result.append(c);
-            }
-        }
-        return result.toString();
-    }
-
-    private String getFieldValue(Object obj, Field field) {
-        try {
-            Object value = field.get(obj);
-            if (value == null) return "";
-
-            if (value instanceof LocalDate) {
-                return ((LocalDate) value).format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
-            } else if (value instanceof LocalDateTime) {
-                return ((LocalDateTime) value).format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"));
-            } else if (value instanceof Boolean) {
-                return (Boolean) value ? "Sí" : "No";
-            } else if (value instanceof Double || value instanceof Float) {
-                return String.format("%.2f", value);
-            }
-
-            return value.toString();
-        } catch (IllegalAccessException e) {
-            return "";
-        }
-    }
-
     // ==================== INSERCIÓN DE CÓDIGOS DE BARRAS ====================
 
     /**
@@ -953,11 +1071,18 @@ public void writeText(PDFPaginator paginator, String text, TextBoxConfig config)
     public void insertBarcode(PDDocument doc, PDPageContentStream cs, String content,
                               float x, float y, BarcodeConfig config) throws IOException {
         try {
-            BufferedImage barcodeImage = BarcodeGenerator.generateBarcode(content, config);
-
             // Calcular altura real para posicionar correctamente
             float drawY = y - config.getHeight();
 
+            if (config.isVector()) {
+                BarcodeSymbol symbol = PDFSymbolCache.barcode(content, config);
+                PDFMatrixRenderer.draw(cs, symbol, x, drawY, config.getWidth(), config.getHeight(),
+                        config.getForegroundColor(), config.getBackgroundColor(), config.getOpacity());
+                return;
+            }
+
+            BufferedImage barcodeImage = BarcodeGenerator.generateBarcode(content, config);
+
             // Crear imagen PDFBox
             PDImageXObject pdImage = LosslessFactory.createFromImage(doc, barcodeImage);
 
@@ -1053,11 +1178,18 @@ public void writeText(PDFPaginator paginator, String text, TextBoxConfig config)
     public void insertQRCode(PDDocument doc, PDPageContentStream cs, String content,
                              float x, float y, QRCodeConfig config) throws IOException {
         try {
-            BufferedImage qrImage = BarcodeGenerator.generateQRCode(content, config);
-
             // Calcular posición Y (PDFBox usa coordenadas desde abajo)
             float drawY = y - config.getSize();
 
+            if (config.isVector()) {
+                BarcodeSymbol symbol = PDFSymbolCache.qrCode(content, config);
+                PDFMatrixRenderer.draw(cs, symbol, x, drawY, config.getSize(), config.getSize(),
+                        config.getForegroundColor(), config.getBackgroundColor(), config.getOpacity());
+                return;
+            }
+
+            BufferedImage qrImage = BarcodeGenerator.generateQRCode(content, config);
+
             // Crear imagen PDFBox
             PDImageXObject pdImage = LosslessFactory.createFromImage(doc, qrImage);
 
@@ -1157,14 +1289,8 @@ public void writeText(PDFPaginator paginator, String text, TextBoxConfig config)
     public void insertVCardQRCode(PDDocument doc, PDPageContentStream cs,
                                    String name, String phone, String email, String company,
                                    float x, float y, int size) throws IOException {
-        try {
-            BufferedImage qrImage = BarcodeGenerator.generateVCardQRCode(name, phone, email, company, size);
-            float drawY = y - size;
-            PDImageXObject pdImage = LosslessFactory.createFromImage(doc, qrImage);
-            cs.drawImage(pdImage, x, drawY, size, size);
-        } catch (com.google.zxing.WriterException e) {
-            throw new IOException("Error al generar código QR vCard: " + e.getMessage(), e);
-        }
+        insertQRCode(doc, cs, BarcodeGenerator.vCardContent(name, phone, email, company),
+                    x, y, QRCodeConfig.defaults().size(size).highErrorCorrection());
     }
 
     /**
@@ -1173,14 +1299,8 @@ public void writeText(PDFPaginator paginator, String text, TextBoxConfig config)
     public void insertWiFiQRCode(PDDocument doc, PDPageContentStream cs,
                                   String ssid, String password, String encryption, boolean hidden,
                                   float x, float y, int size) throws IOException {
-        try {
-            BufferedImage qrImage = BarcodeGenerator.generateWiFiQRCode(ssid, password, encryption, hidden, size);
-            float drawY = y - size;
-            PDImageXObject pdImage = LosslessFactory.createFromImage(doc, qrImage);
-            cs.drawImage(pdImage, x, drawY, size, size);
-        } catch (com.google.zxing.WriterException e) {
-            throw new IOException("Error al generar código QR WiFi: " + e.getMessage(), e);
-        }
+        insertQRCode(doc, cs, BarcodeGenerator.wiFiContent(ssid, password, encryption, hidden),
+                    x, y, QRCodeConfig.defaults().size(size).highErrorCorrection());
     }
 
     /**
@@ -1189,14 +1309,8 @@ public void writeText(PDFPaginator paginator, String text, TextBoxConfig config)
     public void insertGeoQRCode(PDDocument doc, PDPageContentStream cs,
                                  double latitude, double longitude,
                                  float x, float y, int size) throws IOException {
-        try {
-            BufferedImage qrImage = BarcodeGenerator.generateGeoQRCode(latitude, longitude, size);
-            float drawY = y - size;
-            PDImageXObject pdImage = LosslessFactory.createFromImage(doc, qrImage);
-            cs.drawImage(pdImage, x, drawY, size, size);
-        } catch (com.google.zxing.WriterException e) {
-            throw new IOException("Error al generar código QR Geo: " + e.getMessage(), e);
-        }
+        insertQRCode(doc, cs, BarcodeGenerator.geoContent(latitude, longitude),
+                    x, y, QRCodeConfig.defaults().size(size));
     }
 }
 
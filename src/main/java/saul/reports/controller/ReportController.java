@@ -1,30 +1,68 @@
 package saul.reports.controller;
 
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import saul.entity.*;
+import saul.reports.service.ReportCache;
 import saul.reports.service.ReportService;
 
 import java.time.LocalDate;
+import java.util.List;
 
 /**
  * Controlador REST para la generación de reportes en formato PDF.
  * Expone endpoints para generar diferentes tipos de reportes de la aplicación.
  *
- * Todos los endpoints retornan ResponseEntity<byte[]> con headers configurados
+ * Todos los endpoints retornan ResponseEntity<StreamingResponseBody> con headers configurados
  * para visualización o descarga de archivos PDF.
+ *
+ * Los reportes pasan por {@link ReportCache}: las respuestas desde la cache llevan un ETag
+ * fuerte y una petición con If-None-Match igual al reporte vigente recibe 304 sin volver
+ * a generarlo.
  */
 @RestController
 @RequestMapping("/api/reports")
 public class ReportController {
 
+    // Tablas de las que lee cada reporte; un cambio en cualquiera invalida su cache
+    private static final List<Class<?>> EQUIPOS_REZAGADOS = List.of(DispositivoResumen.class,
+            Dispositivo.class, TipoDispositivo.class, TipoEstadoDisp.class, HistorialUbicacion.class,
+            Lugar.class, Departamento.class, Mantenimiento.class);
+    private static final List<Class<?>> MANTENIMIENTOS = List.of(Mantenimiento.class, Dispositivo.class,
+            TipoDispositivo.class, TipoMantenimiento.class, HistorialUbicacion.class, Lugar.class,
+            Departamento.class, Usuario.class);
+    private static final List<Class<?>> ENTRADAS_TONER = List.of(EntradasToner.class, TipoToner.class,
+            Usuario.class);
+    private static final List<Class<?>> SALIDAS_TONER = List.of(SalidasToner.class, TipoToner.class,
+            Usuario.class, Lugar.class, Departamento.class);
+    private static final List<Class<?>> INVENTARIO_TONER = List.of(EntradasToner.class, SalidasToner.class,
+            TipoToner.class);
+    private static final List<Class<?>> ANOTACIONES = List.of(Anotacion.class, Usuario.class);
+    private static final List<Class<?>> BITACORA_SERVICIOS = List.of(BitacoraServicio.class, Servicio.class,
+            TipoIncidente.class, Usuario.class);
+    private static final List<Class<?>> DISPOSITIVO = List.of(Dispositivo.class, TipoDispositivo.class,
+            TipoEstadoDisp.class, HistorialUbicacion.class, Lugar.class, Departamento.class,
+            Mantenimiento.class, TipoMantenimiento.class, Usuario.class);
+    private static final List<Class<?>> HISTORIAL_UBICACIONES = List.of(HistorialUbicacion.class,
+            Dispositivo.class, TipoDispositivo.class, Lugar.class, Departamento.class, Usuario.class);
+    private static final List<Class<?>> TICKETS = List.of(Ticket.class, Departamento.class, EstadoTicket.class,
+            TipoPrioridadTicket.class, Usuario.class);
+    private static final List<Class<?>> REGISTRO_DISPOSITIVOS = List.of(Dispositivo.class, TipoDispositivo.class,
+            TipoEstadoDisp.class, HistorialUbicacion.class, Lugar.class, Departamento.class);
+
     private final ReportService reportService;
+    private final ReportCache reportCache;
 
-    public ReportController(ReportService reportService) {
+    public ReportController(ReportService reportService, ReportCache reportCache) {
         this.reportService = reportService;
+        this.reportCache = reportCache;
     }
 
 
@@ -58,10 +96,13 @@ public class ReportController {
      * - Body: bytes del PDF
      */
     @GetMapping("/equipos-rezagados")
-    public ResponseEntity<byte[]> generateEquiposRezagadosReport(
+    public ResponseEntity<StreamingResponseBody> generateEquiposRezagadosReport(
             @RequestParam Integer diasMinimos,
-            @RequestParam(required = false) Integer idTipoDispositivo) {
-        return reportService.generateEquiposRezagadosReport(diasMinimos, idTipoDispositivo);
+            @RequestParam(required = false) Integer idTipoDispositivo,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String key = ReportCache.key("equipos-rezagados", diasMinimos, idTipoDispositivo);
+        return reportCache.serve(key, EQUIPOS_REZAGADOS, ifNoneMatch,
+                () -> reportService.generateEquiposRezagadosReport(diasMinimos, idTipoDispositivo));
     }
 
     /**
@@ -90,11 +131,14 @@ public class ReportController {
      * - Body: bytes del PDF
      */
     @GetMapping("/mantenimientos")
-    public ResponseEntity<byte[]> generateMantenimientoReport(
+    public ResponseEntity<StreamingResponseBody> generateMantenimientoReport(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
-            @RequestParam(required = false) Integer idTipoDispositivo) {
-        return reportService.generateMantenimientoReport(fechaInicio, fechaFin, idTipoDispositivo);
+            @RequestParam(required = false) Integer idTipoDispositivo,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String key = ReportCache.key("mantenimientos", fechaInicio, fechaFin, idTipoDispositivo);
+        return reportCache.serve(key, MANTENIMIENTOS, ifNoneMatch,
+                () -> reportService.generateMantenimientoReport(fechaInicio, fechaFin, idTipoDispositivo));
     }
 
     /**
@@ -124,11 +168,14 @@ public class ReportController {
      * - Body: bytes del PDF
      */
     @GetMapping("/entradas-toner")
-    public ResponseEntity<byte[]> generateEntradasTonerReport(
+    public ResponseEntity<StreamingResponseBody> generateEntradasTonerReport(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
-            @RequestParam(required = false) Long idUsuario) {
-        return reportService.generateEntradasTonerReport(fechaInicio, fechaFin, idUsuario);
+            @RequestParam(required = false) Long idUsuario,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String key = ReportCache.key("entradas-toner", fechaInicio, fechaFin, idUsuario);
+        return reportCache.serve(key, ENTRADAS_TONER, ifNoneMatch,
+                () -> reportService.generateEntradasTonerReport(fechaInicio, fechaFin, idUsuario));
     }
 
     /**
@@ -157,11 +204,14 @@ public class ReportController {
      * - Body: bytes del PDF
      */
     @GetMapping("/salidas-toner")
-    public ResponseEntity<byte[]> generateSalidasTonerReport(
+    public ResponseEntity<StreamingResponseBody> generateSalidasTonerReport(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
-            @RequestParam(required = false) Long idUsuario) {
-        return reportService.generateSalidasTonerReport(fechaInicio, fechaFin, idUsuario);
+            @RequestParam(required = false) Long idUsuario,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String key = ReportCache.key("salidas-toner", fechaInicio, fechaFin, idUsuario);
+        return reportCache.serve(key, SALIDAS_TONER, ifNoneMatch,
+                () -> reportService.generateSalidasTonerReport(fechaInicio, fechaFin, idUsuario));
     }
 
     /**
@@ -188,8 +238,11 @@ public class ReportController {
      * - Body: bytes del PDF con todas las existencias de tóner
      */
     @GetMapping("/inventario-toner")
-    public ResponseEntity<byte[]> generateInventarioTonerReport() {
-        return reportService.generateStockTonerReport();
+    public ResponseEntity<StreamingResponseBody> generateInventarioTonerReport(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String key = ReportCache.key("inventario-toner");
+        return reportCache.serve(key, INVENTARIO_TONER, ifNoneMatch,
+                reportService::generateStockTonerReport);
     }
 
     /**
@@ -224,15 +277,18 @@ public class ReportController {
      * - Body: bytes del PDF con las anotaciones filtradas
      */
     @GetMapping("/anotaciones")
-    public ResponseEntity<byte[]> generateAnotacionesReport(
+    public ResponseEntity<StreamingResponseBody> generateAnotacionesReport(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
             @RequestParam(required = false) Long idUsuario,
             @RequestParam(required = false) String contenido,
             @RequestParam(required = false) Integer pagina,
             @RequestParam(required = false) String etiquetas,
-            @RequestParam(required = false) Boolean importante) {
-        return reportService.generateAnotacionesReport(fechaInicio, fechaFin, idUsuario, contenido, pagina, etiquetas, importante);
+            @RequestParam(required = false) Boolean importante,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String key = ReportCache.key("anotaciones", fechaInicio, fechaFin, idUsuario, contenido, pagina, etiquetas, importante);
+        return reportCache.serve(key, ANOTACIONES, ifNoneMatch,
+                () -> reportService.generateAnotacionesReport(fechaInicio, fechaFin, idUsuario, contenido, pagina, etiquetas, importante));
     }
 
     /**
@@ -269,14 +325,17 @@ public class ReportController {
      * - Body: bytes del PDF con las bitácoras filtradas
      */
     @GetMapping("/bitacora-servicios")
-    public ResponseEntity<byte[]> generateBitacoraServicioReport(
+    public ResponseEntity<StreamingResponseBody> generateBitacoraServicioReport(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
             @RequestParam(required = false) Long idUsuario,
             @RequestParam(required = false) String contenido,
             @RequestParam(required = false) String estado,
-            @RequestParam(required = false) Long idTipoIncidente) {
-        return reportService.generateBitacoraServicioReport(fechaInicio, fechaFin, idUsuario, contenido, estado, idTipoIncidente);
+            @RequestParam(required = false) Long idTipoIncidente,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String key = ReportCache.key("bitacora-servicios", fechaInicio, fechaFin, idUsuario, contenido, estado, idTipoIncidente);
+        return reportCache.serve(key, BITACORA_SERVICIOS, ifNoneMatch,
+                () -> reportService.generateBitacoraServicioReport(fechaInicio, fechaFin, idUsuario, contenido, estado, idTipoIncidente));
     }
 
     /**
@@ -308,9 +367,12 @@ public class ReportController {
      * - Body: bytes del PDF con la información del dispositivo y su historial de ubicaciones
      */
     @GetMapping("/dispositivo")
-    public ResponseEntity<byte[]> generateDispositivoReport(
-            @RequestParam Long idDispositivo) {
-        return reportService.generateDispositivoReport(idDispositivo);
+    public ResponseEntity<StreamingResponseBody> generateDispositivoReport(
+            @RequestParam Long idDispositivo,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String key = ReportCache.key("dispositivo", idDispositivo);
+        return reportCache.serve(key, DISPOSITIVO, ifNoneMatch,
+                () -> reportService.generateDispositivoReport(idDispositivo));
     }
 
     /**
@@ -342,10 +404,13 @@ public class ReportController {
      * - Body: bytes del PDF con el historial de ubicaciones
      */
     @GetMapping("/historial-ubicaciones")
-    public ResponseEntity<byte[]> generateHistorialUbicacionReport(
+    public ResponseEntity<StreamingResponseBody> generateHistorialUbicacionReport(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin) {
-        return reportService.generateHistorialUbicacionReport(fechaInicio, fechaFin);
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String key = ReportCache.key("historial-ubicaciones", fechaInicio, fechaFin);
+        return reportCache.serve(key, HISTORIAL_UBICACIONES, ifNoneMatch,
+                () -> reportService.generateHistorialUbicacionReport(fechaInicio, fechaFin));
     }
 
     /**
@@ -384,14 +449,17 @@ public class ReportController {
      * - Body: bytes del PDF con los tickets filtrados
      */
     @GetMapping("/tickets")
-    public ResponseEntity<byte[]> generateTicketReport(
+    public ResponseEntity<StreamingResponseBody> generateTicketReport(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
             @RequestParam(required = false) Integer idDepartamento,
             @RequestParam(required = false) Integer idEstado,
             @RequestParam(required = false) Integer idPrioridad,
-            @RequestParam(required = false) String descripcion) {
-        return reportService.generateTicketReport(fechaInicio, fechaFin, idDepartamento, idEstado, idPrioridad, descripcion);
+            @RequestParam(required = false) String descripcion,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String key = ReportCache.key("tickets", fechaInicio, fechaFin, idDepartamento, idEstado, idPrioridad, descripcion);
+        return reportCache.serve(key, TICKETS, ifNoneMatch,
+                () -> reportService.generateTicketReport(fechaInicio, fechaFin, idDepartamento, idEstado, idPrioridad, descripcion));
     }
 
     /**
@@ -433,7 +501,7 @@ public class ReportController {
      * - Body: bytes del PDF con los dispositivos registrados filtrados
      */
     @GetMapping("/registro-dispositivos")
-    public ResponseEntity<byte[]> generateDispositivoRegistroReport(
+    public ResponseEntity<StreamingResponseBody> generateDispositivoRegistroReport(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
             @RequestParam(required = false) String marca,
@@ -441,8 +509,11 @@ public class ReportController {
             @RequestParam(required = false) String numeroserie,
             @RequestParam(required = false) String inventario,
             @RequestParam(required = false) String notas,
-            @RequestParam(required = false) Integer idTipoEstado) {
-        return reportService.generateDispositivoRegistroReport(fechaInicio, fechaFin, marca, modelo, numeroserie, inventario, notas, idTipoEstado);
+            @RequestParam(required = false) Integer idTipoEstado,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String key = ReportCache.key("registro-dispositivos", fechaInicio, fechaFin, marca, modelo, numeroserie, inventario, notas, idTipoEstado);
+        return reportCache.serve(key, REGISTRO_DISPOSITIVOS, ifNoneMatch,
+                () -> reportService.generateDispositivoRegistroReport(fechaInicio, fechaFin, marca, modelo, numeroserie, inventario, notas, idTipoEstado));
     }
 
 
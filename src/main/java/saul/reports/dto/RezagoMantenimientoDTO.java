@@ -0,0 +1,23 @@
+package saul.reports.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Tipo y fecha del último mantenimiento realizado de un dispositivo activo,
+ * leídos del resumen para el índice de equipos rezagados.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RezagoMantenimientoDTO {
+
+    private Long idDispositivo;
+    private Integer idTipoDispositivo;
+    private LocalDate fechaUltimoMantenimiento;
+}
@@ -0,0 +1,23 @@
+package saul.reports.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ubicación actual (sin fecha de salida) de un dispositivo, leída en lote
+ * para los reportes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UbicacionActualDTO {
+
+    private Long idDispositivo;
+    private String lugar;
+    private String piso;
+    private String edificio;
+    private String departamento;
+}
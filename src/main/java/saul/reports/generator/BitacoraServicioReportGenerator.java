@@ -1,20 +1,16 @@
 package saul.reports.generator;
 
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.PropertySource;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 import saul.reports.dto.BitacoraServicioReportDTO;
 import saul.pdf.renderer.*;
 import saul.pdf.service.PDFBoxService;
 
 import java.awt.*;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -49,6 +45,10 @@ public class BitacoraServicioReportGenerator {
     @Value("${report.qr.text1}")
     private String qrText;
 
+    // Formato de salida del PDF (COMPACT o STANDARD)
+    @Value("${report.output.bitacoraServ:${report.output.mode:COMPACT}}")
+    private PDFSaveOptions.Mode outputMode;
+
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
     private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
 
@@ -66,20 +66,22 @@ public class BitacoraServicioReportGenerator {
      * @param contenido texto filtrado en comentario (opcional)
      * @param estado estado filtrado (opcional)
      * @param idTipoIncidente ID del tipo de incidente filtrado (opcional)
-     * @return bytes del PDF generado
+     * @return documento generado y abierto; quien lo recibe debe cerrarlo
      * @throws IOException si hay error al generar el PDF
      */
-    public byte[] generateReport(List<BitacoraServicioReportDTO> bitacoras, LocalDate fechaInicio, LocalDate fechaFin,
+    public PDDocument renderReport(List<BitacoraServicioReportDTO> bitacoras, LocalDate fechaInicio, LocalDate fechaFin,
                                Long idUsuario, String contenido, String estado, Long idTipoIncidente) throws IOException {
-        try (PDDocument document = new PDDocument();
-             ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-
+        PDFRenderDocument document = pdfBoxService.createDocument(PDFSaveOptions.of(outputMode).name("bitacoraServ"));
+        try {
             // Configuración de página tamaño carta con márgenes
             PDFPageConfig pageConfig = new PDFPageConfig()
                     .pageSize(PDRectangle.LETTER)
                     .margins(40f);
 
             try (PDFPaginator paginator = new PDFPaginator(document, pageConfig)) {
+                // Pie de página con numeración "p. X de Y" y fecha de generación
+                paginator.pageFooter(PageFooterConfig.standard());
+
                 // Dibujar encabezado
                 drawHeader(paginator);
 
@@ -101,84 +103,24 @@ public class BitacoraServicioReportGenerator {
 
                 // Dibujar pie de página
                 drawFooter(paginator);
-
-                // Agregar numeración de páginas después de generar todo el contenido
-                addPageNumbers(document);
             }
 
-            document.save(baos);
-            return baos.toByteArray();
+            return document;
+        } catch (IOException | RuntimeException e) {
+            document.close();
+            throw e;
         }
     }
 
     private void drawHeader(PDFPaginator paginator) throws IOException {
-        PDDocument doc = paginator.getDocument();
-        PDPageContentStream cs = paginator.getContentStream();
-
-        float startX = paginator.getStartX();
-        float startY = paginator.getCurrentY();
-        float usableWidth = paginator.getUsableWidth();
-
-        // Tamaño de las imágenes
-        float imageWidth = 60f;
-        float imageHeight = 60f;
-
-        // Cargar imágenes
-        byte[] imageLeft = loadImageFromResources("img/i1.png");
-        byte[] imageRight = loadImageFromResources("img/i2.png");
-
-        // Configuración para imagen izquierda
-        ImageConfig leftConfig = new ImageConfig()
-                .size(imageWidth, imageHeight)
-                .scaleMode(ImageConfig.ScaleMode.FIT_BOX);
-
-        // Configuración para imagen derecha
-        ImageConfig rightConfig = new ImageConfig()
-                .size(imageWidth, imageHeight)
-                .scaleMode(ImageConfig.ScaleMode.FIT_BOX);
-
-        // Posiciones de las imágenes
-        float rightImageX = startX + usableWidth - imageWidth;
-        float imageY = startY - imageHeight;
-
-        // Dibujar las imágenes
-        pdfBoxService.insertImage(doc, cs, imageLeft, startX, startY, leftConfig);
-        pdfBoxService.insertImage(doc, cs, imageRight, rightImageX, startY, rightConfig);
-
-        // Configurar el área para el texto del hospital (entre las imágenes)
-        float textAreaX = startX + imageWidth + 10f;
-        float textAreaWidth = rightImageX - textAreaX - 10f;
-        float textAreaY = startY - 10f;
-
-        // Configuración de texto para el encabezado del hospital
-        TextBoxConfig hospitalConfig = TextBoxConfig.title()
-                .fontSize(14f)
-                .fontStyle(TextBoxConfig.FontStyle.BOLD)
-                .textAlign(TextBoxConfig.TextAlign.CENTER);
-
-        TextBoxConfig departmentConfig = TextBoxConfig.normal()
-                .fontSize(12f)
-                .textAlign(TextBoxConfig.TextAlign.CENTER);
-
-        TextBoxConfig addressConfig = TextBoxConfig.normal()
-                .fontSize(10f)
-                .textAlign(TextBoxConfig.TextAlign.CENTER);
-
-        // Escribir textos del encabezado usando writeTextBox para centrarlos en el área disponible
-        float textHeight = 20f;
-        pdfBoxService.writeTextBox(doc, cs, hospitalName, textAreaX, textAreaY, textAreaWidth, textHeight, hospitalConfig);
-        textAreaY -= 16f;
-
-        pdfBoxService.writeTextBox(doc, cs, departmentName, textAreaX, textAreaY, textAreaWidth, textHeight, departmentConfig);
-        textAreaY -= 14f;
-
-        pdfBoxService.writeTextBox(doc, cs, address, textAreaX, textAreaY, textAreaWidth, textHeight, addressConfig);
-        textAreaY -= 12f;
-
-        pdfBoxService.writeTextBox(doc, cs, phone, textAreaX, textAreaY, textAreaWidth, textHeight, addressConfig);
-
-        // Actualizar posición Y del paginador
-        paginator.setCurrentY(imageY - 20f);
+        HeaderConfig headerConfig = HeaderConfig.compact()
+                .hospitalName(hospitalName)
+                .departmentName(departmentName)
+                .address(address)
+                .phone(phone);
+
+        // Encabezado institucional desde la plantilla compartida
+        pdfBoxService.drawHeader(paginator, headerConfig);
     }
 
     private void drawTitle(PDFPaginator paginator) throws IOException {
@@ -303,46 +245,4 @@ public class BitacoraServicioReportGenerator {
 
         pdfBoxService.writeText(paginator, generatedDate, footerConfig);
     }
-
-    /**
-     * Carga una imagen desde los recursos del classpath.
-     */
-    private byte[] loadImageFromResources(String resourcePath) throws IOException {
-        ClassPathResource resource = new ClassPathResource(resourcePath);
-        try (InputStream inputStream = resource.getInputStream()) {
-            return inputStream.readAllBytes();
-        }
-    }
-
-    /**
-     * Agrega numeración de páginas a todo el documento en formato "p. x de total".
-     */
-    private void addPageNumbers(PDDocument document) throws IOException {
-        int totalPages = document.getNumberOfPages();
-
-        for (int i = 0; i < totalPages; i++) {
-            try (PDPageContentStream contentStream = new PDPageContentStream(
-                    document, document.getPage(i), PDPageContentStream.AppendMode.APPEND, true)) {
-
-                // Posición del número de página (parte inferior derecha)
-                float pageWidth = document.getPage(i).getMediaBox().getWidth();
-                float x = pageWidth - 80f; // Margen derecho
-                float y = 25f; // Margen inferior
-
-                String pageNumber = String.format("p. %d de %d", i + 1, totalPages);
-
-                TextBoxConfig pageNumberConfig = TextBoxConfig.normal()
-                        .fontSize(8f)
-                        .textColor(Color.GRAY);
-
-                pdfBoxService.writeTextBox(document, contentStream, pageNumber,
-                        x, y, 60f, 10f, pageNumberConfig);
-
-                // Agregar fecha de generación en la parte inferior izquierda de cada página
-                String generatedDate = "Generado: " + LocalDate.now().format(DATE_FORMATTER);
-                pdfBoxService.writeTextBox(document, contentStream, generatedDate,
-                        40f, y, 150f, 10f, pageNumberConfig);
-            }
-        }
-    }
 }
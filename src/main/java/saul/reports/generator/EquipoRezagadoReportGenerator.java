@@ -5,17 +5,13 @@ import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.PropertySource;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 import saul.pdf.renderer.*;
 import saul.pdf.service.PDFBoxService;
 import saul.reports.dto.EquipoRezagadoReportDTO;
 
 import java.awt.*;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
@@ -46,6 +42,10 @@ public class EquipoRezagadoReportGenerator {
     @Value("${report.qr.text1}")
     private String qrText;
 
+    // Formato de salida del PDF (COMPACT o STANDARD)
+    @Value("${report.output.rezagados:${report.output.mode:COMPACT}}")
+    private PDFSaveOptions.Mode outputMode;
+
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
     public EquipoRezagadoReportGenerator(PDFBoxService pdfBoxService) {
@@ -58,20 +58,22 @@ public class EquipoRezagadoReportGenerator {
      * @param equiposRezagados lista de equipos rezagados a incluir en el reporte
      * @param diasMinimos      número mínimo de días sin mantenimiento
      * @param tipoDispositivo  tipo de dispositivo filtrado (puede ser null)
-     * @return byte[] del PDF generado
+     * @return documento generado y abierto; quien lo recibe debe cerrarlo
      * @throws IOException si ocurre un error al generar el PDF
      */
-    public byte[] generateReport(List<EquipoRezagadoReportDTO> equiposRezagados,
+    public PDDocument renderReport(List<EquipoRezagadoReportDTO> equiposRezagados,
                                  Integer diasMinimos, String tipoDispositivo) throws IOException {
-        try (PDDocument document = new PDDocument();
-             ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-
+        PDFRenderDocument document = pdfBoxService.createDocument(PDFSaveOptions.of(outputMode).name("rezagados"));
+        try {
             // Configuración de página tamaño carta con márgenes
             PDFPageConfig pageConfig = new PDFPageConfig()
                     .pageSize(PDRectangle.LETTER)
                     .margins(40f);
 
             try (PDFPaginator paginator = new PDFPaginator(document, pageConfig)) {
+                // Pie de página con numeración "p. X de Y" y fecha de generación
+                paginator.pageFooter(PageFooterConfig.standard());
+
                 // Dibujar encabezado
                 drawHeader(paginator);
 
@@ -86,11 +88,10 @@ public class EquipoRezagadoReportGenerator {
                 }
             }
 
-            // Agregar numeración de páginas después de generar todo el contenido
-            addPageNumbers(document);
-
-            document.save(baos);
-            return baos.toByteArray();
+            return document;
+        } catch (IOException | RuntimeException e) {
+            document.close();
+            throw e;
         }
     }
 
@@ -99,81 +100,17 @@ public class EquipoRezagadoReportGenerator {
      * y la información del hospital en el centro.
      */
     private void drawHeader(PDFPaginator paginator) throws IOException {
-        PDDocument doc = paginator.getDocument();
-        PDPageContentStream cs = paginator.getContentStream();
-
-        float startX = paginator.getStartX();
-        float startY = paginator.getCurrentY();
-        float usableWidth = paginator.getUsableWidth();
-
-        // Tamaño de las imágenes
-        float imageWidth = 70f;
-        float imageHeight = 70f;
-
-        // Cargar imágenes
-        byte[] imageLeft = loadImageFromResources("img/i1.png");
-        byte[] imageRight = loadImageFromResources("img/i2.png");
-
-        // Configuración para imagen izquierda
-        ImageConfig leftConfig = new ImageConfig()
-                .size(imageWidth, imageHeight)
-                .scaleMode(ImageConfig.ScaleMode.FIT_BOX);
-
-        // Configuración para imagen derecha
-        ImageConfig rightConfig = new ImageConfig()
-                .size(imageWidth, imageHeight)
-                .scaleMode(ImageConfig.ScaleMode.FIT_BOX);
-
-        // Dibujar imagen izquierda
-        pdfBoxService.insertImage(doc, cs, imageLeft, startX, startY, leftConfig);
-
-        // Dibujar imagen derecha
-        float rightX = startX + usableWidth - imageWidth;
-        pdfBoxService.insertImage(doc, cs, imageRight, rightX, startY, rightConfig);
-
-        // Área central para el texto (entre las dos imágenes)
-        float textX = startX + imageWidth + 10;
-        float textWidth = usableWidth - (imageWidth * 2) - 20;
-        float textY = startY - 5;
-
-        // Configuración de texto para el encabezado
-        TextBoxConfig headerConfig = TextBoxConfig.normal()
-                .fontStyle(TextBoxConfig.FontStyle.BOLD)
-                .fontSize(11f)
-                .textAlign(TextBoxConfig.TextAlign.CENTER);
-
-        TextBoxConfig subHeaderConfig = TextBoxConfig.normal()
-                .fontSize(9f)
-                .textAlign(TextBoxConfig.TextAlign.CENTER);
-
-        // Escribir información del hospital centrada
-        writeHeaderText(doc, cs, hospitalName, textX, textY, textWidth, headerConfig);
-        textY -= 14;
-        writeHeaderText(doc, cs, departmentName, textX, textY, textWidth, subHeaderConfig);
-        textY -= 12;
-        writeHeaderText(doc, cs, address, textX, textY, textWidth, subHeaderConfig);
-        textY -= 12;
-        writeHeaderText(doc, cs, phone, textX, textY, textWidth, subHeaderConfig);
-
-        // Avanzar Y después del encabezado
-        paginator.advanceY(imageHeight + 15);
-
-        // Dibujar línea separadora
-        LineConfig lineConfig = new LineConfig()
-                .color(new Color(0, 102, 153))
-                .thickness(1.5f);
-        pdfBoxService.drawHorizontalLine(cs, startX, paginator.getCurrentY(), usableWidth, lineConfig);
+        HeaderConfig headerConfig = HeaderConfig.classic()
+                .hospitalName(hospitalName)
+                .departmentName(departmentName)
+                .address(address)
+                .phone(phone);
+
+        // Encabezado institucional desde la plantilla compartida
+        pdfBoxService.drawHeader(paginator, headerConfig);
         paginator.addSpace(15);
     }
 
-    /**
-     * Escribe texto del encabezado centrado en un área específica.
-     */
-    private void writeHeaderText(PDDocument doc, PDPageContentStream cs, String text,
-                                 float x, float y, float width, TextBoxConfig config) throws IOException {
-        pdfBoxService.writeTextBox(doc, cs, text, x, y, width, 12, config);
-    }
-
     /**
      * Dibuja el título del reporte y un código QR centrado debajo.
      */
@@ -327,46 +264,4 @@ public class EquipoRezagadoReportGenerator {
         paginator.addSpace(50);
         pdfBoxService.writeText(paginator, "No se encontraron equipos rezagados con los filtros especificados.", noDataConfig);
     }
-
-    /**
-     * Agrega numeración de páginas a todo el documento.
-     */
-    private void addPageNumbers(PDDocument document) throws IOException {
-        int totalPages = document.getNumberOfPages();
-
-        for (int i = 0; i < totalPages; i++) {
-            try (PDPageContentStream contentStream = new PDPageContentStream(
-                    document, document.getPage(i), PDPageContentStream.AppendMode.APPEND, true)) {
-
-                // Posición del número de página (parte inferior derecha)
-                float pageWidth = document.getPage(i).getMediaBox().getWidth();
-                float x = pageWidth - 80f; // Margen derecho
-                float y = 25f; // Margen inferior
-
-                String pageNumber = String.format("p. %d de %d", i + 1, totalPages);
-
-                TextBoxConfig pageNumberConfig = TextBoxConfig.normal()
-                        .fontSize(8f)
-                        .textColor(Color.GRAY);
-
-                pdfBoxService.writeTextBox(document, contentStream, pageNumber,
-                        x, y, 60f, 10f, pageNumberConfig);
-
-                // Agregar fecha de generación en la parte inferior izquierda de cada página
-                String generatedDate = "Generado: " + LocalDate.now().format(DATE_FORMATTER);
-                pdfBoxService.writeTextBox(document, contentStream, generatedDate,
-                        40f, y, 150f, 10f, pageNumberConfig);
-            }
-        }
-    }
-
-    /**
-     * Carga una imagen desde el directorio resources.
-     */
-    private byte[] loadImageFromResources(String resourcePath) throws IOException {
-        ClassPathResource resource = new ClassPathResource(resourcePath);
-        try (InputStream is = resource.getInputStream()) {
-            return is.readAllBytes();
-        }
-    }
 }
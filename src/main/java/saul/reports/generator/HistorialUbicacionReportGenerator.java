@@ -1,24 +1,21 @@
 package saul.reports.generator;
 
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.PropertySource;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 import saul.pdf.renderer.*;
 import saul.pdf.service.PDFBoxService;
 import saul.reports.dto.HistorialUbicacionReportDTO;
 
 import java.awt.*;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Generador de reportes PDF para historial de ubicaciones de dispositivos.
@@ -53,9 +50,16 @@ public class HistorialUbicacionReportGenerator {
     private static final Color DARK_ORANGE = new Color(255, 140, 0);
     private static final Color LIGHT_ORANGE = new Color(255, 245, 238);
 
+    // Formato de salida del PDF (COMPACT o STANDARD)
+    @Value("${report.output.historial:${report.output.mode:COMPACT}}")
+    private PDFSaveOptions.Mode outputMode;
+
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
     private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
 
+    private static final List<String> TABLE_HEADERS =
+            List.of("ID", "Dispositivo", "Tipo", "Lugar", "Depto.", "Piso/Edificio", "F. Entrada", "F. Salida", "Días", "Usuario");
+
     public HistorialUbicacionReportGenerator(PDFBoxService pdfBoxService) {
         this.pdfBoxService = pdfBoxService;
     }
@@ -66,13 +70,44 @@ public class HistorialUbicacionReportGenerator {
      * @param historial lista de registros de historial de ubicaciones
      * @param fechaInicio fecha de inicio del filtro
      * @param fechaFin fecha de fin del filtro
-     * @return bytes del PDF generado
+     * @return documento generado y abierto; quien lo recibe debe cerrarlo
      * @throws IOException si hay error al generar el PDF
      */
-    public byte[] generateReport(List<HistorialUbicacionReportDTO> historial, LocalDate fechaInicio, LocalDate fechaFin) throws IOException {
-        try (PDDocument document = new PDDocument();
-             ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+    public PDDocument renderReport(List<HistorialUbicacionReportDTO> historial, LocalDate fechaInicio, LocalDate fechaFin) throws IOException {
+        return renderReport(historial != null ? historial.stream() : Stream.empty(), fechaInicio, fechaFin,
+                PDFDocumentPart.single());
+    }
 
+    /**
+     * Genera un reporte PDF consumiendo los registros de historial conforme llegan.
+     * Cada registro se dibuja en cuanto se lee, sin materializar la tabla completa.
+     *
+     * @param historial registros de historial de ubicaciones
+     * @param fechaInicio fecha de inicio del filtro
+     * @param fechaFin fecha de fin del filtro
+     * @return documento generado y abierto; quien lo recibe debe cerrarlo
+     * @throws IOException si hay error al generar el PDF
+     */
+    public PDDocument renderReport(Stream<HistorialUbicacionReportDTO> historial, LocalDate fechaInicio, LocalDate fechaFin) throws IOException {
+        return renderReport(historial, fechaInicio, fechaFin, PDFDocumentPart.single());
+    }
+
+    /**
+     * Genera una parte de un reporte dividido por rangos de fechas, dibujando cada
+     * registro en cuanto se lee. Solo la primera parte lleva encabezado y filtros,
+     * y solo la última el cierre; la numeración de páginas se escribe al unir las partes.
+     *
+     * @param historial registros de historial de esta parte
+     * @param fechaInicio fecha de inicio del reporte completo
+     * @param fechaFin fecha de fin del reporte completo
+     * @param part posición de la parte en el reporte
+     * @return documento generado y abierto; quien lo recibe debe cerrarlo
+     * @throws IOException si hay error al generar el PDF
+     */
+    public PDDocument renderReport(Stream<HistorialUbicacionReportDTO> historial, LocalDate fechaInicio, LocalDate fechaFin,
+                                   PDFDocumentPart part) throws IOException {
+        PDFRenderDocument document = pdfBoxService.createDocument(PDFSaveOptions.of(outputMode).name("historial"));
+        try {
             // Configuración de página tamaño carta HORIZONTAL con márgenes
             PDRectangle landscapeLetter = new PDRectangle(PDRectangle.LETTER.getHeight(), PDRectangle.LETTER.getWidth());
             PDFPageConfig pageConfig = new PDFPageConfig()
@@ -80,105 +115,56 @@ public class HistorialUbicacionReportGenerator {
                     .margins(40f);
 
             try (PDFPaginator paginator = new PDFPaginator(document, pageConfig)) {
-                // Dibujar encabezado
-                drawHeader(paginator);
+                // Pie de página con numeración "p. X de Y" y fecha de generación
+                // (en un reporte por partes se escribe al unirlas)
+                if (part.isSingle()) {
+                    paginator.pageFooter(PageFooterConfig.standard());
+                }
 
-                // Agregar título del reporte
-                drawTitle(paginator);
+                if (part.isFirst()) {
+                    // Dibujar encabezado
+                    drawHeader(paginator);
 
-                // Agregar código QR
-                drawQRCode(paginator);
+                    // Agregar título del reporte
+                    drawTitle(paginator);
 
-                // Agregar información de filtros
-                drawFiltersInfo(paginator, fechaInicio, fechaFin);
+                    // Agregar código QR
+                    drawQRCode(paginator);
+
+                    // Agregar información de filtros
+                    drawFiltersInfo(paginator, fechaInicio, fechaFin);
+                }
 
                 // Agregar tabla de historial
-                if (historial != null && !historial.isEmpty()) {
-                    drawHistorialTable(paginator, historial);
+                Iterator<HistorialUbicacionReportDTO> rows = historial.iterator();
+                if (rows.hasNext()) {
+                    drawHistorialTable(paginator, rows);
                 } else {
                     drawNoDataMessage(paginator);
                 }
 
                 // Dibujar pie de página
-                drawFooter(paginator);
-
-                // Agregar numeración de páginas después de generar todo el contenido
-                addPageNumbers(document);
+                if (part.isLast()) {
+                    drawFooter(paginator);
+                }
             }
 
-            document.save(baos);
-            return baos.toByteArray();
+            return document;
+        } catch (IOException | RuntimeException e) {
+            document.close();
+            throw e;
         }
     }
 
     private void drawHeader(PDFPaginator paginator) throws IOException {
-        PDDocument doc = paginator.getDocument();
-        PDPageContentStream cs = paginator.getContentStream();
-
-        float startX = paginator.getStartX();
-        float startY = paginator.getCurrentY();
-        float usableWidth = paginator.getUsableWidth();
-
-        // Tamaño de las imágenes
-        float imageWidth = 60f;
-        float imageHeight = 60f;
-
-        // Cargar imágenes
-        byte[] imageLeft = loadImageFromResources("img/i1.png");
-        byte[] imageRight = loadImageFromResources("img/i2.png");
-
-        // Configuración para imagen izquierda
-        ImageConfig leftConfig = new ImageConfig()
-                .size(imageWidth, imageHeight)
-                .scaleMode(ImageConfig.ScaleMode.FIT_BOX);
-
-        // Configuración para imagen derecha
-        ImageConfig rightConfig = new ImageConfig()
-                .size(imageWidth, imageHeight)
-                .scaleMode(ImageConfig.ScaleMode.FIT_BOX);
-
-        // Posiciones de las imágenes
-        float rightImageX = startX + usableWidth - imageWidth;
-        float imageY = startY - imageHeight;
-
-        // Dibujar las imágenes
-        pdfBoxService.insertImage(doc, cs, imageLeft, startX, startY, leftConfig);
-        pdfBoxService.insertImage(doc, cs, imageRight, rightImageX, startY, rightConfig);
-
-        // Configurar el área para el texto del hospital (entre las imágenes)
-        float textAreaX = startX + imageWidth + 10f;
-        float textAreaWidth = rightImageX - textAreaX - 10f;
-        float textAreaY = startY - 10f;
-
-        // Configuración de texto para el encabezado del hospital
-        TextBoxConfig hospitalConfig = TextBoxConfig.title()
-                .fontSize(14f)
-                .fontStyle(TextBoxConfig.FontStyle.BOLD)
-                .textAlign(TextBoxConfig.TextAlign.CENTER);
-
-        TextBoxConfig departmentConfig = TextBoxConfig.normal()
-                .fontSize(12f)
-                .textAlign(TextBoxConfig.TextAlign.CENTER);
-
-        TextBoxConfig addressConfig = TextBoxConfig.normal()
-                .fontSize(10f)
-                .textAlign(TextBoxConfig.TextAlign.CENTER);
-
-        // Escribir textos del encabezado usando writeTextBox para centrarlos en el área disponible
-        float textHeight = 20f;
-        pdfBoxService.writeTextBox(doc, cs, hospitalName, textAreaX, textAreaY, textAreaWidth, textHeight, hospitalConfig);
-        textAreaY -= 16f;
-
-        pdfBoxService.writeTextBox(doc, cs, departmentName, textAreaX, textAreaY, textAreaWidth, textHeight, departmentConfig);
-        textAreaY -= 14f;
-
-        pdfBoxService.writeTextBox(doc, cs, address, textAreaX, textAreaY, textAreaWidth, textHeight, addressConfig);
-        textAreaY -= 12f;
-
-        pdfBoxService.writeTextBox(doc, cs, phone, textAreaX, textAreaY, textAreaWidth, textHeight, addressConfig);
-
-        // Actualizar posición Y del paginador
-        paginator.setCurrentY(imageY - 20f);
+        HeaderConfig headerConfig = HeaderConfig.compact()
+                .hospitalName(hospitalName)
+                .departmentName(departmentName)
+                .address(address)
+                .phone(phone);
+
+        // Encabezado institucional desde la plantilla compartida
+        pdfBoxService.drawHeader(paginator, headerConfig);
     }
 
     private void drawTitle(PDFPaginator paginator) throws IOException {
@@ -221,44 +207,7 @@ public class HistorialUbicacionReportGenerator {
         paginator.addSpace(15f);
     }
 
-    private void drawHistorialTable(PDFPaginator paginator, List<HistorialUbicacionReportDTO> historial) throws IOException {
-        // Preparar datos de la tabla
-        List<List<String>> tableData = new ArrayList<>();
-
-        // Agregar encabezados
-        List<String> headers = List.of("ID", "Dispositivo", "Tipo", "Lugar", "Depto.", "Piso/Edificio", "F. Entrada", "F. Salida", "Días", "Usuario");
-        tableData.add(headers);
-
-        // Agregar filas de datos
-        for (HistorialUbicacionReportDTO h : historial) {
-            // Formatear información del dispositivo (inventario/serie)
-            String dispositivo = formatDispositivoInfo(h.getInventario(), h.getNumeroSerie());
-
-            // Formatear piso/edificio
-            String pisoEdificio = formatPisoEdificio(h.getPiso(), h.getEdificio());
-
-            // Formatear fechas
-            String fechaEntrada = h.getFechaEntrada() != null ? h.getFechaEntrada().format(DATETIME_FORMATTER) : "-";
-            String fechaSalida = h.getFechaSalida() != null ? h.getFechaSalida().format(DATETIME_FORMATTER) : "Actual";
-
-            // Formatear días
-            String dias = h.getDiasEnLugar() != null ? String.valueOf(h.getDiasEnLugar()) : "-";
-
-            List<String> row = List.of(
-                String.valueOf(h.getIdHistorial()),
-                dispositivo,
-                h.getTipoDispositivo() != null ? h.getTipoDispositivo() : "-",
-                h.getNombreLugar() != null ? h.getNombreLugar() : "-",
-                h.getDepartamento() != null ? truncateText(h.getDepartamento(), 20) : "-",
-                pisoEdificio,
-                fechaEntrada,
-                fechaSalida,
-                dias,
-                h.getUsuarioAsigno() != null ? truncateText(h.getUsuarioAsigno(), 18) : "-"
-            );
-            tableData.add(row);
-        }
-
+    private void drawHistorialTable(PDFPaginator paginator, Iterator<HistorialUbicacionReportDTO> historial) throws IOException {
         // Configuración de tabla con estilo dashed, color negro-anaranjado y columnas proporcionales
         // Columnas: ID(0.6), Dispositivo(1.5), Tipo(1.2), Lugar(1.3), Depto(1.3), Piso/Edificio(1.2), F.Entrada(1.3), F.Salida(1.3), Días(0.6), Usuario(1.3)
         // Orientación horizontal aprovecha el mayor ancho disponible
@@ -274,7 +223,39 @@ public class HistorialUbicacionReportGenerator {
                 .alternateRowColor(LIGHT_ORANGE)
                 .border(TableConfig.BorderStyle.DASHED, 1.0f, DARK_ORANGE);
 
-        pdfBoxService.createTable(paginator, tableData, tableConfig);
+        // Las filas se generan y dibujan una por una
+        pdfBoxService.createTable(paginator, TABLE_HEADERS, historial, this::toRow, tableConfig);
+    }
+
+    /**
+     * Convierte un registro de historial en fila de la tabla.
+     */
+    private List<String> toRow(HistorialUbicacionReportDTO h) {
+        // Formatear información del dispositivo (inventario/serie)
+        String dispositivo = formatDispositivoInfo(h.getInventario(), h.getNumeroSerie());
+
+        // Formatear piso/edificio
+        String pisoEdificio = formatPisoEdificio(h.getPiso(), h.getEdificio());
+
+        // Formatear fechas
+        String fechaEntrada = h.getFechaEntrada() != null ? h.getFechaEntrada().format(DATETIME_FORMATTER) : "-";
+        String fechaSalida = h.getFechaSalida() != null ? h.getFechaSalida().format(DATETIME_FORMATTER) : "Actual";
+
+        // Formatear días
+        String dias = h.getDiasEnLugar() != null ? String.valueOf(h.getDiasEnLugar()) : "-";
+
+        return List.of(
+            String.valueOf(h.getIdHistorial()),
+            dispositivo,
+            h.getTipoDispositivo() != null ? h.getTipoDispositivo() : "-",
+            h.getNombreLugar() != null ? h.getNombreLugar() : "-",
+            h.getDepartamento() != null ? truncateText(h.getDepartamento(), 20) : "-",
+            pisoEdificio,
+            fechaEntrada,
+            fechaSalida,
+            dias,
+            h.getUsuarioAsigno() != null ? truncateText(h.getUsuarioAsigno(), 18) : "-"
+        );
     }
 
     private String formatDispositivoInfo(String inventario, String numeroSerie) {
@@ -329,46 +310,4 @@ public class HistorialUbicacionReportGenerator {
 
         pdfBoxService.writeText(paginator, generatedDate, footerConfig);
     }
-
-    /**
-     * Carga una imagen desde los recursos del classpath.
-     */
-    private byte[] loadImageFromResources(String resourcePath) throws IOException {
-        ClassPathResource resource = new ClassPathResource(resourcePath);
-        try (InputStream inputStream = resource.getInputStream()) {
-            return inputStream.readAllBytes();
-        }
-    }
-
-    /**
-     * Agrega numeración de páginas a todo el documento en formato "p. x de total".
-     */
-    private void addPageNumbers(PDDocument document) throws IOException {
-        int totalPages = document.getNumberOfPages();
-
-        for (int i = 0; i < totalPages; i++) {
-            try (PDPageContentStream contentStream = new PDPageContentStream(
-                    document, document.getPage(i), PDPageContentStream.AppendMode.APPEND, true)) {
-
-                // Posición del número de página (parte inferior derecha)
-                float pageWidth = document.getPage(i).getMediaBox().getWidth();
-                float x = pageWidth - 80f; // Margen derecho
-                float y = 25f; // Margen inferior
-
-                String pageNumber = String.format("p. %d de %d", i + 1, totalPages);
-
-                TextBoxConfig pageNumberConfig = TextBoxConfig.normal()
-                        .fontSize(8f)
-                        .textColor(Color.GRAY);
-
-                pdfBoxService.writeTextBox(document, contentStream, pageNumber,
-                        x, y, 60f, 10f, pageNumberConfig);
-
-                // Agregar fecha de generación en la parte inferior izquierda de cada página
-                String generatedDate = "Generado: " + LocalDate.now().format(DATE_FORMATTER);
-                pdfBoxService.writeTextBox(document, contentStream, generatedDate,
-                        40f, y, 150f, 10f, pageNumberConfig);
-            }
-        }
-    }
 }
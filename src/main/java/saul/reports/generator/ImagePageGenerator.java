@@ -2,14 +2,16 @@ package saul.reports.generator;
 
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 import saul.pdf.renderer.ImageConfig;
 import saul.pdf.renderer.PDFPageConfig;
 import saul.pdf.renderer.PDFPaginator;
+import saul.pdf.renderer.PDFRenderDocument;
+import saul.pdf.renderer.PDFSaveOptions;
 import saul.pdf.service.PDFBoxService;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -22,6 +24,10 @@ public class ImagePageGenerator {
 
     private final PDFBoxService pdfBoxService;
 
+    // Formato de salida del PDF (COMPACT o STANDARD)
+    @Value("${report.output.imagen:${report.output.mode:COMPACT}}")
+    private PDFSaveOptions.Mode outputMode;
+
     public ImagePageGenerator(PDFBoxService pdfBoxService) {
         this.pdfBoxService = pdfBoxService;
     }
@@ -29,24 +35,23 @@ public class ImagePageGenerator {
     /**
      * Genera un PDF tamaño carta con la imagen "i2.png" centrada.
      *
-     * @return byte[] del PDF generado
+     * @return documento generado y abierto; quien lo recibe debe cerrarlo
      * @throws IOException si ocurre un error al leer la imagen o generar el PDF
      */
-    public byte[] generateImagePage() throws IOException {
-        return generateImagePage("img/i2.png");
+    public PDDocument renderImagePage() throws IOException {
+        return renderImagePage("img/i2.png");
     }
 
     /**
      * Genera un PDF tamaño carta con una imagen específica centrada.
      *
      * @param imagePath ruta de la imagen en resources (ej: "img/i2.png")
-     * @return byte[] del PDF generado
+     * @return documento generado y abierto; quien lo recibe debe cerrarlo
      * @throws IOException si ocurre un error al leer la imagen o generar el PDF
      */
-    public byte[] generateImagePage(String imagePath) throws IOException {
-        try (PDDocument document = new PDDocument();
-             ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-
+    public PDDocument renderImagePage(String imagePath) throws IOException {
+        PDFRenderDocument document = pdfBoxService.createDocument(PDFSaveOptions.of(outputMode).name("imagen"));
+        try {
             // Configuración de página tamaño carta con márgenes
             PDFPageConfig pageConfig = new PDFPageConfig()
                     .pageSize(PDRectangle.LETTER)
@@ -68,9 +73,10 @@ public class ImagePageGenerator {
                 pdfBoxService.insertImage(paginator, imageBytes, imageConfig);
             }
 
-            // Guardar documento
-            document.save(baos);
-            return baos.toByteArray();
+            return document;
+        } catch (IOException | RuntimeException e) {
+            document.close();
+            throw e;
         }
     }
 
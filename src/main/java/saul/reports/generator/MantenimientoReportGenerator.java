@@ -5,16 +5,13 @@ import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.PropertySource;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 import saul.pdf.renderer.*;
 import saul.pdf.service.PDFBoxService;
 import saul.reports.dto.MantenimientoReportDTO;
 
 import java.awt.*;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -49,6 +46,10 @@ public class MantenimientoReportGenerator {
     @Value("${report.qr.text1}")
     private String qrText;
 
+    // Formato de salida del PDF (COMPACT o STANDARD)
+    @Value("${report.output.mantenimiento:${report.output.mode:COMPACT}}")
+    private PDFSaveOptions.Mode outputMode;
+
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
     public MantenimientoReportGenerator(PDFBoxService pdfBoxService) {
@@ -61,12 +62,12 @@ public class MantenimientoReportGenerator {
      * @param mantenimientos lista de mantenimientos a incluir en el reporte
      * @param fechaInicio    fecha de inicio del rango
      * @param fechaFin       fecha de fin del rango
-     * @return byte[] del PDF generado
+     * @return documento generado y abierto; quien lo recibe debe cerrarlo
      * @throws IOException si ocurre un error al generar el PDF
      */
-    public byte[] generateReport(List<MantenimientoReportDTO> mantenimientos,
+    public PDDocument renderReport(List<MantenimientoReportDTO> mantenimientos,
                                   LocalDate fechaInicio, LocalDate fechaFin) throws IOException {
-        return generateReport(mantenimientos, fechaInicio, fechaFin, null);
+        return renderReport(mantenimientos, fechaInicio, fechaFin, null);
     }
 
     /**
@@ -76,25 +77,50 @@ public class MantenimientoReportGenerator {
      * @param fechaInicio           fecha de inicio del rango
      * @param fechaFin              fecha de fin del rango
      * @param tipoDispositivoInfo   información del tipo de dispositivo filtrado (opcional)
-     * @return byte[] del PDF generado
+     * @return documento generado y abierto; quien lo recibe debe cerrarlo
      * @throws IOException si ocurre un error al generar el PDF
      */
-    public byte[] generateReport(List<MantenimientoReportDTO> mantenimientos,
+    public PDDocument renderReport(List<MantenimientoReportDTO> mantenimientos,
                                   LocalDate fechaInicio, LocalDate fechaFin, String tipoDispositivoInfo) throws IOException {
-        try (PDDocument document = new PDDocument();
-             ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+        return renderReport(mantenimientos, fechaInicio, fechaFin, tipoDispositivoInfo, PDFDocumentPart.single());
+    }
 
+    /**
+     * Genera una parte de un reporte dividido por rangos de fechas.
+     * Solo la primera parte lleva encabezado y título; la numeración de páginas
+     * se escribe al unir las partes.
+     *
+     * @param mantenimientos        mantenimientos de esta parte
+     * @param fechaInicio           fecha de inicio del reporte completo
+     * @param fechaFin              fecha de fin del reporte completo
+     * @param tipoDispositivoInfo   información del tipo de dispositivo filtrado (opcional)
+     * @param part                  posición de la parte en el reporte
+     * @return documento generado y abierto; quien lo recibe debe cerrarlo
+     * @throws IOException si ocurre un error al generar el PDF
+     */
+    public PDDocument renderReport(List<MantenimientoReportDTO> mantenimientos, LocalDate fechaInicio, LocalDate fechaFin,
+                                  String tipoDispositivoInfo, PDFDocumentPart part) throws IOException {
+        PDFRenderDocument document = pdfBoxService.createDocument(PDFSaveOptions.of(outputMode).name("mantenimiento"));
+        try {
             // Configuración de página tamaño carta con márgenes
             PDFPageConfig pageConfig = new PDFPageConfig()
                     .pageSize(PDRectangle.LETTER)
                     .margins(40f);
 
             try (PDFPaginator paginator = new PDFPaginator(document, pageConfig)) {
-                // Dibujar encabezado
-                drawHeader(paginator);
+                // Pie de página con numeración "p. X de Y" y fecha de generación
+                // (en un reporte por partes se escribe al unirlas)
+                if (part.isSingle()) {
+                    paginator.pageFooter(PageFooterConfig.standard());
+                }
 
-                // Agregar título del reporte con información del tipo de dispositivo si aplica
-                drawTitle(paginator, fechaInicio, fechaFin, tipoDispositivoInfo);
+                if (part.isFirst()) {
+                    // Dibujar encabezado
+                    drawHeader(paginator);
+
+                    // Agregar título del reporte con información del tipo de dispositivo si aplica
+                    drawTitle(paginator, fechaInicio, fechaFin, tipoDispositivoInfo);
+                }
 
                 // Agregar tabla de mantenimientos
                 if (mantenimientos != null && !mantenimientos.isEmpty()) {
@@ -104,11 +130,10 @@ public class MantenimientoReportGenerator {
                 }
             }
 
-            // Agregar numeración de páginas después de generar todo el contenido
-            addPageNumbers(document);
-
-            document.save(baos);
-            return baos.toByteArray();
+            return document;
+        } catch (IOException | RuntimeException e) {
+            document.close();
+            throw e;
         }
     }
 
@@ -117,81 +142,17 @@ public class MantenimientoReportGenerator {
      * y la información del hospital en el centro.
      */
     private void drawHeader(PDFPaginator paginator) throws IOException {
-        PDDocument doc = paginator.getDocument();
-        PDPageContentStream cs = paginator.getContentStream();
-
-        float startX = paginator.getStartX();
-        float startY = paginator.getCurrentY();
-        float usableWidth = paginator.getUsableWidth();
-
-        // Tamaño de las imágenes
-        float imageWidth = 70f;
-        float imageHeight = 70f;
-
-        // Cargar imágenes
-        byte[] imageLeft = loadImageFromResources("img/i1.png");
-        byte[] imageRight = loadImageFromResources("img/i2.png");
-
-        // Configuración para imagen izquierda
-        ImageConfig leftConfig = new ImageConfig()
-                .size(imageWidth, imageHeight)
-                .scaleMode(ImageConfig.ScaleMode.FIT_BOX);
-
-        // Configuración para imagen derecha
-        ImageConfig rightConfig = new ImageConfig()
-                .size(imageWidth, imageHeight)
-                .scaleMode(ImageConfig.ScaleMode.FIT_BOX);
-
-        // Dibujar imagen izquierda
-        pdfBoxService.insertImage(doc, cs, imageLeft, startX, startY, leftConfig);
-
-        // Dibujar imagen derecha
-        float rightX = startX + usableWidth - imageWidth;
-        pdfBoxService.insertImage(doc, cs, imageRight, rightX, startY, rightConfig);
-
-        // Área central para el texto (entre las dos imágenes)
-        float textX = startX + imageWidth + 10;
-        float textWidth = usableWidth - (imageWidth * 2) - 20;
-        float textY = startY - 5;
-
-        // Configuración de texto para el encabezado
-        TextBoxConfig headerConfig = TextBoxConfig.normal()
-                .fontStyle(TextBoxConfig.FontStyle.BOLD)
-                .fontSize(11f)
-                .textAlign(TextBoxConfig.TextAlign.CENTER);
-
-        TextBoxConfig subHeaderConfig = TextBoxConfig.normal()
-                .fontSize(9f)
-                .textAlign(TextBoxConfig.TextAlign.CENTER);
-
-        // Escribir información del hospital centrada
-        writeHeaderText(doc, cs, hospitalName, textX, textY, textWidth, headerConfig);
-        textY -= 14;
-        writeHeaderText(doc, cs, departmentName, textX, textY, textWidth, subHeaderConfig);
-        textY -= 12;
-        writeHeaderText(doc, cs, address, textX, textY, textWidth, subHeaderConfig);
-        textY -= 12;
-        writeHeaderText(doc, cs, phone, textX, textY, textWidth, subHeaderConfig);
-
-        // Avanzar Y después del encabezado
-        paginator.advanceY(imageHeight + 15);
-
-        // Dibujar línea separadora
-        LineConfig lineConfig = new LineConfig()
-                .color(new Color(0, 102, 153))
-                .thickness(1.5f);
-        pdfBoxService.drawHorizontalLine(cs, startX, paginator.getCurrentY(), usableWidth, lineConfig);
+        HeaderConfig headerConfig = HeaderConfig.classic()
+                .hospitalName(hospitalName)
+                .departmentName(departmentName)
+                .address(address)
+                .phone(phone);
+
+        // Encabezado institucional desde la plantilla compartida
+        pdfBoxService.drawHeader(paginator, headerConfig);
         paginator.advanceY(15);
     }
 
-    /**
-     * Escribe texto del encabezado centrado en un área específica.
-     */
-    private void writeHeaderText(PDDocument doc, PDPageContentStream cs, String text,
-                                  float x, float y, float width, TextBoxConfig config) throws IOException {
-        pdfBoxService.writeTextBox(doc, cs, text, x, y, width, 12, config);
-    }
-
     /**
      * Dibuja el título del reporte y un código QR centrado debajo.
      */
@@ -405,47 +366,4 @@ public class MantenimientoReportGenerator {
 
         pdfBoxService.writeText(paginator, generatedDate, footerConfig);
     }
-
-    /**
-     * Agrega numeración de páginas a todo el documento.
-     */
-    private void addPageNumbers(PDDocument document) throws IOException {
-        int totalPages = document.getNumberOfPages();
-
-        for (int i = 0; i < totalPages; i++) {
-            try (PDPageContentStream contentStream = new PDPageContentStream(
-                    document, document.getPage(i), PDPageContentStream.AppendMode.APPEND, true)) {
-
-                // Posición del número de página (parte inferior derecha)
-                float pageWidth = document.getPage(i).getMediaBox().getWidth();
-                float pageHeight = document.getPage(i).getMediaBox().getHeight();
-                float x = pageWidth - 80f; // Margen derecho
-                float y = 25f; // Margen inferior
-
-                String pageNumber = String.format("p. %d de %d", i + 1, totalPages);
-
-                TextBoxConfig pageNumberConfig = TextBoxConfig.normal()
-                        .fontSize(8f)
-                        .textColor(Color.GRAY);
-
-                pdfBoxService.writeTextBox(document, contentStream, pageNumber,
-                        x, y, 60f, 10f, pageNumberConfig);
-
-                // Agregar fecha de generación en la parte inferior izquierda de cada página
-                String generatedDate = "Generado: " + LocalDate.now().format(DATE_FORMATTER);
-                pdfBoxService.writeTextBox(document, contentStream, generatedDate,
-                        40f, y, 150f, 10f, pageNumberConfig);
-            }
-        }
-    }
-
-    /**
-     * Carga una imagen desde el directorio resources.
-     */
-    private byte[] loadImageFromResources(String resourcePath) throws IOException {
-        ClassPathResource resource = new ClassPathResource(resourcePath);
-        try (InputStream is = resource.getInputStream()) {
-            return is.readAllBytes();
-        }
-    }
 }
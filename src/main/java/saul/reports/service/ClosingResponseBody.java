@@ -0,0 +1,65 @@
+package saul.reports.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ref.Cleaner;
+
+/**
+ * Cuerpo de respuesta dueño de un recurso (documento, buffer) que se libera una
+ * sola vez: al terminar de escribir o, si el contenedor nunca invoca el cuerpo
+ * (cliente que aborta antes del commit, tarea asíncrona cancelada por timeout),
+ * cuando el cuerpo deja de ser alcanzable.
+ */
+@Slf4j
+final class ClosingResponseBody implements StreamingResponseBody {
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    @FunctionalInterface
+    interface Writer {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private final Writer writer;
+    private final Cleaner.Cleanable cleanable;
+
+    /**
+     * @param writer escribe el contenido; no debe referenciar al cuerpo
+     * @param resource recurso a liberar; no debe referenciar al cuerpo
+     */
+    ClosingResponseBody(Writer writer, Closeable resource) {
+        this.writer = writer;
+        this.cleanable = CLEANER.register(this, new Release(resource));
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        try {
+            writer.writeTo(out);
+        } finally {
+            cleanable.clean();
+        }
+    }
+
+    // Acción del Cleaner: no puede retener al cuerpo o nunca se ejecutaría
+    private static final class Release implements Runnable {
+        private final Closeable resource;
+
+        Release(Closeable resource) {
+            this.resource = resource;
+        }
+
+        @Override
+        public void run() {
+            try {
+                resource.close();
+            } catch (IOException | RuntimeException e) {
+                log.warn("No se pudo liberar el recurso de la respuesta: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package saul.reports.service;
+
+import org.springframework.stereotype.Component;
+import saul.reports.dto.UbicacionActualDTO;
+import saul.repository.HistorialUbicacionRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Resuelve en lote datos por dispositivo que los reportes necesitan por fila.
+ *
+ * En lugar de una consulta por dispositivo, recibe todos los ids de un reporte
+ * y hace una consulta por cada {@value #BATCH_SIZE} dispositivos. El resultado
+ * es un {@link LongKeyedMap} indexado por id de dispositivo.
+ */
+@Component
+public class DispositivoReportResolver {
+
+    // Ids por consulta; deja margen amplio al límite de parámetros de PostgreSQL
+    static final int BATCH_SIZE = 5000;
+
+    private final HistorialUbicacionRepository historialUbicacionRepository;
+
+    public DispositivoReportResolver(HistorialUbicacionRepository historialUbicacionRepository) {
+        this.historialUbicacionRepository = historialUbicacionRepository;
+    }
+
+    /**
+     * Ubicación actual de cada dispositivo. Los dispositivos sin ubicación
+     * actual no aparecen en el mapa.
+     *
+     * @param idsDispositivo ids de dispositivo (se ignoran null y repetidos)
+     * @return ubicación actual por id de dispositivo
+     */
+    public LongKeyedMap<UbicacionActualDTO> currentLocations(Collection<Long> idsDispositivo) {
+        List<List<Long>> batches = batches(idsDispositivo);
+        LongKeyedMap<UbicacionActualDTO> result = new LongKeyedMap<>(idsDispositivo.size());
+        for (List<Long> batch : batches) {
+            for (UbicacionActualDTO ubicacion : historialUbicacionRepository.findCurrentByDispositivoIds(batch)) {
+                // Vienen de la más reciente a la más antigua; se conserva la primera
+                result.putIfAbsent(ubicacion.getIdDispositivo(), ubicacion);
+            }
+        }
+        return result;
+    }
+
+    private static List<List<Long>> batches(Collection<Long> idsDispositivo) {
+        Set<Long> unique = new LinkedHashSet<>(idsDispositivo);
+        unique.remove(null);
+
+        List<List<Long>> batches = new ArrayList<>();
+        List<Long> batch = new ArrayList<>(Math.min(unique.size(), BATCH_SIZE));
+        for (Long id : unique) {
+            batch.add(id);
+            if (batch.size() == BATCH_SIZE) {
+                batches.add(batch);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+}
@@ -0,0 +1,137 @@
+package saul.reports.service;
+
+/**
+ * Mapa con llaves {@code long} primitivas y direccionamiento abierto.
+ *
+ * Para los lotes de los reportes (miles de dispositivos) evita un objeto
+ * {@code Long} y una entrada por elemento. No admite valores null: un valor
+ * null marca una casilla vacía. No es seguro entre hilos.
+ */
+public final class LongKeyedMap<V> {
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+
+    public LongKeyedMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize número de elementos esperado (evita crecer mientras se llena)
+     */
+    public LongKeyedMap(int expectedSize) {
+        // Factor de carga máximo de 1/2
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Obtiene el valor de la llave, o null si no existe.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int index = indexOf(key);
+        return index >= 0 ? (V) values[index] : null;
+    }
+
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Asocia el valor a la llave, reemplazando el anterior.
+     *
+     * @return el valor anterior, o null si no existía
+     */
+    public V put(long key, V value) {
+        return put(key, value, true);
+    }
+
+    /**
+     * Asocia el valor solo si la llave aún no existe.
+     *
+     * @return el valor existente, o null si se agregó
+     */
+    public V putIfAbsent(long key, V value) {
+        return put(key, value, false);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V put(long key, V value, boolean replace) {
+        if (value == null) {
+            throw new IllegalArgumentException("LongKeyedMap no admite valores null");
+        }
+        int index = slot(key);
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                V previous = (V) values[index];
+                if (replace) {
+                    values[index] = value;
+                }
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+        return null;
+    }
+
+    private int indexOf(long key) {
+        int index = slot(key);
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int slot(long key) {
+        // Mezcla de bits (finalizador de MurmurHash3) para ids consecutivos
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int index = slot(oldKeys[i]);
+                while (values[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LongKeyedMap{size=" + size + ", capacity=" + keys.length + "}";
+    }
+}
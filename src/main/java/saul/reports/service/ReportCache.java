@@ -0,0 +1,244 @@
+package saul.reports.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import saul.pdf.renderer.LruCache;
+import saul.service.DataVersionRegistry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Cache de reportes PDF generados, con ETag fuerte.
+ *
+ * La llave es el tipo de reporte más sus parámetros normalizados. Cada entrada
+ * guarda las versiones ({@link DataVersionRegistry}) de las tablas de las que se
+ * leyó el reporte y solo es válida mientras coincidan con las actuales; las
+ * versiones se leen antes de generar, así un cambio confirmado durante la
+ * generación deja la entrada vencida desde el inicio.
+ *
+ * Los reportes muestran la fecha de generación y algunos cuentan días hasta hoy,
+ * así que una entrada solo vale el día en que se generó.
+ *
+ * El reporte no se guarda completo en memoria antes de enviarlo: se envía al
+ * cliente mientras se genera y a la vez se copia a un buffer. Si al terminar mide
+ * a lo más {@code report.cache.max-entry-kb} se guarda; si lo rebasa, la copia se
+ * descarta en ese momento y el resto solo se envía.
+ *
+ * El ETag se conoce antes de generar: es el SHA-256 de la llave, las versiones de
+ * las tablas de origen, el día y un valor propio de esta instancia de la aplicación
+ * (las versiones se reinician al arrancar). Con las mismas entradas el reporte es
+ * el mismo, así que lo llevan tanto las respuestas generadas como las de la cache.
+ * Si el cliente envía {@code If-None-Match} con el ETag vigente se responde 304 sin
+ * generar ni enviar nada, aunque el reporte haya sido muy grande para guardarse.
+ */
+@Component
+@PropertySource("classpath:reports.properties")
+public class ReportCache {
+
+    private final DataVersionRegistry dataVersionRegistry;
+    private final LruCache<String, CachedReport> cache;
+    private final boolean enabled;
+    private final int maxEntryBytes;
+    // Distingue los ETag de esta instancia: las versiones empiezan en cero en cada arranque
+    private final byte[] instance = new byte[16];
+
+    public ReportCache(DataVersionRegistry dataVersionRegistry,
+                       @Value("${report.cache.enabled:true}") boolean enabled,
+                       @Value("${report.cache.max-mb:64}") long maxMb,
+                       @Value("${report.cache.max-entry-kb:4096}") int maxEntryKb) {
+        this.dataVersionRegistry = dataVersionRegistry;
+        this.enabled = enabled && maxMb > 0 && maxEntryKb > 0;
+        new SecureRandom().nextBytes(instance);
+        this.maxEntryBytes = (int) Math.min(Integer.MAX_VALUE - 8, (long) Math.max(0, maxEntryKb) * 1024);
+        this.cache = new LruCache<>(Math.max(1, maxMb) * 1024 * 1024, report -> report.content.length);
+    }
+
+    /**
+     * Llave de un reporte: su tipo y sus parámetros en forma canónica. Cada parámetro
+     * se escribe con su longitud, así ningún valor puede confundirse con otro.
+     */
+    public static String key(String reportType, Object... params) {
+        StringBuilder key = new StringBuilder(reportType);
+        for (Object param : params) {
+            if (param == null) {
+                key.append("|-");
+            } else {
+                String value = param.toString();
+                key.append('|').append(value.length()).append(':').append(value);
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Responde con el reporte en cache si sigue vigente; si no, lo genera y lo envía
+     * mientras lo copia para la cache. Las respuestas que no son un PDF con estado
+     * 200 (errores) se devuelven tal cual y no se guardan.
+     *
+     * @param key llave de {@link #key(String, Object...)}
+     * @param sources entidades de las tablas que lee el reporte
+     * @param ifNoneMatch valor del encabezado If-None-Match (puede ser null)
+     * @param generator genera el reporte
+     */
+    public ResponseEntity<StreamingResponseBody> serve(String key, List<Class<?>> sources, String ifNoneMatch,
+                                                       Supplier<ResponseEntity<StreamingResponseBody>> generator) {
+        if (!enabled) {
+            return generator.get();
+        }
+
+        LocalDate hoy = LocalDate.now();
+        long[] versions = dataVersionRegistry.snapshot(sources);
+        String etag = etag(key, versions, hoy);
+        if (matches(ifNoneMatch, etag)) {
+            return new ResponseEntity<>(validators(etag), HttpStatus.NOT_MODIFIED);
+        }
+
+        CachedReport cached = cache.get(key);
+        if (cached != null && cached.fecha.equals(hoy) && Arrays.equals(cached.versions, versions)) {
+            return fromCache(cached, etag);
+        }
+
+        ResponseEntity<StreamingResponseBody> response = generator.get();
+        if (response.getStatusCode().value() != HttpStatus.OK.value() || response.getBody() == null
+                || !MediaType.APPLICATION_PDF.equals(response.getHeaders().getContentType())) {
+            return response;
+        }
+        StreamingResponseBody body = response.getBody();
+        String contentDisposition = response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION);
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(response.getHeaders());
+        headers.putAll(validators(etag));
+        return new ResponseEntity<>(out -> {
+            CapturingOutputStream capture = new CapturingOutputStream(out, maxEntryBytes);
+            body.writeTo(capture);
+            byte[] content = capture.captured();
+            if (content != null) {
+                cache.put(key, new CachedReport(content, contentDisposition, versions, hoy));
+            }
+        }, headers, response.getStatusCode());
+    }
+
+    private static ResponseEntity<StreamingResponseBody> fromCache(CachedReport cached, String etag) {
+        HttpHeaders headers = validators(etag);
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, cached.contentDisposition);
+        headers.setContentLength(cached.content.length);
+        byte[] content = cached.content;
+        return new ResponseEntity<>(out -> out.write(content), headers, HttpStatus.OK);
+    }
+
+    private static HttpHeaders validators(String etag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        // El cliente puede guardar el PDF pero debe validarlo en cada uso
+        headers.setCacheControl(CacheControl.noCache());
+        return headers;
+    }
+
+    private String etag(String key, long[] versions, LocalDate fecha) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(instance);
+            digest.update(key.getBytes(StandardCharsets.UTF_8));
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES * (versions.length + 1));
+            for (long version : versions) {
+                buffer.putLong(version);
+            }
+            buffer.putLong(fecha.toEpochDay());
+            digest.update(buffer.array());
+            return "\"" + HexFormat.of().formatHex(digest.digest()) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            // Todas las JVM incluyen SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * If-None-Match usa comparación débil: se ignora el prefijo W/ y se acepta "*".
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Envía al cliente y copia lo enviado mientras no rebase el límite; al rebasarlo
+     * suelta la copia y sigue solo enviando.
+     */
+    private static final class CapturingOutputStream extends FilterOutputStream {
+        private final int limit;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        CapturingOutputStream(OutputStream out, int limit) {
+            super(out);
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if (copy == null) return;
+            if (len > limit - copy.size()) {
+                copy = null;
+                return;
+            }
+            copy.write(b, off, len);
+        }
+
+        /**
+         * Todo lo enviado, o null si rebasó el límite.
+         */
+        byte[] captured() {
+            return copy != null ? copy.toByteArray() : null;
+        }
+    }
+
+    private static final class CachedReport {
+        private final byte[] content;
+        private final String contentDisposition;
+        private final long[] versions;
+        // Día de generación; la entrada no vale otro día
+        private final LocalDate fecha;
+
+        CachedReport(byte[] content, String contentDisposition, long[] versions, LocalDate fecha) {
+            this.content = content;
+            this.contentDisposition = contentDisposition;
+            this.versions = versions;
+            this.fecha = fecha;
+        }
+    }
+}
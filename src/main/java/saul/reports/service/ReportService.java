@@ -1,11 +1,22 @@
 package saul.reports.service;
 
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import saul.pdf.renderer.PDFBufferPool;
+import saul.pdf.renderer.PageFooterConfig;
+import saul.pdf.service.PDFBoxService;
 import saul.entity.Dispositivo;
+import saul.entity.DispositivoResumen;
 import saul.entity.HistorialUbicacion;
 import saul.entity.Mantenimiento;
 import saul.entity.TipoDispositivo;
@@ -34,9 +45,12 @@ import saul.reports.dto.DispositivoReportDTO;
 import saul.reports.dto.DispositivoRegistroReportDTO;
 import saul.reports.dto.HistorialUbicacionReportDTO;
 import saul.reports.dto.TicketReportDTO;
+import saul.reports.dto.UbicacionActualDTO;
 import saul.dto.response.StockTonerResponse;
+import saul.service.MantenimientoRezagoIndex;
 import saul.service.StockTonerService;
 import saul.repository.DispositivoRepository;
+import saul.repository.DispositivoResumenRepository;
 import saul.repository.HistorialUbicacionRepository;
 import saul.repository.MantenimientoRepository;
 import saul.repository.TipoDispositivoRepository;
@@ -48,12 +62,17 @@ import saul.repository.TicketRepository;
 import saul.entity.Ticket;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Servicio de reportes que coordina la generación de PDFs y retorna ResponseEntity
@@ -62,6 +81,9 @@ import java.util.Optional;
 @Service
 public class ReportService {
 
+    // Cada cuántas filas leídas en streaming se libera el contexto de persistencia
+    private static final int STREAM_CLEAR_INTERVAL = 200;
+
     private final ImagePageGenerator imagePageGenerator;
     private final MantenimientoReportGenerator mantenimientoReportGenerator;
     private final EquipoRezagadoReportGenerator equipoRezagadoReportGenerator;
@@ -84,6 +106,20 @@ public class ReportService {
     private final BitacoraServicioRepository bitacoraServicioRepository;
     private final TicketRepository ticketRepository;
     private final StockTonerService stockTonerService;
+    private final EntityManager entityManager;
+    private final PDFBoxService pdfBoxService;
+    private final ReportShardExecutor shardExecutor;
+    private final DispositivoReportResolver dispositivoResolver;
+    private final DispositivoResumenRepository dispositivoResumenRepository;
+    private final MantenimientoRezagoIndex mantenimientoRezagoIndex;
+    private final TransactionTemplate readOnlyTransaction;
+
+    // Buffers reutilizables para las respuestas que requieren Content-Length
+    private final PDFBufferPool bufferPool = new PDFBufferPool(4, 256 * 1024, 16 * 1024 * 1024);
+
+    // true para calcular Content-Length antes de enviar el PDF (requiere el documento completo en memoria)
+    @Value("${report.response.content-length:false}")
+    private boolean contentLengthRequired;
 
     public ReportService(ImagePageGenerator imagePageGenerator,
                          MantenimientoReportGenerator mantenimientoReportGenerator,
@@ -106,7 +142,14 @@ public class ReportService {
                          AnotacionRepository anotacionRepository,
                          BitacoraServicioRepository bitacoraServicioRepository,
                          TicketRepository ticketRepository,
-                         StockTonerService stockTonerService) {
+                         StockTonerService stockTonerService,
+                         EntityManager entityManager,
+                         PDFBoxService pdfBoxService,
+                         ReportShardExecutor shardExecutor,
+                         DispositivoReportResolver dispositivoResolver,
+                         DispositivoResumenRepository dispositivoResumenRepository,
+                         MantenimientoRezagoIndex mantenimientoRezagoIndex,
+                         PlatformTransactionManager transactionManager) {
         this.imagePageGenerator = imagePageGenerator;
         this.mantenimientoReportGenerator = mantenimientoReportGenerator;
         this.equipoRezagadoReportGenerator = equipoRezagadoReportGenerator;
@@ -129,6 +172,14 @@ public class ReportService {
         this.bitacoraServicioRepository = bitacoraServicioRepository;
         this.ticketRepository = ticketRepository;
         this.stockTonerService = stockTonerService;
+        this.entityManager = entityManager;
+        this.pdfBoxService = pdfBoxService;
+        this.shardExecutor = shardExecutor;
+        this.dispositivoResolver = dispositivoResolver;
+        this.dispositivoResumenRepository = dispositivoResumenRepository;
+        this.mantenimientoRezagoIndex = mantenimientoRezagoIndex;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
     /**
@@ -136,13 +187,13 @@ public class ReportService {
      *
      * @return ResponseEntity con el PDF y headers configurados para visualización inline
      */
-    public ResponseEntity<byte[]> generateImagePageReport() {
+    public ResponseEntity<StreamingResponseBody> generateImagePageReport() {
         try {
-            byte[] pdfBytes = imagePageGenerator.generateImagePage();
-            return buildPdfResponse(pdfBytes, "image-report.pdf", false);
+            PDDocument document = imagePageGenerator.renderImagePage();
+            return buildPdfResponse(document, "image-report.pdf", false);
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(("Error al generar el reporte: " + e.getMessage()).getBytes());
+                    .body(textBody("Error al generar el reporte: " + e.getMessage()));
         }
     }
 
@@ -153,13 +204,13 @@ public class ReportService {
      * @param fileName nombre del archivo PDF resultante
      * @return ResponseEntity con el PDF y headers configurados
      */
-    public ResponseEntity<byte[]> generateImagePageReport(String imagePath, String fileName) {
+    public ResponseEntity<StreamingResponseBody> generateImagePageReport(String imagePath, String fileName) {
         try {
-            byte[] pdfBytes = imagePageGenerator.generateImagePage(imagePath);
-            return buildPdfResponse(pdfBytes, fileName, false);
+            PDDocument document = imagePageGenerator.renderImagePage(imagePath);
+            return buildPdfResponse(document, fileName, false);
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(("Error al generar el reporte: " + e.getMessage()).getBytes());
+                    .body(textBody("Error al generar el reporte: " + e.getMessage()));
         }
     }
 
@@ -171,7 +222,7 @@ public class ReportService {
      * @param fechaFin    fecha de fin del rango
      * @return ResponseEntity con el PDF y headers configurados para visualización inline
      */
-    public ResponseEntity<byte[]> generateMantenimientoReport(LocalDate fechaInicio, LocalDate fechaFin) {
+    public ResponseEntity<StreamingResponseBody> generateMantenimientoReport(LocalDate fechaInicio, LocalDate fechaFin) {
         return generateMantenimientoReport(fechaInicio, fechaFin, null);
     }
 
@@ -184,12 +235,8 @@ public class ReportService {
      * @param idTipoDispositivo ID del tipo de dispositivo a filtrar (opcional). Si es null, incluye todos los tipos de dispositivos.
      * @return ResponseEntity con el PDF y headers configurados para visualización inline
      */
-    public ResponseEntity<byte[]> generateMantenimientoReport(LocalDate fechaInicio, LocalDate fechaFin, Integer idTipoDispositivo) {
+    public ResponseEntity<StreamingResponseBody> generateMantenimientoReport(LocalDate fechaInicio, LocalDate fechaFin, Integer idTipoDispositivo) {
         try {
-            // Obtener mantenimientos del repositorio con filtro opcional por tipo de dispositivo
-            List<Mantenimiento> mantenimientos = mantenimientoRepository
-                    .findByFechaRealizadoBetweenAndTipoDispositivoForReport(fechaInicio, fechaFin, idTipoDispositivo);
-
             // Obtener información del tipo de dispositivo si se especificó un filtro
             String tipoDispositivoInfo = null;
             if (idTipoDispositivo != null) {
@@ -200,11 +247,31 @@ public class ReportService {
                 }
             }
 
-            // Convertir a DTOs incluyendo la ubicación actual
-            List<MantenimientoReportDTO> dtos = convertToReportDTOs(mantenimientos);
+            PDDocument document;
+            if (shardExecutor.shouldShard(fechaInicio, fechaFin)) {
+                // Rango largo: un documento por mes en paralelo, unidos en orden descendente
+                String tipoInfo = tipoDispositivoInfo;
+                document = shardExecutor.render(
+                        shardExecutor.splitByMonth(fechaInicio, fechaFin, true),
+                        range -> mantenimientoRepository.countForReport(
+                                range.getInicio(), range.getFin(), idTipoDispositivo),
+                        range -> convertToReportDTOs(mantenimientoRepository
+                                .findByFechaRealizadoBetweenAndTipoDispositivoForReport(
+                                        range.getInicio(), range.getFin(), idTipoDispositivo)),
+                        (rows, part) -> mantenimientoReportGenerator.renderReport(
+                                rows, fechaInicio, fechaFin, tipoInfo, part),
+                        PageFooterConfig.standard());
+            } else {
+                // Obtener mantenimientos del repositorio con filtro opcional por tipo de dispositivo
+                List<Mantenimiento> mantenimientos = mantenimientoRepository
+                        .findByFechaRealizadoBetweenAndTipoDispositivoForReport(fechaInicio, fechaFin, idTipoDispositivo);
+
+                // Convertir a DTOs incluyendo la ubicación actual
+                List<MantenimientoReportDTO> dtos = convertToReportDTOs(mantenimientos);
 
-            // Generar el PDF con información del tipo de dispositivo filtrado
-            byte[] pdfBytes = mantenimientoReportGenerator.generateReport(dtos, fechaInicio, fechaFin, tipoDispositivoInfo);
+                // Generar el PDF con información del tipo de dispositivo filtrado
+                document = mantenimientoReportGenerator.renderReport(dtos, fechaInicio, fechaFin, tipoDispositivoInfo);
+            }
 
             // Nombre del archivo con las fechas y tipo de dispositivo si aplica
             String fileName;
@@ -216,19 +283,28 @@ public class ReportService {
                         fechaInicio.toString(), fechaFin.toString());
             }
 
-            return buildPdfResponse(pdfBytes, fileName, false);
+            return buildPdfResponse(document, fileName, false);
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(("Error al generar el reporte de mantenimientos: " + e.getMessage()).getBytes());
+                    .body(textBody("Error al generar el reporte de mantenimientos: " + e.getMessage()));
         }
     }
 
     /**
      * Convierte una lista de entidades Mantenimiento a DTOs para el reporte,
      * incluyendo la ubicación más reciente de cada dispositivo.
+     * Las ubicaciones de todos los dispositivos se leen en una sola consulta.
      */
     private List<MantenimientoReportDTO> convertToReportDTOs(List<Mantenimiento> mantenimientos) {
-        List<MantenimientoReportDTO> dtos = new ArrayList<>();
+        List<MantenimientoReportDTO> dtos = new ArrayList<>(mantenimientos.size());
+
+        List<Long> idsDispositivo = new ArrayList<>(mantenimientos.size());
+        for (Mantenimiento m : mantenimientos) {
+            if (m.getDispositivo() != null) {
+                idsDispositivo.add(m.getDispositivo().getIdDispositivo());
+            }
+        }
+        LongKeyedMap<UbicacionActualDTO> ubicaciones = dispositivoResolver.currentLocations(idsDispositivo);
 
         for (Mantenimiento m : mantenimientos) {
             MantenimientoReportDTO.MantenimientoReportDTOBuilder builder = MantenimientoReportDTO.builder()
@@ -263,21 +339,13 @@ public class ReportService {
                     builder.estadoDispositivo(m.getDispositivo().getTipoEstado().getNombreEstado());
                 }
 
-                // Obtener ubicación más reciente del dispositivo
-                Optional<HistorialUbicacion> ubicacionActual = historialUbicacionRepository
-                        .findCurrentByDispositivo(m.getDispositivo().getIdDispositivo());
-
-                if (ubicacionActual.isPresent()) {
-                    HistorialUbicacion hu = ubicacionActual.get();
-                    if (hu.getLugar() != null) {
-                        builder.lugarActual(hu.getLugar().getNombreLugar())
-                                .pisoActual(hu.getLugar().getPiso())
-                                .edificioActual(hu.getLugar().getEdificio());
-
-                        if (hu.getLugar().getDepartamento() != null) {
-                            builder.departamentoActual(hu.getLugar().getDepartamento().getNombreDepartamento());
-                        }
-                    }
+                // Ubicación más reciente del dispositivo
+                UbicacionActualDTO ubicacion = ubicacion(ubicaciones, m.getDispositivo().getIdDispositivo());
+                if (ubicacion != null && ubicacion.getLugar() != null) {
+                    builder.lugarActual(ubicacion.getLugar())
+                            .pisoActual(ubicacion.getPiso())
+                            .edificioActual(ubicacion.getEdificio())
+                            .departamentoActual(ubicacion.getDepartamento());
                 }
             }
 
@@ -303,11 +371,11 @@ public class ReportService {
      *                         Si es -1, incluye todos los tipos de dispositivos.
      * @return ResponseEntity con el PDF y headers configurados para visualización inline
      */
-    public ResponseEntity<byte[]> generateEquiposRezagadosReport(Integer diasMinimos, Integer idTipoDispositivo) {
+    public ResponseEntity<StreamingResponseBody> generateEquiposRezagadosReport(Integer diasMinimos, Integer idTipoDispositivo) {
         try {
-            // Obtener dispositivos rezagados
-            List<Dispositivo> dispositivos = dispositivoRepository.findEquiposRezagadosEnMantenimiento(
-                    diasMinimos, idTipoDispositivo);
+            // Obtener dispositivos rezagados del índice, una fila de resumen por dispositivo
+            List<DispositivoResumen> dispositivos = findResumenes(
+                    mantenimientoRezagoIndex.findRezagados(diasMinimos, idTipoDispositivo));
 
             // Determinar el nombre del tipo de dispositivo para el título y nombre del archivo
             String tipoDispositivoNombre = null;
@@ -326,7 +394,7 @@ public class ReportService {
             List<EquipoRezagadoReportDTO> dtos = convertToEquipoRezagadoReportDTOs(dispositivos);
 
             // Generar el PDF
-            byte[] pdfBytes = equipoRezagadoReportGenerator.generateReport(dtos, diasMinimos, tipoDispositivoNombre);
+            PDDocument document = equipoRezagadoReportGenerator.renderReport(dtos, diasMinimos, tipoDispositivoNombre);
 
             // Nombre del archivo
             String fileName = String.format("equipos_rezagados_%d_dias.pdf", diasMinimos);
@@ -337,71 +405,65 @@ public class ReportService {
                 fileName = String.format("equipos_rezagados_%s_%d_dias.pdf", tipoParaArchivo, diasMinimos);
             }
 
-            return buildPdfResponse(pdfBytes, fileName, false);
+            return buildPdfResponse(document, fileName, false);
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(("Error al generar el reporte de equipos rezagados: " + e.getMessage()).getBytes());
+                    .body(textBody("Error al generar el reporte de equipos rezagados: " + e.getMessage()));
         }
     }
 
     /**
-     * Convierte una lista de dispositivos a DTOs para el reporte de equipos rezagados,
+     * Convierte el resumen de los dispositivos rezagados a DTOs para el reporte,
      * incluyendo la fecha del último mantenimiento y días transcurridos.
+     * El resumen ya trae ubicación y último mantenimiento en la misma fila.
      */
-    private List<EquipoRezagadoReportDTO> convertToEquipoRezagadoReportDTOs(List<Dispositivo> dispositivos) {
-        List<EquipoRezagadoReportDTO> dtos = new ArrayList<>();
-
-        for (Dispositivo dispositivo : dispositivos) {
-            EquipoRezagadoReportDTO.EquipoRezagadoReportDTOBuilder builder = EquipoRezagadoReportDTO.builder()
-                    .idDispositivo(dispositivo.getIdDispositivo())
-                    .marca(dispositivo.getMarca())
-                    .modelo(dispositivo.getModelo())
-                    .numeroSerie(dispositivo.getNumeroSerie())
-                    .inventario(dispositivo.getInventario());
-
-            // Información del tipo de dispositivo
-            if (dispositivo.getTipoDispositivo() != null) {
-                builder.tipoDispositivo(dispositivo.getTipoDispositivo().getNombreTipo());
-            }
+    private List<EquipoRezagadoReportDTO> convertToEquipoRezagadoReportDTOs(List<DispositivoResumen> resumenes) {
+        List<EquipoRezagadoReportDTO> dtos = new ArrayList<>(resumenes.size());
+        LocalDate hoy = LocalDate.now();
 
-            // Buscar último mantenimiento
-            List<Mantenimiento> mantenimientos = mantenimientoRepository.findLastMantenimientoByDispositivo(
-                    dispositivo.getIdDispositivo());
+        for (DispositivoResumen resumen : resumenes) {
+            LocalDate fechaUltimoMantenimiento = resumen.getFechaUltimoMantenimiento();
+            Long diasTranscurridos;
 
-            LocalDate fechaUltimoMantenimiento = null;
-            Long diasTranscurridos = null;
-
-            if (!mantenimientos.isEmpty()) {
-                fechaUltimoMantenimiento = mantenimientos.get(0).getFechaRealizado();
-                if (fechaUltimoMantenimiento != null) {
-                    diasTranscurridos = ChronoUnit.DAYS.between(fechaUltimoMantenimiento, LocalDate.now());
-                }
+            if (fechaUltimoMantenimiento != null) {
+                diasTranscurridos = ChronoUnit.DAYS.between(fechaUltimoMantenimiento, hoy);
             } else {
                 // Si no tiene mantenimientos, calcular desde una fecha muy antigua o usar null
                 diasTranscurridos = 9999L; // Un número alto para indicar que nunca ha tenido mantenimiento
             }
 
-            builder.fechaUltimoMantenimiento(fechaUltimoMantenimiento)
-                   .diasTranscurridos(diasTranscurridos);
-
-            // Buscar ubicación actual
-            Optional<HistorialUbicacion> ubicacionActual = historialUbicacionRepository
-                    .findCurrentByDispositivo(dispositivo.getIdDispositivo());
+            dtos.add(EquipoRezagadoReportDTO.builder()
+                    .idDispositivo(resumen.getIdDispositivo())
+                    .tipoDispositivo(resumen.getNombreTipo())
+                    .marca(resumen.getMarca())
+                    .modelo(resumen.getModelo())
+                    .numeroSerie(resumen.getNumeroSerie())
+                    .inventario(resumen.getInventario())
+                    .fechaUltimoMantenimiento(fechaUltimoMantenimiento)
+                    .diasTranscurridos(diasTranscurridos)
+                    .lugarActual(resumen.getLugarActual())
+                    .departamentoActual(resumen.getLugarActual() != null ? resumen.getDepartamentoActual() : null)
+                    .build());
+        }
 
-            if (ubicacionActual.isPresent()) {
-                HistorialUbicacion historial = ubicacionActual.get();
-                if (historial.getLugar() != null) {
-                    builder.lugarActual(historial.getLugar().getNombreLugar());
-                    if (historial.getLugar().getDepartamento() != null) {
-                        builder.departamentoActual(historial.getLugar().getDepartamento().getNombreDepartamento());
-                    }
-                }
-            }
+        return dtos;
+    }
 
-            dtos.add(builder.build());
+    /**
+     * Lee el resumen de los dispositivos indicados en lotes, ordenado por id.
+     */
+    private List<DispositivoResumen> findResumenes(List<Long> idsDispositivo) {
+        List<DispositivoResumen> resumenes = new ArrayList<>(idsDispositivo.size());
+        for (int i = 0; i < idsDispositivo.size(); i += DispositivoReportResolver.BATCH_SIZE) {
+            int fin = Math.min(idsDispositivo.size(), i + DispositivoReportResolver.BATCH_SIZE);
+            resumenes.addAll(dispositivoResumenRepository.findAllById(idsDispositivo.subList(i, fin)));
         }
+        resumenes.sort(Comparator.comparing(DispositivoResumen::getIdDispositivo));
+        return resumenes;
+    }
 
-        return dtos;
+    private static UbicacionActualDTO ubicacion(LongKeyedMap<UbicacionActualDTO> ubicaciones, Long idDispositivo) {
+        return idDispositivo != null ? ubicaciones.get(idDispositivo) : null;
     }
 
     /**
@@ -412,7 +474,7 @@ public class ReportService {
      * @param idUsuario ID del usuario que registró las entradas (opcional). Si no se envía, muestra todas las entradas.
      * @return ResponseEntity con el PDF y headers configurados para visualización inline
      */
-    public ResponseEntity<byte[]> generateEntradasTonerReport(LocalDate fechaInicio, LocalDate fechaFin, Long idUsuario) {
+    public ResponseEntity<StreamingResponseBody> generateEntradasTonerReport(LocalDate fechaInicio, LocalDate fechaFin, Long idUsuario) {
         try {
             // Convertir fechas a LocalDateTime para la consulta
             var fechaInicioDateTime = fechaInicio.atStartOfDay();
@@ -429,7 +491,7 @@ public class ReportService {
             }
 
             // Generar el PDF
-            byte[] pdfBytes = entradasTonerReportGenerator.generateReport(entradas, fechaInicio, fechaFin, idUsuario);
+            PDDocument document = entradasTonerReportGenerator.renderReport(entradas, fechaInicio, fechaFin, idUsuario);
 
             // Nombre del archivo
             String fileName = String.format("entradas_toner_%s_%s.pdf",
@@ -439,10 +501,10 @@ public class ReportService {
                     idUsuario, fechaInicio, fechaFin);
             }
 
-            return buildPdfResponse(pdfBytes, fileName, false);
+            return buildPdfResponse(document, fileName, false);
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(("Error al generar el reporte de entradas de tóner: " + e.getMessage()).getBytes());
+                    .body(textBody("Error al generar el reporte de entradas de tóner: " + e.getMessage()));
         }
     }
 
@@ -454,24 +516,19 @@ public class ReportService {
      * @param idUsuario ID del usuario que registró las salidas (opcional). Si no se envía, muestra todas las salidas.
      * @return ResponseEntity con el PDF y headers configurados para visualización inline
      */
-    public ResponseEntity<byte[]> generateSalidasTonerReport(LocalDate fechaInicio, LocalDate fechaFin, Long idUsuario) {
-        try {
-            // Convertir fechas a LocalDateTime para la consulta
-            var fechaInicioDateTime = fechaInicio.atStartOfDay();
-            var fechaFinDateTime = fechaFin.atTime(23, 59, 59);
+    @Transactional
+    public ResponseEntity<StreamingResponseBody> generateSalidasTonerReport(LocalDate fechaInicio, LocalDate fechaFin, Long idUsuario) {
+        // Convertir fechas a LocalDateTime para la consulta
+        var fechaInicioDateTime = fechaInicio.atStartOfDay();
+        var fechaFinDateTime = fechaFin.atTime(23, 59, 59);
 
-            // Obtener salidas de tóner del repositorio con filtros
-            List<SalidasToner> salidas;
-            if (idUsuario != null) {
-                salidas = salidasTonerRepository.findByFechaSalidaBetweenAndUsuarioInstalaIdUsuario(
-                    fechaInicioDateTime, fechaFinDateTime, idUsuario);
-            } else {
-                salidas = salidasTonerRepository.findByFechaSalidaBetween(
-                    fechaInicioDateTime, fechaFinDateTime);
-            }
+        // Las salidas se leen del cursor y se dibujan conforme llegan
+        try (Stream<SalidasToner> salidas = salidasTonerRepository.streamForReport(
+                fechaInicioDateTime, fechaFinDateTime, idUsuario)) {
 
             // Generar el PDF
-            byte[] pdfBytes = salidasTonerReportGenerator.generateReport(salidas, fechaInicio, fechaFin, idUsuario);
+            PDDocument document = salidasTonerReportGenerator.renderReport(
+                    mapDetached(salidas, Function.identity()), fechaInicio, fechaFin, idUsuario);
 
             // Nombre del archivo
             String fileName = String.format("salidas_toner_%s_%s.pdf",
@@ -481,10 +538,10 @@ public class ReportService {
                     idUsuario, fechaInicio, fechaFin);
             }
 
-            return buildPdfResponse(pdfBytes, fileName, false);
+            return buildPdfResponse(document, fileName, false);
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(("Error al generar el reporte de salidas de tóner: " + e.getMessage()).getBytes());
+                    .body(textBody("Error al generar el reporte de salidas de tóner: " + e.getMessage()));
         }
     }
 
@@ -497,18 +554,18 @@ public class ReportService {
      * @return ResponseEntity con el PDF generado y headers para visualización inline
      * @throws RuntimeException si hay error al generar el PDF
      */
-    public ResponseEntity<byte[]> generateStockTonerReport() {
+    public ResponseEntity<StreamingResponseBody> generateStockTonerReport() {
         try {
             // Obtener todos los stocks de tóner usando el servicio
             List<StockTonerResponse> stockList = stockTonerService.findAllExistencias();
 
             // Generar el PDF
-            byte[] pdfBytes = stockTonerReportGenerator.generateReport(stockList);
+            PDDocument document = stockTonerReportGenerator.renderReport(stockList);
 
             // Nombre del archivo
             String fileName = "inventario_toner.pdf";
 
-            return buildPdfResponse(pdfBytes, fileName, false);
+            return buildPdfResponse(document, fileName, false);
 
         } catch (IOException e) {
             throw new RuntimeException("Error al generar reporte de inventario de tóner: " + e.getMessage(), e);
@@ -528,7 +585,7 @@ public class ReportService {
      * @return ResponseEntity con el PDF generado y headers configurados
      * @throws RuntimeException si hay error al generar el PDF
      */
-    public ResponseEntity<byte[]> generateAnotacionesReport(LocalDate fechaInicio, LocalDate fechaFin,
+    public ResponseEntity<StreamingResponseBody> generateAnotacionesReport(LocalDate fechaInicio, LocalDate fechaFin,
                                                           Long idUsuario, String contenido, Integer pagina,
                                                           String etiquetas, Boolean importante) {
         try {
@@ -558,7 +615,7 @@ public class ReportService {
             }
 
             // Generar el PDF
-            byte[] pdfBytes = anotacionesReportGenerator.generateReport(
+            PDDocument document = anotacionesReportGenerator.renderReport(
                 anotacionesDTOs, fechaInicio, fechaFin, idUsuario, contenido, pagina, etiquetas, importante
             );
 
@@ -566,7 +623,7 @@ public class ReportService {
             String fileName = String.format("anotaciones_%s_%s.pdf",
                 fechaInicio, fechaFin);
 
-            return buildPdfResponse(pdfBytes, fileName, false);
+            return buildPdfResponse(document, fileName, false);
 
         } catch (IOException e) {
             throw new RuntimeException("Error al generar reporte de anotaciones: " + e.getMessage(), e);
@@ -585,7 +642,7 @@ public class ReportService {
      * @return ResponseEntity con el PDF generado y headers configurados
      * @throws RuntimeException si hay error al generar el PDF
      */
-    public ResponseEntity<byte[]> generateBitacoraServicioReport(LocalDate fechaInicio, LocalDate fechaFin,
+    public ResponseEntity<StreamingResponseBody> generateBitacoraServicioReport(LocalDate fechaInicio, LocalDate fechaFin,
                                                                 Long idUsuario, String contenido, String estado,
                                                                 Long idTipoIncidente) {
         try {
@@ -628,7 +685,7 @@ public class ReportService {
             }
 
             // Generar el PDF
-            byte[] pdfBytes = bitacoraServicioReportGenerator.generateReport(
+            PDDocument document = bitacoraServicioReportGenerator.renderReport(
                 bitacorasDTOs, fechaInicio, fechaFin, idUsuario, contenido, estado, idTipoIncidente
             );
 
@@ -636,7 +693,7 @@ public class ReportService {
             String fileName = String.format("bitacora_servicios_%s_%s.pdf",
                 fechaInicio, fechaFin);
 
-            return buildPdfResponse(pdfBytes, fileName, false);
+            return buildPdfResponse(document, fileName, false);
 
         } catch (IOException e) {
             throw new RuntimeException("Error al generar reporte de bitácora de servicios: " + e.getMessage(), e);
@@ -650,15 +707,15 @@ public class ReportService {
      * @param idDispositivo ID del dispositivo a reportar
      * @return ResponseEntity con el PDF y headers configurados para visualización inline
      */
-    public ResponseEntity<byte[]> generateDispositivoReport(Long idDispositivo) {
+    public ResponseEntity<StreamingResponseBody> generateDispositivoReport(Long idDispositivo) {
         try {
             // Buscar el dispositivo
             Optional<Dispositivo> dispositivoOpt = dispositivoRepository.findById(idDispositivo);
 
             if (dispositivoOpt.isEmpty()) {
                 // Generar PDF con mensaje de error
-                byte[] pdfBytes = dispositivoReportGenerator.generateNotFoundReport(idDispositivo);
-                return buildPdfResponse(pdfBytes, "dispositivo_no_encontrado.pdf", false);
+                PDDocument document = dispositivoReportGenerator.renderNotFoundReport(idDispositivo);
+                return buildPdfResponse(document, "dispositivo_no_encontrado.pdf", false);
             }
 
             Dispositivo dispositivo = dispositivoOpt.get();
@@ -671,18 +728,18 @@ public class ReportService {
             DispositivoReportDTO dto = convertToDispositivoReportDTO(dispositivo, historial);
 
             // Generar el PDF
-            byte[] pdfBytes = dispositivoReportGenerator.generateReport(dto);
+            PDDocument document = dispositivoReportGenerator.renderReport(dto);
 
             // Nombre del archivo
             String fileName = String.format("dispositivo_%d_%s.pdf",
                 idDispositivo,
                 dispositivo.getInventario() != null ? dispositivo.getInventario() : "sin_inventario");
 
-            return buildPdfResponse(pdfBytes, fileName, false);
+            return buildPdfResponse(document, fileName, false);
 
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(("Error al generar el reporte del dispositivo: " + e.getMessage()).getBytes());
+                    .body(textBody("Error al generar el reporte del dispositivo: " + e.getMessage()));
         }
     }
 
@@ -764,97 +821,127 @@ public class ReportService {
      * @param fechaFin    fecha de fin del rango (por fechaEntrada)
      * @return ResponseEntity con el PDF y headers configurados para visualización inline
      */
-    public ResponseEntity<byte[]> generateHistorialUbicacionReport(LocalDate fechaInicio, LocalDate fechaFin) {
-        try {
-            // Convertir fechas a LocalDateTime para la consulta
-            LocalDateTime fechaInicioDateTime = fechaInicio.atStartOfDay();
-            LocalDateTime fechaFinDateTime = fechaFin.atTime(23, 59, 59);
+    public ResponseEntity<StreamingResponseBody> generateHistorialUbicacionReport(LocalDate fechaInicio, LocalDate fechaFin) {
+        // Fuera de transacción: las partes toman sus propias conexiones y esta no debe quedar ociosa
+        if (shardExecutor.shouldShard(fechaInicio, fechaFin)) {
+            return generateHistorialUbicacionReportSharded(fechaInicio, fechaFin);
+        }
 
-            // Obtener historial de ubicaciones del repositorio ordenado descendente
-            List<HistorialUbicacion> historial = historialUbicacionRepository
-                    .findByFechaEntradaBetweenOrderByFechaEntradaDesc(fechaInicioDateTime, fechaFinDateTime);
+        // Convertir fechas a LocalDateTime para la consulta
+        LocalDateTime fechaInicioDateTime = fechaInicio.atStartOfDay();
+        LocalDateTime fechaFinDateTime = fechaFin.atTime(23, 59, 59);
 
-            // Convertir a DTOs
-            List<HistorialUbicacionReportDTO> dtos = convertToHistorialUbicacionReportDTOs(historial);
-
-            // Generar el PDF
-            byte[] pdfBytes = historialUbicacionReportGenerator.generateReport(dtos, fechaInicio, fechaFin);
+        try {
+            // Historial ordenado descendente, leído del cursor y convertido a DTO fila por fila
+            PDDocument document = inReadOnlyTransaction(() -> {
+                try (Stream<HistorialUbicacion> historial = historialUbicacionRepository
+                        .streamByFechaEntradaBetweenForReport(fechaInicioDateTime, fechaFinDateTime)) {
+                    LocalDateTime ahora = LocalDateTime.now();
+                    Stream<HistorialUbicacionReportDTO> dtos =
+                            mapDetached(historial, h -> convertToHistorialUbicacionReportDTO(h, ahora));
+                    return historialUbicacionReportGenerator.renderReport(dtos, fechaInicio, fechaFin);
+                }
+            });
 
             // Nombre del archivo con las fechas
             String fileName = String.format("historial_ubicaciones_%s_%s.pdf",
                     fechaInicio.toString(), fechaFin.toString());
 
-            return buildPdfResponse(pdfBytes, fileName, false);
+            return buildPdfResponse(document, fileName, false);
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(("Error al generar el reporte de historial de ubicaciones: " + e.getMessage()).getBytes());
+                    .body(textBody("Error al generar el reporte de historial de ubicaciones: " + e.getMessage()));
         }
     }
 
     /**
-     * Convierte una lista de entidades HistorialUbicacion a DTOs para el reporte,
-     * calculando los días en cada ubicación (usando fechaSalida o fecha actual si es null).
+     * Reporte de historial de ubicaciones de un rango largo: cada mes se lee y se
+     * dibuja en paralelo, y los documentos se unen del mes más reciente al más antiguo.
      */
-    private List<HistorialUbicacionReportDTO> convertToHistorialUbicacionReportDTOs(List<HistorialUbicacion> historial) {
-        List<HistorialUbicacionReportDTO> dtos = new ArrayList<>();
+    private ResponseEntity<StreamingResponseBody> generateHistorialUbicacionReportSharded(LocalDate fechaInicio, LocalDate fechaFin) {
         LocalDateTime ahora = LocalDateTime.now();
+        try {
+            // Cada mes se dibuja conforme se lee del cursor, sin materializar sus filas
+            PDDocument document = shardExecutor.render(
+                    shardExecutor.splitByMonth(fechaInicio, fechaFin, true),
+                    range -> historialUbicacionRepository.countByFechaEntradaBetween(
+                            range.getInicio().atStartOfDay(), range.getFin().atTime(23, 59, 59)),
+                    range -> mapDetached(historialUbicacionRepository.streamByFechaEntradaBetweenForReport(
+                                    range.getInicio().atStartOfDay(), range.getFin().atTime(23, 59, 59)),
+                            h -> convertToHistorialUbicacionReportDTO(h, ahora)),
+                    (rows, part) -> historialUbicacionReportGenerator.renderReport(rows, fechaInicio, fechaFin, part),
+                    PageFooterConfig.standard());
 
-        for (HistorialUbicacion h : historial) {
-            HistorialUbicacionReportDTO.HistorialUbicacionReportDTOBuilder builder = HistorialUbicacionReportDTO.builder()
-                    .idHistorial(h.getIdHistorial())
-                    .fechaEntrada(h.getFechaEntrada())
-                    .fechaSalida(h.getFechaSalida());
+            String fileName = String.format("historial_ubicaciones_%s_%s.pdf",
+                    fechaInicio.toString(), fechaFin.toString());
 
-            // Información del dispositivo
-            if (h.getDispositivo() != null) {
-                builder.idDispositivo(h.getDispositivo().getIdDispositivo())
-                        .inventario(h.getDispositivo().getInventario())
-                        .numeroSerie(h.getDispositivo().getNumeroSerie());
-
-                // Marca y modelo combinados
-                String marca = h.getDispositivo().getMarca();
-                String modelo = h.getDispositivo().getModelo();
-                if (marca != null && modelo != null) {
-                    builder.marcaModelo(marca + " " + modelo);
-                } else if (marca != null) {
-                    builder.marcaModelo(marca);
-                } else if (modelo != null) {
-                    builder.marcaModelo(modelo);
-                }
+            return buildPdfResponse(document, fileName, false);
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(textBody("Error al generar el reporte de historial de ubicaciones: " + e.getMessage()));
+        }
+    }
 
-                // Tipo de dispositivo
-                if (h.getDispositivo().getTipoDispositivo() != null) {
-                    builder.tipoDispositivo(h.getDispositivo().getTipoDispositivo().getNombreTipo());
-                }
+    /**
+     * Convierte un registro de HistorialUbicacion a DTO para el reporte,
+     * calculando los días en la ubicación (usando fechaSalida o la fecha actual si es null).
+     *
+     * @param h registro de historial
+     * @param ahora fecha usada cuando el registro no tiene fechaSalida
+     */
+    private HistorialUbicacionReportDTO convertToHistorialUbicacionReportDTO(HistorialUbicacion h, LocalDateTime ahora) {
+        HistorialUbicacionReportDTO.HistorialUbicacionReportDTOBuilder builder = HistorialUbicacionReportDTO.builder()
+                .idHistorial(h.getIdHistorial())
+                .fechaEntrada(h.getFechaEntrada())
+                .fechaSalida(h.getFechaSalida());
+
+        // Información del dispositivo
+        if (h.getDispositivo() != null) {
+            builder.idDispositivo(h.getDispositivo().getIdDispositivo())
+                    .inventario(h.getDispositivo().getInventario())
+                    .numeroSerie(h.getDispositivo().getNumeroSerie());
+
+            // Marca y modelo combinados
+            String marca = h.getDispositivo().getMarca();
+            String modelo = h.getDispositivo().getModelo();
+            if (marca != null && modelo != null) {
+                builder.marcaModelo(marca + " " + modelo);
+            } else if (marca != null) {
+                builder.marcaModelo(marca);
+            } else if (modelo != null) {
+                builder.marcaModelo(modelo);
             }
 
-            // Información del lugar
-            if (h.getLugar() != null) {
-                builder.nombreLugar(h.getLugar().getNombreLugar())
-                        .piso(h.getLugar().getPiso())
-                        .edificio(h.getLugar().getEdificio());
-
-                if (h.getLugar().getDepartamento() != null) {
-                    builder.departamento(h.getLugar().getDepartamento().getNombreDepartamento());
-                }
+            // Tipo de dispositivo
+            if (h.getDispositivo().getTipoDispositivo() != null) {
+                builder.tipoDispositivo(h.getDispositivo().getTipoDispositivo().getNombreTipo());
             }
+        }
 
-            // Información del usuario que asignó
-            if (h.getUsuario() != null) {
-                builder.usuarioAsigno(h.getUsuario().getNombreCompleto());
-            }
+        // Información del lugar
+        if (h.getLugar() != null) {
+            builder.nombreLugar(h.getLugar().getNombreLugar())
+                    .piso(h.getLugar().getPiso())
+                    .edificio(h.getLugar().getEdificio());
 
-            // Calcular días en el lugar
-            LocalDateTime fechaFin = h.getFechaSalida() != null ? h.getFechaSalida() : ahora;
-            if (h.getFechaEntrada() != null) {
-                long dias = ChronoUnit.DAYS.between(h.getFechaEntrada(), fechaFin);
-                builder.diasEnLugar(dias);
+            if (h.getLugar().getDepartamento() != null) {
+                builder.departamento(h.getLugar().getDepartamento().getNombreDepartamento());
             }
+        }
 
-            dtos.add(builder.build());
+        // Información del usuario que asignó
+        if (h.getUsuario() != null) {
+            builder.usuarioAsigno(h.getUsuario().getNombreCompleto());
         }
 
-        return dtos;
+        // Calcular días en el lugar
+        LocalDateTime fechaFin = h.getFechaSalida() != null ? h.getFechaSalida() : ahora;
+        if (h.getFechaEntrada() != null) {
+            long dias = ChronoUnit.DAYS.between(h.getFechaEntrada(), fechaFin);
+            builder.diasEnLugar(dias);
+        }
+
+        return builder.build();
     }
 
     /**
@@ -869,7 +956,7 @@ public class ReportService {
      * @param descripcion texto a buscar en la descripción (opcional, usa ILIKE)
      * @return ResponseEntity con el PDF y headers configurados para visualización inline
      */
-    public ResponseEntity<byte[]> generateTicketReport(LocalDate fechaInicio, LocalDate fechaFin,
+    public ResponseEntity<StreamingResponseBody> generateTicketReport(LocalDate fechaInicio, LocalDate fechaFin,
                                                         Integer idDepartamento, Integer idEstado,
                                                         Integer idPrioridad, String descripcion) {
         try {
@@ -877,29 +964,45 @@ public class ReportService {
             LocalDateTime fechaInicioDateTime = fechaInicio.atStartOfDay();
             LocalDateTime fechaFinDateTime = fechaFin.atTime(23, 59, 59);
 
-            // Obtener tickets del repositorio usando query nativa
-            List<Ticket> tickets = ticketRepository.findTicketsForReport(
-                    fechaInicioDateTime, fechaFinDateTime,
-                    idDepartamento, idEstado, idPrioridad, descripcion
-            );
-
-            // Convertir a DTOs
-            List<TicketReportDTO> dtos = convertToTicketReportDTOs(tickets);
-
             // Construir información de filtros aplicados
             String filtros = buildTicketFiltersInfo(idDepartamento, idEstado, idPrioridad, descripcion);
 
-            // Generar el PDF
-            byte[] pdfBytes = ticketReportGenerator.generateReport(dtos, fechaInicio, fechaFin, filtros);
+            PDDocument document;
+            if (shardExecutor.shouldShard(fechaInicio, fechaFin)) {
+                // Rango largo: un documento por mes en paralelo, unidos en orden descendente
+                document = shardExecutor.render(
+                        shardExecutor.splitByMonth(fechaInicio, fechaFin, true),
+                        range -> ticketRepository.countTicketsForReport(
+                                range.getInicio().atStartOfDay(), range.getFin().atTime(23, 59, 59),
+                                idDepartamento, idEstado, idPrioridad, descripcion),
+                        range -> convertToTicketReportDTOs(ticketRepository.findTicketsForReport(
+                                range.getInicio().atStartOfDay(), range.getFin().atTime(23, 59, 59),
+                                idDepartamento, idEstado, idPrioridad, descripcion)),
+                        (rows, part) -> ticketReportGenerator.renderReport(
+                                rows, fechaInicio, fechaFin, filtros, part),
+                        PageFooterConfig.standard());
+            } else {
+                // Obtener tickets del repositorio usando query nativa
+                List<Ticket> tickets = ticketRepository.findTicketsForReport(
+                        fechaInicioDateTime, fechaFinDateTime,
+                        idDepartamento, idEstado, idPrioridad, descripcion
+                );
+
+                // Convertir a DTOs
+                List<TicketReportDTO> dtos = convertToTicketReportDTOs(tickets);
+
+                // Generar el PDF
+                document = ticketReportGenerator.renderReport(dtos, fechaInicio, fechaFin, filtros);
+            }
 
             // Nombre del archivo con las fechas
             String fileName = String.format("tickets_%s_%s.pdf",
                     fechaInicio.toString(), fechaFin.toString());
 
-            return buildPdfResponse(pdfBytes, fileName, false);
+            return buildPdfResponse(document, fileName, false);
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(("Error al generar el reporte de tickets: " + e.getMessage()).getBytes());
+                    .body(textBody("Error al generar el reporte de tickets: " + e.getMessage()));
         }
     }
 
@@ -986,7 +1089,7 @@ public class ReportService {
      * @param idTipoEstado ID del estado del dispositivo a filtrar (opcional)
      * @return ResponseEntity con el PDF y headers configurados para visualización inline
      */
-    public ResponseEntity<byte[]> generateDispositivoRegistroReport(LocalDate fechaInicio, LocalDate fechaFin,
+    public ResponseEntity<StreamingResponseBody> generateDispositivoRegistroReport(LocalDate fechaInicio, LocalDate fechaFin,
                                                                      String marca, String modelo,
                                                                      String numeroserie, String inventario,
                                                                      String notas, Integer idTipoEstado) {
@@ -1008,16 +1111,16 @@ public class ReportService {
             String filtros = buildDispositivoRegistroFiltersInfo(marca, modelo, numeroserie, inventario, notas, idTipoEstado);
 
             // Generar el PDF
-            byte[] pdfBytes = dispositivoRegistroReportGenerator.generateReport(dtos, fechaInicio, fechaFin, filtros);
+            PDDocument document = dispositivoRegistroReportGenerator.renderReport(dtos, fechaInicio, fechaFin, filtros);
 
             // Nombre del archivo con las fechas
             String fileName = String.format("registro_dispositivos_%s_%s.pdf",
                     fechaInicio.toString(), fechaFin.toString());
 
-            return buildPdfResponse(pdfBytes, fileName, false);
+            return buildPdfResponse(document, fileName, false);
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(("Error al generar el reporte de registro de dispositivos: " + e.getMessage()).getBytes());
+                    .body(textBody("Error al generar el reporte de registro de dispositivos: " + e.getMessage()));
         }
     }
 
@@ -1084,24 +1187,97 @@ public class ReportService {
         return filtros.isEmpty() ? null : String.join(" | ", filtros);
     }
 
+    /**
+     * Ejecuta la lectura en una transacción de solo lectura; las IOException se propagan tal cual.
+     */
+    private <V> V inReadOnlyTransaction(IOSupplier<V> work) throws IOException {
+        try {
+            return readOnlyTransaction.execute(status -> {
+                try {
+                    return work.get();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface IOSupplier<V> {
+        V get() throws IOException;
+    }
+
+    /**
+     * Convierte un stream de entidades leído en streaming, liberando el contexto
+     * de persistencia cada {@value #STREAM_CLEAR_INTERVAL} filas para que las
+     * entidades ya dibujadas no se acumulen en memoria.
+     * Las asociaciones que use el mapeo deben venir cargadas en la misma consulta.
+     *
+     * @param entities entidades leídas del cursor
+     * @param mapper conversión de cada entidad a la fila del reporte
+     * @return stream con los elementos convertidos
+     */
+    private <E, D> Stream<D> mapDetached(Stream<E> entities, Function<? super E, ? extends D> mapper) {
+        int[] count = {0};
+        return entities.map(entity -> {
+            D mapped = mapper.apply(entity);
+            if (++count[0] % STREAM_CLEAR_INTERVAL == 0) {
+                entityManager.clear();
+            }
+            return mapped;
+        });
+    }
+
     /**
      * Construye un ResponseEntity con los headers HTTP apropiados para un PDF.
      * Servirá para todos los reportes generados.
      *
-     * @param pdfBytes bytes del PDF generado
+     * El documento se escribe directo en la respuesta cuando el cliente lo lee,
+     * sin copias intermedias en memoria, y se cierra al terminar; si el cuerpo
+     * nunca se invoca, {@link ClosingResponseBody} lo cierra igual. Si se requiere
+     * Content-Length ({@code report.response.content-length=true}), el documento
+     * se escribe antes en un buffer del pool para conocer su tamaño.
+     *
+     * @param document documento generado; la respuesta se encarga de cerrarlo
      * @param fileName nombre del archivo para Content-Disposition
      * @param asAttachment true para descarga forzada, false para visualización inline
      * @return ResponseEntity configurado
+     * @throws IOException si no se puede escribir el documento en el buffer
      */
-    private ResponseEntity<byte[]> buildPdfResponse(byte[] pdfBytes, String fileName, boolean asAttachment) {
+    private ResponseEntity<StreamingResponseBody> buildPdfResponse(PDDocument document, String fileName,
+                                                                   boolean asAttachment) throws IOException {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_PDF);
 
         String disposition = asAttachment ? "attachment" : "inline";
         headers.add(HttpHeaders.CONTENT_DISPOSITION, disposition + "; filename=\"" + fileName + "\"");
-        headers.setContentLength(pdfBytes.length);
 
-        return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
+        if (!contentLengthRequired) {
+            StreamingResponseBody body = new ClosingResponseBody(out -> pdfBoxService.save(document, out), document);
+            return new ResponseEntity<>(body, headers, HttpStatus.OK);
+        }
+
+        PDFBufferPool.Buffer buffer = bufferPool.acquire();
+        try (document) {
+            pdfBoxService.save(document, buffer);
+        } catch (IOException | RuntimeException e) {
+            bufferPool.release(buffer);
+            throw e;
+        }
+        headers.setContentLength(buffer.size());
+
+        StreamingResponseBody body = new ClosingResponseBody(buffer::writeTo, () -> bufferPool.release(buffer));
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    /**
+     * Cuerpo de texto para las respuestas de error.
+     */
+    private StreamingResponseBody textBody(String message) {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        return out -> out.write(bytes);
     }
 }
 
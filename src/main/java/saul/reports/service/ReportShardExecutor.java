@@ -0,0 +1,334 @@
+package saul.reports.service;
+
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import saul.pdf.renderer.PDFDocumentMerger;
+import saul.pdf.renderer.PDFDocumentPart;
+import saul.pdf.renderer.PDFRenderDocument;
+import saul.pdf.renderer.PDFSaveOptions;
+import saul.pdf.renderer.PageFooterConfig;
+import saul.pdf.service.PDFBoxService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.BaseStream;
+
+/**
+ * Genera reportes de rangos largos por partes mensuales en paralelo.
+ *
+ * El rango {@code fechaInicio..fechaFin} se divide en meses. Cada mes se consulta
+ * en su propia transacción de solo lectura y se dibuja en su propio documento,
+ * todo en un pool de hilos y con un número acotado de meses en curso. Las partes
+ * se unen conforme terminan, en el mismo orden que la consulta original (los
+ * reportes ordenan por fecha descendente, así que el mes más reciente va primero),
+ * y al final se numeran las páginas del documento unido.
+ *
+ * La primera parte lleva el encabezado del reporte y cada parte inicia en una
+ * página nueva con el encabezado de la tabla, como en un salto de página normal.
+ * Por eso solo se divide cuando el rango tiene al menos {@code report.shard.min-rows}
+ * filas; con menos, el reporte se genera en un solo documento con la tabla continua.
+ *
+ * Los hilos se comparten entre todos los reportes en curso y cada uno ocupa una
+ * conexión mientras lee; su número se limita a la mitad del pool de conexiones
+ * para que los demás requests siempre tengan conexiones libres.
+ */
+@Component
+public class ReportShardExecutor {
+
+    private final PDFBoxService pdfBoxService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService executor;
+    private final boolean enabled;
+    private final int minMonths;
+    private final long minRows;
+    private final int maxInFlight;
+
+    public ReportShardExecutor(PDFBoxService pdfBoxService,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${report.shard.enabled:true}") boolean enabled,
+                               @Value("${report.shard.min-months:3}") int minMonths,
+                               @Value("${report.shard.min-rows:2000}") long minRows,
+                               @Value("${report.shard.parallelism:0}") int parallelism,
+                               @Value("${report.shard.max-in-flight:0}") int maxInFlight,
+                               @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        this.pdfBoxService = pdfBoxService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.minMonths = minMonths;
+        this.minRows = minRows;
+        int requested = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        int threads = Math.max(1, Math.min(requested, poolSize / 2));
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight : threads;
+        this.executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Indica si el rango abarca suficientes meses para generarse por partes.
+     */
+    public boolean shouldShard(LocalDate fechaInicio, LocalDate fechaFin) {
+        if (!enabled || fechaInicio == null || fechaFin == null || fechaFin.isBefore(fechaInicio)) {
+            return false;
+        }
+        long months = ChronoUnit.MONTHS.between(fechaInicio.withDayOfMonth(1), fechaFin.withDayOfMonth(1)) + 1;
+        return months >= minMonths;
+    }
+
+    /**
+     * Divide el rango en meses calendario; el primero y el último pueden ser parciales.
+     *
+     * @param descending true para devolver el mes más reciente primero
+     * @return rangos contiguos que cubren todo el periodo
+     */
+    public List<Range> splitByMonth(LocalDate fechaInicio, LocalDate fechaFin, boolean descending) {
+        List<Range> ranges = new ArrayList<>();
+        LocalDate start = fechaInicio;
+        while (!start.isAfter(fechaFin)) {
+            LocalDate endOfMonth = start.with(TemporalAdjusters.lastDayOfMonth());
+            LocalDate end = endOfMonth.isBefore(fechaFin) ? endOfMonth : fechaFin;
+            ranges.add(new Range(start, end));
+            start = end.plusDays(1);
+        }
+        if (descending) {
+            Collections.reverse(ranges);
+        }
+        return ranges;
+    }
+
+    /**
+     * Genera el reporte por partes y devuelve el documento unido.
+     *
+     * Primero se cuentan en paralelo las filas de cada rango. Si hay menos de
+     * {@code report.shard.min-rows} en total, o solo un rango tiene filas, el
+     * reporte se genera en un solo documento y una sola transacción. Si no, los
+     * rangos vacíos se descartan y cada parte conoce su posición antes de
+     * dibujarse. Después cada parte se lee y se dibuja en la misma tarea y se une
+     * en el orden de {@code ranges} en cuanto termina. Nunca hay más de
+     * {@code report.shard.max-in-flight} partes leyéndose, dibujándose o
+     * esperando su turno; la siguiente se lanza cuando se une la más antigua.
+     *
+     * @param ranges rangos contiguos en el orden en que deben aparecer
+     * @param countRows filas de un rango; corre en una transacción de solo lectura
+     * @param loader filas de un rango en orden (una lista o un stream del cursor); se
+     *               consumen en una transacción de solo lectura y un stream se cierra en ella
+     * @param renderer dibujo de las filas de una parte
+     * @param footer pie de página para el documento unido
+     * @return documento abierto; quien lo recibe debe cerrarlo
+     * @throws IOException si alguna parte no se pudo generar o unir
+     */
+    public <R> PDDocument render(List<Range> ranges, ToLongFunction<Range> countRows, Function<Range, R> loader,
+                                 PartRenderer<R> renderer, PageFooterConfig footer) throws IOException {
+        List<CompletableFuture<Long>> counts = new ArrayList<>(ranges.size());
+        for (Range range : ranges) {
+            counts.add(CompletableFuture.supplyAsync(
+                    () -> readOnlyTransaction.execute(status -> countRows.applyAsLong(range)), executor));
+        }
+        List<Range> parts = new ArrayList<>();
+        long total = 0;
+        for (int i = 0; i < ranges.size(); i++) {
+            long rows = join(counts.get(i));
+            if (rows > 0) {
+                parts.add(ranges.get(i));
+                total += rows;
+            }
+        }
+
+        if (parts.size() <= 1 || total < minRows) {
+            // Pocas filas: dividir solo agregaría páginas a medio llenar y una unión
+            Range whole = parts.size() == 1 ? parts.get(0) : span(ranges);
+            return inReadOnlyTransaction(() -> {
+                R rows = loader.apply(whole);
+                try {
+                    return renderer.render(rows, PDFDocumentPart.single());
+                } finally {
+                    close(rows);
+                }
+            });
+        }
+
+        List<CompletableFuture<RenderedPart>> renders = new ArrayList<>(Collections.nCopies(parts.size(), null));
+        for (int i = 0; i < Math.min(maxInFlight, parts.size()); i++) {
+            renders.set(i, submitPart(parts, i, loader, renderer));
+        }
+
+        PDDocument target = null;
+        try {
+            PDFDocumentMerger merger = null;
+            for (int i = 0; i < parts.size(); i++) {
+                RenderedPart rendered = join(renders.get(i));
+                // Se suelta la referencia para que los bytes de la parte se liberen al unirla
+                renders.set(i, null);
+                int next = i + maxInFlight;
+                if (next < parts.size()) {
+                    renders.set(next, submitPart(parts, next, loader, renderer));
+                }
+                if (merger == null) {
+                    target = pdfBoxService.createDocument(rendered.saveOptions);
+                    merger = new PDFDocumentMerger(target);
+                }
+                merger.append(rendered.bytes);
+            }
+            merger.stampPageFooters(footer);
+            return target;
+        } catch (IOException | RuntimeException e) {
+            // Las partes en curso cierran su propio documento; solo se descartan
+            for (CompletableFuture<RenderedPart> render : renders) {
+                if (render != null) {
+                    render.cancel(false);
+                }
+            }
+            if (target != null) {
+                target.close();
+            }
+            throw e;
+        }
+    }
+
+    private <R> CompletableFuture<RenderedPart> submitPart(List<Range> parts, int index,
+                                                            Function<Range, R> loader,
+                                                            PartRenderer<R> renderer) {
+        Range range = parts.get(index);
+        PDFDocumentPart part = PDFDocumentPart.of(index, parts.size());
+        return CompletableFuture.supplyAsync(() -> renderPart(range, loader, renderer, part), executor);
+    }
+
+    /**
+     * Lee y dibuja una parte en una sola transacción de solo lectura, y la guarda
+     * de inmediato en el mismo hilo del pool para que sus fuentes queden reducidas
+     * y el documento pueda cerrarse.
+     */
+    private <R> RenderedPart renderPart(Range range, Function<Range, R> loader,
+                                        PartRenderer<R> renderer, PDFDocumentPart part) {
+        try {
+            return inReadOnlyTransaction(() -> {
+                R rows = loader.apply(range);
+                try (PDDocument document = renderer.render(rows, part)) {
+                    PDFSaveOptions saveOptions = document instanceof PDFRenderDocument
+                            ? ((PDFRenderDocument) document).getSaveOptions()
+                            : PDFSaveOptions.compact();
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    // Las partes se vuelven a leer al unirlas; la salida estándar es la más rápida de escribir
+                    document.save(out);
+                    return new RenderedPart(out.toByteArray(), saveOptions);
+                } finally {
+                    close(rows);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private <V> V inReadOnlyTransaction(IOSupplier<V> work) throws IOException {
+        try {
+            return readOnlyTransaction.execute(status -> {
+                try {
+                    return work.get();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Rango que cubre todos los rangos, en cualquier orden
+    private static Range span(List<Range> ranges) {
+        LocalDate inicio = ranges.get(0).inicio;
+        LocalDate fin = ranges.get(0).fin;
+        for (Range range : ranges) {
+            if (range.inicio.isBefore(inicio)) inicio = range.inicio;
+            if (range.fin.isAfter(fin)) fin = range.fin;
+        }
+        return new Range(inicio, fin);
+    }
+
+    // Un stream del cursor se cierra en la transacción que lo abrió
+    private static void close(Object rows) {
+        if (rows instanceof BaseStream) {
+            ((BaseStream<?, ?>) rows).close();
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Dibujo de las filas de una parte del reporte.
+     */
+    @FunctionalInterface
+    public interface PartRenderer<R> {
+        PDDocument render(R rows, PDFDocumentPart part) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface IOSupplier<V> {
+        V get() throws IOException;
+    }
+
+    /**
+     * Rango de fechas de una parte, con ambos extremos incluidos.
+     */
+    public static final class Range {
+        private final LocalDate inicio;
+        private final LocalDate fin;
+
+        Range(LocalDate inicio, LocalDate fin) {
+            this.inicio = inicio;
+            this.fin = fin;
+        }
+
+        public LocalDate getInicio() {
+            return inicio;
+        }
+
+        public LocalDate getFin() {
+            return fin;
+        }
+    }
+
+    private static final class RenderedPart {
+        private final byte[] bytes;
+        private final PDFSaveOptions saveOptions;
+
+        RenderedPart(byte[] bytes, PDFSaveOptions saveOptions) {
+            this.bytes = bytes;
+            this.saveOptions = saveOptions;
+        }
+    }
+}
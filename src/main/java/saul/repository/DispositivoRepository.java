@@ -53,50 +53,6 @@ public interface DispositivoRepository extends JpaRepository<Dispositivo, Long>
            "AND (h.fechaSalida IS NULL OR h IS NULL)")
     Page<Dispositivo> findAllActiveWithCurrentLocation(Pageable pageable);
 
-    /**
-     * Busca dispositivos que no han recibido mantenimiento en un número específico de días mínimo,
-     * filtrados por tipo de dispositivo. Usa consulta nativa para manejo de fechas.
-     * Si idTipoDispositivo es -1, muestra todos los tipos de dispositivos.
-     */
-    @Query(value = "SELECT DISTINCT d.* FROM dispositivos d " +
-                  "LEFT JOIN tipodispositivo td ON d.idtipodispositivo = td.idtipodispositivo " +
-                  "LEFT JOIN tipos_estado_dispositivo te ON d.idtipoestado = te.idtipoestado " +
-                  "WHERE te.nombreestado <> 'Baja' " +
-                  "AND d.borrado = false " +
-                  "AND (:idTipoDispositivo IS NULL OR :idTipoDispositivo = -1 OR d.idtipodispositivo = :idTipoDispositivo) " +
-                  "AND d.iddispositivo NOT IN (" +
-                  "    SELECT DISTINCT m.iddispositivo FROM mantenimientos m " +
-                  "    WHERE m.fecharealizado IS NOT NULL " +
-                  "    AND m.fecharealizado >= (CURRENT_DATE - :diasMinimos)" +
-                  ") " +
-                  "ORDER BY d.iddispositivo",
-           nativeQuery = true)
-    List<Dispositivo> findEquiposRezagadosEnMantenimiento(
-            @Param("diasMinimos") Integer diasMinimos,
-            @Param("idTipoDispositivo") Integer idTipoDispositivo);
-
-    /**
-     * Busca un dispositivo aleatorio que no ha recibido mantenimiento en un número específico de días mínimo,
-     * filtrado por tipo de dispositivo.
-     */
-    @Query(value = "SELECT d.* FROM dispositivos d " +
-                  "LEFT JOIN tipodispositivo td ON d.idtipodispositivo = td.idtipodispositivo " +
-                  "LEFT JOIN tipos_estado_dispositivo te ON d.idtipoestado = te.idtipoestado " +
-                  "WHERE te.nombreestado <> 'Baja' " +
-                  "AND d.borrado = false " +
-                  "AND d.idtipodispositivo = :idTipoDispositivo " +
-                  "AND d.iddispositivo NOT IN (" +
-                  "    SELECT DISTINCT m.iddispositivo FROM mantenimientos m " +
-                  "    WHERE m.fecharealizado IS NOT NULL " +
-                  "    AND m.fecharealizado >= (CURRENT_DATE - :diasMinimos)" +
-                  ") " +
-                  "ORDER BY RANDOM() " +
-                  "LIMIT 1",
-           nativeQuery = true)
-    Optional<Dispositivo> findRandomEquipoRezagadoEnMantenimiento(
-            @Param("diasMinimos") Integer diasMinimos,
-            @Param("idTipoDispositivo") Integer idTipoDispositivo);
-
     @Modifying
     @Query("UPDATE Dispositivo d SET d.borrado = false WHERE d.idDispositivo = :id")
     void restore(@Param("id") Long id);
@@ -0,0 +1,185 @@
+package saul.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import saul.entity.DispositivoResumen;
+import saul.reports.dto.RezagoMantenimientoDTO;
+
+import java.util.List;
+
+@Repository
+public interface DispositivoResumenRepository extends JpaRepository<DispositivoResumen, Long>,
+        JpaSpecificationExecutor<DispositivoResumen> {
+
+    /**
+     * Calcula e inserta o reemplaza el resumen de un dispositivo, o de todos si
+     * idDispositivo es null. Ubicación actual con LATERAL (la entrada más reciente
+     * sin fecha de salida) y mantenimientos agregados con un solo GROUP BY.
+     * Considera el soft delete. Hace flush antes para ver los cambios de la transacción.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            INSERT INTO dispositivo_resumen (iddispositivo, idtipodispositivo, nombretipo, marca, modelo,
+                numeroserie, inventario, idtipoestado, nombreestado, costo,
+                idlugaractual, lugaractual, piso, edificio, iddepartamentoactual, departamentoactual,
+                fechaentradaubicacion, fechaultimomantenimiento, totalmantenimientos,
+                mantenimientospendientes, costomantenimientos, costototal, fechaactualizacion)
+            SELECT d.iddispositivo, d.idtipodispositivo, td.nombretipo, d.marca, d.modelo,
+                d.numeroserie, d.inventario, d.idtipoestado, te.nombreestado, d.costo,
+                u.idlugar, u.nombrelugar, u.piso, u.edificio, u.iddepartamento, u.nombredepartamento,
+                u.fechaentrada, m.fechaultimo, COALESCE(m.total, 0),
+                COALESCE(m.pendientes, 0), COALESCE(m.costo, 0),
+                COALESCE(d.costo, 0) + COALESCE(m.costo, 0), CURRENT_TIMESTAMP
+            FROM dispositivos d
+            LEFT JOIN tipodispositivo td ON td.idtipodispositivo = d.idtipodispositivo
+            LEFT JOIN tipos_estado_dispositivo te ON te.idtipoestado = d.idtipoestado
+            LEFT JOIN LATERAL (
+                SELECT l.idlugar, l.nombrelugar, l.piso, l.edificio,
+                    dep.iddepartamento, dep.nombredepartamento, h.fechaentrada
+                FROM historialubicacion h
+                JOIN lugares l ON l.idlugar = h.idlugar
+                LEFT JOIN departamentos dep ON dep.iddepartamento = l.iddepartamento
+                WHERE h.iddispositivo = d.iddispositivo
+                AND h.fechasalida IS NULL
+                AND h.borrado = false
+                ORDER BY h.fechaentrada DESC
+                LIMIT 1
+            ) u ON true
+            LEFT JOIN (
+                SELECT mt.iddispositivo, MAX(mt.fecharealizado) AS fechaultimo, COUNT(*) AS total,
+                    COUNT(*) FILTER (WHERE mt.fecharealizado IS NULL) AS pendientes,
+                    SUM(mt.costo) AS costo
+                FROM mantenimientos mt
+                WHERE mt.borrado = false
+                AND (CAST(:idDispositivo AS BIGINT) IS NULL OR mt.iddispositivo = :idDispositivo)
+                GROUP BY mt.iddispositivo
+            ) m ON m.iddispositivo = d.iddispositivo
+            WHERE d.borrado = false
+            AND (CAST(:idDispositivo AS BIGINT) IS NULL OR d.iddispositivo = :idDispositivo)
+            ON CONFLICT (iddispositivo) DO UPDATE SET
+                idtipodispositivo = EXCLUDED.idtipodispositivo,
+                nombretipo = EXCLUDED.nombretipo,
+                marca = EXCLUDED.marca,
+                modelo = EXCLUDED.modelo,
+                numeroserie = EXCLUDED.numeroserie,
+                inventario = EXCLUDED.inventario,
+                idtipoestado = EXCLUDED.idtipoestado,
+                nombreestado = EXCLUDED.nombreestado,
+                costo = EXCLUDED.costo,
+                idlugaractual = EXCLUDED.idlugaractual,
+                lugaractual = EXCLUDED.lugaractual,
+                piso = EXCLUDED.piso,
+                edificio = EXCLUDED.edificio,
+                iddepartamentoactual = EXCLUDED.iddepartamentoactual,
+                departamentoactual = EXCLUDED.departamentoactual,
+                fechaentradaubicacion = EXCLUDED.fechaentradaubicacion,
+                fechaultimomantenimiento = EXCLUDED.fechaultimomantenimiento,
+                totalmantenimientos = EXCLUDED.totalmantenimientos,
+                mantenimientospendientes = EXCLUDED.mantenimientospendientes,
+                costomantenimientos = EXCLUDED.costomantenimientos,
+                costototal = EXCLUDED.costototal,
+                fechaactualizacion = EXCLUDED.fechaactualizacion
+            """, nativeQuery = true)
+    int upsert(@Param("idDispositivo") Long idDispositivo);
+
+    /**
+     * Elimina el resumen de dispositivos borrados o inexistentes; de uno, o de todos si idDispositivo es null.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            DELETE FROM dispositivo_resumen r
+            WHERE (CAST(:idDispositivo AS BIGINT) IS NULL OR r.iddispositivo = :idDispositivo)
+            AND NOT EXISTS (
+                SELECT 1 FROM dispositivos d
+                WHERE d.iddispositivo = r.iddispositivo AND d.borrado = false
+            )
+            """, nativeQuery = true)
+    int deleteStale(@Param("idDispositivo") Long idDispositivo);
+
+    /**
+     * Copia nombre, piso, edificio y departamento de un lugar a los resúmenes de
+     * los dispositivos que están en él. Hace flush antes para ver el cambio del lugar.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            UPDATE dispositivo_resumen r SET
+                lugaractual = l.nombrelugar,
+                piso = l.piso,
+                edificio = l.edificio,
+                iddepartamentoactual = dep.iddepartamento,
+                departamentoactual = dep.nombredepartamento,
+                fechaactualizacion = CURRENT_TIMESTAMP
+            FROM lugares l
+            LEFT JOIN departamentos dep ON dep.iddepartamento = l.iddepartamento
+            WHERE l.idlugar = :idLugar
+            AND r.idlugaractual = l.idlugar
+            """, nativeQuery = true)
+    int refreshLugar(@Param("idLugar") Integer idLugar);
+
+    /**
+     * Copia el nombre de un departamento a los resúmenes de los dispositivos ubicados en él.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            UPDATE dispositivo_resumen r SET
+                departamentoactual = dep.nombredepartamento,
+                fechaactualizacion = CURRENT_TIMESTAMP
+            FROM departamentos dep
+            WHERE dep.iddepartamento = :idDepartamento
+            AND r.iddepartamentoactual = dep.iddepartamento
+            """, nativeQuery = true)
+    int refreshDepartamento(@Param("idDepartamento") Integer idDepartamento);
+
+    /**
+     * Copia el nombre de un tipo de dispositivo a los resúmenes de sus dispositivos.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            UPDATE dispositivo_resumen r SET
+                nombretipo = td.nombretipo,
+                fechaactualizacion = CURRENT_TIMESTAMP
+            FROM tipodispositivo td
+            WHERE td.idtipodispositivo = :idTipoDispositivo
+            AND r.idtipodispositivo = td.idtipodispositivo
+            """, nativeQuery = true)
+    int refreshTipoDispositivo(@Param("idTipoDispositivo") Integer idTipoDispositivo);
+
+    /**
+     * Copia el nombre de un estado de dispositivo a los resúmenes de los dispositivos en ese estado.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            UPDATE dispositivo_resumen r SET
+                nombreestado = te.nombreestado,
+                fechaactualizacion = CURRENT_TIMESTAMP
+            FROM tipos_estado_dispositivo te
+            WHERE te.idtipoestado = :idTipoEstado
+            AND r.idtipoestado = te.idtipoestado
+            """, nativeQuery = true)
+    int refreshTipoEstado(@Param("idTipoEstado") Integer idTipoEstado);
+
+    /**
+     * Tipo y último mantenimiento de los dispositivos que no están en estado 'Baja',
+     * para el índice de equipos rezagados.
+     */
+    @Query("SELECT new saul.reports.dto.RezagoMantenimientoDTO(r.idDispositivo, r.idTipoDispositivo, " +
+           "r.fechaUltimoMantenimiento) " +
+           "FROM DispositivoResumen r " +
+           "WHERE r.nombreEstado <> 'Baja'")
+    List<RezagoMantenimientoDTO> findRezagoMantenimiento();
+
+    /**
+     * Igual que {@link #findRezagoMantenimiento()} para un solo dispositivo; vacío si
+     * está borrado o en estado 'Baja'.
+     */
+    @Query("SELECT new saul.reports.dto.RezagoMantenimientoDTO(r.idDispositivo, r.idTipoDispositivo, " +
+           "r.fechaUltimoMantenimiento) " +
+           "FROM DispositivoResumen r " +
+           "WHERE r.idDispositivo = :idDispositivo " +
+           "AND r.nombreEstado <> 'Baja'")
+    List<RezagoMantenimientoDTO> findRezagoMantenimientoByDispositivo(@Param("idDispositivo") Long idDispositivo);
+}
@@ -33,6 +33,35 @@ public interface EntradasTonerRepository extends JpaRepository<EntradasToner, In
     @Query("SELECT COALESCE(SUM(e.cantidad), 0) FROM EntradasToner e WHERE e.tipoToner.id = :idTipoToner")
     Integer sumCantidadByTipoToner(@Param("idTipoToner") Integer idTipoToner);
 
+    /**
+     * Total de entradas y de salidas de cada tipo de tóner en una sola consulta
+     * agrupada, para reconstruir el saldo de stock. Considera el soft delete.
+     * Cada fila es [idTipoToner, totalEntradas, totalSalidas].
+     */
+    @Query(value = """
+            SELECT m.tipotoner, SUM(m.entradas), SUM(m.salidas) FROM (
+                SELECT e.tipotoner, e.cantidad AS entradas, 0 AS salidas
+                FROM entradas_toner e WHERE e.borrado = false
+                UNION ALL
+                SELECT s.tipotoner, 0 AS entradas, s.cantidad AS salidas
+                FROM salidas_toner s WHERE s.borrado = false
+            ) m
+            GROUP BY m.tipotoner
+            """, nativeQuery = true)
+    List<Object[]> sumCantidadEntradasSalidasGroupedByTipoToner();
+
+    /**
+     * Stock de un tipo de tóner (entradas menos salidas) según la base de datos,
+     * incluidos los cambios ya enviados por la transacción actual. Considera el soft delete.
+     */
+    @Query(value = """
+            SELECT COALESCE((SELECT SUM(e.cantidad) FROM entradas_toner e
+                             WHERE e.tipotoner = :idTipoToner AND e.borrado = false), 0)
+                 - COALESCE((SELECT SUM(s.cantidad) FROM salidas_toner s
+                             WHERE s.tipotoner = :idTipoToner AND s.borrado = false), 0)
+            """, nativeQuery = true)
+    Long stockByTipoToner(@Param("idTipoToner") Integer idTipoToner);
+
     @Modifying
     @Query("UPDATE EntradasToner e SET e.borrado = false WHERE e.id = :id")
     void restore(@Param("id") Integer id);
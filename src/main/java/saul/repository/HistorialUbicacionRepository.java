@@ -1,16 +1,22 @@
 package saul.repository;
 
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import saul.entity.HistorialUbicacion;
+import saul.reports.dto.UbicacionActualDTO;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface HistorialUbicacionRepository extends JpaRepository<HistorialUbicacion, Long> {
@@ -28,6 +34,14 @@ public interface HistorialUbicacionRepository extends JpaRepository<HistorialUbi
     @Query("SELECT h FROM HistorialUbicacion h WHERE h.dispositivo.idDispositivo = :idDispositivo AND h.fechaSalida IS NULL")
     Optional<HistorialUbicacion> findCurrentByDispositivo(@Param("idDispositivo") Long idDispositivo);
 
+    // Ubicación actual de varios dispositivos en una sola consulta (la más reciente primero por dispositivo)
+    @Query("SELECT new saul.reports.dto.UbicacionActualDTO(h.dispositivo.idDispositivo, " +
+           "l.nombreLugar, l.piso, l.edificio, dep.nombreDepartamento) " +
+           "FROM HistorialUbicacion h LEFT JOIN h.lugar l LEFT JOIN l.departamento dep " +
+           "WHERE h.dispositivo.idDispositivo IN :idsDispositivo AND h.fechaSalida IS NULL " +
+           "ORDER BY h.fechaEntrada DESC")
+    List<UbicacionActualDTO> findCurrentByDispositivoIds(@Param("idsDispositivo") Collection<Long> idsDispositivo);
+
     // Obtener todo el historial de ubicaciones de un dispositivo ordenado por fecha de entrada descendente
     @Query("SELECT h FROM HistorialUbicacion h WHERE h.dispositivo.idDispositivo = :idDispositivo ORDER BY h.fechaEntrada DESC")
     java.util.List<HistorialUbicacion> findAllByDispositivoIdOrderByFechaEntradaDesc(@Param("idDispositivo") Long idDispositivo);
@@ -41,5 +55,20 @@ public interface HistorialUbicacionRepository extends JpaRepository<HistorialUbi
     java.util.List<HistorialUbicacion> findByFechaEntradaBetweenOrderByFechaEntradaDesc(
             @Param("inicio") LocalDateTime inicio,
             @Param("fin") LocalDateTime fin);
-}
 
+    // Reporte en streaming: asociaciones en la misma consulta y lectura por lotes del cursor
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("SELECT h FROM HistorialUbicacion h " +
+           "LEFT JOIN FETCH h.dispositivo d " +
+           "LEFT JOIN FETCH d.tipoDispositivo " +
+           "LEFT JOIN FETCH d.tipoEstado " +
+           "LEFT JOIN FETCH h.lugar l " +
+           "LEFT JOIN FETCH l.departamento " +
+           "LEFT JOIN FETCH h.usuario " +
+           "WHERE h.fechaEntrada BETWEEN :inicio AND :fin ORDER BY h.fechaEntrada DESC")
+    Stream<HistorialUbicacion> streamByFechaEntradaBetweenForReport(
+            @Param("inicio") LocalDateTime inicio,
+            @Param("fin") LocalDateTime fin);
+
+    long countByFechaEntradaBetween(LocalDateTime inicio, LocalDateTime fin);
+}
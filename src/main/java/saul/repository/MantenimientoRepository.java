@@ -63,13 +63,17 @@ public interface MantenimientoRepository extends JpaRepository<Mantenimiento, Lo
             @Param("idTipoDispositivo") Integer idTipoDispositivo);
 
     /**
-     * Busca el último mantenimiento realizado por dispositivo.
+     * Número de mantenimientos del reporte en el rango, con el mismo filtro
+     * que findByFechaRealizadoBetweenAndTipoDispositivoForReport.
      */
-    @Query("SELECT m FROM Mantenimiento m " +
-           "WHERE m.dispositivo.idDispositivo = :idDispositivo " +
-           "AND m.fechaRealizado IS NOT NULL " +
-           "ORDER BY m.fechaRealizado DESC")
-    List<Mantenimiento> findLastMantenimientoByDispositivo(@Param("idDispositivo") Long idDispositivo);
+    @Query("SELECT COUNT(m) FROM Mantenimiento m " +
+           "LEFT JOIN m.dispositivo d " +
+           "WHERE m.fechaRealizado BETWEEN :fechaInicio AND :fechaFin " +
+           "AND (:idTipoDispositivo IS NULL OR d.tipoDispositivo.idTipoDispositivo = :idTipoDispositivo)")
+    long countForReport(
+            @Param("fechaInicio") LocalDate fechaInicio,
+            @Param("fechaFin") LocalDate fechaFin,
+            @Param("idTipoDispositivo") Integer idTipoDispositivo);
 
     @Modifying
     @Query("UPDATE Mantenimiento m SET m.borrado = false WHERE m.idMantenimiento = :id")
@@ -1,10 +1,12 @@
 package saul.repository;
 
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import saul.entity.SalidasToner;
@@ -12,6 +14,7 @@ import saul.entity.SalidasToner;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface SalidasTonerRepository extends JpaRepository<SalidasToner, Integer> {
@@ -31,6 +34,19 @@ public interface SalidasTonerRepository extends JpaRepository<SalidasToner, Inte
     List<SalidasToner> findByFechaSalidaBetweenAndUsuarioInstalaIdUsuario(
             LocalDateTime inicio, LocalDateTime fin, Long idUsuario);
 
+    // Reporte en streaming: asociaciones en la misma consulta y lectura por lotes del cursor
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("SELECT s FROM SalidasToner s " +
+           "LEFT JOIN FETCH s.usuarioInstala u " +
+           "LEFT JOIN FETCH s.tipoToner " +
+           "LEFT JOIN FETCH s.departamento l " +
+           "LEFT JOIN FETCH l.departamento " +
+           "WHERE s.fechaSalida BETWEEN :inicio AND :fin " +
+           "AND (:idUsuario IS NULL OR u.idUsuario = :idUsuario)")
+    Stream<SalidasToner> streamForReport(@Param("inicio") LocalDateTime inicio,
+                                         @Param("fin") LocalDateTime fin,
+                                         @Param("idUsuario") Long idUsuario);
+
     // Para cálculo de stock
     @Query("SELECT COALESCE(SUM(s.cantidad), 0) FROM SalidasToner s WHERE s.tipoToner.id = :idTipoToner")
     Integer sumCantidadByTipoToner(@Param("idTipoToner") Integer idTipoToner);
@@ -53,5 +53,26 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
             @Param("idPrioridad") Integer idPrioridad,
             @Param("descripcion") String descripcion
     );
+
+    /**
+     * Número de tickets del reporte con los mismos filtros que findTicketsForReport.
+     */
+    @Query(value = """
+            SELECT COUNT(*) FROM tickets t
+            WHERE t.borrado = false
+            AND t.fechacreacion BETWEEN :fechaInicio AND :fechaFin
+            AND (:idDepartamento IS NULL OR t.iddepartamento = :idDepartamento)
+            AND (:idEstado IS NULL OR t.idestado = :idEstado)
+            AND (:idPrioridad IS NULL OR t.id_prioridad = :idPrioridad)
+            AND (:descripcion IS NULL OR LOWER(CAST(t.descripcion AS TEXT)) ILIKE LOWER(CONCAT('%', CAST(:descripcion AS TEXT), '%')))
+            """, nativeQuery = true)
+    long countTicketsForReport(
+            @Param("fechaInicio") LocalDateTime fechaInicio,
+            @Param("fechaFin") LocalDateTime fechaFin,
+            @Param("idDepartamento") Integer idDepartamento,
+            @Param("idEstado") Integer idEstado,
+            @Param("idPrioridad") Integer idPrioridad,
+            @Param("descripcion") String descripcion
+    );
 }
 
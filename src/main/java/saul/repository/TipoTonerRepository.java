@@ -23,5 +23,12 @@ public interface TipoTonerRepository extends JpaRepository<TipoToner, Integer> {
     @Modifying
     @Query("UPDATE TipoToner t SET t.borrado = false WHERE t.id = :id")
     void restore(@Param("id") Integer id);
+
+    /**
+     * Bloquea la fila del tipo de tóner hasta que termine la transacción.
+     * Serializa, también entre instancias, los movimientos que reducen su stock.
+     */
+    @Query(value = "SELECT t.id FROM tipotoner t WHERE t.id = :id FOR UPDATE", nativeQuery = true)
+    Integer lockById(@Param("id") Integer id);
 }
 
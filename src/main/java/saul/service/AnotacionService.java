@@ -23,6 +23,7 @@ public class AnotacionService {
 
     private final AnotacionRepository anotacionRepository;
     private final UsuarioRepository usuarioRepository;
+    private final DataVersionRegistry dataVersionRegistry;
     private final EntityMapper mapper;
 
     public Page<AnotacionResponse> findAll(Pageable pageable) {
@@ -56,6 +57,7 @@ public class AnotacionService {
     }
 
     public AnotacionResponse create(AnotacionRequest request) {
+        dataVersionRegistry.bump(Anotacion.class);
         Usuario usuario = usuarioRepository.findById(request.getIdUsuario())
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario", "id", request.getIdUsuario()));
 
@@ -73,6 +75,7 @@ public class AnotacionService {
     }
 
     public AnotacionResponse update(Long id, AnotacionRequest request) {
+        dataVersionRegistry.bump(Anotacion.class);
         Anotacion anotacion = anotacionRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Anotacion", "id", id));
 
@@ -94,6 +97,7 @@ public class AnotacionService {
     }
 
     public void delete(Long id) {
+        dataVersionRegistry.bump(Anotacion.class);
         Anotacion anotacion = anotacionRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Anotacion", "id", id));
         anotacion.setBorrado(true);
@@ -101,6 +105,7 @@ public class AnotacionService {
     }
 
     public void restore(Long id) {
+        dataVersionRegistry.bump(Anotacion.class);
         Anotacion anotacion = anotacionRepository.findByIdDeleted(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Anotacion eliminada", "id", id));
         anotacion.setBorrado(false);
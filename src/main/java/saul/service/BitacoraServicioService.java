@@ -27,6 +27,7 @@ public class BitacoraServicioService {
     private final ServicioRepository servicioRepository;
     private final TipoIncidenteRepository tipoIncidenteRepository;
     private final UsuarioRepository usuarioRepository;
+    private final DataVersionRegistry dataVersionRegistry;
     private final EntityMapper mapper;
     public Page<BitacoraServicioResponse> findAll(Pageable pageable) {
         return bitacoraServicioRepository.findAll(pageable).map(mapper::toResponse);
@@ -58,6 +59,7 @@ public class BitacoraServicioService {
                 .map(mapper::toResponse);
     }
     public BitacoraServicioResponse create(BitacoraServicioRequest request) {
+        dataVersionRegistry.bump(BitacoraServicio.class);
         BitacoraServicio bitacora = mapper.toEntity(request);
         Servicio servicio = servicioRepository.findById(request.getServicioId())
                 .orElseThrow(() -> new ResourceNotFoundException("Servicio", "id", request.getServicioId()));
@@ -73,6 +75,7 @@ public class BitacoraServicioService {
         return mapper.toResponse(bitacoraServicioRepository.save(bitacora));
     }
     public BitacoraServicioResponse update(Long id, BitacoraServicioRequest request) {
+        dataVersionRegistry.bump(BitacoraServicio.class);
         BitacoraServicio bitacora = bitacoraServicioRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("BitacoraServicio", "id", id));
         mapper.updateEntity(bitacora, request);
@@ -94,12 +97,14 @@ public class BitacoraServicioService {
         return mapper.toResponse(bitacoraServicioRepository.save(bitacora));
     }
     public void delete(Long id) {
+        dataVersionRegistry.bump(BitacoraServicio.class);
         BitacoraServicio bitacora = bitacoraServicioRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("BitacoraServicio", "id", id));
         bitacora.setBorrado(true);
         bitacoraServicioRepository.save(bitacora);
     }
     public void restore(Long id) {
+        dataVersionRegistry.bump(BitacoraServicio.class);
         bitacoraServicioRepository.findByIdDeleted(id)
                 .orElseThrow(() -> new ResourceNotFoundException("BitacoraServicio (eliminado)", "id", id));
         bitacoraServicioRepository.restore(id);
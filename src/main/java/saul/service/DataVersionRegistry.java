@@ -0,0 +1,64 @@
+package saul.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versión de los datos de cada tabla, identificada por su entidad.
+ *
+ * Los servicios llaman a {@link #bump(Class)} en cada alta, cambio, borrado y
+ * restauración; la versión aumenta cuando la transacción se confirma, así un
+ * resultado calculado con datos sin confirmar nunca queda como vigente. Los
+ * resultados derivados (por ejemplo, los reportes en cache) guardan las
+ * versiones de sus tablas de origen y dejan de ser válidos cuando alguna cambia.
+ *
+ * Solo ve los cambios hechos por esta instancia de la aplicación.
+ */
+@Component
+public class DataVersionRegistry {
+
+    private final Map<Class<?>, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    /**
+     * Marca un cambio en la tabla de la entidad al confirmarse la transacción actual
+     * (de inmediato si no hay transacción).
+     */
+    public void bump(Class<?> entity) {
+        AtomicLong version = counter(entity);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            version.incrementAndGet();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                version.incrementAndGet();
+            }
+        });
+    }
+
+    public long version(Class<?> entity) {
+        return counter(entity).get();
+    }
+
+    /**
+     * Versiones actuales de las entidades, en el mismo orden.
+     */
+    public long[] snapshot(List<Class<?>> entities) {
+        long[] snapshot = new long[entities.size()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = version(entities.get(i));
+        }
+        return snapshot;
+    }
+
+    private AtomicLong counter(Class<?> entity) {
+        return versions.computeIfAbsent(entity, key -> new AtomicLong());
+    }
+}
@@ -18,6 +18,8 @@ import saul.repository.DepartamentoRepository;
 public class DepartamentoService {
 
     private final DepartamentoRepository departamentoRepository;
+    private final DataVersionRegistry dataVersionRegistry;
+    private final DispositivoResumenService dispositivoResumenService;
     private final EntityMapper mapper;
 
     public Page<DepartamentoResponse> findAll(Pageable pageable) {
@@ -36,19 +38,24 @@ public class DepartamentoService {
     }
 
     public DepartamentoResponse create(DepartamentoRequest request) {
+        dataVersionRegistry.bump(Departamento.class);
         Departamento departamento = mapper.toEntity(request);
         departamento.setBorrado(false);
         return mapper.toResponse(departamentoRepository.save(departamento));
     }
 
     public DepartamentoResponse update(Integer id, DepartamentoRequest request) {
+        dataVersionRegistry.bump(Departamento.class);
         Departamento departamento = departamentoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Departamento", "id", id));
         mapper.updateEntity(departamento, request);
-        return mapper.toResponse(departamentoRepository.save(departamento));
+        Departamento guardado = departamentoRepository.save(departamento);
+        dispositivoResumenService.refreshDepartamento(guardado.getIdDepartamento());
+        return mapper.toResponse(guardado);
     }
 
     public void delete(Integer id) {
+        dataVersionRegistry.bump(Departamento.class);
         Departamento departamento = departamentoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Departamento", "id", id));
         departamento.setBorrado(true);
@@ -56,6 +63,7 @@ public class DepartamentoService {
     }
 
     public void restore(Integer id) {
+        dataVersionRegistry.bump(Departamento.class);
         Departamento departamento = departamentoRepository.findByIdDeleted(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Departamento eliminado", "id", id));
         departamento.setBorrado(false);
@@ -0,0 +1,167 @@
+package saul.service;
+
+import jakarta.persistence.criteria.Predicate;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import saul.dto.EntityMapper;
+import saul.dto.response.DispositivoResumenResponse;
+import saul.entity.DispositivoResumen;
+import saul.exception.ResourceNotFoundException;
+import saul.repository.DispositivoResumenRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resumen de dispositivos (ubicación actual, último mantenimiento y costo acumulado)
+ * en una fila por dispositivo.
+ *
+ * Los servicios de dispositivos, historial de ubicación y mantenimientos llaman a
+ * {@link #refresh(Long)} en cada escritura, dentro de su transacción. Los de
+ * lugares, departamentos, tipos y estados de dispositivo actualizan los nombres
+ * copiados en el resumen cuando cambian. La reconstrucción completa corre al
+ * iniciar la aplicación, con la expresión cron {@code dispositivo.resumen.rebuild-cron}
+ * y bajo demanda, para reparar lo que no pasa por esos servicios.
+ * Cada cambio se propaga también al {@link MantenimientoRezagoIndex}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class DispositivoResumenService {
+
+    private final DispositivoResumenRepository dispositivoResumenRepository;
+    private final MantenimientoRezagoIndex mantenimientoRezagoIndex;
+    private final DataVersionRegistry dataVersionRegistry;
+    private final EntityMapper mapper;
+
+    /**
+     * Busca resúmenes con filtros opcionales; el ordenamiento viene en el Pageable
+     * con los nombres de propiedad del resumen (ej: costoTotal,desc).
+     * @param texto búsqueda parcial en marca, modelo, número de serie o inventario
+     * @param diasSinMantenimiento solo dispositivos sin mantenimiento realizado en esos días
+     */
+    public Page<DispositivoResumenResponse> findAll(Integer idTipoDispositivo, Integer idTipoEstado,
+                                                    Integer idLugar, Integer idDepartamento,
+                                                    String texto, Integer diasSinMantenimiento,
+                                                    Pageable pageable) {
+        Specification<DispositivoResumen> filtro = (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (idTipoDispositivo != null) {
+                predicates.add(cb.equal(root.get("idTipoDispositivo"), idTipoDispositivo));
+            }
+            if (idTipoEstado != null) {
+                predicates.add(cb.equal(root.get("idTipoEstado"), idTipoEstado));
+            }
+            if (idLugar != null) {
+                predicates.add(cb.equal(root.get("idLugarActual"), idLugar));
+            }
+            if (idDepartamento != null) {
+                predicates.add(cb.equal(root.get("idDepartamentoActual"), idDepartamento));
+            }
+            if (texto != null && !texto.isBlank()) {
+                String patron = "%" + texto.trim().toLowerCase() + "%";
+                predicates.add(cb.or(
+                        cb.like(cb.lower(root.get("marca")), patron),
+                        cb.like(cb.lower(root.get("modelo")), patron),
+                        cb.like(cb.lower(root.get("numeroSerie")), patron),
+                        cb.like(cb.lower(root.get("inventario")), patron)));
+            }
+            if (diasSinMantenimiento != null) {
+                LocalDate limite = LocalDate.now().minusDays(diasSinMantenimiento);
+                predicates.add(cb.or(
+                        cb.isNull(root.get("fechaUltimoMantenimiento")),
+                        cb.lessThan(root.get("fechaUltimoMantenimiento"), limite)));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+        return dispositivoResumenRepository.findAll(filtro, pageable).map(mapper::toResponse);
+    }
+
+    public DispositivoResumenResponse findById(Long idDispositivo) {
+        DispositivoResumen resumen = dispositivoResumenRepository.findById(idDispositivo)
+                .orElseThrow(() -> new ResourceNotFoundException("DispositivoResumen", "idDispositivo", idDispositivo));
+        return mapper.toResponse(resumen);
+    }
+
+    /**
+     * Recalcula el resumen de un dispositivo; si está borrado se elimina su fila.
+     */
+    public void refresh(Long idDispositivo) {
+        if (idDispositivo == null) return;
+        dispositivoResumenRepository.upsert(idDispositivo);
+        dispositivoResumenRepository.deleteStale(idDispositivo);
+        mantenimientoRezagoIndex.refresh(idDispositivo);
+    }
+
+    /**
+     * Actualiza los datos de un lugar en los resúmenes de los dispositivos que están en él.
+     */
+    public void refreshLugar(Integer idLugar) {
+        if (idLugar == null) return;
+        if (dispositivoResumenRepository.refreshLugar(idLugar) > 0) {
+            dataVersionRegistry.bump(DispositivoResumen.class);
+        }
+    }
+
+    /**
+     * Actualiza el nombre de un departamento en los resúmenes de los dispositivos ubicados en él.
+     */
+    public void refreshDepartamento(Integer idDepartamento) {
+        if (idDepartamento == null) return;
+        if (dispositivoResumenRepository.refreshDepartamento(idDepartamento) > 0) {
+            dataVersionRegistry.bump(DispositivoResumen.class);
+        }
+    }
+
+    /**
+     * Actualiza el nombre de un tipo de dispositivo en los resúmenes de sus dispositivos.
+     */
+    public void refreshTipoDispositivo(Integer idTipoDispositivo) {
+        if (idTipoDispositivo == null) return;
+        if (dispositivoResumenRepository.refreshTipoDispositivo(idTipoDispositivo) > 0) {
+            dataVersionRegistry.bump(DispositivoResumen.class);
+        }
+    }
+
+    /**
+     * Actualiza el nombre de un estado en los resúmenes de los dispositivos en ese
+     * estado. El índice de rezagados excluye el estado 'Baja' por nombre, así que
+     * se reconstruye.
+     */
+    public void refreshTipoEstado(Integer idTipoEstado) {
+        if (idTipoEstado == null) return;
+        if (dispositivoResumenRepository.refreshTipoEstado(idTipoEstado) > 0) {
+            mantenimientoRezagoIndex.invalidate();
+            dataVersionRegistry.bump(DispositivoResumen.class);
+        }
+    }
+
+    /**
+     * Recalcula el resumen de todos los dispositivos y elimina las filas sobrantes.
+     * @return número de dispositivos en el resumen
+     */
+    public int rebuild() {
+        int actualizados = dispositivoResumenRepository.upsert(null);
+        int eliminados = dispositivoResumenRepository.deleteStale(null);
+        mantenimientoRezagoIndex.invalidate();
+        dataVersionRegistry.bump(DispositivoResumen.class);
+        log.info("Resumen de dispositivos reconstruido: {} filas, {} eliminadas", actualizados, eliminados);
+        return actualizados;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${dispositivo.resumen.rebuild-cron:-}")
+    public void rebuildJob() {
+        rebuild();
+    }
+}
@@ -23,9 +23,15 @@ import java.util.Optional;
 @Transactional
 public class DispositivoService {
 
+    // Candidatos a probar cuando el índice de rezagados trae dispositivos que ya no existen
+    private static final int MAX_INTENTOS_REZAGADO = 10;
+
     private final DispositivoRepository dispositivoRepository;
     private final TipoDispositivoRepository tipoDispositivoRepository;
     private final TipoEstadoDispRepository tipoEstadoDispRepository;
+    private final DispositivoResumenService dispositivoResumenService;
+    private final MantenimientoRezagoIndex mantenimientoRezagoIndex;
+    private final DataVersionRegistry dataVersionRegistry;
     private final EntityMapper mapper;
 
     public Page<DispositivoResponse> findAll(Pageable pageable) {
@@ -76,26 +82,33 @@ public class DispositivoService {
 
     /**
      * Busca un dispositivo aleatorio que no ha recibido mantenimiento en el número especificado de días,
-     * filtrado por tipo de dispositivo.
+     * filtrado por tipo de dispositivo. El candidato se elige en el índice de rezagados sin consultar la base.
      * @param diasMinimos número mínimo de días sin recibir mantenimiento
      * @param idTipoDispositivo ID del tipo de dispositivo a filtrar
      * @return Un dispositivo aleatorio que cumple con los criterios, o null si no existe ninguno
      * @throws ResourceNotFoundException si no se encuentra ningún dispositivo que cumpla los criterios
      */
     public DispositivoResponse findRandomEquipoRezagadoEnMantenimiento(Integer diasMinimos, Integer idTipoDispositivo) {
-        Optional<Dispositivo> dispositivo = dispositivoRepository
-                .findRandomEquipoRezagadoEnMantenimiento(diasMinimos, idTipoDispositivo);
-
-        if (dispositivo.isEmpty()) {
-            throw new ResourceNotFoundException("Dispositivo",
-                    "criterio",
-                    String.format("tipo=%d, días sin mantenimiento>%d", idTipoDispositivo, diasMinimos));
+        for (int intento = 0; intento < MAX_INTENTOS_REZAGADO; intento++) {
+            Optional<Long> id = mantenimientoRezagoIndex.findRezagadoAleatorio(diasMinimos, idTipoDispositivo);
+            if (id.isEmpty()) {
+                break;
+            }
+            Optional<Dispositivo> dispositivo = dispositivoRepository.findById(id.get());
+            if (dispositivo.isPresent()) {
+                return mapper.toResponse(dispositivo.get());
+            }
+            // El índice estaba atrasado: se descarta el candidato y se elige otro
+            mantenimientoRezagoIndex.discard(id.get());
         }
 
-        return mapper.toResponse(dispositivo.get());
+        throw new ResourceNotFoundException("Dispositivo",
+                "criterio",
+                String.format("tipo=%d, días sin mantenimiento>%d", idTipoDispositivo, diasMinimos));
     }
 
     public DispositivoResponse create(DispositivoRequest request) {
+        dataVersionRegistry.bump(Dispositivo.class);
         Dispositivo dispositivo = mapper.toEntity(request);
 
         TipoDispositivo tipo = tipoDispositivoRepository.findById(request.getIdTipoDispositivo())
@@ -107,10 +120,13 @@ public class DispositivoService {
         dispositivo.setTipoEstado(estado);
 
         dispositivo.setBorrado(false);
-        return mapper.toResponse(dispositivoRepository.save(dispositivo));
+        Dispositivo guardado = dispositivoRepository.save(dispositivo);
+        dispositivoResumenService.refresh(guardado.getIdDispositivo());
+        return mapper.toResponse(guardado);
     }
 
     public DispositivoResponse update(Long id, DispositivoRequest request) {
+        dataVersionRegistry.bump(Dispositivo.class);
         Dispositivo dispositivo = dispositivoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Dispositivo", "id", id));
 
@@ -128,20 +144,26 @@ public class DispositivoService {
             dispositivo.setTipoEstado(estado);
         }
 
-        return mapper.toResponse(dispositivoRepository.save(dispositivo));
+        Dispositivo guardado = dispositivoRepository.save(dispositivo);
+        dispositivoResumenService.refresh(id);
+        return mapper.toResponse(guardado);
     }
 
     public void delete(Long id) {
+        dataVersionRegistry.bump(Dispositivo.class);
         Dispositivo dispositivo = dispositivoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Dispositivo", "id", id));
         dispositivo.setBorrado(true);
         dispositivoRepository.save(dispositivo);
+        dispositivoResumenService.refresh(id);
     }
 
     public void restore(Long id) {
+        dataVersionRegistry.bump(Dispositivo.class);
         Dispositivo dispositivo = dispositivoRepository.findByIdDeleted(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Dispositivo eliminado", "id", id));
         dispositivo.setBorrado(false);
         dispositivoRepository.save(dispositivo);
+        dispositivoResumenService.refresh(id);
     }
 }
@@ -26,6 +26,8 @@ public class EntradasTonerService {
     private final EntradasTonerRepository entradasTonerRepository;
     private final TipoTonerRepository tipoTonerRepository;
     private final UsuarioRepository usuarioRepository;
+    private final StockTonerLedger stockTonerLedger;
+    private final DataVersionRegistry dataVersionRegistry;
     private final EntityMapper mapper;
 
     public Page<EntradasTonerResponse> findAll(Pageable pageable) {
@@ -54,6 +56,7 @@ public class EntradasTonerService {
     }
 
     public EntradasTonerResponse create(EntradasTonerRequest request) {
+        dataVersionRegistry.bump(EntradasToner.class);
         EntradasToner entrada = mapper.toEntity(request);
 
         Usuario usuario = usuarioRepository.findById(request.getIdUsuarioEntrada())
@@ -67,13 +70,19 @@ public class EntradasTonerService {
         entrada.setFechaEntrada(LocalDateTime.now());
         entrada.setBorrado(false);
 
+        stockTonerLedger.registrarEntrada(tipoToner.getId(), cantidad(entrada));
+
         return mapper.toResponse(entradasTonerRepository.save(entrada));
     }
 
     public EntradasTonerResponse update(Integer id, EntradasTonerRequest request) {
+        dataVersionRegistry.bump(EntradasToner.class);
         EntradasToner entrada = entradasTonerRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("EntradasToner", "id", id));
 
+        Integer tipoAnterior = entrada.getTipoToner().getId();
+        int cantidadAnterior = cantidad(entrada);
+
         mapper.updateEntity(entrada, request);
 
         if (request.getIdTipoToner() != null) {
@@ -82,21 +91,37 @@ public class EntradasTonerService {
             entrada.setTipoToner(tipoToner);
         }
 
+        Integer tipoNuevo = entrada.getTipoToner().getId();
+        if (tipoNuevo.equals(tipoAnterior)) {
+            stockTonerLedger.registrarEntrada(tipoNuevo, cantidad(entrada) - cantidadAnterior);
+        } else {
+            stockTonerLedger.registrarEntrada(tipoAnterior, -cantidadAnterior);
+            stockTonerLedger.registrarEntrada(tipoNuevo, cantidad(entrada));
+        }
+
         return mapper.toResponse(entradasTonerRepository.save(entrada));
     }
 
     public void delete(Integer id) {
+        dataVersionRegistry.bump(EntradasToner.class);
         EntradasToner entrada = entradasTonerRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("EntradasToner", "id", id));
         entrada.setBorrado(true);
+        stockTonerLedger.registrarEntrada(entrada.getTipoToner().getId(), -cantidad(entrada));
         entradasTonerRepository.save(entrada);
     }
 
     public void restore(Integer id) {
+        dataVersionRegistry.bump(EntradasToner.class);
         EntradasToner entrada = entradasTonerRepository.findByIdDeleted(id)
                 .orElseThrow(() -> new ResourceNotFoundException("EntradasToner eliminada", "id", id));
         entrada.setBorrado(false);
+        stockTonerLedger.registrarEntrada(entrada.getTipoToner().getId(), cantidad(entrada));
         entradasTonerRepository.save(entrada);
     }
+
+    private static int cantidad(EntradasToner entrada) {
+        return entrada.getCantidad() != null ? entrada.getCantidad() : 0;
+    }
 }
 
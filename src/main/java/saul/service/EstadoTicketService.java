@@ -18,6 +18,7 @@ import saul.repository.EstadoTicketRepository;
 public class EstadoTicketService {
 
     private final EstadoTicketRepository estadoTicketRepository;
+    private final DataVersionRegistry dataVersionRegistry;
     private final EntityMapper mapper;
 
     public Page<EstadoTicketResponse> findAll(Pageable pageable) {
@@ -36,12 +37,14 @@ public class EstadoTicketService {
     }
 
     public EstadoTicketResponse create(EstadoTicketRequest request) {
+        dataVersionRegistry.bump(EstadoTicket.class);
         EstadoTicket estado = mapper.toEntity(request);
         estado.setBorrado(false);
         return mapper.toResponse(estadoTicketRepository.save(estado));
     }
 
     public EstadoTicketResponse update(Integer id, EstadoTicketRequest request) {
+        dataVersionRegistry.bump(EstadoTicket.class);
         EstadoTicket estado = estadoTicketRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("EstadoTicket", "id", id));
         mapper.updateEntity(estado, request);
@@ -49,6 +52,7 @@ public class EstadoTicketService {
     }
 
     public void delete(Integer id) {
+        dataVersionRegistry.bump(EstadoTicket.class);
         EstadoTicket estado = estadoTicketRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("EstadoTicket", "id", id));
         estado.setBorrado(true);
@@ -56,6 +60,7 @@ public class EstadoTicketService {
     }
 
     public void restore(Integer id) {
+        dataVersionRegistry.bump(EstadoTicket.class);
         EstadoTicket estado = estadoTicketRepository.findByIdDeleted(id)
                 .orElseThrow(() -> new ResourceNotFoundException("EstadoTicket eliminado", "id", id));
         estado.setBorrado(false);
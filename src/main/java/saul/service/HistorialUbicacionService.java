@@ -29,6 +29,8 @@ public class HistorialUbicacionService {
     private final DispositivoRepository dispositivoRepository;
     private final LugarRepository lugarRepository;
     private final UsuarioRepository usuarioRepository;
+    private final DispositivoResumenService dispositivoResumenService;
+    private final DataVersionRegistry dataVersionRegistry;
     private final EntityMapper mapper;
 
     public Page<HistorialUbicacionResponse> findAll(Pageable pageable) {
@@ -63,6 +65,7 @@ public class HistorialUbicacionService {
     }
 
     public HistorialUbicacionResponse create(HistorialUbicacionRequest request) {
+        dataVersionRegistry.bump(HistorialUbicacion.class);
         HistorialUbicacion historial = mapper.toEntity(request);
 
         Dispositivo dispositivo = dispositivoRepository.findById(request.getIdDispositivo())
@@ -87,10 +90,13 @@ public class HistorialUbicacionService {
         historial.setFechaEntrada(request.getFechaEntrada() != null ? request.getFechaEntrada() : LocalDateTime.now());
         historial.setBorrado(false);
 
-        return mapper.toResponse(historialUbicacionRepository.save(historial));
+        HistorialUbicacion guardado = historialUbicacionRepository.save(historial);
+        dispositivoResumenService.refresh(dispositivo.getIdDispositivo());
+        return mapper.toResponse(guardado);
     }
 
     public HistorialUbicacionResponse update(Long id, HistorialUbicacionRequest request) {
+        dataVersionRegistry.bump(HistorialUbicacion.class);
         HistorialUbicacion historial = historialUbicacionRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("HistorialUbicacion", "id", id));
 
@@ -102,21 +108,27 @@ public class HistorialUbicacionService {
             historial.setLugar(lugar);
         }
 
-        return mapper.toResponse(historialUbicacionRepository.save(historial));
+        HistorialUbicacion guardado = historialUbicacionRepository.save(historial);
+        dispositivoResumenService.refresh(guardado.getDispositivo().getIdDispositivo());
+        return mapper.toResponse(guardado);
     }
 
     public void delete(Long id) {
+        dataVersionRegistry.bump(HistorialUbicacion.class);
         HistorialUbicacion historial = historialUbicacionRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("HistorialUbicacion", "id", id));
         historial.setBorrado(true);
         historialUbicacionRepository.save(historial);
+        dispositivoResumenService.refresh(historial.getDispositivo().getIdDispositivo());
     }
 
     public void restore(Long id) {
+        dataVersionRegistry.bump(HistorialUbicacion.class);
         HistorialUbicacion historial = historialUbicacionRepository.findByIdDeleted(id)
                 .orElseThrow(() -> new ResourceNotFoundException("HistorialUbicacion eliminado", "id", id));
         historial.setBorrado(false);
         historialUbicacionRepository.save(historial);
+        dispositivoResumenService.refresh(historial.getDispositivo().getIdDispositivo());
     }
 }
 
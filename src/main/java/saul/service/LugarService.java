@@ -21,6 +21,8 @@ public class LugarService {
 
     private final LugarRepository lugarRepository;
     private final DepartamentoRepository departamentoRepository;
+    private final DataVersionRegistry dataVersionRegistry;
+    private final DispositivoResumenService dispositivoResumenService;
     private final EntityMapper mapper;
 
     public Page<LugarResponse> findAll(Pageable pageable) {
@@ -44,6 +46,7 @@ public class LugarService {
     }
 
     public LugarResponse create(LugarRequest request) {
+        dataVersionRegistry.bump(Lugar.class);
         Lugar lugar = mapper.toEntity(request);
 
         if (request.getIdDepartamento() != null) {
@@ -57,6 +60,7 @@ public class LugarService {
     }
 
     public LugarResponse update(Integer id, LugarRequest request) {
+        dataVersionRegistry.bump(Lugar.class);
         Lugar lugar = lugarRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Lugar", "id", id));
 
@@ -68,10 +72,13 @@ public class LugarService {
             lugar.setDepartamento(departamento);
         }
 
-        return mapper.toResponse(lugarRepository.save(lugar));
+        Lugar guardado = lugarRepository.save(lugar);
+        dispositivoResumenService.refreshLugar(guardado.getIdLugar());
+        return mapper.toResponse(guardado);
     }
 
     public void delete(Integer id) {
+        dataVersionRegistry.bump(Lugar.class);
         Lugar lugar = lugarRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Lugar", "id", id));
         lugar.setBorrado(true);
@@ -79,6 +86,7 @@ public class LugarService {
     }
 
     public void restore(Integer id) {
+        dataVersionRegistry.bump(Lugar.class);
         Lugar lugar = lugarRepository.findByIdDeleted(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Lugar eliminado", "id", id));
         lugar.setBorrado(false);
@@ -0,0 +1,328 @@
+package saul.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import saul.reports.dto.RezagoMantenimientoDTO;
+import saul.repository.DispositivoResumenRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Índice en memoria de equipos rezagados en mantenimiento.
+ *
+ * Por cada tipo de dispositivo guarda los dispositivos activos (no borrados y
+ * fuera de estado 'Baja') ordenados por la fecha de su último mantenimiento
+ * realizado; los que nunca han tenido uno van primero. Así, "sin mantenimiento
+ * en N días" es el prefijo del arreglo anterior a la fecha límite: una búsqueda
+ * binaria da su tamaño y un dispositivo aleatorio del prefijo se toma con un
+ * solo índice aleatorio.
+ *
+ * Los arreglos de cada tipo no se modifican: cada cambio crea una copia y la
+ * publica, así las lecturas no usan candados. Se carga desde el resumen de
+ * dispositivos y {@link DispositivoResumenService} lo actualiza cuando se
+ * confirma la transacción que cambió un dispositivo.
+ */
+@Component
+public class MantenimientoRezagoIndex {
+
+    // Fecha (día época) de los dispositivos sin mantenimientos realizados
+    private static final long SIN_MANTENIMIENTO = Long.MIN_VALUE;
+
+    private final DispositivoResumenRepository dispositivoResumenRepository;
+
+    // Tipo de dispositivo -> dispositivos ordenados; se reemplaza completo en cada cambio
+    private volatile Map<Integer, Grupo> grupos = Collections.emptyMap();
+    // Id de dispositivo -> posición actual en el índice; solo se usa con el candado
+    private final Map<Long, Entrada> entradas = new HashMap<>();
+    private volatile boolean loaded;
+    // Aumenta en cada invalidación; una reconstrucción que leyó antes no deja el índice como cargado
+    private final AtomicLong generacion = new AtomicLong();
+
+    public MantenimientoRezagoIndex(DispositivoResumenRepository dispositivoResumenRepository) {
+        this.dispositivoResumenRepository = dispositivoResumenRepository;
+    }
+
+    /**
+     * Ids de los dispositivos sin mantenimiento realizado en los últimos diasMinimos
+     * días, ordenados por id. Si idTipoDispositivo es -1 o null, incluye todos los tipos.
+     */
+    public List<Long> findRezagados(int diasMinimos, Integer idTipoDispositivo) {
+        ensureLoaded();
+        long limite = limite(diasMinimos);
+        Map<Integer, Grupo> actual = grupos;
+
+        List<Long> ids = new ArrayList<>();
+        if (idTipoDispositivo == null || idTipoDispositivo == -1) {
+            for (Grupo grupo : actual.values()) {
+                grupo.agregarRezagados(limite, ids);
+            }
+        } else {
+            Grupo grupo = actual.get(idTipoDispositivo);
+            if (grupo != null) {
+                grupo.agregarRezagados(limite, ids);
+            }
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Id de un dispositivo aleatorio del tipo indicado sin mantenimiento realizado
+     * en los últimos diasMinimos días.
+     */
+    public Optional<Long> findRezagadoAleatorio(int diasMinimos, Integer idTipoDispositivo) {
+        if (idTipoDispositivo == null) return Optional.empty();
+        ensureLoaded();
+        Grupo grupo = grupos.get(idTipoDispositivo);
+        if (grupo == null) return Optional.empty();
+
+        int rezagados = grupo.contarRezagados(limite(diasMinimos));
+        if (rezagados == 0) return Optional.empty();
+        return Optional.of(grupo.ids[ThreadLocalRandom.current().nextInt(rezagados)]);
+    }
+
+    /**
+     * Vuelve a leer un dispositivo del resumen cuando se confirme la transacción actual
+     * (de inmediato si no hay transacción). La lectura se hace con el candado: si dos
+     * transacciones cambian el mismo dispositivo, la que aplica después también leyó
+     * después, así una fila vieja nunca reemplaza a una más nueva.
+     */
+    public void refresh(Long idDispositivo) {
+        if (idDispositivo == null) return;
+        afterCommit(() -> {
+            synchronized (this) {
+                if (!loaded) return;
+                List<RezagoMantenimientoDTO> filas =
+                        dispositivoResumenRepository.findRezagoMantenimientoByDispositivo(idDispositivo);
+                quitar(idDispositivo);
+                for (RezagoMantenimientoDTO fila : filas) {
+                    agregar(fila);
+                }
+            }
+        });
+    }
+
+    /**
+     * Quita de inmediato un dispositivo que el índice trae pero ya no está en la
+     * base, y lo vuelve a leer del resumen cuando se confirme la transacción actual.
+     */
+    public void discard(Long idDispositivo) {
+        if (idDispositivo == null) return;
+        synchronized (this) {
+            quitar(idDispositivo);
+        }
+        refresh(idDispositivo);
+    }
+
+    /**
+     * Marca el índice para reconstruirse completo en la siguiente lectura, una vez
+     * confirmada la transacción actual. Si hay una reconstrucción en curso, su
+     * resultado se publica pero no cuenta como carga.
+     */
+    public void invalidate() {
+        afterCommit(() -> {
+            generacion.incrementAndGet();
+            loaded = false;
+        });
+    }
+
+    /**
+     * Reconstruye el índice desde el resumen de dispositivos.
+     */
+    public synchronized void rebuild() {
+        long inicio = generacion.get();
+        List<RezagoMantenimientoDTO> filas = dispositivoResumenRepository.findRezagoMantenimiento();
+
+        Map<Integer, List<Entrada>> porTipo = new HashMap<>();
+        entradas.clear();
+        for (RezagoMantenimientoDTO fila : filas) {
+            if (fila.getIdDispositivo() == null || fila.getIdTipoDispositivo() == null) continue;
+            Entrada entrada = new Entrada(fila.getIdDispositivo(), fila.getIdTipoDispositivo(),
+                    fecha(fila.getFechaUltimoMantenimiento()));
+            entradas.put(entrada.idDispositivo, entrada);
+            porTipo.computeIfAbsent(entrada.idTipo, tipo -> new ArrayList<>()).add(entrada);
+        }
+
+        Map<Integer, Grupo> nuevos = new HashMap<>(porTipo.size() * 2);
+        for (Map.Entry<Integer, List<Entrada>> tipo : porTipo.entrySet()) {
+            nuevos.put(tipo.getKey(), Grupo.of(tipo.getValue()));
+        }
+        grupos = nuevos;
+        // Una invalidación durante la lectura obliga a reconstruir otra vez
+        loaded = generacion.get() == inicio;
+    }
+
+    private void agregar(RezagoMantenimientoDTO fila) {
+        if (fila.getIdDispositivo() == null || fila.getIdTipoDispositivo() == null) return;
+        Entrada entrada = new Entrada(fila.getIdDispositivo(), fila.getIdTipoDispositivo(),
+                fecha(fila.getFechaUltimoMantenimiento()));
+        entradas.put(entrada.idDispositivo, entrada);
+
+        Map<Integer, Grupo> nuevos = new HashMap<>(grupos);
+        nuevos.put(entrada.idTipo, nuevos.getOrDefault(entrada.idTipo, Grupo.VACIO).con(entrada));
+        grupos = nuevos;
+    }
+
+    private void quitar(Long idDispositivo) {
+        Entrada entrada = entradas.remove(idDispositivo);
+        if (entrada == null) return;
+
+        Map<Integer, Grupo> nuevos = new HashMap<>(grupos);
+        Grupo grupo = nuevos.get(entrada.idTipo);
+        if (grupo != null) {
+            Grupo restante = grupo.sin(entrada);
+            if (restante.ids.length == 0) {
+                nuevos.remove(entrada.idTipo);
+            } else {
+                nuevos.put(entrada.idTipo, restante);
+            }
+        }
+        grupos = nuevos;
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    rebuild();
+                }
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // Rezagado si su último mantenimiento es anterior a hoy - diasMinimos
+    private static long limite(int diasMinimos) {
+        return LocalDate.now().minusDays(diasMinimos).toEpochDay();
+    }
+
+    private static long fecha(LocalDate fechaUltimoMantenimiento) {
+        return fechaUltimoMantenimiento != null ? fechaUltimoMantenimiento.toEpochDay() : SIN_MANTENIMIENTO;
+    }
+
+    private static final class Entrada {
+        private final long idDispositivo;
+        private final Integer idTipo;
+        private final long fecha;
+
+        Entrada(long idDispositivo, Integer idTipo, long fecha) {
+            this.idDispositivo = idDispositivo;
+            this.idTipo = idTipo;
+            this.fecha = fecha;
+        }
+    }
+
+    /**
+     * Dispositivos de un tipo ordenados por (fecha, id). Inmutable.
+     */
+    private static final class Grupo {
+        static final Grupo VACIO = new Grupo(new long[0], new long[0]);
+
+        private final long[] fechas;
+        private final long[] ids;
+
+        private Grupo(long[] fechas, long[] ids) {
+            this.fechas = fechas;
+            this.ids = ids;
+        }
+
+        static Grupo of(List<Entrada> entradas) {
+            entradas.sort((a, b) -> a.fecha != b.fecha
+                    ? Long.compare(a.fecha, b.fecha)
+                    : Long.compare(a.idDispositivo, b.idDispositivo));
+            long[] fechas = new long[entradas.size()];
+            long[] ids = new long[entradas.size()];
+            for (int i = 0; i < fechas.length; i++) {
+                fechas[i] = entradas.get(i).fecha;
+                ids[i] = entradas.get(i).idDispositivo;
+            }
+            return new Grupo(fechas, ids);
+        }
+
+        /**
+         * Número de dispositivos con fecha anterior al límite (primera posición >= límite).
+         */
+        int contarRezagados(long limite) {
+            int low = 0;
+            int high = fechas.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (fechas[mid] < limite) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        void agregarRezagados(long limite, List<Long> destino) {
+            int rezagados = contarRezagados(limite);
+            for (int i = 0; i < rezagados; i++) {
+                destino.add(ids[i]);
+            }
+        }
+
+        Grupo con(Entrada entrada) {
+            int posicion = posicion(entrada.fecha, entrada.idDispositivo);
+            long[] nuevasFechas = new long[fechas.length + 1];
+            long[] nuevosIds = new long[ids.length + 1];
+            System.arraycopy(fechas, 0, nuevasFechas, 0, posicion);
+            System.arraycopy(ids, 0, nuevosIds, 0, posicion);
+            nuevasFechas[posicion] = entrada.fecha;
+            nuevosIds[posicion] = entrada.idDispositivo;
+            System.arraycopy(fechas, posicion, nuevasFechas, posicion + 1, fechas.length - posicion);
+            System.arraycopy(ids, posicion, nuevosIds, posicion + 1, ids.length - posicion);
+            return new Grupo(nuevasFechas, nuevosIds);
+        }
+
+        Grupo sin(Entrada entrada) {
+            int posicion = posicion(entrada.fecha, entrada.idDispositivo);
+            if (posicion >= ids.length || ids[posicion] != entrada.idDispositivo) {
+                return this;
+            }
+            long[] nuevasFechas = Arrays.copyOf(fechas, fechas.length - 1);
+            long[] nuevosIds = Arrays.copyOf(ids, ids.length - 1);
+            System.arraycopy(fechas, posicion + 1, nuevasFechas, posicion, fechas.length - posicion - 1);
+            System.arraycopy(ids, posicion + 1, nuevosIds, posicion, ids.length - posicion - 1);
+            return new Grupo(nuevasFechas, nuevosIds);
+        }
+
+        // Primera posición con (fecha, id) >= (fecha, idDispositivo)
+        private int posicion(long fecha, long idDispositivo) {
+            int low = 0;
+            int high = fechas.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (fechas[mid] < fecha || (fechas[mid] == fecha && ids[mid] < idDispositivo)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -29,6 +29,8 @@ public class MantenimientoService {
     private final DispositivoRepository dispositivoRepository;
     private final TipoMantenimientoRepository tipoMantenimientoRepository;
     private final UsuarioRepository usuarioRepository;
+    private final DispositivoResumenService dispositivoResumenService;
+    private final DataVersionRegistry dataVersionRegistry;
     private final EntityMapper mapper;
 
     public Page<MantenimientoResponse> findAll(Pageable pageable) {
@@ -57,6 +59,7 @@ public class MantenimientoService {
     }
 
     public MantenimientoResponse create(MantenimientoRequest request) {
+        dataVersionRegistry.bump(Mantenimiento.class);
         Mantenimiento mantenimiento = mapper.toEntity(request);
 
         Dispositivo dispositivo = dispositivoRepository.findById(request.getIdDispositivo())
@@ -80,10 +83,13 @@ public class MantenimientoService {
         }
 
         mantenimiento.setBorrado(false);
-        return mapper.toResponse(mantenimientoRepository.save(mantenimiento));
+        Mantenimiento guardado = mantenimientoRepository.save(mantenimiento);
+        dispositivoResumenService.refresh(dispositivo.getIdDispositivo());
+        return mapper.toResponse(guardado);
     }
 
     public MantenimientoResponse update(Long id, MantenimientoRequest request) {
+        dataVersionRegistry.bump(Mantenimiento.class);
         Mantenimiento mantenimiento = mantenimientoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Mantenimiento", "id", id));
 
@@ -101,21 +107,27 @@ public class MantenimientoService {
             mantenimiento.setUsuarioAtiende(atiende);
         }
 
-        return mapper.toResponse(mantenimientoRepository.save(mantenimiento));
+        Mantenimiento guardado = mantenimientoRepository.save(mantenimiento);
+        dispositivoResumenService.refresh(guardado.getDispositivo().getIdDispositivo());
+        return mapper.toResponse(guardado);
     }
 
     public void delete(Long id) {
+        dataVersionRegistry.bump(Mantenimiento.class);
         Mantenimiento mantenimiento = mantenimientoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Mantenimiento", "id", id));
         mantenimiento.setBorrado(true);
         mantenimientoRepository.save(mantenimiento);
+        dispositivoResumenService.refresh(mantenimiento.getDispositivo().getIdDispositivo());
     }
 
     public void restore(Long id) {
+        dataVersionRegistry.bump(Mantenimiento.class);
         Mantenimiento mantenimiento = mantenimientoRepository.findByIdDeleted(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Mantenimiento eliminado", "id", id));
         mantenimiento.setBorrado(false);
         mantenimientoRepository.save(mantenimiento);
+        dispositivoResumenService.refresh(mantenimiento.getDispositivo().getIdDispositivo());
     }
 }
 
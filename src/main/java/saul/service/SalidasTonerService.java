@@ -29,6 +29,8 @@ public class SalidasTonerService {
     private final TipoTonerRepository tipoTonerRepository;
     private final UsuarioRepository usuarioRepository;
     private final LugarRepository lugarRepository;
+    private final StockTonerLedger stockTonerLedger;
+    private final DataVersionRegistry dataVersionRegistry;
     private final EntityMapper mapper;
 
     public Page<SalidasTonerResponse> findAll(Pageable pageable) {
@@ -57,6 +59,7 @@ public class SalidasTonerService {
     }
 
     public SalidasTonerResponse create(SalidasTonerRequest request) {
+        dataVersionRegistry.bump(SalidasToner.class);
         SalidasToner salida = mapper.toEntity(request);
 
         Usuario instala = usuarioRepository.findById(request.getIdUsuarioInstala())
@@ -78,13 +81,20 @@ public class SalidasTonerService {
         salida.setFechaSalida(LocalDateTime.now());
         salida.setBorrado(false);
 
+        // Reserva el stock; se rechaza si la salida lo dejaría en negativo
+        stockTonerLedger.registrarSalida(tipoToner.getId(), cantidad(salida));
+
         return mapper.toResponse(salidasTonerRepository.save(salida));
     }
 
     public SalidasTonerResponse update(Integer id, SalidasTonerRequest request) {
+        dataVersionRegistry.bump(SalidasToner.class);
         SalidasToner salida = salidasTonerRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("SalidasToner", "id", id));
 
+        Integer tipoAnterior = salida.getTipoToner().getId();
+        int cantidadAnterior = cantidad(salida);
+
         mapper.updateEntity(salida, request);
 
         if (request.getIdTipoToner() != null) {
@@ -99,21 +109,37 @@ public class SalidasTonerService {
             salida.setDepartamento(lugar);
         }
 
+        Integer tipoNuevo = salida.getTipoToner().getId();
+        if (tipoNuevo.equals(tipoAnterior)) {
+            stockTonerLedger.registrarSalida(tipoNuevo, cantidad(salida) - cantidadAnterior);
+        } else {
+            stockTonerLedger.cancelarSalida(tipoAnterior, cantidadAnterior);
+            stockTonerLedger.registrarSalida(tipoNuevo, cantidad(salida));
+        }
+
         return mapper.toResponse(salidasTonerRepository.save(salida));
     }
 
     public void delete(Integer id) {
+        dataVersionRegistry.bump(SalidasToner.class);
         SalidasToner salida = salidasTonerRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("SalidasToner", "id", id));
         salida.setBorrado(true);
+        stockTonerLedger.cancelarSalida(salida.getTipoToner().getId(), cantidad(salida));
         salidasTonerRepository.save(salida);
     }
 
     public void restore(Integer id) {
+        dataVersionRegistry.bump(SalidasToner.class);
         SalidasToner salida = salidasTonerRepository.findByIdDeleted(id)
                 .orElseThrow(() -> new ResourceNotFoundException("SalidasToner eliminada", "id", id));
         salida.setBorrado(false);
+        stockTonerLedger.registrarSalida(salida.getTipoToner().getId(), cantidad(salida));
         salidasTonerRepository.save(salida);
     }
+
+    private static int cantidad(SalidasToner salida) {
+        return salida.getCantidad() != null ? salida.getCantidad() : 0;
+    }
 }
 
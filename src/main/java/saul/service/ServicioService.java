@@ -16,6 +16,7 @@ import java.time.LocalDateTime;
 @Transactional
 public class ServicioService {
     private final ServicioRepository servicioRepository;
+    private final DataVersionRegistry dataVersionRegistry;
     private final EntityMapper mapper;
     public Page<ServicioResponse> findAll(Pageable pageable) {
         return servicioRepository.findAll(pageable).map(mapper::toResponse);
@@ -34,24 +35,28 @@ public class ServicioService {
                 .map(mapper::toResponse);
     }
     public ServicioResponse create(ServicioRequest request) {
+        dataVersionRegistry.bump(Servicio.class);
         Servicio servicio = mapper.toEntity(request);
         servicio.setCreatedAt(LocalDateTime.now());
         servicio.setBorrado(false);
         return mapper.toResponse(servicioRepository.save(servicio));
     }
     public ServicioResponse update(Long id, ServicioRequest request) {
+        dataVersionRegistry.bump(Servicio.class);
         Servicio servicio = servicioRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Servicio", "id", id));
         mapper.updateEntity(servicio, request);
         return mapper.toResponse(servicioRepository.save(servicio));
     }
     public void delete(Long id) {
+        dataVersionRegistry.bump(Servicio.class);
         Servicio servicio = servicioRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Servicio", "id", id));
         servicio.setBorrado(true);
         servicioRepository.save(servicio);
     }
     public void restore(Long id) {
+        dataVersionRegistry.bump(Servicio.class);
         servicioRepository.findByIdDeleted(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Servicio (eliminado)", "id", id));
         servicioRepository.restore(id);
@@ -0,0 +1,346 @@
+package saul.service;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import saul.exception.BusinessException;
+import saul.repository.EntradasTonerRepository;
+import saul.repository.TipoTonerRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Saldo de stock de tóner por tipo, mantenido en memoria.
+ *
+ * Se reconstruye con una sola consulta agrupada (al iniciar la aplicación o con
+ * {@link #rebuild()}) y después lo actualizan los servicios de entradas y salidas
+ * en cada alta, cambio, borrado y restauración. Las lecturas no consultan la base.
+ *
+ * Un movimiento que reduce el stock (una salida, o una entrada que se corrige a
+ * menos o se borra) se reserva en cuanto se registra, bajo el candado del tipo de
+ * tóner, así que dos movimientos concurrentes no pueden tomar el mismo stock. Los
+ * totales solo cambian cuando la transacción se confirma; si se revierte, la
+ * reserva se libera.
+ *
+ * La reserva en memoria solo ve esta instancia. Por eso, antes de confirmar una
+ * transacción que redujo el stock de un tipo, se bloquea la fila del tipo de tóner
+ * y se vuelve a calcular su stock en la base; si quedaría en negativo la
+ * transacción se revierte. Ese bloqueo serializa los movimientos entre instancias.
+ *
+ * La reconstrucción espera a que terminen las transacciones con movimientos
+ * registrados y detiene las nuevas mientras consulta, así ningún movimiento se
+ * cuenta dos veces ni se pierde.
+ */
+@Component
+public class StockTonerLedger {
+
+    private final EntradasTonerRepository entradasTonerRepository;
+    private final TipoTonerRepository tipoTonerRepository;
+    private final Map<Integer, Cuenta> cuentas = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    // Compuerta entre movimientos y reconstrucción; los dos campos se usan con su monitor
+    private final Object compuerta = new Object();
+    // Transacciones con movimientos registrados que aún no terminan
+    private int enCurso;
+    private boolean reconstruyendo;
+
+    public StockTonerLedger(EntradasTonerRepository entradasTonerRepository,
+                            TipoTonerRepository tipoTonerRepository) {
+        this.entradasTonerRepository = entradasTonerRepository;
+        this.tipoTonerRepository = tipoTonerRepository;
+    }
+
+    /**
+     * Reconstruye los saldos desde la base de datos. Espera a que terminen las
+     * transacciones con movimientos registrados, así que no debe llamarse desde
+     * una de ellas.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (compuerta) {
+            while (reconstruyendo) {
+                esperar();
+            }
+            reconstruyendo = true;
+        }
+        try {
+            synchronized (compuerta) {
+                while (enCurso > 0) {
+                    esperar();
+                }
+            }
+            List<Object[]> totales = entradasTonerRepository.sumCantidadEntradasSalidasGroupedByTipoToner();
+            for (Cuenta cuenta : cuentas.values()) {
+                cuenta.reset(0, 0);
+            }
+            for (Object[] fila : totales) {
+                Integer idTipoToner = ((Number) fila[0]).intValue();
+                long entradas = fila[1] != null ? ((Number) fila[1]).longValue() : 0;
+                long salidas = fila[2] != null ? ((Number) fila[2]).longValue() : 0;
+                cuenta(idTipoToner).reset(entradas, salidas);
+            }
+            loaded = true;
+        } finally {
+            synchronized (compuerta) {
+                reconstruyendo = false;
+                compuerta.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Saldo confirmado de un tipo de tóner.
+     */
+    public Saldo getSaldo(Integer idTipoToner) {
+        ensureLoaded();
+        Cuenta cuenta = cuentas.get(idTipoToner);
+        return cuenta != null ? cuenta.saldo() : Saldo.VACIO;
+    }
+
+    /**
+     * Registra una entrada, o su corrección o borrado con cantidad negativa.
+     *
+     * @throws BusinessException si la corrección dejaría el stock en negativo
+     */
+    public void registrarEntrada(Integer idTipoToner, int cantidad) {
+        registrar(idTipoToner, cantidad, 0, true);
+    }
+
+    /**
+     * Registra una salida, o su corrección con cantidad negativa.
+     *
+     * @throws BusinessException si la salida dejaría el stock en negativo
+     */
+    public void registrarSalida(Integer idTipoToner, int cantidad) {
+        registrar(idTipoToner, 0, cantidad, true);
+    }
+
+    /**
+     * Quita una salida (borrado o corrección); devuelve stock y nunca se rechaza.
+     */
+    public void cancelarSalida(Integer idTipoToner, int cantidad) {
+        registrar(idTipoToner, 0, -cantidad, false);
+    }
+
+    private void registrar(Integer idTipoToner, int entradas, int salidas, boolean validarExistencia) {
+        if (idTipoToner == null || (entradas == 0 && salidas == 0)) return;
+        ensureLoaded();
+
+        Cuenta cuenta = cuenta(idTipoToner);
+        long reduccion = Math.max(0, (long) salidas - entradas);
+        Movimiento movimiento = new Movimiento(idTipoToner, cuenta, reduccion, entradas, salidas);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            entrar();
+            try {
+                cuenta.reservar(reduccion, validarExistencia);
+                movimiento.completar(true);
+            } finally {
+                salir();
+            }
+            return;
+        }
+
+        Transaccion transaccion = transaccionActual();
+        cuenta.reservar(reduccion, validarExistencia);
+        transaccion.agregar(movimiento);
+    }
+
+    /**
+     * Movimientos de la transacción actual; la primera vez entra por la compuerta.
+     */
+    private Transaccion transaccionActual() {
+        Transaccion transaccion = (Transaccion) TransactionSynchronizationManager.getResource(this);
+        if (transaccion != null) {
+            return transaccion;
+        }
+        entrar();
+        transaccion = new Transaccion();
+        try {
+            TransactionSynchronizationManager.registerSynchronization(transaccion);
+            TransactionSynchronizationManager.bindResource(this, transaccion);
+        } catch (RuntimeException e) {
+            salir();
+            throw e;
+        }
+        return transaccion;
+    }
+
+    private Cuenta cuenta(Integer idTipoToner) {
+        return cuentas.computeIfAbsent(idTipoToner, id -> new Cuenta());
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    rebuild();
+                }
+            }
+        }
+    }
+
+    private void entrar() {
+        synchronized (compuerta) {
+            while (reconstruyendo) {
+                esperar();
+            }
+            enCurso++;
+        }
+    }
+
+    private void salir() {
+        synchronized (compuerta) {
+            enCurso--;
+            if (enCurso == 0) {
+                compuerta.notifyAll();
+            }
+        }
+    }
+
+    // Se llama con el monitor de la compuerta tomado
+    private void esperar() {
+        try {
+            compuerta.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido mientras se reconstruía el stock de tóner", e);
+        }
+    }
+
+    /**
+     * Movimientos registrados por una transacción. Antes de confirmar verifica en
+     * la base los tipos cuyo stock redujo; al terminar completa las reservas y
+     * sale de la compuerta.
+     */
+    private final class Transaccion implements TransactionSynchronization {
+        private final List<Movimiento> movimientos = new ArrayList<>();
+        // Ordenados para que dos transacciones bloqueen los tipos en el mismo orden
+        private final Set<Integer> reducidos = new TreeSet<>();
+
+        void agregar(Movimiento movimiento) {
+            movimientos.add(movimiento);
+            if (movimiento.reduccion > 0) {
+                reducidos.add(movimiento.idTipoToner);
+            }
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (reducidos.isEmpty()) return;
+            // Envía los cambios pendientes para que el cálculo en la base los incluya
+            entradasTonerRepository.flush();
+            for (Integer idTipoToner : reducidos) {
+                tipoTonerRepository.lockById(idTipoToner);
+                Long stock = entradasTonerRepository.stockByTipoToner(idTipoToner);
+                if (stock != null && stock < 0) {
+                    throw new BusinessException("STOCK_INSUFICIENTE",
+                            "Stock de tóner insuficiente: el tipo " + idTipoToner + " quedaría en " + stock);
+                }
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(StockTonerLedger.this);
+            try {
+                for (Movimiento movimiento : movimientos) {
+                    movimiento.completar(status == STATUS_COMMITTED);
+                }
+            } finally {
+                salir();
+            }
+        }
+    }
+
+    private static final class Movimiento {
+        private final Integer idTipoToner;
+        private final Cuenta cuenta;
+        private final long reduccion;
+        private final int entradas;
+        private final int salidas;
+
+        Movimiento(Integer idTipoToner, Cuenta cuenta, long reduccion, int entradas, int salidas) {
+            this.idTipoToner = idTipoToner;
+            this.cuenta = cuenta;
+            this.reduccion = reduccion;
+            this.entradas = entradas;
+            this.salidas = salidas;
+        }
+
+        void completar(boolean confirmado) {
+            cuenta.completar(reduccion, entradas, salidas, confirmado);
+        }
+    }
+
+    /**
+     * Saldo de un tipo de tóner en un momento dado.
+     */
+    public static final class Saldo {
+        static final Saldo VACIO = new Saldo(0, 0);
+
+        private final long totalEntradas;
+        private final long totalSalidas;
+
+        Saldo(long totalEntradas, long totalSalidas) {
+            this.totalEntradas = totalEntradas;
+            this.totalSalidas = totalSalidas;
+        }
+
+        public long getTotalEntradas() {
+            return totalEntradas;
+        }
+
+        public long getTotalSalidas() {
+            return totalSalidas;
+        }
+
+        public long getStockActual() {
+            return totalEntradas - totalSalidas;
+        }
+    }
+
+    /**
+     * Totales confirmados de un tipo de tóner y stock reservado por transacciones en curso.
+     */
+    private static final class Cuenta {
+        private long entradas;
+        private long salidas;
+        private long reservado;
+
+        synchronized void reset(long entradas, long salidas) {
+            this.entradas = entradas;
+            this.salidas = salidas;
+        }
+
+        synchronized void reservar(long cantidad, boolean validarExistencia) {
+            if (cantidad == 0) return;
+            long disponible = entradas - salidas - reservado;
+            if (validarExistencia && disponible < cantidad) {
+                throw new BusinessException("STOCK_INSUFICIENTE",
+                        "Stock de tóner insuficiente: disponible " + Math.max(0, disponible) + ", solicitado " + cantidad);
+            }
+            reservado += cantidad;
+        }
+
+        synchronized void completar(long reserva, int entradas, int salidas, boolean confirmada) {
+            reservado -= reserva;
+            if (confirmada) {
+                this.entradas += entradas;
+                this.salidas += salidas;
+            }
+        }
+
+        synchronized Saldo saldo() {
+            return new Saldo(entradas, salidas);
+        }
+    }
+}
@@ -7,8 +7,6 @@ import saul.dto.response.StockTonerResponse;
 import saul.entity.StockToner;
 import saul.entity.TipoToner;
 import saul.exception.ResourceNotFoundException;
-import saul.repository.EntradasTonerRepository;
-import saul.repository.SalidasTonerRepository;
 import saul.repository.TipoTonerRepository;
 
 import java.util.List;
@@ -19,8 +17,7 @@ import java.util.stream.Collectors;
 public class StockTonerService {
 
     private final TipoTonerRepository tipoTonerRepository;
-    private final EntradasTonerRepository entradasTonerRepository;
-    private final SalidasTonerRepository salidasTonerRepository;
+    private final StockTonerLedger stockTonerLedger;
     private final EntityMapper mapper;
 
     public List<StockTonerResponse> findAll() {
@@ -42,15 +39,14 @@ public class StockTonerService {
     }
 
     private StockTonerResponse calculateStock(TipoToner tipoToner) {
-        Integer totalEntradas = entradasTonerRepository.sumCantidadByTipoToner(tipoToner.getId());
-        Integer totalSalidas = salidasTonerRepository.sumCantidadByTipoToner(tipoToner.getId());
+        StockTonerLedger.Saldo saldo = stockTonerLedger.getSaldo(tipoToner.getId());
 
         StockToner stock = new StockToner();
         stock.setIdTipoToner(tipoToner.getId());
         stock.setNombreTipoToner(tipoToner.getNombreTipoToner());
-        stock.setTotalEntradas(totalEntradas != null ? totalEntradas : 0);
-        stock.setTotalSalidas(totalSalidas != null ? totalSalidas : 0);
-        stock.setStockActual(stock.getTotalEntradas() - stock.getTotalSalidas());
+        stock.setTotalEntradas((int) saldo.getTotalEntradas());
+        stock.setTotalSalidas((int) saldo.getTotalSalidas());
+        stock.setStockActual((int) saldo.getStockActual());
 
         return mapper.toResponse(stock);
     }
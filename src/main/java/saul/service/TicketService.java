@@ -32,6 +32,7 @@ public class TicketService {
     private final EstadoTicketRepository estadoTicketRepository;
     private final TipoPrioridadTicketRepository tipoPrioridadTicketRepository;
     private final DepartamentoRepository departamentoRepository;
+    private final DataVersionRegistry dataVersionRegistry;
     private final EntityMapper mapper;
 
     public Page<TicketResponse> findAll(Pageable pageable) {
@@ -60,6 +61,7 @@ public class TicketService {
     }
 
     public TicketResponse create(TicketRequest request) {
+        dataVersionRegistry.bump(Ticket.class);
         Ticket ticket = mapper.toEntity(request);
 
         Usuario creador = usuarioRepository.findById(request.getIdUsuarioCreador())
@@ -91,6 +93,7 @@ public class TicketService {
     }
 
     public TicketResponse update(Long id, TicketRequest request) {
+        dataVersionRegistry.bump(Ticket.class);
         Ticket ticket = ticketRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Ticket", "id", id));
 
@@ -129,6 +132,7 @@ public class TicketService {
     }
 
     public void delete(Long id) {
+        dataVersionRegistry.bump(Ticket.class);
         Ticket ticket = ticketRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Ticket", "id", id));
         ticket.setBorrado(true);
@@ -136,6 +140,7 @@ public class TicketService {
     }
 
     public void restore(Long id) {
+        dataVersionRegistry.bump(Ticket.class);
         Ticket ticket = ticketRepository.findByIdDeleted(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Ticket eliminado", "id", id));
         ticket.setBorrado(false);
@@ -18,6 +18,8 @@ import saul.repository.TipoDispositivoRepository;
 public class TipoDispositivoService {
 
     private final TipoDispositivoRepository tipoDispositivoRepository;
+    private final DataVersionRegistry dataVersionRegistry;
+    private final DispositivoResumenService dispositivoResumenService;
     private final EntityMapper mapper;
 
     public Page<TipoDispositivoResponse> findAll(Pageable pageable) {
@@ -36,19 +38,24 @@ public class TipoDispositivoService {
     }
 
     public TipoDispositivoResponse create(TipoDispositivoRequest request) {
+        dataVersionRegistry.bump(TipoDispositivo.class);
         TipoDispositivo tipo = mapper.toEntity(request);
         tipo.setBorrado(false);
         return mapper.toResponse(tipoDispositivoRepository.save(tipo));
     }
 
     public TipoDispositivoResponse update(Integer id, TipoDispositivoRequest request) {
+        dataVersionRegistry.bump(TipoDispositivo.class);
         TipoDispositivo tipo = tipoDispositivoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("TipoDispositivo", "id", id));
         mapper.updateEntity(tipo, request);
-        return mapper.toResponse(tipoDispositivoRepository.save(tipo));
+        TipoDispositivo guardado = tipoDispositivoRepository.save(tipo);
+        dispositivoResumenService.refreshTipoDispositivo(guardado.getIdTipoDispositivo());
+        return mapper.toResponse(guardado);
     }
 
     public void delete(Integer id) {
+        dataVersionRegistry.bump(TipoDispositivo.class);
         TipoDispositivo tipo = tipoDispositivoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("TipoDispositivo", "id", id));
         tipo.setBorrado(true);
@@ -56,6 +63,7 @@ public class TipoDispositivoService {
     }
 
     public void restore(Integer id) {
+        dataVersionRegistry.bump(TipoDispositivo.class);
         TipoDispositivo tipo = tipoDispositivoRepository.findByIdDeleted(id)
                 .orElseThrow(() -> new ResourceNotFoundException("TipoDispositivo eliminado", "id", id));
         tipo.setBorrado(false);
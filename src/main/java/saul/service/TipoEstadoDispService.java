@@ -18,6 +18,8 @@ import saul.repository.TipoEstadoDispRepository;
 public class TipoEstadoDispService {
 
     private final TipoEstadoDispRepository tipoEstadoDispRepository;
+    private final DataVersionRegistry dataVersionRegistry;
+    private final DispositivoResumenService dispositivoResumenService;
     private final EntityMapper mapper;
 
     public Page<TipoEstadoDispResponse> findAll(Pageable pageable) {
@@ -36,19 +38,24 @@ public class TipoEstadoDispService {
     }
 
     public TipoEstadoDispResponse create(TipoEstadoDispRequest request) {
+        dataVersionRegistry.bump(TipoEstadoDisp.class);
         TipoEstadoDisp tipo = mapper.toEntity(request);
         tipo.setBorrado(false);
         return mapper.toResponse(tipoEstadoDispRepository.save(tipo));
     }
 
     public TipoEstadoDispResponse update(Integer id, TipoEstadoDispRequest request) {
+        dataVersionRegistry.bump(TipoEstadoDisp.class);
         TipoEstadoDisp tipo = tipoEstadoDispRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("TipoEstadoDisp", "id", id));
         mapper.updateEntity(tipo, request);
-        return mapper.toResponse(tipoEstadoDispRepository.save(tipo));
+        TipoEstadoDisp guardado = tipoEstadoDispRepository.save(tipo);
+        dispositivoResumenService.refreshTipoEstado(guardado.getIdTipoEstado());
+        return mapper.toResponse(guardado);
     }
 
     public void delete(Integer id) {
+        dataVersionRegistry.bump(TipoEstadoDisp.class);
         TipoEstadoDisp tipo = tipoEstadoDispRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("TipoEstadoDisp", "id", id));
         tipo.setBorrado(true);
@@ -56,6 +63,7 @@ public class TipoEstadoDispService {
     }
 
     public void restore(Integer id) {
+        dataVersionRegistry.bump(TipoEstadoDisp.class);
         TipoEstadoDisp tipo = tipoEstadoDispRepository.findByIdDeleted(id)
                 .orElseThrow(() -> new ResourceNotFoundException("TipoEstadoDisp eliminado", "id", id));
         tipo.setBorrado(false);
@@ -15,6 +15,7 @@ import saul.repository.TipoIncidenteRepository;
 @Transactional
 public class TipoIncidenteService {
     private final TipoIncidenteRepository tipoIncidenteRepository;
+    private final DataVersionRegistry dataVersionRegistry;
     private final EntityMapper mapper;
     public Page<TipoIncidenteResponse> findAll(Pageable pageable) {
         return tipoIncidenteRepository.findAll(pageable).map(mapper::toResponse);
@@ -25,23 +26,27 @@ public class TipoIncidenteService {
         return mapper.toResponse(tipoIncidente);
     }
     public TipoIncidenteResponse create(TipoIncidenteRequest request) {
+        dataVersionRegistry.bump(TipoIncidente.class);
         TipoIncidente tipoIncidente = mapper.toEntity(request);
         tipoIncidente.setBorrado(false);
         return mapper.toResponse(tipoIncidenteRepository.save(tipoIncidente));
     }
     public TipoIncidenteResponse update(Long id, TipoIncidenteRequest request) {
+        dataVersionRegistry.bump(TipoIncidente.class);
         TipoIncidente tipoIncidente = tipoIncidenteRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("TipoIncidente", "id", id));
         mapper.updateEntity(tipoIncidente, request);
         return mapper.toResponse(tipoIncidenteRepository.save(tipoIncidente));
     }
     public void delete(Long id) {
+        dataVersionRegistry.bump(TipoIncidente.class);
         TipoIncidente tipoIncidente = tipoIncidenteRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("TipoIncidente", "id", id));
         tipoIncidente.setBorrado(true);
         tipoIncidenteRepository.save(tipoIncidente);
     }
     public void restore(Long id) {
+        dataVersionRegistry.bump(TipoIncidente.class);
         tipoIncidenteRepository.findByIdDeleted(id)
                 .orElseThrow(() -> new ResourceNotFoundException("TipoIncidente (eliminado)", "id", id));
         tipoIncidenteRepository.restore(id);
@@ -18,6 +18,7 @@ import saul.repository.TipoMantenimientoRepository;
 public class TipoMantenimientoService {
 
     private final TipoMantenimientoRepository tipoMantenimientoRepository;
+    private final DataVersionRegistry dataVersionRegistry;
     private final EntityMapper mapper;
 
     public Page<TipoMantenimientoResponse> findAll(Pageable pageable) {
@@ -36,12 +37,14 @@ public class TipoMantenimientoService {
     }
 
     public TipoMantenimientoResponse create(TipoMantenimientoRequest request) {
+        dataVersionRegistry.bump(TipoMantenimiento.class);
         TipoMantenimiento tipo = mapper.toEntity(request);
         tipo.setBorrado(false);
         return mapper.toResponse(tipoMantenimientoRepository.save(tipo));
     }
 
     public TipoMantenimientoResponse update(Integer id, TipoMantenimientoRequest request) {
+        dataVersionRegistry.bump(TipoMantenimiento.class);
         TipoMantenimiento tipo = tipoMantenimientoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("TipoMantenimiento", "id", id));
         mapper.updateEntity(tipo, request);
@@ -49,6 +52,7 @@ public class TipoMantenimientoService {
     }
 
     public void delete(Integer id) {
+        dataVersionRegistry.bump(TipoMantenimiento.class);
         TipoMantenimiento tipo = tipoMantenimientoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("TipoMantenimiento", "id", id));
         tipo.setBorrado(true);
@@ -56,6 +60,7 @@ public class TipoMantenimientoService {
     }
 
     public void restore(Integer id) {
+        dataVersionRegistry.bump(TipoMantenimiento.class);
         TipoMantenimiento tipo = tipoMantenimientoRepository.findByIdDeleted(id)
                 .orElseThrow(() -> new ResourceNotFoundException("TipoMantenimiento eliminado", "id", id));
         tipo.setBorrado(false);
@@ -18,6 +18,7 @@ import saul.repository.TipoPrioridadTicketRepository;
 public class TipoPrioridadTicketService {
 
     private final TipoPrioridadTicketRepository tipoPrioridadTicketRepository;
+    private final DataVersionRegistry dataVersionRegistry;
     private final EntityMapper mapper;
 
     public Page<TipoPrioridadTicketResponse> findAll(Pageable pageable) {
@@ -36,12 +37,14 @@ public class TipoPrioridadTicketService {
     }
 
     public TipoPrioridadTicketResponse create(TipoPrioridadTicketRequest request) {
+        dataVersionRegistry.bump(TipoPrioridadTicket.class);
         TipoPrioridadTicket tipo = mapper.toEntity(request);
         tipo.setBorrado(false);
         return mapper.toResponse(tipoPrioridadTicketRepository.save(tipo));
     }
 
     public TipoPrioridadTicketResponse update(Integer id, TipoPrioridadTicketRequest request) {
+        dataVersionRegistry.bump(TipoPrioridadTicket.class);
         TipoPrioridadTicket tipo = tipoPrioridadTicketRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("TipoPrioridadTicket", "id", id));
         mapper.updateEntity(tipo, request);
@@ -49,6 +52,7 @@ public class TipoPrioridadTicketService {
     }
 
     public void delete(Integer id) {
+        dataVersionRegistry.bump(TipoPrioridadTicket.class);
         TipoPrioridadTicket tipo = tipoPrioridadTicketRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("TipoPrioridadTicket", "id", id));
         tipo.setBorrado(true);
@@ -56,6 +60,7 @@ public class TipoPrioridadTicketService {
     }
 
     public void restore(Integer id) {
+        dataVersionRegistry.bump(TipoPrioridadTicket.class);
         TipoPrioridadTicket tipo = tipoPrioridadTicketRepository.findByIdDeleted(id)
                 .orElseThrow(() -> new ResourceNotFoundException("TipoPrioridadTicket eliminado", "id", id));
         tipo.setBorrado(false);
@@ -18,6 +18,7 @@ import saul.repository.TipoTonerRepository;
 public class TipoTonerService {
 
     private final TipoTonerRepository tipoTonerRepository;
+    private final DataVersionRegistry dataVersionRegistry;
     private final EntityMapper mapper;
 
     public Page<TipoTonerResponse> findAll(Pageable pageable) {
@@ -36,12 +37,14 @@ public class TipoTonerService {
     }
 
     public TipoTonerResponse create(TipoTonerRequest request) {
+        dataVersionRegistry.bump(TipoToner.class);
         TipoToner tipo = mapper.toEntity(request);
         tipo.setBorrado(false);
         return mapper.toResponse(tipoTonerRepository.save(tipo));
     }
 
     public TipoTonerResponse update(Integer id, TipoTonerRequest request) {
+        dataVersionRegistry.bump(TipoToner.class);
         TipoToner tipo = tipoTonerRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("TipoToner", "id", id));
         mapper.updateEntity(tipo, request);
@@ -49,6 +52,7 @@ public class TipoTonerService {
     }
 
     public void delete(Integer id) {
+        dataVersionRegistry.bump(TipoToner.class);
         TipoToner tipo = tipoTonerRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("TipoToner", "id", id));
         tipo.setBorrado(true);
@@ -56,6 +60,7 @@ public class TipoTonerService {
     }
 
     public void restore(Integer id) {
+        dataVersionRegistry.bump(TipoToner.class);
         TipoToner tipo = tipoTonerRepository.findByIdDeleted(id)
                 .orElseThrow(() -> new ResourceNotFoundException("TipoToner eliminado", "id", id));
         tipo.setBorrado(false);
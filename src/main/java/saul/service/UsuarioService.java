@@ -18,6 +18,7 @@ import saul.repository.UsuarioRepository;
 public class UsuarioService {
 
     private final UsuarioRepository usuarioRepository;
+    private final DataVersionRegistry dataVersionRegistry;
     private final EntityMapper mapper;
 
     public Page<UsuarioResponse> findAll(Pageable pageable) {
@@ -41,12 +42,14 @@ public class UsuarioService {
     }
 
     public UsuarioResponse create(UsuarioRequest request) {
+        dataVersionRegistry.bump(Usuario.class);
         Usuario usuario = mapper.toEntity(request);
         usuario.setBorrado(false);
         return mapper.toResponse(usuarioRepository.save(usuario));
     }
 
     public UsuarioResponse update(Long id, UsuarioRequest request) {
+        dataVersionRegistry.bump(Usuario.class);
         Usuario usuario = usuarioRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario", "id", id));
         mapper.updateEntity(usuario, request);
@@ -54,6 +57,7 @@ public class UsuarioService {
     }
 
     public void delete(Long id) {
+        dataVersionRegistry.bump(Usuario.class);
         Usuario usuario = usuarioRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario", "id", id));
         usuario.setBorrado(true);
@@ -61,6 +65,7 @@ public class UsuarioService {
     }
 
     public void restore(Long id) {
+        dataVersionRegistry.bump(Usuario.class);
         Usuario usuario = usuarioRepository.findByIdDeleted(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario eliminado", "id", id));
         usuario.setBorrado(false);
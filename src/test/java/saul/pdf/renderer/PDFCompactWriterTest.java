@@ -0,0 +1,86 @@
+package saul.pdf.renderer;
+
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Guarda documentos con {@link PDFCompactWriter} y los vuelve a leer con PDFBox.
+ */
+class PDFCompactWriterTest {
+
+    @Test
+    @DisplayName("Debe escribir streams de objetos y stream de referencias que PDFBox vuelve a leer")
+    void idaYVuelta() throws IOException {
+        byte[] pdf;
+        try (PDDocument document = new PDDocument()) {
+            PDFont font = PDFFontRegistry.forDocument(document).getFont(TextBoxConfig.FontStyle.NORMAL);
+            for (int i = 1; i <= 3; i++) {
+                addPage(document, font, "Reporte de prueba página " + i);
+            }
+            pdf = write(document);
+        }
+
+        String raw = new String(pdf, StandardCharsets.ISO_8859_1);
+        assertTrue(raw.contains("/Type /XRef"));
+        assertTrue(raw.contains("/Type /ObjStm"));
+
+        try (PDDocument loaded = PDDocument.load(pdf)) {
+            assertEquals(3, loaded.getNumberOfPages());
+            String text = new PDFTextStripper().getText(loaded);
+            assertTrue(text.contains("Reporte de prueba página 1"));
+            assertTrue(text.contains("Reporte de prueba página 3"));
+        }
+    }
+
+    @Test
+    @DisplayName("Debe incrustar el subconjunto de una fuente que no pasó por el registro")
+    void fuenteFueraDelRegistro() throws IOException {
+        byte[] pdf;
+        try (PDDocument document = new PDDocument()) {
+            PDFont font = PDType0Font.load(document, PDFFontCache.get(TextBoxConfig.FontStyle.BOLD), true);
+            addPage(document, font, "Fuente sin registro");
+            pdf = write(document);
+        }
+
+        try (PDDocument loaded = PDDocument.load(pdf)) {
+            PDResources resources = loaded.getPage(0).getResources();
+            COSName name = resources.getFontNames().iterator().next();
+            PDType0Font font = (PDType0Font) resources.getFont(name);
+            assertNotNull(font.getDescendantFont().getFontDescriptor().getFontFile2());
+            assertTrue(new PDFTextStripper().getText(loaded).contains("Fuente sin registro"));
+        }
+    }
+
+    private static void addPage(PDDocument document, PDFont font, String text) throws IOException {
+        PDPage page = new PDPage();
+        document.addPage(page);
+        try (PDPageContentStream cs = new PDPageContentStream(document, page)) {
+            cs.beginText();
+            cs.setFont(font, 12);
+            cs.newLineAtOffset(50, 700);
+            cs.showText(text);
+            cs.endText();
+        }
+    }
+
+    private static byte[] write(PDDocument document) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = new PDFCompactWriter(PDFSaveOptions.compact()).write(document, out);
+        assertEquals(out.size(), written);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,180 @@
+package saul.reports.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.transaction.PlatformTransactionManager;
+import saul.entity.*;
+import saul.pdf.service.PDFBoxService;
+import saul.reports.dto.MantenimientoReportDTO;
+import saul.reports.generator.*;
+import saul.repository.*;
+import saul.service.MantenimientoRezagoIndex;
+import saul.service.StockTonerService;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Cuenta las sentencias SQL que prepara Hibernate al generar el reporte de
+ * mantenimientos contra la base de datos real: deben ser las mismas con pocos
+ * o muchos dispositivos.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ReportServiceStatementCountTest {
+
+    // Fuera del rango de los datos iniciales de data.sql
+    private static final LocalDate INICIO = LocalDate.of(2099, 1, 1);
+    private static final LocalDate FIN = LocalDate.of(2099, 1, 31);
+
+    @Autowired private EntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private MantenimientoRepository mantenimientoRepository;
+    @Autowired private DispositivoRepository dispositivoRepository;
+    @Autowired private TipoDispositivoRepository tipoDispositivoRepository;
+    @Autowired private HistorialUbicacionRepository historialUbicacionRepository;
+    @Autowired private EntradasTonerRepository entradasTonerRepository;
+    @Autowired private SalidasTonerRepository salidasTonerRepository;
+    @Autowired private AnotacionRepository anotacionRepository;
+    @Autowired private BitacoraServicioRepository bitacoraServicioRepository;
+    @Autowired private TicketRepository ticketRepository;
+    @Autowired private DispositivoResumenRepository dispositivoResumenRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private final MantenimientoReportGenerator mantenimientoReportGenerator = mock(MantenimientoReportGenerator.class);
+
+    private ReportService reportService;
+    private Statistics statistics;
+
+    private TipoDispositivo tipo;
+    private TipoEstadoDisp estado;
+    private TipoMantenimiento tipoMantenimiento;
+    private Usuario usuario;
+    private Lugar lugar;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        DispositivoReportResolver resolver = new DispositivoReportResolver(historialUbicacionRepository);
+        reportService = new ReportService(mock(ImagePageGenerator.class), mantenimientoReportGenerator,
+                mock(EquipoRezagadoReportGenerator.class), mock(EntradasTonerReportGenerator.class),
+                mock(SalidasTonerReportGenerator.class), mock(StockTonerReportGenerator.class),
+                mock(AnotacionesReportGenerator.class), mock(BitacoraServicioReportGenerator.class),
+                mock(DispositivoReportGenerator.class), mock(HistorialUbicacionReportGenerator.class),
+                mock(TicketReportGenerator.class), mock(DispositivoRegistroReportGenerator.class),
+                mantenimientoRepository, dispositivoRepository, tipoDispositivoRepository,
+                historialUbicacionRepository, entradasTonerRepository, salidasTonerRepository,
+                anotacionRepository, bitacoraServicioRepository, ticketRepository,
+                mock(StockTonerService.class), entityManager, mock(PDFBoxService.class),
+                mock(ReportShardExecutor.class), resolver, dispositivoResumenRepository,
+                mock(MantenimientoRezagoIndex.class), transactionManager);
+        when(mantenimientoReportGenerator.renderReport(anyList(), any(), any(), any()))
+                .thenReturn(mock(PDDocument.class));
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        tipo = new TipoDispositivo();
+        tipo.setNombreTipo("Tipo de prueba");
+        entityManager.persist(tipo);
+
+        estado = new TipoEstadoDisp();
+        estado.setNombreEstado("Estado de prueba");
+        entityManager.persist(estado);
+
+        tipoMantenimiento = new TipoMantenimiento();
+        tipoMantenimiento.setNombreTipoMantenimiento("Mantenimiento de prueba");
+        entityManager.persist(tipoMantenimiento);
+
+        usuario = new Usuario();
+        usuario.setNombre("Usuario");
+        usuario.setApellido("Prueba");
+        usuario.setUsuarioLogin("usuario.prueba.reportes");
+        usuario.setRol("ADMIN");
+        entityManager.persist(usuario);
+
+        Departamento departamento = new Departamento();
+        departamento.setNombreDepartamento("Departamento de prueba");
+        entityManager.persist(departamento);
+
+        lugar = new Lugar();
+        lugar.setNombreLugar("Lugar de prueba");
+        lugar.setDepartamento(departamento);
+        entityManager.persist(lugar);
+    }
+
+    @Test
+    @DisplayName("Debe preparar las mismas sentencias con 3 que con 60 dispositivos")
+    void sentenciasConstantes() {
+        long pocos = statementsForReport(3);
+        long muchos = statementsForReport(60);
+
+        // Una consulta de mantenimientos con sus asociaciones y una de ubicaciones actuales
+        assertEquals(2, pocos);
+        assertEquals(pocos, muchos);
+    }
+
+    /**
+     * Crea dispositivos nuevos con un mantenimiento en el rango y una ubicación
+     * actual cada uno, limpia el contexto de persistencia para que nada salga de
+     * la cache de primer nivel y cuenta las sentencias del reporte.
+     */
+    private long statementsForReport(int dispositivos) {
+        for (int i = 0; i < dispositivos; i++) {
+            Dispositivo dispositivo = new Dispositivo();
+            dispositivo.setTipoDispositivo(tipo);
+            dispositivo.setTipoEstado(estado);
+            dispositivo.setMarca("Marca " + i);
+            entityManager.persist(dispositivo);
+
+            Mantenimiento mantenimiento = new Mantenimiento();
+            mantenimiento.setDispositivo(dispositivo);
+            mantenimiento.setTipoMantenimiento(tipoMantenimiento);
+            mantenimiento.setUsuarioSolicita(usuario);
+            mantenimiento.setUsuarioAtiende(usuario);
+            mantenimiento.setDescripcion("Mantenimiento " + i);
+            mantenimiento.setFechaProgramada(INICIO);
+            mantenimiento.setFechaRealizado(INICIO.plusDays(i % 28));
+            mantenimiento.setEstado("REALIZADO");
+            entityManager.persist(mantenimiento);
+
+            HistorialUbicacion ubicacion = new HistorialUbicacion();
+            ubicacion.setDispositivo(dispositivo);
+            ubicacion.setLugar(lugar);
+            ubicacion.setUsuario(usuario);
+            ubicacion.setFechaEntrada(LocalDateTime.of(2098, 12, 1, 8, 0));
+            entityManager.persist(ubicacion);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        clearInvocations(mantenimientoReportGenerator);
+        statistics.clear();
+
+        reportService.generateMantenimientoReport(INICIO, FIN, null);
+        long statements = statistics.getPrepareStatementCount();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<MantenimientoReportDTO>> dtos = ArgumentCaptor.forClass(List.class);
+        verify(mantenimientoReportGenerator).renderReport(dtos.capture(), eq(INICIO), eq(FIN), isNull());
+        for (MantenimientoReportDTO dto : dtos.getValue()) {
+            assertEquals("Lugar de prueba", dto.getLugarActual());
+            assertEquals("Usuario Prueba", dto.getUsuarioAtiende());
+        }
+        return statements;
+    }
+}
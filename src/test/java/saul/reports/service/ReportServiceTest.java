@@ -0,0 +1,210 @@
+package saul.reports.service;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import saul.entity.Dispositivo;
+import saul.entity.DispositivoResumen;
+import saul.entity.Mantenimiento;
+import saul.pdf.service.PDFBoxService;
+import saul.reports.dto.EquipoRezagadoReportDTO;
+import saul.reports.dto.MantenimientoReportDTO;
+import saul.reports.dto.UbicacionActualDTO;
+import saul.reports.generator.*;
+import saul.repository.*;
+import saul.service.MantenimientoRezagoIndex;
+import saul.service.StockTonerService;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Verifica que el reporte de mantenimientos lea la ubicación actual de los
+ * dispositivos por lotes y no una consulta por fila, y que el de equipos
+ * rezagados tome los candidatos del índice y sus datos de una sola lectura del
+ * resumen de dispositivos.
+ */
+@ExtendWith(MockitoExtension.class)
+class ReportServiceTest {
+
+    @Mock private ImagePageGenerator imagePageGenerator;
+    @Mock private MantenimientoReportGenerator mantenimientoReportGenerator;
+    @Mock private EquipoRezagadoReportGenerator equipoRezagadoReportGenerator;
+    @Mock private EntradasTonerReportGenerator entradasTonerReportGenerator;
+    @Mock private SalidasTonerReportGenerator salidasTonerReportGenerator;
+    @Mock private StockTonerReportGenerator stockTonerReportGenerator;
+    @Mock private AnotacionesReportGenerator anotacionesReportGenerator;
+    @Mock private BitacoraServicioReportGenerator bitacoraServicioReportGenerator;
+    @Mock private DispositivoReportGenerator dispositivoReportGenerator;
+    @Mock private HistorialUbicacionReportGenerator historialUbicacionReportGenerator;
+    @Mock private TicketReportGenerator ticketReportGenerator;
+    @Mock private DispositivoRegistroReportGenerator dispositivoRegistroReportGenerator;
+    @Mock private MantenimientoRepository mantenimientoRepository;
+    @Mock private DispositivoRepository dispositivoRepository;
+    @Mock private TipoDispositivoRepository tipoDispositivoRepository;
+    @Mock private HistorialUbicacionRepository historialUbicacionRepository;
+    @Mock private EntradasTonerRepository entradasTonerRepository;
+    @Mock private SalidasTonerRepository salidasTonerRepository;
+    @Mock private AnotacionRepository anotacionRepository;
+    @Mock private BitacoraServicioRepository bitacoraServicioRepository;
+    @Mock private TicketRepository ticketRepository;
+    @Mock private StockTonerService stockTonerService;
+    @Mock private EntityManager entityManager;
+    @Mock private PDFBoxService pdfBoxService;
+    @Mock private ReportShardExecutor shardExecutor;
+    @Mock private DispositivoResumenRepository dispositivoResumenRepository;
+    @Mock private MantenimientoRezagoIndex mantenimientoRezagoIndex;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private ReportService reportService;
+
+    private final LocalDate inicio = LocalDate.of(2025, 1, 1);
+    private final LocalDate fin = LocalDate.of(2025, 1, 31);
+
+    @BeforeEach
+    void setUp() {
+        DispositivoReportResolver resolver = new DispositivoReportResolver(historialUbicacionRepository);
+
+        reportService = new ReportService(imagePageGenerator, mantenimientoReportGenerator,
+                equipoRezagadoReportGenerator, entradasTonerReportGenerator, salidasTonerReportGenerator,
+                stockTonerReportGenerator, anotacionesReportGenerator, bitacoraServicioReportGenerator,
+                dispositivoReportGenerator, historialUbicacionReportGenerator, ticketReportGenerator,
+                dispositivoRegistroReportGenerator, mantenimientoRepository, dispositivoRepository,
+                tipoDispositivoRepository, historialUbicacionRepository, entradasTonerRepository,
+                salidasTonerRepository, anotacionRepository, bitacoraServicioRepository, ticketRepository,
+                stockTonerService, entityManager, pdfBoxService, shardExecutor, resolver,
+                dispositivoResumenRepository, mantenimientoRezagoIndex, transactionManager);
+    }
+
+    private static Dispositivo dispositivo(long id) {
+        Dispositivo dispositivo = new Dispositivo();
+        dispositivo.setIdDispositivo(id);
+        dispositivo.setMarca("Marca " + id);
+        return dispositivo;
+    }
+
+    private static DispositivoResumen resumen(long id) {
+        DispositivoResumen resumen = new DispositivoResumen();
+        resumen.setIdDispositivo(id);
+        resumen.setMarca("Marca " + id);
+        return resumen;
+    }
+
+    private static Mantenimiento mantenimiento(long id, Dispositivo dispositivo) {
+        Mantenimiento mantenimiento = new Mantenimiento();
+        mantenimiento.setIdMantenimiento(id);
+        mantenimiento.setDispositivo(dispositivo);
+        mantenimiento.setFechaRealizado(LocalDate.of(2025, 1, 10));
+        return mantenimiento;
+    }
+
+    @Nested
+    @DisplayName("Reporte de mantenimientos")
+    class Mantenimientos {
+
+        @Test
+        @DisplayName("Debe leer las ubicaciones de todos los dispositivos en una sola consulta")
+        void ubicacionesEnUnaConsulta() throws IOException {
+            Dispositivo d1 = dispositivo(1L);
+            Dispositivo d2 = dispositivo(2L);
+            List<Mantenimiento> mantenimientos = List.of(
+                    mantenimiento(10L, d1), mantenimiento(11L, d2), mantenimiento(12L, d1));
+
+            when(mantenimientoRepository.findByFechaRealizadoBetweenAndTipoDispositivoForReport(inicio, fin, null))
+                    .thenReturn(mantenimientos);
+            when(historialUbicacionRepository.findCurrentByDispositivoIds(anyCollection()))
+                    .thenReturn(List.of(new UbicacionActualDTO(1L, "Sistemas", "1", "A", "Informática")));
+
+            reportService.generateMantenimientoReport(inicio, fin, null);
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+            verify(historialUbicacionRepository, times(1)).findCurrentByDispositivoIds(ids.capture());
+            assertEquals(List.of(1L, 2L), List.copyOf(ids.getValue()));
+            verify(historialUbicacionRepository, never()).findCurrentByDispositivo(anyLong());
+            verify(mantenimientoRepository, times(1))
+                    .findByFechaRealizadoBetweenAndTipoDispositivoForReport(inicio, fin, null);
+            verifyNoMoreInteractions(historialUbicacionRepository, mantenimientoRepository);
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<MantenimientoReportDTO>> dtos = ArgumentCaptor.forClass(List.class);
+            verify(mantenimientoReportGenerator).renderReport(dtos.capture(), eq(inicio), eq(fin), isNull());
+            assertEquals(3, dtos.getValue().size());
+            assertEquals("Sistemas", dtos.getValue().get(0).getLugarActual());
+            assertEquals("Informática", dtos.getValue().get(0).getDepartamentoActual());
+            assertNull(dtos.getValue().get(1).getLugarActual());
+            assertEquals("Sistemas", dtos.getValue().get(2).getLugarActual());
+        }
+
+        @Test
+        @DisplayName("Debe dividir en lotes de " + DispositivoReportResolver.BATCH_SIZE + " ids por consulta")
+        void lotesGrandes() throws IOException {
+            int total = DispositivoReportResolver.BATCH_SIZE + 1;
+            List<Mantenimiento> mantenimientos = new ArrayList<>(total);
+            for (long id = 1; id <= total; id++) {
+                mantenimientos.add(mantenimiento(id, dispositivo(id)));
+            }
+
+            when(mantenimientoRepository.findByFechaRealizadoBetweenAndTipoDispositivoForReport(inicio, fin, null))
+                    .thenReturn(mantenimientos);
+            when(historialUbicacionRepository.findCurrentByDispositivoIds(anyCollection())).thenReturn(List.of());
+
+            reportService.generateMantenimientoReport(inicio, fin, null);
+
+            verify(historialUbicacionRepository, times(2)).findCurrentByDispositivoIds(anyCollection());
+        }
+    }
+
+    @Nested
+    @DisplayName("Reporte de equipos rezagados")
+    class EquiposRezagados {
+
+        @Test
+        @DisplayName("Debe tomar los rezagados del índice y leer una fila de resumen por dispositivo")
+        void leeDelResumen() throws IOException {
+            LocalDate ultimo = LocalDate.now().minusDays(40);
+            DispositivoResumen conMantenimiento = resumen(1L);
+            conMantenimiento.setFechaUltimoMantenimiento(ultimo);
+            DispositivoResumen sinMantenimiento = resumen(2L);
+            sinMantenimiento.setLugarActual("Urgencias");
+            sinMantenimiento.setDepartamentoActual("Enfermería");
+
+            when(mantenimientoRezagoIndex.findRezagados(30, null)).thenReturn(List.of(1L, 2L));
+            when(dispositivoResumenRepository.findAllById(List.of(1L, 2L)))
+                    .thenReturn(List.of(sinMantenimiento, conMantenimiento));
+
+            reportService.generateEquiposRezagadosReport(30, null);
+
+            verify(dispositivoResumenRepository, times(1)).findAllById(List.of(1L, 2L));
+            verifyNoInteractions(dispositivoRepository, mantenimientoRepository, historialUbicacionRepository);
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<EquipoRezagadoReportDTO>> dtos = ArgumentCaptor.forClass(List.class);
+            verify(equipoRezagadoReportGenerator).renderReport(dtos.capture(), eq(30), isNull());
+            EquipoRezagadoReportDTO primero = dtos.getValue().get(0);
+            assertEquals("Marca 1", primero.getMarca());
+            assertEquals(ultimo, primero.getFechaUltimoMantenimiento());
+            assertEquals(40L, primero.getDiasTranscurridos());
+            assertNull(primero.getLugarActual());
+            EquipoRezagadoReportDTO segundo = dtos.getValue().get(1);
+            assertNull(segundo.getFechaUltimoMantenimiento());
+            assertEquals(9999L, segundo.getDiasTranscurridos());
+            assertEquals("Urgencias", segundo.getLugarActual());
+            assertEquals("Enfermería", segundo.getDepartamentoActual());
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package saul.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import saul.reports.dto.RezagoMantenimientoDTO;
+import saul.repository.DispositivoResumenRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MantenimientoRezagoIndexTest {
+
+    private static final int COMPUTO = 1;
+    private static final int IMPRESORA = 2;
+
+    @Mock
+    private DispositivoResumenRepository dispositivoResumenRepository;
+
+    private MantenimientoRezagoIndex index;
+
+    private final LocalDate hoy = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        index = new MantenimientoRezagoIndex(dispositivoResumenRepository);
+        when(dispositivoResumenRepository.findRezagoMantenimiento()).thenReturn(List.of(
+                new RezagoMantenimientoDTO(1L, COMPUTO, hoy.minusDays(10)),
+                new RezagoMantenimientoDTO(2L, COMPUTO, hoy.minusDays(100)),
+                new RezagoMantenimientoDTO(3L, COMPUTO, null),
+                new RezagoMantenimientoDTO(4L, IMPRESORA, hoy.minusDays(45)),
+                new RezagoMantenimientoDTO(5L, IMPRESORA, hoy.minusDays(30))));
+    }
+
+    @Nested
+    @DisplayName("Consulta de rezagados")
+    class FindRezagados {
+
+        @Test
+        @DisplayName("Debe devolver los dispositivos sin mantenimiento en N días, ordenados por id")
+        void porTipo() {
+            assertEquals(List.of(2L, 3L), index.findRezagados(30, COMPUTO));
+            assertEquals(List.of(4L), index.findRezagados(30, IMPRESORA));
+            assertEquals(List.of(3L), index.findRezagados(100, COMPUTO));
+        }
+
+        @Test
+        @DisplayName("Debe incluir todos los tipos con -1 o null")
+        void todosLosTipos() {
+            assertEquals(List.of(2L, 3L, 4L), index.findRezagados(30, -1));
+            assertEquals(List.of(1L, 2L, 3L, 4L, 5L), index.findRezagados(0, null));
+            verify(dispositivoResumenRepository, times(1)).findRezagoMantenimiento();
+        }
+
+        @Test
+        @DisplayName("Debe elegir el aleatorio solo entre los rezagados del tipo")
+        void aleatorio() {
+            for (int i = 0; i < 20; i++) {
+                Optional<Long> id = index.findRezagadoAleatorio(30, COMPUTO);
+                assertTrue(id.isPresent());
+                assertTrue(List.of(2L, 3L).contains(id.get()));
+            }
+            assertEquals(Optional.empty(), index.findRezagadoAleatorio(200, IMPRESORA));
+            assertEquals(Optional.empty(), index.findRezagadoAleatorio(30, 99));
+        }
+    }
+
+    @Nested
+    @DisplayName("Actualización")
+    class Refresh {
+
+        @Test
+        @DisplayName("Debe mover el dispositivo al registrar un mantenimiento")
+        void nuevoMantenimiento() {
+            index.findRezagados(30, COMPUTO);
+            when(dispositivoResumenRepository.findRezagoMantenimientoByDispositivo(2L))
+                    .thenReturn(List.of(new RezagoMantenimientoDTO(2L, COMPUTO, hoy)));
+
+            index.refresh(2L);
+
+            assertEquals(List.of(3L), index.findRezagados(30, COMPUTO));
+            assertEquals(List.of(1L, 3L), index.findRezagados(0, COMPUTO));
+        }
+
+        @Test
+        @DisplayName("Debe quitar el dispositivo borrado o dado de baja")
+        void dispositivoQuitado() {
+            index.findRezagados(30, COMPUTO);
+            when(dispositivoResumenRepository.findRezagoMantenimientoByDispositivo(4L)).thenReturn(List.of());
+
+            index.refresh(4L);
+
+            assertEquals(List.of(), index.findRezagados(30, IMPRESORA));
+            assertEquals(List.of(5L), index.findRezagados(0, IMPRESORA));
+        }
+
+        @Test
+        @DisplayName("Debe aplicar la lectura más reciente cuando dos actualizaciones se cruzan")
+        void actualizacionesConcurrentes() throws Exception {
+            index.findRezagados(30, COMPUTO);
+            CountDownLatch primeraLeyendo = new CountDownLatch(1);
+            CountDownLatch liberarPrimera = new CountDownLatch(1);
+            when(dispositivoResumenRepository.findRezagoMantenimientoByDispositivo(2L))
+                    .thenAnswer(invocation -> {
+                        // La primera lectura ve la fila anterior al mantenimiento y tarda
+                        primeraLeyendo.countDown();
+                        liberarPrimera.await();
+                        return List.of(new RezagoMantenimientoDTO(2L, COMPUTO, hoy.minusDays(100)));
+                    })
+                    .thenReturn(List.of(new RezagoMantenimientoDTO(2L, COMPUTO, hoy)));
+
+            CompletableFuture<Void> primera = CompletableFuture.runAsync(() -> index.refresh(2L));
+            assertTrue(primeraLeyendo.await(5, TimeUnit.SECONDS));
+            CompletableFuture<Void> segunda = CompletableFuture.runAsync(() -> index.refresh(2L));
+            assertThrows(TimeoutException.class, () -> segunda.get(200, TimeUnit.MILLISECONDS));
+
+            liberarPrimera.countDown();
+            primera.get(5, TimeUnit.SECONDS);
+            segunda.get(5, TimeUnit.SECONDS);
+
+            assertEquals(List.of(3L), index.findRezagados(30, COMPUTO));
+        }
+
+        @Test
+        @DisplayName("Debe quitar de inmediato un dispositivo descartado")
+        void descartar() {
+            index.findRezagados(30, COMPUTO);
+            when(dispositivoResumenRepository.findRezagoMantenimientoByDispositivo(2L)).thenReturn(List.of());
+
+            index.discard(2L);
+
+            assertEquals(List.of(3L), index.findRezagados(30, COMPUTO));
+        }
+
+        @Test
+        @DisplayName("No debe perder una invalidación confirmada durante la reconstrucción")
+        void invalidarDuranteReconstruccion() {
+            List<RezagoMantenimientoDTO> filas = List.of(new RezagoMantenimientoDTO(1L, COMPUTO, hoy.minusDays(10)));
+            when(dispositivoResumenRepository.findRezagoMantenimiento())
+                    .thenAnswer(invocation -> {
+                        // Se confirma un cambio después de leer las filas
+                        index.invalidate();
+                        return filas;
+                    })
+                    .thenReturn(filas);
+
+            index.findRezagados(30, COMPUTO);
+            index.findRezagados(30, COMPUTO);
+            index.findRezagados(30, COMPUTO);
+
+            verify(dispositivoResumenRepository, times(2)).findRezagoMantenimiento();
+        }
+
+        @Test
+        @DisplayName("Debe reconstruirse en la siguiente lectura después de invalidarse")
+        void invalidar() {
+            index.findRezagados(30, COMPUTO);
+            index.invalidate();
+            index.findRezagados(30, COMPUTO);
+            verify(dispositivoResumenRepository, times(2)).findRezagoMantenimiento();
+        }
+    }
+}
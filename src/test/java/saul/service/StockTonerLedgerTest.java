@@ -0,0 +1,195 @@
+package saul.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import saul.exception.BusinessException;
+import saul.repository.EntradasTonerRepository;
+import saul.repository.TipoTonerRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockTonerLedgerTest {
+
+    private static final int TIPO = 1;
+
+    @Mock
+    private EntradasTonerRepository entradasTonerRepository;
+
+    @Mock
+    private TipoTonerRepository tipoTonerRepository;
+
+    private StockTonerLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        ledger = new StockTonerLedger(entradasTonerRepository, tipoTonerRepository);
+        when(entradasTonerRepository.sumCantidadEntradasSalidasGroupedByTipoToner())
+                .thenReturn(totales(10, 0));
+    }
+
+    @Nested
+    @DisplayName("Validación de existencia")
+    class Existencia {
+
+        @Test
+        @DisplayName("Debe aceptar solo las salidas concurrentes que caben en el stock")
+        void salidasConcurrentes() throws Exception {
+            int hilos = 8;
+            ExecutorService executor = Executors.newFixedThreadPool(hilos);
+            CountDownLatch inicio = new CountDownLatch(1);
+            List<Future<Boolean>> resultados = new ArrayList<>();
+            try {
+                for (int i = 0; i < hilos; i++) {
+                    resultados.add(executor.submit(() -> {
+                        inicio.await();
+                        try {
+                            enTransaccion(true, () -> ledger.registrarSalida(TIPO, 3));
+                            return true;
+                        } catch (BusinessException e) {
+                            return false;
+                        }
+                    }));
+                }
+                inicio.countDown();
+                int aceptadas = 0;
+                for (Future<Boolean> resultado : resultados) {
+                    if (resultado.get(5, TimeUnit.SECONDS)) aceptadas++;
+                }
+                assertEquals(3, aceptadas);
+            } finally {
+                executor.shutdownNow();
+            }
+
+            assertEquals(9, ledger.getSaldo(TIPO).getTotalSalidas());
+            assertEquals(1, ledger.getSaldo(TIPO).getStockActual());
+        }
+
+        @Test
+        @DisplayName("Debe rechazar la corrección de una entrada que deja el stock en negativo")
+        void reduccionDeEntrada() {
+            assertThrows(BusinessException.class, () -> ledger.registrarEntrada(TIPO, -11));
+            assertEquals(10, ledger.getSaldo(TIPO).getStockActual());
+
+            ledger.registrarEntrada(TIPO, -10);
+            assertEquals(0, ledger.getSaldo(TIPO).getStockActual());
+        }
+
+        @Test
+        @DisplayName("Debe liberar la reserva cuando la transacción se revierte")
+        void reversion() {
+            enTransaccion(false, () -> ledger.registrarSalida(TIPO, 10));
+            assertEquals(10, ledger.getSaldo(TIPO).getStockActual());
+
+            enTransaccion(true, () -> ledger.registrarSalida(TIPO, 10));
+            assertEquals(0, ledger.getSaldo(TIPO).getStockActual());
+        }
+    }
+
+    @Nested
+    @DisplayName("Verificación en la base")
+    class Base {
+
+        @Test
+        @DisplayName("Debe bloquear el tipo y revertir si el stock de la base quedaría en negativo")
+        void stockNegativo() {
+            when(entradasTonerRepository.stockByTipoToner(TIPO)).thenReturn(-2L);
+
+            assertThrows(BusinessException.class,
+                    () -> enTransaccion(true, () -> ledger.registrarSalida(TIPO, 4)));
+
+            verify(entradasTonerRepository).flush();
+            verify(tipoTonerRepository).lockById(TIPO);
+            assertEquals(10, ledger.getSaldo(TIPO).getStockActual());
+        }
+
+        @Test
+        @DisplayName("No debe consultar la base si la transacción solo agrega stock")
+        void sinReduccion() {
+            enTransaccion(true, () -> ledger.registrarEntrada(TIPO, 5));
+
+            verifyNoInteractions(tipoTonerRepository);
+            verify(entradasTonerRepository, never()).stockByTipoToner(any());
+            assertEquals(15, ledger.getSaldo(TIPO).getStockActual());
+        }
+    }
+
+    @Nested
+    @DisplayName("Reconstrucción")
+    class Rebuild {
+
+        @Test
+        @DisplayName("Debe esperar a que terminen las transacciones en curso sin contar dos veces")
+        void esperaTransacciones() throws Exception {
+            TransactionSynchronizationManager.initSynchronization();
+            CompletableFuture<Void> rebuild;
+            try {
+                ledger.registrarSalida(TIPO, 2);
+
+                // La consulta de la reconstrucción ya ve la salida confirmada
+                when(entradasTonerRepository.sumCantidadEntradasSalidasGroupedByTipoToner())
+                        .thenReturn(totales(10, 2));
+                rebuild = CompletableFuture.runAsync(ledger::rebuild);
+                assertThrows(TimeoutException.class, () -> rebuild.get(200, TimeUnit.MILLISECONDS));
+            } finally {
+                completar(TransactionSynchronization.STATUS_COMMITTED);
+            }
+
+            rebuild.get(5, TimeUnit.SECONDS);
+            assertEquals(2, ledger.getSaldo(TIPO).getTotalSalidas());
+            assertEquals(8, ledger.getSaldo(TIPO).getStockActual());
+        }
+    }
+
+    private static List<Object[]> totales(long entradas, long salidas) {
+        List<Object[]> filas = new ArrayList<>();
+        filas.add(new Object[]{TIPO, entradas, salidas});
+        return filas;
+    }
+
+    /**
+     * Ejecuta el cuerpo como si estuviera en una transacción y la confirma o la
+     * revierte invocando las sincronizaciones registradas.
+     */
+    private static void enTransaccion(boolean confirmar, Runnable cuerpo) {
+        TransactionSynchronizationManager.initSynchronization();
+        int status = TransactionSynchronization.STATUS_ROLLED_BACK;
+        try {
+            cuerpo.run();
+            if (confirmar) {
+                for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+                    sync.beforeCommit(false);
+                }
+                status = TransactionSynchronization.STATUS_COMMITTED;
+            }
+        } finally {
+            completar(status);
+        }
+    }
+
+    private static void completar(int status) {
+        List<TransactionSynchronization> syncs = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        for (TransactionSynchronization sync : syncs) {
+            sync.afterCompletion(status);
+        }
+    }
+}